@@ -0,0 +1,67 @@
+/**
+ * Copyright © 2025
+ *
+ * @Author = TJTechy (Tajudeen Busari)
+ * @Version = 1.0
+ * This file is part of the Api-gateway module of the Ecommerce Microservices project.
+ */
+
+package com.tjtechy.api_gateway.cache;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import reactor.core.Disposable;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Drops the cached responses of the routes with evict-on-product-change whenever the product-service announces
+ * a product change. Any change can move a product in or out of a listing, so the whole route is dropped,
+ * not only the responses of the product.
+ * <p>
+ *   Pub/sub is fire-and-forget: a change announced while the gateway is not subscribed is missed, and the cached
+ *   responses stay until their ttl, which therefore bounds how stale the catalog can be.
+ *   The subscription is renewed when the connection to Redis is lost.
+ * </p>
+ */
+public class ProductChangeSubscriber implements AutoCloseable {
+
+  private static final Logger logger = LoggerFactory.getLogger(ProductChangeSubscriber.class);
+
+  private final Disposable subscription;
+
+  public ProductChangeSubscriber(ReactiveStringRedisTemplate redisTemplate, ResponseCacheProperties properties,
+                                 ResponseCache cache) {
+    var routeIds = properties.getRoutes().entrySet().stream()
+            .filter(route -> route.getValue().isEvictOnProductChange())
+            .map(Map.Entry::getKey)
+            .toList();
+    this.subscription = routeIds.isEmpty() ? null : subscribe(redisTemplate, properties.getProductChangeChannel(),
+            cache, routeIds);
+  }
+
+  private static Disposable subscribe(ReactiveStringRedisTemplate redisTemplate, String channel, ResponseCache cache,
+                                      List<String> routeIds) {
+    return redisTemplate.listenToChannel(channel)
+            .doOnNext(message -> {
+              logger.debug("Product {} changed, dropping the cached responses of {}", message.getMessage(), routeIds);
+              cache.evictRoutes(routeIds);
+            })
+            .retryWhen(Retry.backoff(Long.MAX_VALUE, Duration.ofSeconds(1))
+                    .maxBackoff(Duration.ofSeconds(30))
+                    .doBeforeRetry(signal -> logger.warn("Lost the product changes of {}, subscribing again: {}",
+                            channel, signal.failure().toString())))
+            .subscribe();
+  }
+
+  @Override
+  public void close() {
+    if (subscription != null) {
+      subscription.dispose();
+    }
+  }
+}
@@ -0,0 +1,103 @@
+/**
+ * Copyright © 2025
+ *
+ * @Author = TJTechy (Tajudeen Busari)
+ * @Version = 1.0
+ * This file is part of the Api-gateway module of the Ecommerce Microservices project.
+ */
+
+package com.tjtechy.api_gateway.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import org.springframework.http.HttpHeaders;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Collection;
+
+/**
+ * The responses cached by the {@link ResponseCacheGatewayFilter}, bounded by the size of their bodies,
+ * each expiring after the ttl of its route.
+ */
+public class ResponseCache {
+
+  private final Cache<Key, Entry> entries;
+
+  public ResponseCache(ResponseCacheProperties properties) {
+    this.entries = Caffeine.newBuilder()
+            .maximumWeight(properties.getMaxSize().toBytes())
+            .weigher((Key key, Entry entry) -> key.weight() + entry.body().length)
+            .expireAfter(new Expiry<Key, Entry>() {
+              @Override
+              public long expireAfterCreate(Key key, Entry entry, long currentTime) {
+                return entry.ttlNanos();
+              }
+
+              @Override
+              public long expireAfterUpdate(Key key, Entry entry, long currentTime, long currentDuration) {
+                return entry.ttlNanos();
+              }
+
+              @Override
+              public long expireAfterRead(Key key, Entry entry, long currentTime, long currentDuration) {
+                return currentDuration;
+              }
+            })
+            .build();
+  }
+
+  public Entry get(Key key) {
+    return entries.getIfPresent(key);
+  }
+
+  public void put(Key key, Entry entry) {
+    entries.put(key, entry);
+  }
+
+  /**
+   * Drops every cached response of the routes.
+   */
+  public void evictRoutes(Collection<String> routeIds) {
+    entries.asMap().keySet().removeIf(key -> routeIds.contains(key.routeId()));
+  }
+
+  public long size() {
+    return entries.estimatedSize();
+  }
+
+  /**
+   * A strong entity tag of a body: a hash of its bytes, so the same content always gets the same tag,
+   * on every instance and after every refill of the cache.
+   */
+  public static String etag(byte[] body) {
+    try {
+      var digest = MessageDigest.getInstance("SHA-256").digest(body);
+      return "\"" + Base64.getUrlEncoder().withoutPadding().encodeToString(digest).substring(0, 22) + "\"";
+    } catch (NoSuchAlgorithmException e) {
+      //every JVM ships SHA-256
+      throw new IllegalStateException(e);
+    }
+  }
+
+  /**
+   * @param routeId the route the response came through
+   * @param pathAndQuery the raw path and query of the request
+   * @param vary the values of the vary headers of the request, in their configured order
+   */
+  public record Key(String routeId, String pathAndQuery, String vary) {
+
+    private int weight() {
+      return (routeId.length() + pathAndQuery.length() + vary.length()) * 2;
+    }
+  }
+
+  /**
+   * @param headers the headers of the response worth replaying, see ResponseCacheGatewayFilter
+   * @param etag the strong entity tag of the body, quoted
+   */
+  public record Entry(HttpHeaders headers, byte[] body, String etag, long ttlNanos) {
+  }
+}
@@ -0,0 +1,39 @@
+/**
+ * Copyright © 2025
+ *
+ * @Author = TJTechy (Tajudeen Busari)
+ * @Version = 1.0
+ * This file is part of the Api-gateway module of the Ecommerce Microservices project.
+ */
+
+package com.tjtechy.api_gateway.cache;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+
+/**
+ * The response cache of the routes of ApiRoutes listed under api.response-cache.routes.
+ */
+@Configuration
+@EnableConfigurationProperties(ResponseCacheProperties.class)
+public class ResponseCacheConfiguration {
+
+  @Bean
+  public ResponseCache responseCache(ResponseCacheProperties properties) {
+    return new ResponseCache(properties);
+  }
+
+  @Bean
+  public ResponseCacheGatewayFilter responseCacheGatewayFilter(ResponseCacheProperties properties, ResponseCache responseCache) {
+    return new ResponseCacheGatewayFilter(properties, responseCache);
+  }
+
+  @Bean
+  public ProductChangeSubscriber productChangeSubscriber(ReactiveStringRedisTemplate redisTemplate,
+                                                         ResponseCacheProperties properties,
+                                                         ResponseCache responseCache) {
+    return new ProductChangeSubscriber(redisTemplate, properties, responseCache);
+  }
+}
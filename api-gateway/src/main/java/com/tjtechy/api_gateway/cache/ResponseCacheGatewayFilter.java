@@ -0,0 +1,248 @@
+/**
+ * Copyright © 2025
+ *
+ * @Author = TJTechy (Tajudeen Busari)
+ * @Version = 1.0
+ * This file is part of the Api-gateway module of the Ecommerce Microservices project.
+ */
+
+package com.tjtechy.api_gateway.cache;
+
+import org.reactivestreams.Publisher;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.NettyWriteResponseFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.core.Ordered;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR;
+
+/**
+ * Serves the anonymous GET requests of the routes listed under api.response-cache.routes from memory.
+ * <p>
+ *   A response is cached when it is a 200 without cookies that does not forbid it (Cache-Control no-store, private
+ *   or no-cache), keyed by route, path, query and the vary headers of the request. Every cached response gets a
+ *   strong ETag, the hash of its body, and a request whose If-None-Match holds it gets a 304 without a body,
+ *   whether the response came from the cache or from the service.
+ * </p>
+ * <ul>
+ *   <li>Requests with an Authorization header or a Cookie are passed on, their responses may be the client's own.</li>
+ *   <li>Requests with Cache-Control no-cache or no-store are passed on.</li>
+ *   <li>Streamed responses (NDJSON, server-sent events) are passed on as they come.</li>
+ *   <li>Responses larger than max-body-size are passed on: at most max-body-size bytes of a body without
+ *   Content-Length are held, then they are written out with the rest of the body.</li>
+ * </ul>
+ * The X-Cache header of the response tells whether it was a HIT, a MISS (now cached) or a BYPASS.
+ * Only the headers describing the body are replayed, the CORS headers of a hit come from the gateway itself.
+ */
+public class ResponseCacheGatewayFilter implements GatewayFilter, Ordered {
+
+  //before NettyWriteResponseFilter, so that it writes the response through the decorator
+  public static final int ORDER = NettyWriteResponseFilter.WRITE_RESPONSE_FILTER_ORDER - 1;
+
+  public static final String CACHE_STATUS_HEADER = "X-Cache";
+
+  private static final List<String> REPLAYED_HEADERS = List.of(HttpHeaders.CONTENT_TYPE, HttpHeaders.CONTENT_ENCODING,
+          HttpHeaders.CONTENT_LANGUAGE, HttpHeaders.CACHE_CONTROL, HttpHeaders.LAST_MODIFIED);
+
+  private static final List<MediaType> STREAMED_TYPES = List.of(MediaType.APPLICATION_NDJSON, MediaType.TEXT_EVENT_STREAM);
+
+  private final ResponseCacheProperties properties;
+
+  private final ResponseCache cache;
+
+  public ResponseCacheGatewayFilter(ResponseCacheProperties properties, ResponseCache cache) {
+    this.properties = properties;
+    this.cache = cache;
+  }
+
+  @Override
+  public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+    var routeCache = routeCache(exchange);
+    if (routeCache == null) {
+      return chain.filter(exchange);
+    }
+    Route route = exchange.getRequiredAttribute(GATEWAY_ROUTE_ATTR);
+    var key = key(route.getId(), exchange.getRequest());
+    var cached = cache.get(key);
+    if (cached != null) {
+      return replay(exchange, cached);
+    }
+    var response = new CachingResponse(exchange, key, routeCache);
+    return chain.filter(exchange.mutate().response(response).build());
+  }
+
+  @Override
+  public int getOrder() {
+    return ORDER;
+  }
+
+  //the cache policy of the route of the request, null when the request is not served from the cache
+  private ResponseCacheProperties.RouteCache routeCache(ServerWebExchange exchange) {
+    Route route = exchange.getAttribute(GATEWAY_ROUTE_ATTR);
+    var request = exchange.getRequest();
+    if (!properties.isEnabled() || route == null || !HttpMethod.GET.equals(request.getMethod())) {
+      return null;
+    }
+    var headers = request.getHeaders();
+    if (headers.getFirst(HttpHeaders.AUTHORIZATION) != null || headers.getFirst(HttpHeaders.COOKIE) != null
+            || forbidsCache(headers.getFirst(HttpHeaders.CACHE_CONTROL))) {
+      return null;
+    }
+    return properties.getRoutes().get(route.getId());
+  }
+
+  private ResponseCache.Key key(String routeId, ServerHttpRequest request) {
+    var uri = request.getURI();
+    var pathAndQuery = uri.getRawQuery() == null ? uri.getRawPath() : uri.getRawPath() + "?" + uri.getRawQuery();
+    var vary = new StringBuilder();
+    for (var name : properties.getVaryHeaders()) {
+      var values = request.getHeaders().get(name);
+      if (values != null) {
+        vary.append(String.join(",", values));
+      }
+      vary.append('\n');
+    }
+    return new ResponseCache.Key(routeId, pathAndQuery, vary.toString());
+  }
+
+  private Mono<Void> replay(ServerWebExchange exchange, ResponseCache.Entry entry) {
+    var response = exchange.getResponse();
+    response.getHeaders().addAll(entry.headers());
+    response.getHeaders().setETag(entry.etag());
+    response.getHeaders().set(CACHE_STATUS_HEADER, "HIT");
+    if (notModified(exchange.getRequest(), entry.etag())) {
+      response.setStatusCode(HttpStatus.NOT_MODIFIED);
+      return response.setComplete();
+    }
+    response.setStatusCode(HttpStatus.OK);
+    response.getHeaders().setContentLength(entry.body().length);
+    return response.writeWith(Mono.just(response.bufferFactory().wrap(entry.body())));
+  }
+
+  //If-None-Match is compared weakly (RFC 9110): W/"x" matches "x"
+  private static boolean notModified(ServerHttpRequest request, String etag) {
+    for (var tag : request.getHeaders().getIfNoneMatch()) {
+      if ("*".equals(tag) || etag.equals(tag.startsWith("W/") ? tag.substring(2) : tag)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  //copies the chunks of a body into one array and releases them
+  private static byte[] toBytes(List<DataBuffer> buffers) {
+    var bytes = new byte[buffers.stream().mapToInt(DataBuffer::readableByteCount).sum()];
+    var offset = 0;
+    for (var buffer : buffers) {
+      var length = buffer.readableByteCount();
+      buffer.read(bytes, offset, length);
+      offset += length;
+      DataBufferUtils.release(buffer);
+    }
+    return bytes;
+  }
+
+  private static boolean isStreamed(MediaType contentType) {
+    return contentType != null && STREAMED_TYPES.stream().anyMatch(contentType::isCompatibleWith);
+  }
+
+  private static boolean forbidsCache(String cacheControl) {
+    return cacheControl != null
+            && (cacheControl.contains("no-store") || cacheControl.contains("no-cache") || cacheControl.contains("private"));
+  }
+
+  /**
+   * Keeps the body the service sends, when the response can be cached, before writing it.
+   * The body is held until it passes max-body-size, then the chunks held so far are written, followed by the rest.
+   */
+  private class CachingResponse extends ServerHttpResponseDecorator {
+
+    private final ServerWebExchange exchange;
+
+    private final ResponseCache.Key key;
+
+    private final ResponseCacheProperties.RouteCache routeCache;
+
+    private CachingResponse(ServerWebExchange exchange, ResponseCache.Key key, ResponseCacheProperties.RouteCache routeCache) {
+      super(exchange.getResponse());
+      this.exchange = exchange;
+      this.key = key;
+      this.routeCache = routeCache;
+    }
+
+    @Override
+    public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+      if (!isCacheable()) {
+        getHeaders().set(CACHE_STATUS_HEADER, "BYPASS");
+        return super.writeWith(body);
+      }
+      var maxBodySize = properties.getMaxBodySize().toBytes();
+      var size = new AtomicLong();
+      //one list with the whole body if it fits, otherwise the chunks up to the limit, then one list per chunk
+      return Flux.<DataBuffer>from(body)
+              .bufferUntil(buffer -> size.addAndGet(buffer.readableByteCount()) > maxBodySize)
+              .switchOnFirst((first, chunks) -> {
+                if (first.hasValue() && size.get() <= maxBodySize) {
+                  return chunks.concatMap(buffers -> store(toBytes(buffers)));
+                }
+                getHeaders().set(CACHE_STATUS_HEADER, "BYPASS");
+                return super.writeWith(chunks.concatMapIterable(Function.identity()));
+              })
+              .doOnDiscard(DataBuffer.class, DataBufferUtils::release)
+              .then();
+    }
+
+    //NettyWriteResponseFilter writes streamed responses here, chunk by chunk
+    @Override
+    public Mono<Void> writeAndFlushWith(Publisher<? extends Publisher<? extends DataBuffer>> body) {
+      getHeaders().set(CACHE_STATUS_HEADER, "BYPASS");
+      return super.writeAndFlushWith(body);
+    }
+
+    private Mono<Void> store(byte[] bytes) {
+      var headers = new HttpHeaders();
+      for (var name : REPLAYED_HEADERS) {
+        var values = getHeaders().get(name);
+        if (values != null) {
+          headers.addAll(name, values);
+        }
+      }
+      var entry = new ResponseCache.Entry(headers, bytes, ResponseCache.etag(bytes), routeCache.getTtl().toNanos());
+      cache.put(key, entry);
+      getHeaders().setETag(entry.etag());
+      getHeaders().set(CACHE_STATUS_HEADER, "MISS");
+      if (notModified(exchange.getRequest(), entry.etag())) {
+        setStatusCode(HttpStatus.NOT_MODIFIED);
+        getHeaders().remove(HttpHeaders.CONTENT_LENGTH);
+        return super.setComplete();
+      }
+      getHeaders().setContentLength(bytes.length);
+      return super.writeWith(Mono.just(bufferFactory().wrap(bytes)));
+    }
+
+    private boolean isCacheable() {
+      var headers = getHeaders();
+      return HttpStatus.OK.equals(getStatusCode())
+              && headers.getFirst(HttpHeaders.SET_COOKIE) == null
+              && !forbidsCache(headers.getFirst(HttpHeaders.CACHE_CONTROL))
+              && !isStreamed(headers.getContentType())
+              && headers.getContentLength() <= properties.getMaxBodySize().toBytes();
+    }
+  }
+}
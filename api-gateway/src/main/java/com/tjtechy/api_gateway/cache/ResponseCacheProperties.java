@@ -0,0 +1,117 @@
+/**
+ * Copyright © 2025
+ *
+ * @Author = TJTechy (Tajudeen Busari)
+ * @Version = 1.0
+ * This file is part of the Api-gateway module of the Ecommerce Microservices project.
+ */
+
+package com.tjtechy.api_gateway.cache;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Response cache of the gateway, under api.response-cache. Only the routes listed under routes (by route id of
+ * ApiRoutes, like product-service) are cached, each with its own ttl.
+ */
+@ConfigurationProperties(prefix = "api.response-cache")
+public class ResponseCacheProperties {
+
+  private boolean enabled = true;
+
+  //memory of all the cached bodies, the least used entries are dropped beyond it
+  private DataSize maxSize = DataSize.ofMegabytes(64);
+
+  //larger responses are passed on without being cached
+  private DataSize maxBodySize = DataSize.ofKilobytes(512);
+
+  //request headers a response depends on, part of the cache key
+  private List<String> varyHeaders = new ArrayList<>(List.of("Accept", "Accept-Encoding", "Accept-Language"));
+
+  //Redis channel the product-service announces its product changes on
+  private String productChangeChannel = "product:changes";
+
+  private Map<String, RouteCache> routes = new LinkedHashMap<>();
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  public void setEnabled(boolean enabled) {
+    this.enabled = enabled;
+  }
+
+  public DataSize getMaxSize() {
+    return maxSize;
+  }
+
+  public void setMaxSize(DataSize maxSize) {
+    this.maxSize = maxSize;
+  }
+
+  public DataSize getMaxBodySize() {
+    return maxBodySize;
+  }
+
+  public void setMaxBodySize(DataSize maxBodySize) {
+    this.maxBodySize = maxBodySize;
+  }
+
+  public List<String> getVaryHeaders() {
+    return varyHeaders;
+  }
+
+  public void setVaryHeaders(List<String> varyHeaders) {
+    this.varyHeaders = varyHeaders;
+  }
+
+  public String getProductChangeChannel() {
+    return productChangeChannel;
+  }
+
+  public void setProductChangeChannel(String productChangeChannel) {
+    this.productChangeChannel = productChangeChannel;
+  }
+
+  public Map<String, RouteCache> getRoutes() {
+    return routes;
+  }
+
+  public void setRoutes(Map<String, RouteCache> routes) {
+    this.routes = routes;
+  }
+
+  /**
+   * The cache policy of a route.
+   */
+  public static class RouteCache {
+
+    private Duration ttl = Duration.ofSeconds(30);
+
+    //drop the cached responses of the route whenever a product changes
+    private boolean evictOnProductChange;
+
+    public Duration getTtl() {
+      return ttl;
+    }
+
+    public void setTtl(Duration ttl) {
+      this.ttl = ttl;
+    }
+
+    public boolean isEvictOnProductChange() {
+      return evictOnProductChange;
+    }
+
+    public void setEvictOnProductChange(boolean evictOnProductChange) {
+      this.evictOnProductChange = evictOnProductChange;
+    }
+  }
+}
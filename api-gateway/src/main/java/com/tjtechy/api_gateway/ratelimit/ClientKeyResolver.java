@@ -0,0 +1,79 @@
+/**
+ * Copyright © 2025
+ *
+ * @Author = TJTechy (Tajudeen Busari)
+ * @Version = 1.0
+ * This file is part of the Api-gateway module of the Ecommerce Microservices project.
+ */
+
+package com.tjtechy.api_gateway.ratelimit;
+
+import com.tjtechy.api_gateway.security.GatewayTokenVerifier;
+import org.springframework.cloud.gateway.filter.ratelimit.KeyResolver;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * The client a request counts against, in this order:
+ * <ul>
+ *   <li>the client of its API key (X-API-Key), when the key is one of api.rate-limit.api-keys;</li>
+ *   <li>the subject of its bearer token, once the gateway verified the token;</li>
+ *   <li>its remote address.</li>
+ * </ul>
+ * Only identities the gateway checked get their own bucket: an unknown API key or a token that does not verify
+ * counts against the remote address, so a client cannot get a fresh bucket by changing its key or its token.
+ */
+public class ClientKeyResolver implements KeyResolver {
+
+  public static final String API_KEY_HEADER = "X-API-Key";
+
+  //client name by the SHA-256 of its key, so that the keys themselves are neither configured nor stored in Redis
+  private final Map<String, String> clientsByKeyHash;
+
+  private final GatewayTokenVerifier tokenVerifier;
+
+  public ClientKeyResolver(Map<String, String> apiKeys, GatewayTokenVerifier tokenVerifier) {
+    this.clientsByKeyHash = new HashMap<>();
+    apiKeys.forEach((client, keyHash) -> clientsByKeyHash.put(keyHash.trim().toLowerCase(Locale.ROOT), client));
+    this.tokenVerifier = tokenVerifier;
+  }
+
+  @Override
+  public Mono<String> resolve(ServerWebExchange exchange) {
+    var apiKey = exchange.getRequest().getHeaders().getFirst(API_KEY_HEADER);
+    if (apiKey != null && !apiKey.isBlank()) {
+      var client = clientsByKeyHash.get(sha256(apiKey));
+      if (client != null) {
+        return Mono.just("key:" + client);
+      }
+    }
+    return tokenVerifier.verify(exchange)
+            .map(authentication -> "sub:" + authentication.getName())
+            .switchIfEmpty(Mono.fromSupplier(() -> "ip:" + remoteAddress(exchange)));
+  }
+
+  private static String remoteAddress(ServerWebExchange exchange) {
+    var remoteAddress = exchange.getRequest().getRemoteAddress();
+    return remoteAddress != null && remoteAddress.getAddress() != null
+            ? remoteAddress.getAddress().getHostAddress()
+            : "unknown";
+  }
+
+  static String sha256(String value) {
+    try {
+      var digest = MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.UTF_8));
+      return HexFormat.of().formatHex(digest);
+    } catch (NoSuchAlgorithmException e) {
+      //every JVM ships SHA-256
+      throw new IllegalStateException(e);
+    }
+  }
+}
@@ -0,0 +1,173 @@
+/**
+ * Copyright © 2025
+ *
+ * @Author = TJTechy (Tajudeen Busari)
+ * @Version = 1.0
+ * This file is part of the Api-gateway module of the Ecommerce Microservices project.
+ */
+
+package com.tjtechy.api_gateway.ratelimit;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cloud.gateway.filter.ratelimit.RateLimiter;
+import reactor.core.publisher.Mono;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Rate limiter of the RequestRateLimiter filter: one token bucket per route and client, shared by the gateway
+ * instances through a {@link TokenBucketStore} (Redis).
+ * <p>
+ *   Asking Redis on every request would add a round trip to all of them, so tokens are taken a batch at a time
+ *   and spent locally, for up to the lease ttl. Most requests only decrement a local counter, and the store is
+ *   called about once per batch. When the bucket is empty, the refusal is also kept locally until the bucket
+ *   has a token again (or the lease expires), so a client over its quota does not reach Redis on every request.
+ *   Concurrent refills of a client are coalesced into one call.
+ * </p>
+ * The price is precision: each instance can admit up to a batch more than the quota, and the tokens of a lease
+ * that expires unspent are lost. A batch size of 1 makes every decision in Redis.
+ * If Redis fails, requests are allowed (fail open), as with the RedisRateLimiter of Spring Cloud Gateway.
+ */
+public class PreallocatingRateLimiter implements RateLimiter<RateLimitProperties.Quota> {
+
+  private static final Logger logger = LoggerFactory.getLogger(PreallocatingRateLimiter.class);
+
+  public static final String REMAINING_HEADER = "X-RateLimit-Remaining";
+  public static final String REPLENISH_RATE_HEADER = "X-RateLimit-Replenish-Rate";
+  public static final String BURST_CAPACITY_HEADER = "X-RateLimit-Burst-Capacity";
+  public static final String RETRY_AFTER_HEADER = "Retry-After";
+
+  private final RateLimitProperties properties;
+
+  private final TokenBucketStore store;
+
+  private final long leaseTtlNanos;
+
+  private final Cache<String, Lease> leases;
+
+  //the refill of each bucket in progress, that the concurrent requests of the client wait for
+  private final Map<String, Mono<Lease>> refills = new ConcurrentHashMap<>();
+
+  public PreallocatingRateLimiter(RateLimitProperties properties, TokenBucketStore store) {
+    this.properties = properties;
+    this.store = store;
+    this.leaseTtlNanos = properties.getLeaseTtl().toNanos();
+    this.leases = Caffeine.newBuilder()
+            .maximumSize(properties.getMaxLeases())
+            .expireAfterWrite(properties.getLeaseTtl())
+            .build();
+  }
+
+  @Override
+  public Mono<Response> isAllowed(String routeId, String id) {
+    if (!properties.isEnabled()) {
+      return Mono.just(new Response(true, Map.of()));
+    }
+    var quota = properties.quotaFor(routeId);
+    var bucketKey = routeId + ":" + id;
+    var lease = leases.getIfPresent(bucketKey);
+    var decision = lease != null ? lease.decide(quota) : null;
+    if (decision != null) {
+      return Mono.just(decision);
+    }
+    return refill(bucketKey, quota)
+            .flatMap(refilled -> {
+              var refilledDecision = refilled.decide(quota);
+              //the other requests of the client spent the batch first: take another one
+              return refilledDecision != null ? Mono.just(refilledDecision) : isAllowed(routeId, id);
+            })
+            .onErrorResume(e -> {
+              logger.warn("Allowing a request of {}, the rate limit could not be checked: {}", bucketKey, e.toString());
+              return Mono.just(new Response(true, Map.of()));
+            });
+  }
+
+  @Override
+  public Map<String, RateLimitProperties.Quota> getConfig() {
+    return properties.getRoutes();
+  }
+
+  @Override
+  public Class<RateLimitProperties.Quota> getConfigClass() {
+    return RateLimitProperties.Quota.class;
+  }
+
+  @Override
+  public RateLimitProperties.Quota newConfig() {
+    return new RateLimitProperties.Quota();
+  }
+
+  private Mono<Lease> refill(String bucketKey, RateLimitProperties.Quota quota) {
+    return refills.computeIfAbsent(bucketKey, key -> {
+      var batch = Math.max(1, Math.min(quota.getBatchSize(), quota.getBurstCapacity()));
+      return store.take(key, quota, batch)
+              .map(grant -> {
+                var now = System.nanoTime();
+                var retryAfterNanos = Math.max(1, grant.retryAfterMillis()) * 1_000_000;
+                var lease = grant.granted() > 0
+                        ? new Lease(grant.granted(), grant.remaining(), 0, now + leaseTtlNanos)
+                        : new Lease(0, grant.remaining(), now + retryAfterNanos, now + Math.min(leaseTtlNanos, retryAfterNanos));
+                leases.put(key, lease);
+                return lease;
+              })
+              .doFinally(signal -> refills.remove(key))
+              .cache();
+    });
+  }
+
+  /**
+   * Tokens taken from the store and not spent yet, or the refusal of the store until the bucket has a token again.
+   */
+  private static final class Lease {
+
+    private final AtomicLong tokens;
+
+    private final long remainingInStore;
+
+    //when the store refused: the time it has a token again, 0 otherwise
+    private final long retryAtNanos;
+
+    private final long expiresAtNanos;
+
+    private Lease(long tokens, long remainingInStore, long retryAtNanos, long expiresAtNanos) {
+      this.tokens = new AtomicLong(tokens);
+      this.remainingInStore = remainingInStore;
+      this.retryAtNanos = retryAtNanos;
+      this.expiresAtNanos = expiresAtNanos;
+    }
+
+    //allowed when a token is left, refused while the store refused, null when the lease must be refilled
+    private Response decide(RateLimitProperties.Quota quota) {
+      var now = System.nanoTime();
+      if (now - expiresAtNanos >= 0) {
+        return null;
+      }
+      if (retryAtNanos != 0) {
+        //whole seconds, rounded up
+        var retryAfterSeconds = Math.max(1, (retryAtNanos - now + 999_999_999) / 1_000_000_000);
+        var headers = headers(quota, 0);
+        headers.put(RETRY_AFTER_HEADER, String.valueOf(retryAfterSeconds));
+        return new Response(false, headers);
+      }
+      var left = tokens.getAndUpdate(count -> count > 0 ? count - 1 : count);
+      if (left <= 0) {
+        return null;
+      }
+      return new Response(true, headers(quota, left - 1 + remainingInStore));
+    }
+
+    private static Map<String, String> headers(RateLimitProperties.Quota quota, long remaining) {
+      var headers = new LinkedHashMap<String, String>(4);
+      headers.put(REMAINING_HEADER, String.valueOf(remaining));
+      headers.put(REPLENISH_RATE_HEADER, String.valueOf(quota.getReplenishRate()));
+      headers.put(BURST_CAPACITY_HEADER, String.valueOf(quota.getBurstCapacity()));
+      return headers;
+    }
+  }
+}
@@ -0,0 +1,42 @@
+/**
+ * Copyright © 2025
+ *
+ * @Author = TJTechy (Tajudeen Busari)
+ * @Version = 1.0
+ * This file is part of the Api-gateway module of the Ecommerce Microservices project.
+ */
+
+package com.tjtechy.api_gateway.ratelimit;
+
+import com.tjtechy.api_gateway.security.GatewayTokenVerifier;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+
+/**
+ * The rate limiter and key resolver of the RequestRateLimiter filters of ApiRoutes.
+ * Both are primary, so they also replace the RedisRateLimiter and PrincipalNameKeyResolver defaults of the gateway.
+ */
+@Configuration
+@EnableConfigurationProperties(RateLimitProperties.class)
+public class RateLimitConfiguration {
+
+  @Bean
+  public TokenBucketStore tokenBucketStore(ReactiveStringRedisTemplate redisTemplate) {
+    return new RedisTokenBucketStore(redisTemplate);
+  }
+
+  @Bean
+  @Primary
+  public PreallocatingRateLimiter preallocatingRateLimiter(RateLimitProperties properties, TokenBucketStore tokenBucketStore) {
+    return new PreallocatingRateLimiter(properties, tokenBucketStore);
+  }
+
+  @Bean
+  @Primary
+  public ClientKeyResolver clientKeyResolver(RateLimitProperties properties, GatewayTokenVerifier gatewayTokenVerifier) {
+    return new ClientKeyResolver(properties.getApiKeys(), gatewayTokenVerifier);
+  }
+}
@@ -0,0 +1,128 @@
+/**
+ * Copyright © 2025
+ *
+ * @Author = TJTechy (Tajudeen Busari)
+ * @Version = 1.0
+ * This file is part of the Api-gateway module of the Ecommerce Microservices project.
+ */
+
+package com.tjtechy.api_gateway.ratelimit;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Quotas of the gateway rate limiter, under api.rate-limit: a default one, and one per route id
+ * (the ids of ApiRoutes, like order-service) for the routes that need another.
+ */
+@ConfigurationProperties(prefix = "api.rate-limit")
+public class RateLimitProperties {
+
+  private boolean enabled = true;
+
+  //how long the tokens taken from Redis in advance can be spent locally; the unspent ones are lost
+  private Duration leaseTtl = Duration.ofSeconds(1);
+
+  //clients (route and key) whose leased tokens are kept locally, the least recent ones are dropped
+  private int maxLeases = 100_000;
+
+  private Quota defaultQuota = new Quota();
+
+  private Map<String, Quota> routes = new LinkedHashMap<>();
+
+  //the API keys the gateway knows: client name to the hex SHA-256 of its key; any other key is ignored
+  private Map<String, String> apiKeys = new LinkedHashMap<>();
+
+  public Quota quotaFor(String routeId) {
+    return routes.getOrDefault(routeId, defaultQuota);
+  }
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  public void setEnabled(boolean enabled) {
+    this.enabled = enabled;
+  }
+
+  public Duration getLeaseTtl() {
+    return leaseTtl;
+  }
+
+  public void setLeaseTtl(Duration leaseTtl) {
+    this.leaseTtl = leaseTtl;
+  }
+
+  public int getMaxLeases() {
+    return maxLeases;
+  }
+
+  public void setMaxLeases(int maxLeases) {
+    this.maxLeases = maxLeases;
+  }
+
+  public Quota getDefaultQuota() {
+    return defaultQuota;
+  }
+
+  public void setDefaultQuota(Quota defaultQuota) {
+    this.defaultQuota = defaultQuota;
+  }
+
+  public Map<String, Quota> getRoutes() {
+    return routes;
+  }
+
+  public void setRoutes(Map<String, Quota> routes) {
+    this.routes = routes;
+  }
+
+  public Map<String, String> getApiKeys() {
+    return apiKeys;
+  }
+
+  public void setApiKeys(Map<String, String> apiKeys) {
+    this.apiKeys = apiKeys;
+  }
+
+  /**
+   * A token bucket: refilled with replenishRate tokens per second up to burstCapacity, one token per request.
+   */
+  public static class Quota {
+
+    private int replenishRate = 50;
+
+    private int burstCapacity = 100;
+
+    //tokens taken from Redis at once and spent locally; 1 checks every request against Redis.
+    //Each gateway instance can over-admit a client by up to this many requests per lease
+    private int batchSize = 10;
+
+    public int getReplenishRate() {
+      return replenishRate;
+    }
+
+    public void setReplenishRate(int replenishRate) {
+      this.replenishRate = replenishRate;
+    }
+
+    public int getBurstCapacity() {
+      return burstCapacity;
+    }
+
+    public void setBurstCapacity(int burstCapacity) {
+      this.burstCapacity = burstCapacity;
+    }
+
+    public int getBatchSize() {
+      return batchSize;
+    }
+
+    public void setBatchSize(int batchSize) {
+      this.batchSize = batchSize;
+    }
+  }
+}
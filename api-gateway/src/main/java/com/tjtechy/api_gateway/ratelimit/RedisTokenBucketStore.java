@@ -0,0 +1,68 @@
+/**
+ * Copyright © 2025
+ *
+ * @Author = TJTechy (Tajudeen Busari)
+ * @Version = 1.0
+ * This file is part of the Api-gateway module of the Ecommerce Microservices project.
+ */
+
+package com.tjtechy.api_gateway.ratelimit;
+
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Token buckets in Redis, one hash (tokens, ts) per route and client, updated by a script so that the
+ * refill and the take are atomic across the gateway instances. The script reads the time of Redis,
+ * so the clocks of the instances do not matter; an idle bucket expires once it would be full again.
+ */
+public class RedisTokenBucketStore implements TokenBucketStore {
+
+  private static final String TAKE_SCRIPT = """
+          local rate = tonumber(ARGV[1])
+          local capacity = tonumber(ARGV[2])
+          local requested = tonumber(ARGV[3])
+          local time = redis.call('TIME')
+          local now = tonumber(time[1]) * 1000 + math.floor(tonumber(time[2]) / 1000)
+          local bucket = redis.call('HMGET', KEYS[1], 'tokens', 'ts')
+          local tokens = tonumber(bucket[1]) or capacity
+          local last = tonumber(bucket[2]) or now
+          tokens = math.min(capacity, tokens + math.max(0, now - last) * rate / 1000)
+          local granted = math.min(requested, math.floor(tokens))
+          tokens = tokens - granted
+          redis.call('HSET', KEYS[1], 'tokens', tostring(tokens), 'ts', tostring(now))
+          redis.call('PEXPIRE', KEYS[1], math.ceil(capacity * 1000 / rate) + 1000)
+          local retryAfter = 0
+          if granted == 0 then
+            retryAfter = math.ceil((1 - tokens) * 1000 / rate)
+          end
+          return {granted, math.floor(tokens), retryAfter}
+          """;
+
+  @SuppressWarnings({"unchecked", "rawtypes"})
+  private static final RedisScript<List<Long>> TAKE = (RedisScript) RedisScript.of(TAKE_SCRIPT, List.class);
+
+  private final ReactiveStringRedisTemplate redisTemplate;
+
+  public RedisTokenBucketStore(ReactiveStringRedisTemplate redisTemplate) {
+    this.redisTemplate = redisTemplate;
+  }
+
+  @Override
+  public Mono<Grant> take(String bucketKey, RateLimitProperties.Quota quota, int requested) {
+    //the braces make it a hash tag: the bucket lands on one slot of a Redis cluster
+    var keys = List.of("rate_limit:{" + bucketKey + "}");
+    var args = List.of(String.valueOf(quota.getReplenishRate()), String.valueOf(quota.getBurstCapacity()),
+            String.valueOf(requested));
+    return redisTemplate.execute(TAKE, keys, args)
+            .reduce(new ArrayList<Long>(), (values, result) -> {
+              values.addAll(result);
+              return values;
+            })
+            .map(values -> new Grant(values.get(0).intValue(), values.get(1), values.get(2)));
+  }
+}
@@ -0,0 +1,33 @@
+/**
+ * Copyright © 2025
+ *
+ * @Author = TJTechy (Tajudeen Busari)
+ * @Version = 1.0
+ * This file is part of the Api-gateway module of the Ecommerce Microservices project.
+ */
+
+package com.tjtechy.api_gateway.ratelimit;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * The token buckets shared by the gateway instances.
+ */
+public interface TokenBucketStore {
+
+  /**
+   * Takes up to {@code requested} tokens from a bucket, after refilling it for the time since it was last used.
+   *
+   * @param bucketKey the bucket, one per route and client
+   * @return the tokens granted, possibly none
+   */
+  Mono<Grant> take(String bucketKey, RateLimitProperties.Quota quota, int requested);
+
+  /**
+   * @param granted the tokens taken, from 0 to the requested count
+   * @param remaining the tokens left in the bucket
+   * @param retryAfterMillis when none was granted, how long until the bucket has a token again
+   */
+  record Grant(int granted, long remaining, long retryAfterMillis) {
+  }
+}
@@ -8,7 +8,12 @@
 
 package com.tjtechy.api_gateway.routes;
 
+import com.tjtechy.api_gateway.cache.ResponseCacheGatewayFilter;
+import com.tjtechy.api_gateway.ratelimit.ClientKeyResolver;
+import com.tjtechy.api_gateway.ratelimit.PreallocatingRateLimiter;
+import org.springframework.cloud.gateway.filter.factory.RequestRateLimiterGatewayFilterFactory;
 import org.springframework.cloud.gateway.route.RouteLocator;
+import org.springframework.cloud.gateway.route.builder.GatewayFilterSpec;
 import org.springframework.cloud.gateway.route.builder.RouteLocatorBuilder;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -17,6 +22,23 @@ import org.springframework.context.annotation.Configuration;
 @Configuration
 public class ApiRoutes {
 
+  private final PreallocatingRateLimiter rateLimiter;
+
+  private final ClientKeyResolver keyResolver;
+
+  private final RequestRateLimiterGatewayFilterFactory rateLimiterFilterFactory;
+
+  private final ResponseCacheGatewayFilter responseCacheFilter;
+
+  public ApiRoutes(PreallocatingRateLimiter rateLimiter, ClientKeyResolver keyResolver,
+                   RequestRateLimiterGatewayFilterFactory rateLimiterFilterFactory,
+                   ResponseCacheGatewayFilter responseCacheFilter) {
+    this.rateLimiter = rateLimiter;
+    this.keyResolver = keyResolver;
+    this.rateLimiterFilterFactory = rateLimiterFilterFactory;
+    this.responseCacheFilter = responseCacheFilter;
+  }
+
   @Bean
   public RouteLocator customRouteLocator(RouteLocatorBuilder builder) {
     return builder.routes()
@@ -27,6 +49,7 @@ public class ApiRoutes {
 
             //PRODUCT SERVICE
             .route("product-service", r -> r.path("/api/v1/product/**")
+                    .filters(this::apiFilters)
                     .uri("lb://PRODUCT-SERVICE")) //Service is registered with Eureka
             .route("product-service-docs", r -> r.path("/aggregate/product-service/v3/api-docs")
                     .filters(f -> f.rewritePath("/aggregate/product-service/v3/api-docs", "/v3/api-docs"))
@@ -34,6 +57,7 @@ public class ApiRoutes {
 
             //ORDER SERVICE
             .route("order-service", r -> r.path("/api/v1/order/**")
+                    .filters(this::apiFilters)
                     .uri("lb://ORDER-SERVICE"))
             .route("order-service-docs", r -> r.path("/aggregate/order-service/v3/api-docs")
                     .filters(f -> f.rewritePath("/aggregate/order-service/v3/api-docs", "/v3/api-docs"))
@@ -41,6 +65,7 @@ public class ApiRoutes {
 
             //INVENTORY SERVICE
             .route("inventory-service", r -> r.path("/api/v1/inventory/**")
+                    .filters(this::apiFilters)
                     .uri("lb://INVENTORY-SERVICE"))
             .route("inventory-service-docs", r -> r.path("/aggregate/inventory-service/v3/api-docs")
                     .filters(f -> f.rewritePath("/aggregate/inventory-service/v3/api-docs", "/v3/api-docs"))
@@ -48,6 +73,7 @@ public class ApiRoutes {
 
             //NOTIFICATION SERVICE
             .route("notification-service", r -> r.path("/api/v1/notification/**")
+                    .filters(this::apiFilters)
                     .uri("lb://NOTIFICATION-SERVICE"))
             .route("notification-service-docs", r -> r.path("/aggregate/notification-service/v3/api-docs")
                     .filters(f -> f.rewritePath("/aggregate/notification-service/v3/api-docs", "/v3/api-docs"))
@@ -55,6 +81,7 @@ public class ApiRoutes {
 
             //USER SERVICE/Authentication service
             .route("user-service", r -> r.path("/api/v1/user/**", "/api/v1/auth/**")
+                    .filters(this::apiFilters)
                     .uri("lb://USER-SERVICE"))
             .route("user-service-docs", r -> r.path("/aggregate/user-service/v3/api-docs")
                     .filters(f -> f.rewritePath("/aggregate/user-service/v3/api-docs", "/v3/api-docs"))
@@ -64,4 +91,16 @@ public class ApiRoutes {
 
             .build();
   }
+
+  //the rate limit runs first, so that the responses served from the cache count against the quota too
+  private GatewayFilterSpec apiFilters(GatewayFilterSpec filters) {
+    return filters
+            .filter(rateLimiterFilterFactory.apply(this::rateLimited), ResponseCacheGatewayFilter.ORDER - 1)
+            .filter(responseCacheFilter);
+  }
+
+  //quota per route and client, see RateLimitProperties (api.rate-limit)
+  private void rateLimited(RequestRateLimiterGatewayFilterFactory.Config config) {
+    config.setRateLimiter(rateLimiter).setKeyResolver(keyResolver);
+  }
 }
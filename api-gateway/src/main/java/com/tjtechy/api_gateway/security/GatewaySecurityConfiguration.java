@@ -0,0 +1,55 @@
+/**
+ * Copyright © 2025
+ *
+ * @Author = TJTechy (Tajudeen Busari)
+ * @Version = 1.0
+ * This file is part of the Api-gateway module of the Ecommerce Microservices project.
+ */
+
+package com.tjtechy.api_gateway.security;
+
+import com.tjtechy.security.jwt.ForwardedPrincipalCodec;
+import com.tjtechy.security.jwt.TokenVerificationProperties;
+import com.tjtechy.security.jwt.VerifiedTokenCache;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.security.oauth2.jwt.NimbusReactiveJwtDecoder;
+import org.springframework.security.oauth2.jwt.ReactiveJwtDecoder;
+
+/**
+ * Token verification at the gateway, with the JWK set of the user-service
+ * (spring.security.oauth2.resourceserver.jwt.jwk-set-uri, as in the services) and the verified token
+ * cache settings of the services (app.security.jwt). The principal header the services trust
+ * (app.security.jwt.principal-header) is set here, and only here.
+ */
+@Configuration
+@EnableConfigurationProperties(TokenVerificationProperties.class)
+public class GatewaySecurityConfiguration {
+
+  @Bean
+  public ReactiveJwtDecoder gatewayJwtDecoder(@Value("${spring.security.oauth2.resourceserver.jwt.jwk-set-uri}") String jwkSetUri) {
+    return NimbusReactiveJwtDecoder.withJwkSetUri(jwkSetUri).build();
+  }
+
+  @Bean
+  public VerifiedTokenCache verifiedTokenCache(TokenVerificationProperties tokenVerificationProperties) {
+    return new VerifiedTokenCache(tokenVerificationProperties.getCacheMaxEntries(),
+            tokenVerificationProperties.getCacheMaxTtl());
+  }
+
+  @Bean
+  public GatewayTokenVerifier gatewayTokenVerifier(ReactiveJwtDecoder gatewayJwtDecoder, VerifiedTokenCache verifiedTokenCache) {
+    return new GatewayTokenVerifier(gatewayJwtDecoder, verifiedTokenCache);
+  }
+
+  @Bean
+  public PrincipalHeaderGlobalFilter principalHeaderGlobalFilter(TokenVerificationProperties tokenVerificationProperties,
+                                                                 GatewayTokenVerifier gatewayTokenVerifier) {
+    var principalHeader = tokenVerificationProperties.getPrincipalHeader();
+    var codec = principalHeader.isEnabled() ? new ForwardedPrincipalCodec(principalHeader.getSecret()) : null;
+    return new PrincipalHeaderGlobalFilter(principalHeader.getName(), codec,
+            tokenVerificationProperties.getCacheMaxTtl(), gatewayTokenVerifier);
+  }
+}
@@ -0,0 +1,84 @@
+/**
+ * Copyright © 2025
+ *
+ * @Author = TJTechy (Tajudeen Busari)
+ * @Version = 1.0
+ * This file is part of the Api-gateway module of the Ecommerce Microservices project.
+ */
+
+package com.tjtechy.api_gateway.security;
+
+import com.tjtechy.security.jwt.CachingReactiveJwtAuthenticationManager;
+import com.tjtechy.security.jwt.VerifiedTokenCache;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.oauth2.jwt.ReactiveJwtDecoder;
+import org.springframework.security.oauth2.server.resource.authentication.BearerTokenAuthenticationToken;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationConverter;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
+import org.springframework.security.oauth2.server.resource.authentication.JwtGrantedAuthoritiesConverter;
+import org.springframework.security.oauth2.server.resource.authentication.ReactiveJwtAuthenticationConverterAdapter;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+/**
+ * Verifies the bearer token of a request at the gateway, with the keys of the user-service (JWK set) and the
+ * same authorities as the services. The gateway does not reject requests itself, the services still do: this
+ * only tells the gateway filters which requests come from a verified principal.
+ * <p>
+ *   Each token is verified once, its later requests are read from the {@link VerifiedTokenCache}, and the result
+ *   is kept on the exchange for the other filters of the same request.
+ * </p>
+ */
+public class GatewayTokenVerifier {
+
+  private static final Logger logger = LoggerFactory.getLogger(GatewayTokenVerifier.class);
+
+  private static final String VERIFIED_ATTRIBUTE = GatewayTokenVerifier.class.getName() + ".VERIFIED";
+
+  private static final String BEARER_PREFIX = "Bearer ";
+
+  private final CachingReactiveJwtAuthenticationManager authenticationManager;
+
+  public GatewayTokenVerifier(ReactiveJwtDecoder jwtDecoder, VerifiedTokenCache verifiedTokenCache) {
+    var authoritiesConverter = new JwtGrantedAuthoritiesConverter();
+    authoritiesConverter.setAuthoritiesClaimName("authorities");
+    authoritiesConverter.setAuthorityPrefix("");
+    var authenticationConverter = new JwtAuthenticationConverter();
+    authenticationConverter.setJwtGrantedAuthoritiesConverter(authoritiesConverter);
+    this.authenticationManager = new CachingReactiveJwtAuthenticationManager(jwtDecoder,
+            new ReactiveJwtAuthenticationConverterAdapter(authenticationConverter), verifiedTokenCache);
+  }
+
+  /**
+   * @return the authentication of the bearer token of the request, empty when there is none or it is not valid
+   */
+  @SuppressWarnings("unchecked")
+  public Mono<JwtAuthenticationToken> verify(ServerWebExchange exchange) {
+    return (Mono<JwtAuthenticationToken>) exchange.getAttributes().computeIfAbsent(VERIFIED_ATTRIBUTE,
+            key -> verify(exchange.getRequest().getHeaders().getFirst(HttpHeaders.AUTHORIZATION)).cache());
+  }
+
+  private Mono<JwtAuthenticationToken> verify(String authorization) {
+    var token = bearerToken(authorization);
+    if (token == null) {
+      return Mono.empty();
+    }
+    return authenticationManager.authenticate(new BearerTokenAuthenticationToken(token))
+            .ofType(JwtAuthenticationToken.class)
+            .onErrorResume(e -> {
+              //forged, expired or unreadable, or the keys could not be fetched: not a verified principal
+              logger.debug("Bearer token not verified at the gateway: {}", e.toString());
+              return Mono.empty();
+            });
+  }
+
+  static String bearerToken(String authorization) {
+    if (authorization == null || !authorization.regionMatches(true, 0, BEARER_PREFIX, 0, BEARER_PREFIX.length())) {
+      return null;
+    }
+    var token = authorization.substring(BEARER_PREFIX.length()).trim();
+    return token.isEmpty() ? null : token;
+  }
+}
@@ -0,0 +1,73 @@
+/**
+ * Copyright © 2025
+ *
+ * @Author = TJTechy (Tajudeen Busari)
+ * @Version = 1.0
+ * This file is part of the Api-gateway module of the Ecommerce Microservices project.
+ */
+
+package com.tjtechy.api_gateway.security;
+
+import com.tjtechy.security.jwt.ForwardedPrincipal;
+import com.tjtechy.security.jwt.ForwardedPrincipalCodec;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.core.Ordered;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Forwards the principal of a verified bearer token to the services in a signed header
+ * (app.security.jwt.principal-header), so that they trust it instead of verifying the token again.
+ * <p>
+ *   The header sent by the client is always removed, on every route, so that only the gateway can set it.
+ *   When the principal header is disabled, or the token does not verify, the request goes on with its
+ *   bearer token only and the services authenticate it as usual.
+ * </p>
+ */
+public class PrincipalHeaderGlobalFilter implements GlobalFilter, Ordered {
+
+  private final String headerName;
+
+  //null when the principal header is disabled: the header is only removed
+  private final ForwardedPrincipalCodec codec;
+
+  private final Duration defaultTtl;
+
+  private final GatewayTokenVerifier tokenVerifier;
+
+  public PrincipalHeaderGlobalFilter(String headerName, ForwardedPrincipalCodec codec, Duration defaultTtl,
+                                     GatewayTokenVerifier tokenVerifier) {
+    this.headerName = headerName;
+    this.codec = codec;
+    this.defaultTtl = defaultTtl;
+    this.tokenVerifier = tokenVerifier;
+  }
+
+  @Override
+  public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+    var request = exchange.getRequest().mutate()
+            .headers(headers -> headers.remove(headerName))
+            .build();
+    if (codec == null) {
+      return chain.filter(exchange.mutate().request(request).build());
+    }
+    //the verification is kept on the exchange, the rate limiter key resolver reuses it
+    return tokenVerifier.verify(exchange)
+            .map(authentication -> {
+              var principal = ForwardedPrincipal.of(authentication, Instant.now().plus(defaultTtl));
+              return request.mutate().header(headerName, codec.encode(principal)).build();
+            })
+            .defaultIfEmpty(request)
+            .flatMap(forwarded -> chain.filter(exchange.mutate().request(forwarded).build()));
+  }
+
+  @Override
+  public int getOrder() {
+    //first, so that no other filter sees the header sent by the client
+    return Ordered.HIGHEST_PRECEDENCE;
+  }
+}
@@ -0,0 +1,110 @@
+/**
+ * Copyright © 2025
+ *
+ * @Author = TJTechy (Tajudeen Busari)
+ * @Version = 1.0
+ * This file is part of the Api-gateway module of the Ecommerce Microservices project.
+ */
+
+package com.tjtechy.api_gateway.benchmark;
+
+import com.tjtechy.api_gateway.ratelimit.ClientKeyResolver;
+import com.tjtechy.api_gateway.ratelimit.PreallocatingRateLimiter;
+import com.tjtechy.api_gateway.ratelimit.RateLimitProperties;
+import com.tjtechy.api_gateway.ratelimit.TokenBucketStore;
+import com.tjtechy.api_gateway.security.GatewayTokenVerifier;
+import com.tjtechy.security.jwt.VerifiedTokenCache;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.cloud.gateway.filter.ratelimit.RateLimiter;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.security.oauth2.jwt.BadJwtException;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * JMH measure of what the rate limit adds to a request: resolving the client key (a known API key) and asking the limiter.
+ * <p>
+ *   It is not part of the regular build (the class name does not end with Test) and only runs when asked:
+ *   <pre>
+ *   mvn -pl api-gateway test -Dtest=RateLimiterBenchmark -Dbenchmark=true -Dsurefire.failIfNoSpecifiedTests=false
+ *   </pre>
+ *   The store stands for Redis with a fixed round trip (ROUND_TRIP_MICROS) and never runs out, so the
+ *   result is the overhead of an allowed request. A batch size of 1 is a Redis call per request,
+ *   as with the RedisRateLimiter of Spring Cloud Gateway.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+public class RateLimiterBenchmark {
+
+  private static final long ROUND_TRIP_MICROS = 200;
+
+  private static final String API_KEY = "benchmark-key";
+
+  //hex SHA-256 of API_KEY, as configured under api.rate-limit.api-keys
+  private static final String API_KEY_HASH = "926f08afae1f31d412721b54c740579e48331b295778bd07a10b289474186411";
+
+  @Param({"1", "10", "50"})
+  public int batchSize;
+
+  private ClientKeyResolver keyResolver;
+
+  private PreallocatingRateLimiter rateLimiter;
+
+  @Setup
+  public void setUp() {
+    var properties = new RateLimitProperties();
+    properties.getDefaultQuota().setBatchSize(batchSize);
+    properties.getDefaultQuota().setBurstCapacity(Math.max(100, batchSize));
+    TokenBucketStore store = (bucketKey, quota, requested) -> Mono.fromSupplier(() -> {
+      LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(ROUND_TRIP_MICROS));
+      return new TokenBucketStore.Grant(requested, quota.getBurstCapacity(), 0);
+    });
+    //a known API key, the requests of the benchmark never reach the token verification
+    var tokenVerifier = new GatewayTokenVerifier(token -> Mono.error(new BadJwtException("not used")),
+            new VerifiedTokenCache(1, Duration.ofMinutes(1)));
+    keyResolver = new ClientKeyResolver(Map.of("benchmark", API_KEY_HASH), tokenVerifier);
+    rateLimiter = new PreallocatingRateLimiter(properties, store);
+  }
+
+  @Benchmark
+  public RateLimiter.Response isAllowed() {
+    var exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/api/v1/order")
+            .header(ClientKeyResolver.API_KEY_HEADER, API_KEY));
+    return keyResolver.resolve(exchange)
+            .flatMap(key -> rateLimiter.isAllowed("order-service", key))
+            .block();
+  }
+
+  @Test
+  void runBenchmarks() throws RunnerException {
+    new Runner(new OptionsBuilder().include(RateLimiterBenchmark.class.getName()).build()).run();
+  }
+}
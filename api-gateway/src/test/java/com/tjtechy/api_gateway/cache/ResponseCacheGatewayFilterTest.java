@@ -0,0 +1,180 @@
+/**
+ * Copyright © 2025
+ *
+ * @Author = TJTechy (Tajudeen Busari)
+ * @Version = 1.0
+ * This file is part of the Api-gateway module of the Ecommerce Microservices project.
+ */
+
+package com.tjtechy.api_gateway.cache;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.util.unit.DataSize;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR;
+
+class ResponseCacheGatewayFilterTest {
+
+  private static final String BODY = "{\"products\":[{\"productName\":\"Laptop\"}]}";
+
+  private ResponseCacheProperties properties;
+
+  private ResponseCache cache;
+
+  private ResponseCacheGatewayFilter filter;
+
+  //counts the requests that reached the service
+  private AtomicInteger forwarded;
+
+  private GatewayFilterChain chain;
+
+  @BeforeEach
+  void setUp() {
+    properties = new ResponseCacheProperties();
+    var routeCache = new ResponseCacheProperties.RouteCache();
+    routeCache.setTtl(Duration.ofMinutes(1));
+    properties.getRoutes().put("product-service", routeCache);
+    cache = new ResponseCache(properties);
+    filter = new ResponseCacheGatewayFilter(properties, cache);
+    forwarded = new AtomicInteger();
+    //writes the response of the service, as NettyWriteResponseFilter does
+    chain = exchange -> {
+      forwarded.incrementAndGet();
+      var response = exchange.getResponse();
+      response.setStatusCode(HttpStatus.OK);
+      response.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+      return response.writeWith(Mono.just(response.bufferFactory().wrap(BODY.getBytes(StandardCharsets.UTF_8))));
+    };
+  }
+
+  @Test
+  void testFilterServesTheSecondRequestFromTheCache() {
+    var first = exchange("product-service", MockServerHttpRequest.get("/api/v1/product?category=laptops"));
+    filter.filter(first, chain).block();
+    var second = exchange("product-service", MockServerHttpRequest.get("/api/v1/product?category=laptops"));
+    filter.filter(second, chain).block();
+
+    assertEquals(1, forwarded.get());
+    assertEquals("MISS", first.getResponse().getHeaders().getFirst(ResponseCacheGatewayFilter.CACHE_STATUS_HEADER));
+    assertEquals("HIT", second.getResponse().getHeaders().getFirst(ResponseCacheGatewayFilter.CACHE_STATUS_HEADER));
+    assertEquals(BODY, second.getResponse().getBodyAsString().block());
+    assertEquals(MediaType.APPLICATION_JSON, second.getResponse().getHeaders().getContentType());
+    assertEquals(first.getResponse().getHeaders().getETag(), second.getResponse().getHeaders().getETag());
+  }
+
+  @Test
+  void testFilterAnswersNotModifiedWhenTheETagMatches() {
+    var first = exchange("product-service", MockServerHttpRequest.get("/api/v1/product"));
+    filter.filter(first, chain).block();
+    var etag = first.getResponse().getHeaders().getETag();
+    assertNotNull(etag);
+
+    var conditional = exchange("product-service", MockServerHttpRequest.get("/api/v1/product")
+            .header(HttpHeaders.IF_NONE_MATCH, "W/" + etag));
+    filter.filter(conditional, chain).block();
+
+    assertEquals(HttpStatus.NOT_MODIFIED, conditional.getResponse().getStatusCode());
+    assertEquals("", conditional.getResponse().getBodyAsString().defaultIfEmpty("").block());
+    assertEquals(1, forwarded.get());
+  }
+
+  @Test
+  void testFilterKeysOnQueryAndVaryHeaders() {
+    filter.filter(exchange("product-service", MockServerHttpRequest.get("/api/v1/product?category=laptops")), chain).block();
+    filter.filter(exchange("product-service", MockServerHttpRequest.get("/api/v1/product?category=phones")), chain).block();
+    filter.filter(exchange("product-service", MockServerHttpRequest.get("/api/v1/product?category=laptops")
+            .header(HttpHeaders.ACCEPT_LANGUAGE, "fr")), chain).block();
+
+    assertEquals(3, forwarded.get());
+  }
+
+  @Test
+  void testFilterBypassesAuthenticatedRequestsAndOtherRoutes() {
+    var authenticated = exchange("product-service", MockServerHttpRequest.get("/api/v1/product")
+            .header(HttpHeaders.AUTHORIZATION, "Bearer token"));
+    filter.filter(authenticated, chain).block();
+    filter.filter(exchange("product-service", MockServerHttpRequest.get("/api/v1/product")
+            .header(HttpHeaders.AUTHORIZATION, "Bearer token")), chain).block();
+    filter.filter(exchange("order-service", MockServerHttpRequest.get("/api/v1/order")), chain).block();
+    filter.filter(exchange("order-service", MockServerHttpRequest.get("/api/v1/order")), chain).block();
+
+    assertEquals(4, forwarded.get());
+    assertEquals(0, cache.size());
+  }
+
+  @Test
+  void testEvictRoutesDropsTheCachedResponses() {
+    filter.filter(exchange("product-service", MockServerHttpRequest.get("/api/v1/product")), chain).block();
+    cache.evictRoutes(List.of("product-service"));
+    filter.filter(exchange("product-service", MockServerHttpRequest.get("/api/v1/product")), chain).block();
+
+    assertEquals(2, forwarded.get());
+  }
+
+  @Test
+  void testFilterForwardsAChunkedBodyLargerThanTheLimitWithoutCachingIt() {
+    //a body without Content-Length, in 3 chunks of about 10 bytes, above a limit of 16 bytes
+    properties.setMaxBodySize(DataSize.ofBytes(16));
+    GatewayFilterChain chunkedChain = exchange -> {
+      forwarded.incrementAndGet();
+      var response = exchange.getResponse();
+      response.setStatusCode(HttpStatus.OK);
+      response.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+      return response.writeWith(Flux.just("[\"chunk-1\",", "\"chunk-2\",", "\"chunk-3\"]")
+              .map(chunk -> response.bufferFactory().wrap(chunk.getBytes(StandardCharsets.UTF_8))));
+    };
+
+    var first = exchange("product-service", MockServerHttpRequest.get("/api/v1/product"));
+    filter.filter(first, chunkedChain).block();
+    filter.filter(exchange("product-service", MockServerHttpRequest.get("/api/v1/product")), chunkedChain).block();
+
+    assertEquals("[\"chunk-1\",\"chunk-2\",\"chunk-3\"]", first.getResponse().getBodyAsString().block());
+    assertEquals("BYPASS", first.getResponse().getHeaders().getFirst(ResponseCacheGatewayFilter.CACHE_STATUS_HEADER));
+    assertEquals(2, forwarded.get());
+    assertEquals(0, cache.size());
+  }
+
+  @Test
+  void testFilterPassesStreamedResponsesOn() {
+    GatewayFilterChain ndjsonChain = exchange -> {
+      forwarded.incrementAndGet();
+      var response = exchange.getResponse();
+      response.setStatusCode(HttpStatus.OK);
+      response.getHeaders().setContentType(MediaType.APPLICATION_NDJSON);
+      return response.writeWith(Mono.just(response.bufferFactory().wrap(BODY.getBytes(StandardCharsets.UTF_8))));
+    };
+
+    var first = exchange("product-service", MockServerHttpRequest.get("/api/v1/product/export"));
+    filter.filter(first, ndjsonChain).block();
+    filter.filter(exchange("product-service", MockServerHttpRequest.get("/api/v1/product/export")), ndjsonChain).block();
+
+    assertEquals(BODY, first.getResponse().getBodyAsString().block());
+    assertEquals("BYPASS", first.getResponse().getHeaders().getFirst(ResponseCacheGatewayFilter.CACHE_STATUS_HEADER));
+    assertEquals(2, forwarded.get());
+    assertEquals(0, cache.size());
+  }
+
+  private static MockServerWebExchange exchange(String routeId, MockServerHttpRequest.BaseBuilder<?> request) {
+    var exchange = MockServerWebExchange.from(request);
+    var route = Route.async().id(routeId).uri("lb://" + routeId).predicate(ignored -> true).build();
+    exchange.getAttributes().put(GATEWAY_ROUTE_ATTR, route);
+    return exchange;
+  }
+}
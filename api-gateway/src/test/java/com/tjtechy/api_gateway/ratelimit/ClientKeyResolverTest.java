@@ -0,0 +1,163 @@
+/**
+ * Copyright © 2025
+ *
+ * @Author = TJTechy (Tajudeen Busari)
+ * @Version = 1.0
+ * This file is part of the Api-gateway module of the Ecommerce Microservices project.
+ */
+
+package com.tjtechy.api_gateway.ratelimit;
+
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jose.jwk.source.ImmutableJWKSet;
+import com.tjtechy.api_gateway.security.GatewayTokenVerifier;
+import com.tjtechy.security.jwt.VerifiedTokenCache;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.security.oauth2.jose.jws.SignatureAlgorithm;
+import org.springframework.security.oauth2.jwt.JwsHeader;
+import org.springframework.security.oauth2.jwt.JwtClaimsSet;
+import org.springframework.security.oauth2.jwt.JwtEncoder;
+import org.springframework.security.oauth2.jwt.JwtEncoderParameters;
+import org.springframework.security.oauth2.jwt.NimbusJwtEncoder;
+import org.springframework.security.oauth2.jwt.NimbusReactiveJwtDecoder;
+import reactor.test.StepVerifier;
+
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.NoSuchAlgorithmException;
+import java.security.interfaces.RSAPrivateKey;
+import java.security.interfaces.RSAPublicKey;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ClientKeyResolverTest {
+
+  private static final KeyPair GATEWAY_KEYS = rsaKeyPair();
+
+  private static final KeyPair FORGER_KEYS = rsaKeyPair();
+
+  private ClientKeyResolver keyResolver;
+
+  @BeforeEach
+  void setUp() {
+    var tokenVerifier = new GatewayTokenVerifier(
+            NimbusReactiveJwtDecoder.withPublicKey((RSAPublicKey) GATEWAY_KEYS.getPublic()).build(),
+            new VerifiedTokenCache(100, Duration.ofMinutes(5)));
+    keyResolver = new ClientKeyResolver(Map.of("mobile-app", ClientKeyResolver.sha256("secret-key")), tokenVerifier);
+  }
+
+  @Test
+  void testResolvePrefersAKnownApiKey() {
+    var exchange = exchange("secret-key", "Bearer " + token(GATEWAY_KEYS, "john"));
+
+    StepVerifier.create(keyResolver.resolve(exchange))
+            .expectNext("key:mobile-app")
+            .verifyComplete();
+  }
+
+  @Test
+  void testResolveIgnoresAnUnknownApiKey() {
+    StepVerifier.create(keyResolver.resolve(exchange("made-up-key", null)))
+            .expectNext("ip:10.0.0.7")
+            .verifyComplete();
+  }
+
+  @Test
+  void testResolveUsesTheSubjectOfAVerifiedToken() {
+    StepVerifier.create(keyResolver.resolve(exchange(null, "Bearer " + token(GATEWAY_KEYS, "john"))))
+            .expectNext("sub:john")
+            .verifyComplete();
+  }
+
+  @Test
+  void testResolveIgnoresTheSubjectOfAForgedToken() {
+    StepVerifier.create(keyResolver.resolve(exchange(null, "Bearer " + token(FORGER_KEYS, "john"))))
+            .expectNext("ip:10.0.0.7")
+            .verifyComplete();
+    StepVerifier.create(keyResolver.resolve(exchange(null, "Bearer " + unsignedToken("{\"sub\":\"john\"}"))))
+            .expectNext("ip:10.0.0.7")
+            .verifyComplete();
+    StepVerifier.create(keyResolver.resolve(exchange(null, "Bearer not-a-jwt")))
+            .expectNext("ip:10.0.0.7")
+            .verifyComplete();
+  }
+
+  @Test
+  void testRotatingApiKeysOrSubjectsIsStillThrottled() {
+    var properties = new RateLimitProperties();
+    properties.getDefaultQuota().setReplenishRate(1);
+    properties.getDefaultQuota().setBurstCapacity(10);
+    properties.getDefaultQuota().setBatchSize(1);
+    var rateLimiter = new PreallocatingRateLimiter(properties, new InMemoryTokenBucketStore());
+
+    var allowed = 0;
+    for (var i = 0; i < 30; i++) {
+      //a new key and a new (forged) subject on every request, from the same address
+      var exchange = exchange(UUID.randomUUID().toString(), "Bearer " + token(FORGER_KEYS, "user-" + i));
+      var response = keyResolver.resolve(exchange)
+              .flatMap(key -> rateLimiter.isAllowed("order-service", key))
+              .block();
+      if (response.isAllowed()) {
+        allowed++;
+      }
+    }
+
+    assertEquals(10, allowed);
+  }
+
+  private static MockServerWebExchange exchange(String apiKey, String authorization) {
+    var request = MockServerHttpRequest.get("/api/v1/order")
+            .remoteAddress(new InetSocketAddress("10.0.0.7", 52000));
+    if (apiKey != null) {
+      request.header(ClientKeyResolver.API_KEY_HEADER, apiKey);
+    }
+    if (authorization != null) {
+      request.header(HttpHeaders.AUTHORIZATION, authorization);
+    }
+    return MockServerWebExchange.from(request);
+  }
+
+  private static String token(KeyPair keys, String subject) {
+    var rsaKey = new RSAKey.Builder((RSAPublicKey) keys.getPublic())
+            .privateKey((RSAPrivateKey) keys.getPrivate())
+            .build();
+    JwtEncoder encoder = new NimbusJwtEncoder(new ImmutableJWKSet<>(new JWKSet(rsaKey)));
+    var now = Instant.now();
+    var claims = JwtClaimsSet.builder()
+            .subject(subject)
+            .issuedAt(now)
+            .expiresAt(now.plus(Duration.ofHours(1)))
+            .claim("authorities", "ROLE_USER")
+            .build();
+    return encoder.encode(JwtEncoderParameters.from(JwsHeader.with(SignatureAlgorithm.RS256).build(), claims))
+            .getTokenValue();
+  }
+
+  private static String unsignedToken(String payload) {
+    var encoder = Base64.getUrlEncoder().withoutPadding();
+    return encoder.encodeToString("{\"alg\":\"RS256\"}".getBytes(StandardCharsets.UTF_8)) + "."
+            + encoder.encodeToString(payload.getBytes(StandardCharsets.UTF_8)) + ".signature";
+  }
+
+  private static KeyPair rsaKeyPair() {
+    try {
+      var generator = KeyPairGenerator.getInstance("RSA");
+      generator.initialize(2048);
+      return generator.generateKeyPair();
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+}
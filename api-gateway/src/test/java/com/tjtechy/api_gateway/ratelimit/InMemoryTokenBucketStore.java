@@ -0,0 +1,47 @@
+/**
+ * Copyright © 2025
+ *
+ * @Author = TJTechy (Tajudeen Busari)
+ * @Version = 1.0
+ * This file is part of the Api-gateway module of the Ecommerce Microservices project.
+ */
+
+package com.tjtechy.api_gateway.ratelimit;
+
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Buckets that are never refilled, in place of Redis, counting the calls the limiter makes.
+ */
+public class InMemoryTokenBucketStore implements TokenBucketStore {
+
+  private final Map<String, Long> buckets = new ConcurrentHashMap<>();
+
+  private final AtomicInteger calls = new AtomicInteger();
+
+  @Override
+  public Mono<Grant> take(String bucketKey, RateLimitProperties.Quota quota, int requested) {
+    return Mono.fromSupplier(() -> {
+      calls.incrementAndGet();
+      var granted = new long[1];
+      var remaining = buckets.compute(bucketKey, (key, tokens) -> {
+        var available = tokens != null ? tokens : quota.getBurstCapacity();
+        granted[0] = Math.min(requested, available);
+        return available - granted[0];
+      });
+      return new Grant((int) granted[0], remaining, granted[0] > 0 ? 0 : 1000L / quota.getReplenishRate());
+    });
+  }
+
+  public void refill(String bucketKey, long tokens) {
+    buckets.put(bucketKey, tokens);
+  }
+
+  public int calls() {
+    return calls.get();
+  }
+}
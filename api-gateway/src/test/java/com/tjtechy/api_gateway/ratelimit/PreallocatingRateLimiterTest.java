@@ -0,0 +1,118 @@
+/**
+ * Copyright © 2025
+ *
+ * @Author = TJTechy (Tajudeen Busari)
+ * @Version = 1.0
+ * This file is part of the Api-gateway module of the Ecommerce Microservices project.
+ */
+
+package com.tjtechy.api_gateway.ratelimit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class PreallocatingRateLimiterTest {
+
+  private RateLimitProperties properties;
+
+  private InMemoryTokenBucketStore store;
+
+  private PreallocatingRateLimiter rateLimiter;
+
+  @BeforeEach
+  void setUp() {
+    properties = new RateLimitProperties();
+    properties.getDefaultQuota().setReplenishRate(1);
+    properties.getDefaultQuota().setBurstCapacity(10);
+    properties.getDefaultQuota().setBatchSize(5);
+    store = new InMemoryTokenBucketStore();
+    rateLimiter = new PreallocatingRateLimiter(properties, store);
+  }
+
+  @Test
+  void testIsAllowedTakesTokensFromTheStoreABatchAtATime() {
+    for (var i = 0; i < 5; i++) {
+      StepVerifier.create(rateLimiter.isAllowed("order-service", "sub:john"))
+              .assertNext(response -> assertEquals(true, response.isAllowed()))
+              .verifyComplete();
+    }
+    assertEquals(1, store.calls());
+
+    StepVerifier.create(rateLimiter.isAllowed("order-service", "sub:john"))
+            .assertNext(response -> {
+              assertEquals(true, response.isAllowed());
+              assertEquals("4", response.getHeaders().get(PreallocatingRateLimiter.REMAINING_HEADER));
+            })
+            .verifyComplete();
+    assertEquals(2, store.calls());
+  }
+
+  @Test
+  void testIsAllowedRefusesWithRetryAfterWhenTheBucketIsEmpty() {
+    store.refill("order-service:sub:john", 0);
+
+    StepVerifier.create(rateLimiter.isAllowed("order-service", "sub:john"))
+            .assertNext(response -> {
+              assertEquals(false, response.isAllowed());
+              assertEquals("1", response.getHeaders().get(PreallocatingRateLimiter.RETRY_AFTER_HEADER));
+            })
+            .verifyComplete();
+    //the refusal is kept until the bucket has a token again
+    StepVerifier.create(rateLimiter.isAllowed("order-service", "sub:john"))
+            .assertNext(response -> assertEquals(false, response.isAllowed()))
+            .verifyComplete();
+    assertEquals(1, store.calls());
+  }
+
+  @Test
+  void testIsAllowedKeepsABucketPerRouteAndClient() {
+    store.refill("order-service:sub:john", 0);
+
+    StepVerifier.create(rateLimiter.isAllowed("product-service", "sub:john"))
+            .assertNext(response -> assertEquals(true, response.isAllowed()))
+            .verifyComplete();
+    StepVerifier.create(rateLimiter.isAllowed("order-service", "sub:jane"))
+            .assertNext(response -> assertEquals(true, response.isAllowed()))
+            .verifyComplete();
+  }
+
+  @Test
+  void testIsAllowedUsesTheQuotaOfTheRoute() {
+    var quota = new RateLimitProperties.Quota();
+    quota.setBurstCapacity(1);
+    quota.setBatchSize(1);
+    properties.getRoutes().put("user-service", quota);
+
+    StepVerifier.create(rateLimiter.isAllowed("user-service", "ip:127.0.0.1"))
+            .assertNext(response -> assertEquals(true, response.isAllowed()))
+            .verifyComplete();
+    StepVerifier.create(rateLimiter.isAllowed("user-service", "ip:127.0.0.1"))
+            .assertNext(response -> assertEquals(false, response.isAllowed()))
+            .verifyComplete();
+  }
+
+  @Test
+  void testIsAllowedAllowsWhenTheStoreFails() {
+    rateLimiter = new PreallocatingRateLimiter(properties,
+            (bucketKey, quota, requested) -> Mono.error(new IllegalStateException("redis is down")));
+
+    StepVerifier.create(rateLimiter.isAllowed("order-service", "sub:john"))
+            .assertNext(response -> assertEquals(true, response.isAllowed()))
+            .verifyComplete();
+  }
+
+  @Test
+  void testIsAllowedAllowsEverythingWhenDisabled() {
+    properties.setEnabled(false);
+    store.refill("order-service:sub:john", 0);
+
+    StepVerifier.create(rateLimiter.isAllowed("order-service", "sub:john"))
+            .assertNext(response -> assertEquals(true, response.isAllowed()))
+            .verifyComplete();
+    assertEquals(0, store.calls());
+  }
+}
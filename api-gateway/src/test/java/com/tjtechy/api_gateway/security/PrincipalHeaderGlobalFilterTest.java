@@ -0,0 +1,132 @@
+/**
+ * Copyright © 2025
+ *
+ * @Author = TJTechy (Tajudeen Busari)
+ * @Version = 1.0
+ * This file is part of the Api-gateway module of the Ecommerce Microservices project.
+ */
+
+package com.tjtechy.api_gateway.security;
+
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jose.jwk.source.ImmutableJWKSet;
+import com.tjtechy.security.jwt.ForwardedPrincipalCodec;
+import com.tjtechy.security.jwt.VerifiedTokenCache;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.security.oauth2.jose.jws.SignatureAlgorithm;
+import org.springframework.security.oauth2.jwt.JwsHeader;
+import org.springframework.security.oauth2.jwt.JwtClaimsSet;
+import org.springframework.security.oauth2.jwt.JwtEncoderParameters;
+import org.springframework.security.oauth2.jwt.NimbusJwtEncoder;
+import org.springframework.security.oauth2.jwt.NimbusReactiveJwtDecoder;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.NoSuchAlgorithmException;
+import java.security.interfaces.RSAPrivateKey;
+import java.security.interfaces.RSAPublicKey;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class PrincipalHeaderGlobalFilterTest {
+
+  private static final String HEADER = "X-Verified-Principal";
+
+  private static final KeyPair GATEWAY_KEYS = rsaKeyPair();
+
+  private final ForwardedPrincipalCodec codec = new ForwardedPrincipalCodec("0123456789abcdef0123456789abcdef");
+
+  private final GatewayTokenVerifier tokenVerifier = new GatewayTokenVerifier(
+          NimbusReactiveJwtDecoder.withPublicKey((RSAPublicKey) GATEWAY_KEYS.getPublic()).build(),
+          new VerifiedTokenCache(100, Duration.ofMinutes(5)));
+
+  @Test
+  void testFilterForwardsTheSignedPrincipalOfAVerifiedToken() {
+    //Given
+    var filter = new PrincipalHeaderGlobalFilter(HEADER, codec, Duration.ofMinutes(15), tokenVerifier);
+    var exchange = exchange("Bearer " + token("john"), "forged");
+
+    //When
+    var forwarded = filter(filter, exchange);
+
+    //Then
+    var principal = codec.decode(forwarded.getRequest().getHeaders().getFirst(HEADER));
+    assertNotNull(principal);
+    assertEquals("john", principal.name());
+    assertEquals(List.of("ROLE_USER"), principal.authorities());
+  }
+
+  @Test
+  void testFilterRemovesTheHeaderOfAnUnverifiedRequest() {
+    var filter = new PrincipalHeaderGlobalFilter(HEADER, codec, Duration.ofMinutes(15), tokenVerifier);
+
+    var forwarded = filter(filter, exchange("Bearer not-a-jwt", "forged"));
+
+    assertNull(forwarded.getRequest().getHeaders().getFirst(HEADER));
+  }
+
+  @Test
+  void testFilterOnlyRemovesTheHeaderWhenDisabled() {
+    var filter = new PrincipalHeaderGlobalFilter(HEADER, null, Duration.ofMinutes(15), tokenVerifier);
+
+    var forwarded = filter(filter, exchange("Bearer " + token("john"), "forged"));
+
+    assertNull(forwarded.getRequest().getHeaders().getFirst(HEADER));
+  }
+
+  private static ServerWebExchange filter(PrincipalHeaderGlobalFilter filter, ServerWebExchange exchange) {
+    var forwarded = new AtomicReference<ServerWebExchange>();
+    GatewayFilterChain chain = next -> {
+      forwarded.set(next);
+      return Mono.empty();
+    };
+    StepVerifier.create(filter.filter(exchange, chain)).verifyComplete();
+    return forwarded.get();
+  }
+
+  private static MockServerWebExchange exchange(String authorization, String principalHeader) {
+    return MockServerWebExchange.from(MockServerHttpRequest.get("/api/v1/order")
+            .header(HttpHeaders.AUTHORIZATION, authorization)
+            .header(HEADER, principalHeader));
+  }
+
+  private static String token(String subject) {
+    var rsaKey = new RSAKey.Builder((RSAPublicKey) GATEWAY_KEYS.getPublic())
+            .privateKey((RSAPrivateKey) GATEWAY_KEYS.getPrivate())
+            .build();
+    var encoder = new NimbusJwtEncoder(new ImmutableJWKSet<>(new JWKSet(rsaKey)));
+    var now = Instant.now();
+    var claims = JwtClaimsSet.builder()
+            .subject(subject)
+            .issuedAt(now)
+            .expiresAt(now.plus(Duration.ofHours(1)))
+            .claim("authorities", "ROLE_USER")
+            .build();
+    return encoder.encode(JwtEncoderParameters.from(JwsHeader.with(SignatureAlgorithm.RS256).build(), claims))
+            .getTokenValue();
+  }
+
+  private static KeyPair rsaKeyPair() {
+    try {
+      var generator = KeyPairGenerator.getInstance("RSA");
+      generator.initialize(2048);
+      return generator.generateKeyPair();
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+}
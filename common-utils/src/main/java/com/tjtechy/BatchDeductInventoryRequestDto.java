@@ -0,0 +1,24 @@
+/**
+ * Copyright © 2025
+ * @Author = TJTechy (Tajudeen Busari)
+ * @Version = 1.0
+ * This file is part of common-utils module of the Ecommerce Microservices project.
+ */
+package com.tjtechy;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+
+import java.util.List;
+
+/**
+ * This is a Data Transfer Object (DTO) for deducting inventory for several products at once.
+ * It is used by the order service to reserve stock for all the items of an order in a single call.
+ * The reservation is all-or-nothing: either every item is deducted or none is.
+ */
+public record BatchDeductInventoryRequestDto(
+        @NotEmpty(message = "At least one item is required")
+        List<@Valid DeductInventoryRequestDto> items
+) {
+
+}
@@ -0,0 +1,24 @@
+/**
+ * Copyright © 2025
+ * @Author = TJTechy (Tajudeen Busari)
+ * @Version = 1.0
+ * This file is part of common-utils module of the Ecommerce Microservices project.
+ */
+package com.tjtechy;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+
+import java.util.List;
+
+/**
+ * This is a Data Transfer Object (DTO) for restoring inventory for several products at once.
+ * It is used by the order service to release the stock of all the lines an order update removed or reduced
+ * in a single call. Like the batch deduction, the restoration is all-or-nothing.
+ */
+public record BatchRestoreInventoryRequestDto(
+        @NotEmpty(message = "At least one item is required")
+        List<@Valid RestoreInventoryDto> items
+) {
+
+}
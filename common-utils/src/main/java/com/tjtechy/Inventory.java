@@ -6,9 +6,11 @@
  */
 package com.tjtechy;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 
 import java.io.Serializable;
+import java.time.LocalDate;
 import java.util.UUID;
 
 /**NOTE:
@@ -36,7 +38,9 @@ import java.util.UUID;
  * 2. There is no JPA relationship annotation like @ManyToOne or @OneToOne between them.
  */
 @Entity
-@Table(name = "inventory")
+@Table(name = "inventory", indexes = {
+        @Index(name = "idx_inventory_updated_at", columnList = "updatedAt, inventoryId")
+})
 public class Inventory implements Serializable {
   @Id
   @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -47,6 +51,19 @@ public class Inventory implements Serializable {
   private Integer availableStock;
   @Column(nullable = false)
   private Integer reservedQuantity;
+  /*
+   * Date of the last change, the watermark of the incremental exports.
+   * Set on every save and by the stock update queries of the InventoryRepository.
+   * Not cached: entries written by instances that do not know the field must stay readable.
+   */
+  @JsonIgnore
+  private LocalDate updatedAt;
+
+  @PrePersist
+  @PreUpdate
+  protected void onChange() {
+    this.updatedAt = LocalDate.now();
+  }
 
   public Inventory() {
   }
@@ -80,6 +97,12 @@ public class Inventory implements Serializable {
   public void setReservedQuantity(Integer reservedQuantity) {
     this.reservedQuantity = reservedQuantity;
   }
+  public LocalDate getUpdatedAt() {
+    return updatedAt;
+  }
+  public void setUpdatedAt(LocalDate updatedAt) {
+    this.updatedAt = updatedAt;
+  }
   @Override
   public String toString() {
     return "Inventory{" +
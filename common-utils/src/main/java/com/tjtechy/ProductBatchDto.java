@@ -0,0 +1,22 @@
+/**
+ *Copyright © 2025
+ * @Author = TJTechy (Tajudeen Busari)
+ * @Version = 1.0
+ * This file is part of common-utils module of the Ecommerce Microservices project.
+ */
+package com.tjtechy;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Data Transfer Object returned by the batch product read (GET /product/batch?ids=...).
+ * It holds the products that were found and the requested ids that do not exist,
+ * so a caller can tell a missing product from a failed call without one request per product.
+ */
+public record ProductBatchDto(
+        List<ProductDto> products,
+        List<UUID> missingProductIds
+) {
+
+}
@@ -9,36 +9,62 @@ import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonTypeInfo;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.tjtechy.cache.BinaryCacheCodec;
+import com.tjtechy.cache.CacheInvalidationBus;
+import com.tjtechy.cache.CachePolicy;
+import com.tjtechy.cache.CacheSerializer;
+import com.tjtechy.cache.LayeredCacheProperties;
+import com.tjtechy.cache.RefreshAheadCacheManager;
+import com.tjtechy.cache.TwoTierCacheManager;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
 import jakarta.annotation.PostConstruct;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.boot.autoconfigure.AutoConfigureBefore;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.autoconfigure.data.*;
 import org.springframework.boot.autoconfigure.data.redis.RedisAutoConfiguration;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.cache.CacheManager;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.redis.cache.RedisCacheConfiguration;
 import org.springframework.data.redis.cache.RedisCacheManager;
+import org.springframework.data.redis.cache.RedisCacheWriter;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.data.redis.serializer.Jackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.JdkSerializationRedisSerializer;
 import org.springframework.data.redis.serializer.RedisSerializationContext;
+import org.springframework.data.redis.serializer.RedisSerializer;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
 
 
 
 
 import java.time.Duration;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
 
 /**
  *Configuration class for setting up Redis cache.
  * This class defines a {@link RedisCacheManager} bean that is responsible for configuring Redis cache
- * and a default TTL (Time To Live) of 1 minute.
+ * and a default TTL (Time To Live) of 1 minute, overridable per cache under app.cache.caches.
  * @ConditionalOnProperty is used to enable or disable the Redis cache based on the property "redis.enabled".
  * If the property is set to false, the Redis cache will be disabled.
  * This is useful for integration tests where Redis caching may not be needed.
+ * Unless app.cache.local.enabled is false, the Redis caches are fronted by an in-process L1
+ * (see {@link TwoTierCacheManager} and {@link LayeredCacheProperties}), and the loads of every cache
+ * are protected against stampedes (see {@link RefreshAheadCacheManager}).
  */
 @Configuration
+@EnableConfigurationProperties(LayeredCacheProperties.class)
 @AutoConfigureBefore(RedisAutoConfiguration.class)
 @ConditionalOnProperty(name ="spring.redis.enabled", havingValue = "true", matchIfMissing = true) //disable Redis cache if redis.enabled is false, useful for integration tests
 public class RedisCacheConfig {
@@ -52,22 +78,64 @@ public class RedisCacheConfig {
   }
 
   /** // Redis cache configuration
-   * Configures and returns a {@link RedisCacheManager} for managing Redis base caching.
+   * Configures and returns the {@link CacheManager} for managing Redis base caching.
    * <p>
    *   This configuration:
    *   <ul>
-   *     <li>Uses Jackson for serialization.</li>
+   *     <li>Uses Jackson for serialization, or the compact {@link BinaryCacheCodec} or Java serialization
+   *     for the caches whose policy asks for it.</li>
    *     <li>Registers {@link JavaTimeModule} to handle {@code LocalDateTime} serialization.</li>
-   *     <li>Sets a default cache expiration time of 1 minute.</li>
-   *     <li>Disables caching of null values.</li>
+   *     <li>Sets the expiration time (1 minute by default), its random jitter and null caching per cache,
+   *     from the policies under app.cache (see {@link LayeredCacheProperties}).</li>
+   *     <li>Puts a bounded in-process L1 in front of every Redis cache, invalidated across instances
+   *     over Redis pub/sub, unless app.cache.local.enabled is false.</li>
+   *     <li>Coalesces the concurrent loads of a key, and refreshes hot entries ahead of their expiry and
+   *     serves stale values on backend errors for the caches whose policy asks for it.</li>
    *   </ul>
    * </p>
    * @param redisConnectionFactory Redis connection factory
-   * @return A fully configured {@link RedisCacheManager} instance.
+   * @return A {@link RefreshAheadCacheManager} over the {@link TwoTierCacheManager}, or over the {@link RedisCacheManager}
+   * when the L1 is disabled.
    */
   @Bean
-  public RedisCacheManager cacheManager(RedisConnectionFactory redisConnectionFactory) {
+  public CacheManager cacheManager(RedisConnectionFactory redisConnectionFactory,
+                                   LayeredCacheProperties layeredCacheProperties,
+                                   CacheInvalidationBus cacheInvalidationBus,
+                                   ObjectProvider<MeterRegistry> meterRegistry) {
 
+    // JSON writes still read binary entries, so a cache can move to binary while instances roll
+    var jsonSerializer = jsonCacheSerializer();
+    var compressionThreshold = (int) layeredCacheProperties.getCompressionThreshold().toBytes();
+    var serializers = new EnumMap<CacheSerializer, RedisSerializer<Object>>(CacheSerializer.class);
+    serializers.put(CacheSerializer.JSON, new BinaryCacheCodec(jsonSerializer, compressionThreshold, false));
+    serializers.put(CacheSerializer.BINARY, new BinaryCacheCodec(jsonSerializer, compressionThreshold, true));
+    serializers.put(CacheSerializer.JDK, new JdkSerializationRedisSerializer());
+
+    // Redis cache configuration, one per declared policy
+    var cacheConfigurations = new HashMap<String, RedisCacheConfiguration>();
+    layeredCacheProperties.getCaches().keySet().forEach(cacheName -> cacheConfigurations.put(cacheName,
+        redisCacheConfiguration(layeredCacheProperties.policyFor(cacheName), serializers)));
+    logger.info("✅**** Using Redis cache policies for {} ****", cacheConfigurations.keySet());
+    var redisCacheManager = RedisCacheManager.builder(redisConnectionFactory)
+        .cacheDefaults(redisCacheConfiguration(layeredCacheProperties.defaultPolicy(), serializers))
+        .withInitialCacheConfigurations(cacheConfigurations)
+        .build();
+    //not a bean of its own, so initialize it here
+    redisCacheManager.afterPropertiesSet();
+    var registry = meterRegistry.getIfAvailable(() -> Metrics.globalRegistry);
+    CacheManager cacheManager = redisCacheManager;
+    if (layeredCacheProperties.getLocal().isEnabled()) {
+      logger.info("✅**** Using an in-process L1 in front of the Redis caches****");
+      cacheManager = new TwoTierCacheManager(redisCacheManager, layeredCacheProperties, cacheInvalidationBus, registry);
+    }
+    return new RefreshAheadCacheManager(cacheManager, layeredCacheProperties, cacheInvalidationBus, registry);
+  }
+
+  /**
+   * The JSON serializer the caches have always used: Jackson with {@link JavaTimeModule}
+   * and the class name of every value embedded, so any value can be read back.
+   */
+  public static RedisSerializer<Object> jsonCacheSerializer() {
     // custom object with JavaTimeModule
     var objectMapper = new ObjectMapper();
     objectMapper.registerModule(new JavaTimeModule()); // Enables LocalDateTime serialization
@@ -80,22 +148,50 @@ public class RedisCacheConfig {
     ); // Enables type information
 
     // Create serializer with the ObjectMapper in constructor
-    Jackson2JsonRedisSerializer<Object> jackson2JsonRedisSerializer = new Jackson2JsonRedisSerializer<>(objectMapper, Object.class);
-
-    // Redis cache configuration
-    RedisCacheConfiguration redisCacheConfiguration = RedisCacheConfiguration.defaultCacheConfig()
-        .entryTtl(Duration.ofMinutes(1))
-        .disableCachingNullValues()
-            .serializeKeysWith(RedisSerializationContext.SerializationPair.fromSerializer(
-                    new StringRedisSerializer())//Ensures readable keys
-            )
-        .serializeValuesWith(
-            RedisSerializationContext.SerializationPair.fromSerializer(jackson2JsonRedisSerializer)
-        );
-    logger.info("✅**** Using Jackson2JsonRedisSerializer for Redis caching****");
-    return RedisCacheManager.builder(redisConnectionFactory)
-        .cacheDefaults(redisCacheConfiguration)
-        .build();
+    return new Jackson2JsonRedisSerializer<>(objectMapper, Object.class);
+  }
+
+  /**
+   * Publishes the L1 invalidations of this instance and hands those of the other instances to the cache manager.
+   */
+  @Bean
+  public CacheInvalidationBus cacheInvalidationBus(RedisConnectionFactory redisConnectionFactory,
+                                                   LayeredCacheProperties layeredCacheProperties) {
+    return new CacheInvalidationBus(new StringRedisTemplate(redisConnectionFactory),
+        layeredCacheProperties.getInvalidationChannel());
+  }
+
+  /**
+   * Subscribes the {@link CacheInvalidationBus} to the invalidation channel.
+   */
+  @Bean
+  public RedisMessageListenerContainer cacheInvalidationListenerContainer(RedisConnectionFactory redisConnectionFactory,
+                                                                          CacheInvalidationBus cacheInvalidationBus) {
+    var container = new RedisMessageListenerContainer();
+    container.setConnectionFactory(redisConnectionFactory);
+    container.addMessageListener(cacheInvalidationBus, new ChannelTopic(cacheInvalidationBus.getChannel()));
+    return container;
+  }
+
+  private static RedisCacheConfiguration redisCacheConfiguration(CachePolicy.Resolved policy,
+                                                                 Map<CacheSerializer, RedisSerializer<Object>> serializers) {
+    var valueSerializer = serializers.get(policy.serializer());
+    var configuration = RedisCacheConfiguration.defaultCacheConfig()
+        .entryTtl(ttlFunction(policy.ttl(), policy.ttlJitter()))
+        .serializeKeysWith(RedisSerializationContext.SerializationPair.fromSerializer(
+                new StringRedisSerializer())//Ensures readable keys
+        )
+        .serializeValuesWith(RedisSerializationContext.SerializationPair.fromSerializer(valueSerializer));
+    return policy.cacheNullValues() ? configuration : configuration.disableCachingNullValues();
+  }
+
+  //every entry gets the ttl plus a random part of the jitter, so a batch written together does not expire together
+  private static RedisCacheWriter.TtlFunction ttlFunction(Duration ttl, Duration jitter) {
+    if (!jitter.isPositive()) {
+      return RedisCacheWriter.TtlFunction.just(ttl);
+    }
+    var jitterMillis = jitter.toMillis();
+    return (key, value) -> ttl.plusMillis(ThreadLocalRandom.current().nextLong(jitterMillis + 1));
   }
 }
 //mvn clean install -DskipTests
@@ -0,0 +1,221 @@
+/*
+ * Copyright © 2025
+ * @Author = TJTechy (Tajudeen Busari)
+ * @Version = 1.0
+ * This file is part of the common-utils module of the Ecommerce Microservices project.
+ */
+
+package com.tjtechy.cache;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+import org.springframework.util.ClassUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Compact binary encoding of cache values: Smile (binary JSON) with the type written once, in a small header.
+ * <p>
+ *   The polymorphic JSON serializer embeds the class name in every object, so a cached list of 1000 products
+ *   carries the class name 1000 times. This codec writes the value type (or the element type of a list or set)
+ *   once, then the value without any type information. Payloads larger than {@code compressionThreshold}
+ *   bytes are deflated when that makes them smaller.
+ * </p>
+ * Layout: magic byte, format version, flags (1 = deflated), kind (value, list, set), type name, payload.
+ * <p>
+ *   Entries are versioned to let deployments roll: an entry without the magic byte is read with the JSON
+ *   serializer (entries written before the switch, or values this codec does not handle, like maps and mixed
+ *   lists), and an entry of an unknown format version or a class that changed incompatibly is read as a
+ *   cache miss, so it is reloaded and overwritten instead of failing the request.
+ *   With {@code binaryWrites} false the codec writes JSON but still reads both formats, so a cache can be
+ *   switched to binary once every instance runs a version that reads it.
+ * </p>
+ */
+public class BinaryCacheCodec implements RedisSerializer<Object> {
+
+  private static final Logger logger = LoggerFactory.getLogger(BinaryCacheCodec.class);
+
+  //never the first byte of a JSON document, so entries written by the JSON serializer are told apart
+  static final byte MAGIC = (byte) 0xCB;
+
+  static final byte FORMAT_VERSION = 1;
+
+  private static final byte FLAG_DEFLATED = 1;
+
+  private static final byte KIND_VALUE = 0;
+  private static final byte KIND_LIST = 1;
+  private static final byte KIND_SET = 2;
+
+  private final ObjectMapper objectMapper = new ObjectMapper(new SmileFactory())
+          .registerModule(new JavaTimeModule())
+          .setDefaultPropertyInclusion(JsonInclude.Include.NON_NULL)
+          //fields removed from a class must not make the entries written by the previous version unreadable
+          .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+  private final RedisSerializer<Object> jsonSerializer;
+
+  private final int compressionThreshold;
+
+  private final boolean binaryWrites;
+
+  private final Map<String, Class<?>> resolvedTypes = new ConcurrentHashMap<>();
+
+  /**
+   * @param jsonSerializer reads the entries without the magic byte and writes the values this codec does not handle
+   * @param compressionThreshold payload size in bytes above which compression is tried
+   * @param binaryWrites false to write JSON only
+   */
+  public BinaryCacheCodec(RedisSerializer<Object> jsonSerializer, int compressionThreshold, boolean binaryWrites) {
+    this.jsonSerializer = jsonSerializer;
+    this.compressionThreshold = compressionThreshold;
+    this.binaryWrites = binaryWrites;
+  }
+
+  @Override
+  public byte[] serialize(Object value) throws SerializationException {
+    if (value == null) {
+      return null;
+    }
+    if (!binaryWrites) {
+      return jsonSerializer.serialize(value);
+    }
+    var kind = KIND_VALUE;
+    Class<?> type = value.getClass();
+    if (value instanceof Collection<?> collection) {
+      type = elementType(collection);
+      if (type == null || !(value instanceof List<?> || value instanceof Set<?>)) {
+        return jsonSerializer.serialize(value);
+      }
+      kind = value instanceof List<?> ? KIND_LIST : KIND_SET;
+    } else if (value instanceof Map<?, ?>) {
+      return jsonSerializer.serialize(value);
+    }
+    try {
+      var payload = objectMapper.writeValueAsBytes(value);
+      var flags = (byte) 0;
+      if (payload.length > compressionThreshold) {
+        var deflated = deflate(payload);
+        if (deflated.length < payload.length) {
+          payload = deflated;
+          flags = FLAG_DEFLATED;
+        }
+      }
+      var bytes = new ByteArrayOutputStream(payload.length + 64);
+      var header = new DataOutputStream(bytes);
+      header.writeByte(MAGIC);
+      header.writeByte(FORMAT_VERSION);
+      header.writeByte(flags);
+      header.writeByte(kind);
+      header.writeUTF(type == Void.class ? "" : type.getName());
+      header.write(payload);
+      return bytes.toByteArray();
+    } catch (IOException e) {
+      throw new SerializationException("Could not encode cache value of type " + value.getClass().getName(), e);
+    }
+  }
+
+  @Override
+  public Object deserialize(byte[] bytes) throws SerializationException {
+    if (bytes == null || bytes.length == 0) {
+      return null;
+    }
+    if (bytes[0] != MAGIC) {
+      return jsonSerializer.deserialize(bytes);
+    }
+    try {
+      var input = new DataInputStream(new ByteArrayInputStream(bytes));
+      input.readByte();
+      var version = input.readByte();
+      if (version != FORMAT_VERSION) {
+        logger.debug("Treating a cache entry of format version {} as a miss", version);
+        return null;
+      }
+      var flags = input.readByte();
+      var kind = input.readByte();
+      var typeName = input.readUTF();
+      if (typeName.isEmpty()) {
+        return kind == KIND_SET ? new LinkedHashSet<>() : new ArrayList<>();
+      }
+      var type = javaType(kind, resolve(typeName));
+      if ((flags & FLAG_DEFLATED) == 0) {
+        return objectMapper.readValue(input, type);
+      }
+      try (var inflated = new InflaterInputStream(input)) {
+        return objectMapper.readValue(inflated, type);
+      }
+    } catch (IOException | ClassNotFoundException | LinkageError e) {
+      //e.g. a class renamed or changed incompatibly by a newer deployment
+      logger.debug("Treating an unreadable cache entry as a miss", e);
+      return null;
+    }
+  }
+
+  //the common element type, Void for an empty collection, null when the elements are of different classes
+  private static Class<?> elementType(Collection<?> collection) {
+    Class<?> type = null;
+    for (var element : collection) {
+      if (element == null) {
+        return null;
+      }
+      if (type == null) {
+        type = element.getClass();
+      } else if (type != element.getClass()) {
+        return null;
+      }
+    }
+    return type != null ? type : Void.class;
+  }
+
+  private JavaType javaType(byte kind, Class<?> type) {
+    var typeFactory = objectMapper.getTypeFactory();
+    return switch (kind) {
+      case KIND_LIST -> typeFactory.constructCollectionType(ArrayList.class, type);
+      case KIND_SET -> typeFactory.constructCollectionType(LinkedHashSet.class, type);
+      default -> typeFactory.constructType(type);
+    };
+  }
+
+  private Class<?> resolve(String typeName) throws ClassNotFoundException {
+    var type = resolvedTypes.get(typeName);
+    if (type == null) {
+      //the default class loader is the one of the service, which also sees its own entity and DTO classes
+      type = ClassUtils.forName(typeName, ClassUtils.getDefaultClassLoader());
+      resolvedTypes.put(typeName, type);
+    }
+    return type;
+  }
+
+  private static byte[] deflate(byte[] payload) throws IOException {
+    var bytes = new ByteArrayOutputStream(payload.length / 2);
+    var deflater = new Deflater(Deflater.BEST_SPEED);
+    try (var output = new DeflaterOutputStream(bytes, deflater)) {
+      output.write(payload);
+    } finally {
+      //a Deflater passed to the stream is not released by close()
+      deflater.end();
+    }
+    return bytes.toByteArray();
+  }
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright © 2025
+ * @Author = TJTechy (Tajudeen Busari)
+ * @Version = 1.0
+ * This file is part of the common-utils module of the Ecommerce Microservices project.
+ */
+
+package com.tjtechy.cache;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Sends and receives {@link CacheInvalidationMessage}s over a Redis pub/sub channel.
+ * <p>
+ *   Pub/sub is fire-and-forget: an instance that is disconnected while a message is sent never gets it.
+ *   That is why the L1 entries also expire on their own (see {@link LayeredCacheProperties}).
+ *   A failed send is logged and does not fail the cache write, which already reached Redis.
+ * </p>
+ */
+public class CacheInvalidationBus implements MessageListener {
+
+  private static final Logger logger = LoggerFactory.getLogger(CacheInvalidationBus.class);
+
+  private final String instanceId = UUID.randomUUID().toString();
+
+  private final StringRedisTemplate redisTemplate;
+
+  private final String channel;
+
+  private final ObjectMapper objectMapper = new ObjectMapper();
+
+  private final List<Consumer<CacheInvalidationMessage>> subscribers = new CopyOnWriteArrayList<>();
+
+  public CacheInvalidationBus(StringRedisTemplate redisTemplate, String channel) {
+    this.redisTemplate = redisTemplate;
+    this.channel = channel;
+  }
+
+  public String getChannel() {
+    return channel;
+  }
+
+  /**
+   * @param key the changed key, or null when the whole cache was cleared
+   */
+  public void publish(String cacheName, String key) {
+    try {
+      var message = new CacheInvalidationMessage(instanceId, cacheName, key);
+      redisTemplate.convertAndSend(channel, objectMapper.writeValueAsString(message));
+    } catch (JsonProcessingException | RuntimeException e) {
+      logger.warn("Could not publish the invalidation of {}::{}, other instances keep their L1 copy until it expires",
+              cacheName, key, e);
+    }
+  }
+
+  /**
+   * Registers a consumer for the messages sent by other instances.
+   */
+  public void subscribe(Consumer<CacheInvalidationMessage> subscriber) {
+    subscribers.add(subscriber);
+  }
+
+  @Override
+  public void onMessage(Message message, byte[] pattern) {
+    CacheInvalidationMessage invalidation;
+    try {
+      invalidation = objectMapper.readValue(message.getBody(), CacheInvalidationMessage.class);
+    } catch (IOException e) {
+      logger.warn("Ignoring an unreadable cache invalidation message on {}", channel, e);
+      return;
+    }
+    if (instanceId.equals(invalidation.origin())) {
+      return;
+    }
+    subscribers.forEach(subscriber -> subscriber.accept(invalidation));
+  }
+}
@@ -0,0 +1,18 @@
+/*
+ * Copyright © 2025
+ * @Author = TJTechy (Tajudeen Busari)
+ * @Version = 1.0
+ * This file is part of the common-utils module of the Ecommerce Microservices project.
+ */
+
+package com.tjtechy.cache;
+
+/**
+ * Tells the other instances to drop an entry, or a whole cache, from their L1.
+ *
+ * @param origin id of the instance that changed the entry, so it can ignore its own messages
+ * @param cacheName the cache the entry belongs to
+ * @param key the key of the entry, or null when the whole cache was cleared
+ */
+public record CacheInvalidationMessage(String origin, String cacheName, String key) {
+}
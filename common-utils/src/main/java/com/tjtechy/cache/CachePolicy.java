@@ -0,0 +1,140 @@
+/*
+ * Copyright © 2025
+ * @Author = TJTechy (Tajudeen Busari)
+ * @Version = 1.0
+ * This file is part of the common-utils module of the Ecommerce Microservices project.
+ */
+
+package com.tjtechy.cache;
+
+import java.time.Duration;
+
+/**
+ * The caching policy of one cache, as declared under app.cache.caches.&lt;name&gt;.
+ * Every value left unset is taken from app.cache.defaults.
+ */
+public class CachePolicy {
+
+  /** How long an entry stays in Redis. */
+  private Duration ttl;
+
+  /**
+   * Up to this much is added at random to the ttl of every entry, so entries written together
+   * do not all expire, and get reloaded, in the same instant.
+   */
+  private Duration ttlJitter;
+
+  /** Whether a null result is cached too, instead of calling the method again on every read. */
+  private Boolean cacheNullValues;
+
+  /** How the values are written to Redis. */
+  private CacheSerializer serializer;
+
+  /**
+   * Maximum number of entries held in the in-process L1. Redis has no per-cache limit,
+   * so the Redis entries are only bounded by their ttl and the server maxmemory policy.
+   */
+  private Long maxEntries;
+
+  /** Whether the cache has an in-process L1. */
+  private Boolean localEnabled;
+
+  /** How long an entry stays in the L1, capped at the ttl. */
+  private Duration localTtl;
+
+  /**
+   * Whether a hot entry is reloaded in the background shortly before it expires, so that its readers never
+   * all miss together. Only applies to the reads of {@code @Cacheable(sync = true)} methods.
+   */
+  private Boolean refreshAhead;
+
+  /**
+   * How early entries are refreshed ahead: the chance of a refresh grows as the expiry nears,
+   * faster for entries that take long to load and for a larger beta. 1 is a good start.
+   */
+  private Double refreshBeta;
+
+  /**
+   * How long after its expiry the last value of an entry is still served when reloading it fails,
+   * instead of the error. 0 to always fail. Only applies to {@code @Cacheable(sync = true)} methods.
+   */
+  private Duration staleTtl;
+
+  public Duration getTtl() {
+    return ttl;
+  }
+  public void setTtl(Duration ttl) {
+    this.ttl = ttl;
+  }
+
+  public Duration getTtlJitter() {
+    return ttlJitter;
+  }
+  public void setTtlJitter(Duration ttlJitter) {
+    this.ttlJitter = ttlJitter;
+  }
+
+  public Boolean getCacheNullValues() {
+    return cacheNullValues;
+  }
+  public void setCacheNullValues(Boolean cacheNullValues) {
+    this.cacheNullValues = cacheNullValues;
+  }
+
+  public CacheSerializer getSerializer() {
+    return serializer;
+  }
+  public void setSerializer(CacheSerializer serializer) {
+    this.serializer = serializer;
+  }
+
+  public Long getMaxEntries() {
+    return maxEntries;
+  }
+  public void setMaxEntries(Long maxEntries) {
+    this.maxEntries = maxEntries;
+  }
+
+  public Boolean getLocalEnabled() {
+    return localEnabled;
+  }
+  public void setLocalEnabled(Boolean localEnabled) {
+    this.localEnabled = localEnabled;
+  }
+
+  public Duration getLocalTtl() {
+    return localTtl;
+  }
+  public void setLocalTtl(Duration localTtl) {
+    this.localTtl = localTtl;
+  }
+
+  public Boolean getRefreshAhead() {
+    return refreshAhead;
+  }
+  public void setRefreshAhead(Boolean refreshAhead) {
+    this.refreshAhead = refreshAhead;
+  }
+
+  public Double getRefreshBeta() {
+    return refreshBeta;
+  }
+  public void setRefreshBeta(Double refreshBeta) {
+    this.refreshBeta = refreshBeta;
+  }
+
+  public Duration getStaleTtl() {
+    return staleTtl;
+  }
+  public void setStaleTtl(Duration staleTtl) {
+    this.staleTtl = staleTtl;
+  }
+
+  /**
+   * The policy of a cache with every setting resolved.
+   */
+  public record Resolved(Duration ttl, Duration ttlJitter, boolean cacheNullValues, CacheSerializer serializer,
+                         long maxEntries, boolean localEnabled, Duration localTtl,
+                         boolean refreshAhead, double refreshBeta, Duration staleTtl) {
+  }
+}
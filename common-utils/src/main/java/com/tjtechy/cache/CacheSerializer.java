@@ -0,0 +1,26 @@
+/*
+ * Copyright © 2025
+ * @Author = TJTechy (Tajudeen Busari)
+ * @Version = 1.0
+ * This file is part of the common-utils module of the Ecommerce Microservices project.
+ */
+
+package com.tjtechy.cache;
+
+/**
+ * How the values of a cache are written to Redis, chosen per cache in {@link LayeredCacheProperties}.
+ */
+public enum CacheSerializer {
+
+  /**
+   * Jackson JSON with the class name of every value embedded, readable with redis-cli.
+   * Entries written in {@link #BINARY} are read too.
+   */
+  JSON,
+
+  /** {@link BinaryCacheCodec}: Smile with the type written once, compressed above a size threshold. */
+  BINARY,
+
+  /** Java serialization, for values that implement {@link java.io.Serializable}. */
+  JDK
+}
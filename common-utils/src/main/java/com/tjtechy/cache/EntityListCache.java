@@ -0,0 +1,203 @@
+/*
+ * Copyright © 2025
+ * @Author = TJTechy (Tajudeen Busari)
+ * @Version = 1.0
+ * This file is part of the common-utils module of the Ecommerce Microservices project.
+ */
+
+package com.tjtechy.cache;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cache.CacheManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * List cache that stores the ids of the entities of a list, and the entities themselves in the per-entity cache.
+ * <p>
+ *   A list read resolves its ids against the entity cache (the one the single-entity reads and
+ *   {@code @CachePut} already keep up to date) and loads only the missing entities, with one query.
+ *   An entity change is therefore visible in every list right away, and a list only has to be evicted when
+ *   its membership changes: a created or deleted entity, or a change of the field the list is filtered on.
+ *   Refilling an evicted list reads ids only.
+ * </p>
+ * Ids are cached as strings, which both cache serializers read back as such whatever the id type,
+ * and parsed back with {@code idParser}. Ids of entities deleted since the list was cached are skipped.
+ * <p>
+ *   Evictions made inside a transaction run after it commits, so a list is not refilled from the data
+ *   of the transaction that is still open.
+ * </p>
+ *
+ * @param <ID> the entity id type
+ * @param <T> the cached entity (or DTO) type
+ */
+public class EntityListCache<ID, T> {
+
+  private static final Logger logger = LoggerFactory.getLogger(EntityListCache.class);
+
+  private final CacheManager cacheManager;
+
+  private final String listCacheName;
+
+  private final String entityCacheName;
+
+  private final Function<T, ID> idOf;
+
+  private final Function<String, ID> idParser;
+
+  /**
+   * @param cacheManager the manager of both caches; a cache it does not know (caching disabled) is skipped
+   * @param listCacheName the cache of the id lists
+   * @param entityCacheName the cache of the entities, keyed by id
+   * @param idOf the id of an entity
+   * @param idParser reads an id back from its cached string form
+   */
+  public EntityListCache(CacheManager cacheManager, String listCacheName, String entityCacheName,
+                         Function<T, ID> idOf, Function<String, ID> idParser) {
+    this.cacheManager = cacheManager;
+    this.listCacheName = listCacheName;
+    this.entityCacheName = entityCacheName;
+    this.idOf = idOf;
+    this.idParser = idParser;
+  }
+
+  /**
+   * @param listKey the key of the list in the list cache
+   * @param idLoader loads the ids of the list, in list order, when they are not cached
+   * @param entityLoader loads the entities of the given ids that are not cached, in any order
+   * @return the entities of the list, in the order of its ids
+   */
+  public List<T> getList(String listKey, Supplier<List<ID>> idLoader, Function<Collection<ID>, List<T>> entityLoader) {
+    var listCache = cacheManager.getCache(listCacheName);
+    var cachedIds = listCache != null ? listCache.get(listKey, List.class) : null;
+    List<ID> ids;
+    if (cachedIds != null) {
+      ids = new ArrayList<>(cachedIds.size());
+      for (var cachedId : cachedIds) {
+        ids.add(idParser.apply(String.valueOf(cachedId)));
+      }
+    } else {
+      ids = idLoader.get();
+      if (listCache != null) {
+        var idsToCache = new ArrayList<String>(ids.size());
+        for (var id : ids) {
+          idsToCache.add(String.valueOf(id));
+        }
+        listCache.put(listKey, idsToCache);
+      }
+      logger.debug("loaded {} ids of list {}::{}", ids.size(), listCacheName, listKey);
+    }
+    return getAll(ids, entityLoader);
+  }
+
+  /**
+   * Reads entities through the entity cache; the missing ones are loaded with a single call and cached.
+   * Duplicate ids are read once, ids that do not exist are left out.
+   *
+   * @param ids the ids of the entities
+   * @param entityLoader loads the entities of the given ids, in any order
+   * @return the entities found, in the order of the given ids
+   */
+  @SuppressWarnings("unchecked")
+  public List<T> getAll(Collection<ID> ids, Function<Collection<ID>, List<T>> entityLoader) {
+    var distinctIds = new LinkedHashSet<>(ids);
+    var entityCache = cacheManager.getCache(entityCacheName);
+    var found = new LinkedHashMap<ID, T>();
+    var missedIds = new ArrayList<ID>();
+    for (var id : distinctIds) {
+      var cached = entityCache != null ? entityCache.get(id) : null;
+      if (cached != null && cached.get() != null) {
+        found.put(id, (T) cached.get());
+      } else {
+        missedIds.add(id);
+      }
+    }
+
+    if (!missedIds.isEmpty()) {
+      var loaded = entityLoader.apply(missedIds);
+      for (var entity : loaded) {
+        var id = idOf.apply(entity);
+        found.put(id, entity);
+        if (entityCache != null) {
+          entityCache.put(id, entity);
+        }
+      }
+      logger.info("fetched {} of {} {} entries from database, {} from cache",
+              loaded.size(), distinctIds.size(), entityCacheName, distinctIds.size() - missedIds.size());
+    }
+
+    return distinctIds.stream()
+            .map(found::get)
+            .filter(Objects::nonNull)
+            .toList();
+  }
+
+  /**
+   * Evicts the lists whose membership changed; their entities stay cached.
+   */
+  public void evictLists(Collection<String> listKeys) {
+    if (listKeys.isEmpty()) {
+      return;
+    }
+    var keys = List.copyOf(listKeys);
+    afterCommit(() -> {
+      var listCache = cacheManager.getCache(listCacheName);
+      if (listCache != null) {
+        keys.forEach(listCache::evict);
+      }
+    });
+  }
+
+  /**
+   * Evicts the lists an entity left or joined: the keys of only one of {@code before} and {@code after}.
+   * A list the entity is in both before and after the change still has the right ids.
+   *
+   * @param before the list keys of the entity before the change, empty for a created entity
+   * @param after the list keys of the entity after the change, empty for a deleted entity
+   */
+  public void evictMembershipChange(Collection<String> before, Collection<String> after) {
+    var changed = new LinkedHashSet<String>(before);
+    changed.addAll(after);
+    changed.removeIf(key -> before.contains(key) && after.contains(key));
+    evictLists(changed);
+  }
+
+  /**
+   * Evicts entities from the entity cache, for the changes not made through {@code @CachePut}/{@code @CacheEvict}.
+   */
+  public void evictEntities(Collection<ID> ids) {
+    if (ids.isEmpty()) {
+      return;
+    }
+    var idsToEvict = List.copyOf(ids);
+    afterCommit(() -> {
+      var entityCache = cacheManager.getCache(entityCacheName);
+      if (entityCache != null) {
+        idsToEvict.forEach(entityCache::evict);
+      }
+    });
+  }
+
+  private static void afterCommit(Runnable eviction) {
+    if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+      eviction.run();
+      return;
+    }
+    TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+      @Override
+      public void afterCommit() {
+        eviction.run();
+      }
+    });
+  }
+}
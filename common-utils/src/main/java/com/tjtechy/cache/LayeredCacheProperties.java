@@ -0,0 +1,159 @@
+/*
+ * Copyright © 2025
+ * @Author = TJTechy (Tajudeen Busari)
+ * @Version = 1.0
+ * This file is part of the common-utils module of the Ecommerce Microservices project.
+ */
+
+package com.tjtechy.cache;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Caching policies of the Redis caches, of the in-process L1 that {@link TwoTierCacheManager} puts in front of them,
+ * and of the loads made through them (see {@link RefreshAheadCacheManager}).
+ * <p>
+ *   Every cache gets the {@code defaults} policy, with the settings of its own entry under {@code caches}
+ *   taking precedence (see {@link CachePolicy} for the settings).
+ *   The L1 ttl should stay well below the Redis ttl: a replica that missed an invalidation message
+ *   serves its stale copy for at most that long.
+ * </p>
+ * Example:
+ * <pre>
+ * app:
+ *   cache:
+ *     compression-threshold: 1KB
+ *     defaults:
+ *       ttl: 1m
+ *       ttl-jitter: 10s
+ *       serializer: binary
+ *     caches:
+ *       product:
+ *         ttl: 10m
+ *         max-entries: 50000
+ *         refresh-ahead: true
+ *         stale-ttl: 5m
+ *       inventoryByProductId:
+ *         ttl: 15s
+ *         local-enabled: false
+ * </pre>
+ */
+@ConfigurationProperties(prefix = "app.cache")
+public class LayeredCacheProperties {
+
+  /** Redis pub/sub channel the L1 invalidations are sent on. */
+  private String invalidationChannel = "cache:invalidation";
+
+  private Local local = new Local();
+
+  /** Payloads of the binary serializer larger than this are compressed. */
+  private DataSize compressionThreshold = DataSize.ofKilobytes(1);
+
+  /** Policy of every cache without its own entry, and of the settings an entry leaves unset. */
+  private CachePolicy defaults = defaultPolicy();
+
+  /** Per-cache policies, by cache name. */
+  private Map<String, CachePolicy> caches = new HashMap<>();
+
+  public String getInvalidationChannel() {
+    return invalidationChannel;
+  }
+  public void setInvalidationChannel(String invalidationChannel) {
+    this.invalidationChannel = invalidationChannel;
+  }
+
+  public Local getLocal() {
+    return local;
+  }
+  public void setLocal(Local local) {
+    this.local = local;
+  }
+
+  public DataSize getCompressionThreshold() {
+    return compressionThreshold;
+  }
+  public void setCompressionThreshold(DataSize compressionThreshold) {
+    this.compressionThreshold = compressionThreshold;
+  }
+
+  public CachePolicy getDefaults() {
+    return defaults;
+  }
+  public void setDefaults(CachePolicy defaults) {
+    this.defaults = defaults;
+  }
+
+  public Map<String, CachePolicy> getCaches() {
+    return caches;
+  }
+  public void setCaches(Map<String, CachePolicy> caches) {
+    this.caches = caches;
+  }
+
+  /**
+   * @return the policy of the cache, its own settings completed by the defaults
+   */
+  public CachePolicy.Resolved policyFor(String cacheName) {
+    return resolve(caches.getOrDefault(cacheName, new CachePolicy()));
+  }
+
+  /**
+   * @return the policy of the caches without their own entry
+   */
+  public CachePolicy.Resolved defaultPolicy() {
+    return resolve(new CachePolicy());
+  }
+
+  private CachePolicy.Resolved resolve(CachePolicy policy) {
+    var ttl = firstSet(policy.getTtl(), defaults.getTtl());
+    var localTtl = firstSet(policy.getLocalTtl(), defaults.getLocalTtl());
+    return new CachePolicy.Resolved(
+            ttl,
+            firstSet(policy.getTtlJitter(), defaults.getTtlJitter()),
+            firstSet(policy.getCacheNullValues(), defaults.getCacheNullValues()),
+            firstSet(policy.getSerializer(), defaults.getSerializer()),
+            firstSet(policy.getMaxEntries(), defaults.getMaxEntries()),
+            local.isEnabled() && firstSet(policy.getLocalEnabled(), defaults.getLocalEnabled()),
+            localTtl.compareTo(ttl) > 0 ? ttl : localTtl,
+            firstSet(policy.getRefreshAhead(), defaults.getRefreshAhead()),
+            firstSet(policy.getRefreshBeta(), defaults.getRefreshBeta()),
+            firstSet(policy.getStaleTtl(), defaults.getStaleTtl()));
+  }
+
+  private static <T> T firstSet(T value, T defaultValue) {
+    return value != null ? value : defaultValue;
+  }
+
+  private static CachePolicy defaultPolicy() {
+    var policy = new CachePolicy();
+    policy.setTtl(Duration.ofMinutes(1));
+    policy.setTtlJitter(Duration.ZERO);
+    policy.setCacheNullValues(false);
+    policy.setSerializer(CacheSerializer.JSON);
+    policy.setMaxEntries(10_000L);
+    policy.setLocalEnabled(true);
+    policy.setLocalTtl(Duration.ofSeconds(30));
+    policy.setRefreshAhead(false);
+    policy.setRefreshBeta(1.0);
+    policy.setStaleTtl(Duration.ZERO);
+    return policy;
+  }
+
+  public static class Local {
+
+    /** Whether the L1 is used at all. When false, the Redis caches are used directly. */
+    private boolean enabled = true;
+
+    public boolean isEnabled() {
+      return enabled;
+    }
+    public void setEnabled(boolean enabled) {
+      this.enabled = enabled;
+    }
+  }
+}
@@ -0,0 +1,376 @@
+/*
+ * Copyright © 2025
+ * @Author = TJTechy (Tajudeen Busari)
+ * @Version = 1.0
+ * This file is part of the common-utils module of the Ecommerce Microservices project.
+ */
+
+package com.tjtechy.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cache.Cache;
+import org.springframework.dao.DataAccessException;
+import org.springframework.transaction.TransactionException;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+/**
+ * Protects the loads of a cache against stampedes: the {@code get(key, loader)} reads of
+ * {@code @Cacheable(sync = true)} methods.
+ * <ul>
+ *   <li>Loads are coalesced per key: when an entry is missing, one caller of this instance loads it and the
+ *   concurrent callers wait for that load instead of all querying the database.</li>
+ *   <li>With refresh-ahead, an entry this instance loaded is reloaded in the background shortly before it expires.
+ *   Each read of the entry refreshes it with a chance that grows as the expiry nears, scaled by how long the
+ *   entry took to load and by the policy's beta (probabilistic early expiration, "XFetch"), so only the
+ *   entries read often enough are refreshed, and their readers never miss.</li>
+ *   <li>With a stale ttl, when reloading an entry fails because of the backend (a database or I/O error),
+ *   its last value is served for up to that long after it expired, instead of the error.
+ *   Any other error, like a not-found exception, is thrown as usual.</li>
+ * </ul>
+ * The expiry this instance knows of is the one of the values it loaded or put itself (the ttl, without jitter);
+ * a value loaded by another instance is not refreshed ahead here, the instance that loaded it refreshes it.
+ * The other operations are those of the cache it decorates. A put, an evict or a clear supersedes the loads of the
+ * key in progress: their value is still returned to their callers, but no longer written to the cache, so a slow load
+ * started before the change cannot overwrite it.
+ * Loads are counted in cache.loads, tagged with the cache name and outcome: loaded, coalesced (a load avoided),
+ * refreshed, stale or failed.
+ */
+public class RefreshAheadCache implements Cache {
+
+  private static final Logger logger = LoggerFactory.getLogger(RefreshAheadCache.class);
+
+  private final Cache delegate;
+
+  private final CachePolicy.Resolved policy;
+
+  private final Executor refreshExecutor;
+
+  private final long ttlNanos;
+
+  private final long staleTtlNanos;
+
+  //last value loaded or put by this instance and its expiry, per key: drives the refreshes and is served stale
+  private final com.github.benmanes.caffeine.cache.Cache<String, LoadedValue> loadedValues;
+
+  //the load (or refresh) of each key in progress, that concurrent misses of the key wait for
+  private final Map<String, Load> loadsInFlight = new ConcurrentHashMap<>();
+
+  private final Counter loads;
+  private final Counter coalescedLoads;
+  private final Counter refreshes;
+  private final Counter staleLoads;
+  private final Counter failedLoads;
+
+  public RefreshAheadCache(Cache delegate, CachePolicy.Resolved policy, Executor refreshExecutor,
+                           MeterRegistry meterRegistry) {
+    this.delegate = delegate;
+    this.policy = policy;
+    this.refreshExecutor = refreshExecutor;
+    this.ttlNanos = policy.ttl().toNanos();
+    this.staleTtlNanos = policy.staleTtl().toNanos();
+    this.loadedValues = Caffeine.newBuilder()
+            .maximumSize(policy.maxEntries())
+            .expireAfterWrite(policy.ttl().plus(policy.staleTtl()))
+            .build();
+    this.loads = loadsCounter(meterRegistry, "loaded");
+    this.coalescedLoads = loadsCounter(meterRegistry, "coalesced");
+    this.refreshes = loadsCounter(meterRegistry, "refreshed");
+    this.staleLoads = loadsCounter(meterRegistry, "stale");
+    this.failedLoads = loadsCounter(meterRegistry, "failed");
+  }
+
+  @Override
+  public String getName() {
+    return delegate.getName();
+  }
+
+  @Override
+  public Object getNativeCache() {
+    return delegate.getNativeCache();
+  }
+
+  @Override
+  public ValueWrapper get(Object key) {
+    return delegate.get(key);
+  }
+
+  @Override
+  public <T> T get(Object key, Class<T> type) {
+    return delegate.get(key, type);
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public <T> T get(Object key, Callable<T> valueLoader) {
+    var cacheKey = cacheKey(key);
+    var cached = delegate.get(key);
+    if (cached != null) {
+      refreshIfDue(key, cacheKey, valueLoader);
+      return (T) cached.get();
+    }
+    return (T) load(key, cacheKey, valueLoader);
+  }
+
+  @Override
+  public CompletableFuture<?> retrieve(Object key) {
+    return delegate.retrieve(key);
+  }
+
+  @Override
+  public <T> CompletableFuture<T> retrieve(Object key, Supplier<CompletableFuture<T>> valueLoader) {
+    return delegate.retrieve(key, valueLoader);
+  }
+
+  @Override
+  public void put(Object key, Object value) {
+    var cacheKey = cacheKey(key);
+    supersedeLoad(cacheKey);
+    delegate.put(key, value);
+    //a put has no load time, the one of the previous load is kept
+    var previous = loadedValues.getIfPresent(cacheKey);
+    remember(cacheKey, value, previous != null ? previous.loadNanos() : 0);
+  }
+
+  @Override
+  public ValueWrapper putIfAbsent(Object key, Object value) {
+    supersedeLoad(cacheKey(key));
+    var existing = delegate.putIfAbsent(key, value);
+    loadedValues.invalidate(cacheKey(key));
+    return existing;
+  }
+
+  @Override
+  public void evict(Object key) {
+    supersedeLoad(cacheKey(key));
+    delegate.evict(key);
+    loadedValues.invalidate(cacheKey(key));
+  }
+
+  @Override
+  public boolean evictIfPresent(Object key) {
+    supersedeLoad(cacheKey(key));
+    loadedValues.invalidate(cacheKey(key));
+    return delegate.evictIfPresent(key);
+  }
+
+  @Override
+  public void clear() {
+    loadsInFlight.values().forEach(Load::supersede);
+    delegate.clear();
+    loadedValues.invalidateAll();
+  }
+
+  @Override
+  public boolean invalidate() {
+    loadsInFlight.values().forEach(Load::supersede);
+    loadedValues.invalidateAll();
+    return delegate.invalidate();
+  }
+
+  /**
+   * Forgets the value of an entry changed by another instance, so that it is neither refreshed nor served stale here.
+   *
+   * @param key the key as sent by the other instance, or null for the whole cache
+   */
+  void forget(String key) {
+    if (key == null) {
+      loadsInFlight.values().forEach(Load::supersede);
+      loadedValues.invalidateAll();
+    } else {
+      supersedeLoad(key);
+      loadedValues.invalidate(key);
+    }
+  }
+
+  private Object load(Object key, String cacheKey, Callable<?> valueLoader) {
+    var load = new Load();
+    var loadInFlight = loadsInFlight.putIfAbsent(cacheKey, load);
+    if (loadInFlight != null) {
+      coalescedLoads.increment();
+      return await(loadInFlight.result(), key, valueLoader);
+    }
+    var result = load.result();
+    try {
+      //the value may have been put by a load that completed since the miss
+      var cached = delegate.get(key);
+      var value = cached != null ? cached.get() : loadAndPut(key, cacheKey, valueLoader, load);
+      result.complete(value);
+      return value;
+    } catch (Exception ex) {
+      var stale = isBackendError(ex) ? servableValue(cacheKey) : null;
+      if (stale != null) {
+        staleLoads.increment();
+        logger.warn("Serving the last value of {}::{}, it could not be reloaded: {}", getName(), cacheKey, ex.toString());
+        result.complete(stale.value());
+        return stale.value();
+      }
+      failedLoads.increment();
+      var failure = new ValueRetrievalException(key, valueLoader, ex);
+      result.completeExceptionally(failure);
+      throw failure;
+    } finally {
+      //an Error thrown by the loader must not leave the waiting callers blocked
+      result.completeExceptionally(new ValueRetrievalException(key, valueLoader, null));
+      loadsInFlight.remove(cacheKey, load);
+    }
+  }
+
+  private Object loadAndPut(Object key, String cacheKey, Callable<?> valueLoader, Load load) throws Exception {
+    var start = System.nanoTime();
+    var value = valueLoader.call();
+    var loadNanos = System.nanoTime() - start;
+    loads.increment();
+    //held while writing, so that a put or an evict of the key runs either before (and the write is skipped) or after it
+    synchronized (load) {
+      if (load.isSuperseded()) {
+        logger.debug("Not caching the load of {}::{}, the entry changed while it was loading", getName(), cacheKey);
+        return value;
+      }
+      if (value != null || policy.cacheNullValues()) {
+        delegate.put(key, value);
+      }
+      remember(cacheKey, value, loadNanos);
+    }
+    return value;
+  }
+
+  //the loads of the key in progress no longer write their value, it is older than the change being made
+  private void supersedeLoad(String cacheKey) {
+    var load = loadsInFlight.get(cacheKey);
+    if (load != null) {
+      load.supersede();
+    }
+  }
+
+  private void refreshIfDue(Object key, String cacheKey, Callable<?> valueLoader) {
+    if (!policy.refreshAhead()) {
+      return;
+    }
+    var loaded = loadedValues.getIfPresent(cacheKey);
+    if (loaded == null || !isDue(loaded)) {
+      return;
+    }
+    var refreshLoad = new Load();
+    if (loadsInFlight.putIfAbsent(cacheKey, refreshLoad) != null) {
+      return;
+    }
+    var refresh = refreshLoad.result();
+    try {
+      refreshExecutor.execute(() -> {
+        try {
+          refresh.complete(loadAndPut(key, cacheKey, valueLoader, refreshLoad));
+          refreshes.increment();
+        } catch (Exception ex) {
+          //the current value is kept until it expires, the first read after that loads it again
+          logger.warn("Could not refresh {}::{} ahead of its expiry: {}", getName(), cacheKey, ex.toString());
+          var current = servableValue(cacheKey);
+          if (current != null) {
+            refresh.complete(current.value());
+          } else {
+            refresh.completeExceptionally(new ValueRetrievalException(key, valueLoader, ex));
+          }
+        } finally {
+          refresh.completeExceptionally(new ValueRetrievalException(key, valueLoader, null));
+          loadsInFlight.remove(cacheKey, refreshLoad);
+        }
+      });
+    } catch (RejectedExecutionException ex) {
+      //shutting down: the entry is loaded on its next miss
+      loadsInFlight.remove(cacheKey, refreshLoad);
+      refresh.complete(loaded.value());
+    }
+  }
+
+  //probabilistic early expiration: due when now - loadTime * beta * ln(random) reaches the expiry
+  private boolean isDue(LoadedValue loaded) {
+    var random = 1.0 - ThreadLocalRandom.current().nextDouble(); //(0, 1], the log of 0 is -infinity
+    var gap = (long) (loaded.loadNanos() * policy.refreshBeta() * -Math.log(random));
+    return System.nanoTime() + gap >= loaded.expiresAtNanos();
+  }
+
+  //the last value, unless it expired longer than the stale ttl ago
+  private LoadedValue servableValue(String cacheKey) {
+    var loaded = loadedValues.getIfPresent(cacheKey);
+    if (loaded == null || System.nanoTime() - loaded.expiresAtNanos() > staleTtlNanos) {
+      return null;
+    }
+    return loaded;
+  }
+
+  private void remember(String cacheKey, Object value, long loadNanos) {
+    loadedValues.put(cacheKey, new LoadedValue(value, System.nanoTime() + ttlNanos, loadNanos));
+  }
+
+  private static Object await(CompletableFuture<Object> load, Object key, Callable<?> valueLoader) {
+    try {
+      return load.join();
+    } catch (CompletionException ex) {
+      if (ex.getCause() instanceof ValueRetrievalException failure) {
+        throw failure;
+      }
+      throw new ValueRetrievalException(key, valueLoader, ex.getCause());
+    }
+  }
+
+  //the database or the network failed, as opposed to the method rejecting the key (not found, invalid...)
+  private static boolean isBackendError(Throwable ex) {
+    for (var cause = ex; cause != null; cause = cause.getCause()) {
+      if (cause instanceof DataAccessException || cause instanceof TransactionException
+              || cause instanceof IOException || cause instanceof UncheckedIOException) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  //same conversion as the keys of the L1 and of the invalidation messages
+  private static String cacheKey(Object key) {
+    return String.valueOf(key);
+  }
+
+  private Counter loadsCounter(MeterRegistry meterRegistry, String outcome) {
+    return Counter.builder("cache.loads")
+            .description("Loads of missing or expiring cache entries by outcome; coalesced loads are the avoided ones")
+            .tag("cache", getName())
+            .tag("outcome", outcome)
+            .register(meterRegistry);
+  }
+
+  private record LoadedValue(Object value, long expiresAtNanos, long loadNanos) {
+  }
+
+  //a load or refresh of a key in progress: its result, and whether the entry changed since it started
+  private static final class Load {
+
+    private final CompletableFuture<Object> result = new CompletableFuture<>();
+
+    private boolean superseded;
+
+    CompletableFuture<Object> result() {
+      return result;
+    }
+
+    synchronized void supersede() {
+      superseded = true;
+    }
+
+    synchronized boolean isSuperseded() {
+      return superseded;
+    }
+  }
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright © 2025
+ * @Author = TJTechy (Tajudeen Busari)
+ * @Version = 1.0
+ * This file is part of the common-utils module of the Ecommerce Microservices project.
+ */
+
+package com.tjtechy.cache;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * {@link CacheManager} that decorates every cache of another manager with a {@link RefreshAheadCache},
+ * which coalesces the loads of a key and, per policy ({@link LayeredCacheProperties#policyFor(String)}),
+ * refreshes hot entries ahead of their expiry and serves stale values when the backend fails.
+ * <p>
+ *   Refreshes run on virtual threads, so a slow database does not hold up the readers that triggered them.
+ *   Invalidations sent by other instances make the named cache forget the value it would refresh or serve stale.
+ * </p>
+ */
+public class RefreshAheadCacheManager implements CacheManager, AutoCloseable {
+
+  private final CacheManager delegate;
+
+  private final LayeredCacheProperties properties;
+
+  private final MeterRegistry meterRegistry;
+
+  private final ExecutorService refreshExecutor = Executors.newVirtualThreadPerTaskExecutor();
+
+  private final Map<String, RefreshAheadCache> caches = new ConcurrentHashMap<>();
+
+  public RefreshAheadCacheManager(CacheManager delegate, LayeredCacheProperties properties,
+                                  CacheInvalidationBus invalidationBus, MeterRegistry meterRegistry) {
+    this.delegate = delegate;
+    this.properties = properties;
+    this.meterRegistry = meterRegistry;
+    invalidationBus.subscribe(this::onInvalidation);
+  }
+
+  @Override
+  public Cache getCache(String name) {
+    var cache = caches.get(name);
+    if (cache != null) {
+      return cache;
+    }
+    var decorated = delegate.getCache(name);
+    if (decorated == null) {
+      return null;
+    }
+    return caches.computeIfAbsent(name, cacheName ->
+            new RefreshAheadCache(decorated, properties.policyFor(cacheName), refreshExecutor, meterRegistry));
+  }
+
+  @Override
+  public Collection<String> getCacheNames() {
+    return delegate.getCacheNames();
+  }
+
+  /**
+   * Waits for the refreshes in progress, called when the context closes.
+   */
+  @Override
+  public void close() {
+    refreshExecutor.close();
+  }
+
+  private void onInvalidation(CacheInvalidationMessage message) {
+    var cache = caches.get(message.cacheName());
+    if (cache != null) {
+      cache.forget(message.key());
+    }
+  }
+}
@@ -0,0 +1,241 @@
+/*
+ * Copyright © 2025
+ * @Author = TJTechy (Tajudeen Busari)
+ * @Version = 1.0
+ * This file is part of the common-utils module of the Ecommerce Microservices project.
+ */
+
+package com.tjtechy.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.cache.support.AbstractValueAdaptingCache;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+/**
+ * A cache made of a bounded in-process L1 (Caffeine) in front of a shared L2 (the Redis cache).
+ * <p>
+ *   Reads are served from L1 when the entry is there, otherwise from L2, and a value found in L2 is kept in L1.
+ *   Writes and evictions go to L2 first, then update this instance's L1, and finally tell the other instances
+ *   to drop their L1 copy through the {@link CacheInvalidationBus}.
+ * </p>
+ * L1 hands out the same instance to every caller, where the Redis cache deserialized a new copy on each read,
+ * so cached values must be treated as read-only.
+ * Lookups are counted in cache.tier.gets, tagged with the cache name, tier=l1|l2 and result=hit|miss.
+ */
+public class TwoTierCache extends AbstractValueAdaptingCache {
+
+  private final String name;
+
+  private final Cache<String, Object> local;
+
+  private final org.springframework.cache.Cache remote;
+
+  private final CacheInvalidationBus invalidationBus;
+
+  private final Counter localHits;
+  private final Counter localMisses;
+  private final Counter remoteHits;
+  private final Counter remoteMisses;
+  private final Counter invalidations;
+
+  public TwoTierCache(org.springframework.cache.Cache remote, CachePolicy.Resolved policy,
+                      CacheInvalidationBus invalidationBus, MeterRegistry meterRegistry) {
+    //same null handling as the Redis cache behind it
+    super(policy.cacheNullValues());
+    this.name = remote.getName();
+    this.remote = remote;
+    this.invalidationBus = invalidationBus;
+    this.local = Caffeine.newBuilder()
+            .maximumSize(policy.maxEntries())
+            .expireAfterWrite(policy.localTtl())
+            .build();
+    this.localHits = getsCounter(meterRegistry, "l1", "hit");
+    this.localMisses = getsCounter(meterRegistry, "l1", "miss");
+    this.remoteHits = getsCounter(meterRegistry, "l2", "hit");
+    this.remoteMisses = getsCounter(meterRegistry, "l2", "miss");
+    this.invalidations = Counter.builder("cache.tier.invalidations")
+            .description("L1 entries dropped because another instance changed them")
+            .tag("cache", name)
+            .register(meterRegistry);
+  }
+
+  @Override
+  public String getName() {
+    return name;
+  }
+
+  @Override
+  public Cache<String, Object> getNativeCache() {
+    return local;
+  }
+
+  @Override
+  protected Object lookup(Object key) {
+    var localKey = localKey(key);
+    var value = local.getIfPresent(localKey);
+    if (value != null) {
+      localHits.increment();
+      return value;
+    }
+    localMisses.increment();
+    var wrapper = remote.get(key);
+    recordRemote(wrapper);
+    if (wrapper == null) {
+      return null;
+    }
+    //L1 holds store values, so a cached null is kept as NullValue
+    value = toStoreValue(wrapper.get());
+    local.put(localKey, value);
+    return value;
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public <T> T get(Object key, Callable<T> valueLoader) {
+    var localKey = localKey(key);
+    var value = local.getIfPresent(localKey);
+    if (value != null) {
+      localHits.increment();
+      return (T) fromStoreValue(value);
+    }
+    localMisses.increment();
+    //the Redis cache loads the value and writes it to L2 when it is missing there
+    var loaded = remote.get(key, valueLoader);
+    putLocal(localKey, loaded);
+    return loaded;
+  }
+
+  @Override
+  public CompletableFuture<?> retrieve(Object key) {
+    var localKey = localKey(key);
+    var value = local.getIfPresent(localKey);
+    if (value != null) {
+      localHits.increment();
+      //a cache allowing nulls hands out wrappers, so that a cached null can be told from a miss
+      return CompletableFuture.completedFuture(isAllowNullValues() ? toValueWrapper(value) : fromStoreValue(value));
+    }
+    localMisses.increment();
+    var future = remote.retrieve(key);
+    if (future == null) {
+      return null;
+    }
+    return future.thenApply(found -> {
+      recordRemote(found);
+      if (found != null) {
+        local.put(localKey, toStoreValue(found instanceof ValueWrapper wrapper ? wrapper.get() : found));
+      }
+      return found;
+    });
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public <T> CompletableFuture<T> retrieve(Object key, Supplier<CompletableFuture<T>> valueLoader) {
+    var localKey = localKey(key);
+    var value = local.getIfPresent(localKey);
+    if (value != null) {
+      localHits.increment();
+      return CompletableFuture.completedFuture((T) fromStoreValue(value));
+    }
+    localMisses.increment();
+    return remote.retrieve(key, valueLoader).thenApply(loaded -> {
+      putLocal(localKey, loaded);
+      return loaded;
+    });
+  }
+
+  @Override
+  public void put(Object key, Object value) {
+    remote.put(key, value);
+    var localKey = localKey(key);
+    putLocal(localKey, value);
+    invalidationBus.publish(name, localKey);
+  }
+
+  @Override
+  public ValueWrapper putIfAbsent(Object key, Object value) {
+    var existing = remote.putIfAbsent(key, value);
+    //the winner is only known to L2, L1 picks it up on the next read
+    local.invalidate(localKey(key));
+    if (existing == null) {
+      invalidationBus.publish(name, localKey(key));
+    }
+    return existing;
+  }
+
+  @Override
+  public void evict(Object key) {
+    remote.evict(key);
+    local.invalidate(localKey(key));
+    invalidationBus.publish(name, localKey(key));
+  }
+
+  @Override
+  public boolean evictIfPresent(Object key) {
+    var evicted = remote.evictIfPresent(key);
+    local.invalidate(localKey(key));
+    invalidationBus.publish(name, localKey(key));
+    return evicted;
+  }
+
+  @Override
+  public void clear() {
+    remote.clear();
+    local.invalidateAll();
+    invalidationBus.publish(name, null);
+  }
+
+  @Override
+  public boolean invalidate() {
+    var invalidated = remote.invalidate();
+    local.invalidateAll();
+    invalidationBus.publish(name, null);
+    return invalidated;
+  }
+
+  /**
+   * Drops an entry changed by another instance from L1 only; L2 already has the new state.
+   *
+   * @param key the key as sent by the other instance, or null to drop the whole L1
+   */
+  void invalidateLocal(String key) {
+    invalidations.increment();
+    if (key == null) {
+      local.invalidateAll();
+    } else {
+      local.invalidate(key);
+    }
+  }
+
+  //same conversion as the Redis cache keys, so that both tiers and the invalidation messages agree
+  private static String localKey(Object key) {
+    return String.valueOf(key);
+  }
+
+  private void putLocal(String localKey, Object value) {
+    if (value != null || isAllowNullValues()) {
+      local.put(localKey, toStoreValue(value));
+    } else {
+      local.invalidate(localKey);
+    }
+  }
+
+  private void recordRemote(Object found) {
+    (found != null ? remoteHits : remoteMisses).increment();
+  }
+
+  private Counter getsCounter(MeterRegistry meterRegistry, String tier, String result) {
+    return Counter.builder("cache.tier.gets")
+            .description("Cache lookups by tier (l1 in-process, l2 Redis) and result")
+            .tag("cache", name)
+            .tag("tier", tier)
+            .tag("result", result)
+            .register(meterRegistry);
+  }
+}
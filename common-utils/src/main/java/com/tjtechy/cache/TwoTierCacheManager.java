@@ -0,0 +1,76 @@
+/*
+ * Copyright © 2025
+ * @Author = TJTechy (Tajudeen Busari)
+ * @Version = 1.0
+ * This file is part of the common-utils module of the Ecommerce Microservices project.
+ */
+
+package com.tjtechy.cache;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * {@link CacheManager} that puts an in-process L1 in front of every cache of another manager (the Redis one).
+ * <p>
+ *   Caches are created on first use, like the Redis caches, each with the L1 settings of its policy
+ *   ({@link LayeredCacheProperties#policyFor(String)}). A cache whose L1 is disabled is the Redis cache itself.
+ *   Invalidations sent by other instances are applied to the L1 of the named cache.
+ * </p>
+ */
+public class TwoTierCacheManager implements CacheManager {
+
+  private final CacheManager remoteCacheManager;
+
+  private final LayeredCacheProperties properties;
+
+  private final CacheInvalidationBus invalidationBus;
+
+  private final MeterRegistry meterRegistry;
+
+  private final Map<String, Cache> caches = new ConcurrentHashMap<>();
+
+  public TwoTierCacheManager(CacheManager remoteCacheManager, LayeredCacheProperties properties,
+                             CacheInvalidationBus invalidationBus, MeterRegistry meterRegistry) {
+    this.remoteCacheManager = remoteCacheManager;
+    this.properties = properties;
+    this.invalidationBus = invalidationBus;
+    this.meterRegistry = meterRegistry;
+    invalidationBus.subscribe(this::onInvalidation);
+  }
+
+  @Override
+  public Cache getCache(String name) {
+    var cache = caches.get(name);
+    if (cache != null) {
+      return cache;
+    }
+    var remote = remoteCacheManager.getCache(name);
+    if (remote == null) {
+      return null;
+    }
+    return caches.computeIfAbsent(name, cacheName -> {
+      var policy = properties.policyFor(cacheName);
+      return policy.localEnabled()
+              ? new TwoTierCache(remote, policy, invalidationBus, meterRegistry)
+              : remote;
+    });
+  }
+
+  @Override
+  public Collection<String> getCacheNames() {
+    return remoteCacheManager.getCacheNames();
+  }
+
+  private void onInvalidation(CacheInvalidationMessage message) {
+    //a cache this instance never used has nothing in L1
+    if (caches.get(message.cacheName()) instanceof TwoTierCache cache) {
+      cache.invalidateLocal(message.key());
+    }
+  }
+}
@@ -0,0 +1,253 @@
+/*
+ * Copyright © 2025
+ * @Author = TJTechy (Tajudeen Busari)
+ * @Version = 1.0
+ * This file is part of the common-utils module of the Ecommerce Microservices project.
+ */
+
+package com.tjtechy.client;
+
+import com.tjtechy.businessException.RemoteServiceUnavailableException;
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadConfig;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.micrometer.tagged.TaggedBulkheadMetrics;
+import io.github.resilience4j.micrometer.tagged.TaggedCircuitBreakerMetrics;
+import io.github.resilience4j.reactor.bulkhead.operator.BulkheadOperator;
+import io.github.resilience4j.reactor.circuitbreaker.operator.CircuitBreakerOperator;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+
+/**
+ * Guards the calls to the other services, so that a slow or failing service cannot hold the threads and
+ * connections of its callers. Each call of an operation, like the deduct-inventory operation of inventory-service:
+ * <ul>
+ *   <li>is refused at once when the operation has too many calls in progress (concurrency limit),
+ *   or the service has (bulkhead, shared by all its operations);</li>
+ *   <li>is refused at once while the circuit breaker of the operation is open, after too many failed or slow calls;</li>
+ *   <li>fails after the timeout of an attempt, and after the deadline of the whole call, retries included;</li>
+ *   <li>is retried, when the operation allows it, on timeouts, connection errors and 5xx responses only,
+ *   within the retry budget of the service (see {@link RetryBudget}).</li>
+ * </ul>
+ * Refused calls and calls given up at their deadline fail with a {@link RemoteServiceUnavailableException};
+ * the other errors reach the caller unchanged. 4xx responses are answers, not failures of the service.
+ * <p>
+ *   The policies are set per operation under clients.resilience (see {@link ClientResilienceProperties}).
+ *   Metrics: the resilience4j.circuitbreaker.* and resilience4j.bulkhead.* meters of every operation and service,
+ *   client.call (timer, tagged with service, operation and outcome), client.call.retries (counter, tagged with
+ *   result=retried or budget_exhausted), client.call.timeout and client.call.deadline (the settings, as gauges),
+ *   and client.retry.budget (retries left per service).
+ * </p>
+ * Usage, on the Mono of a WebClient call:
+ * <pre>
+ *   webClient.get().uri(url).retrieve().bodyToMono(Result.class)
+ *           .transform(clientResilience.guard("inventory-service", "get-inventory"))
+ * </pre>
+ */
+public class ClientResilience {
+
+  private final ClientResilienceProperties properties;
+
+  private final MeterRegistry meterRegistry;
+
+  private final CircuitBreakerRegistry circuitBreakers = CircuitBreakerRegistry.ofDefaults();
+
+  private final BulkheadRegistry bulkheads = BulkheadRegistry.ofDefaults();
+
+  private final Map<String, RemoteService> services = new ConcurrentHashMap<>();
+
+  private final Map<String, RemoteOperation> operations = new ConcurrentHashMap<>();
+
+  public ClientResilience(ClientResilienceProperties properties, MeterRegistry meterRegistry) {
+    this.properties = properties;
+    this.meterRegistry = meterRegistry;
+    TaggedCircuitBreakerMetrics.ofCircuitBreakerRegistry(circuitBreakers).bindTo(meterRegistry);
+    TaggedBulkheadMetrics.ofBulkheadRegistry(bulkheads).bindTo(meterRegistry);
+  }
+
+  /**
+   * @return the guard of an operation, to apply with {@link Mono#transform(Function)} on the Mono of the call
+   */
+  public <T> Function<Mono<T>, Mono<T>> guard(String service, String operation) {
+    if (!properties.isEnabled()) {
+      return Function.identity();
+    }
+    var remoteOperation = operations.computeIfAbsent(service + "." + operation,
+            name -> new RemoteOperation(remoteService(service), operation));
+    return remoteOperation::guard;
+  }
+
+  private RemoteService remoteService(String service) {
+    return services.computeIfAbsent(service, RemoteService::new);
+  }
+
+  /**
+   * Whether a failure is the service failing or not answering, rather than its answer.
+   */
+  static boolean isTransient(Throwable e) {
+    if (e instanceof WebClientResponseException responseException) {
+      return responseException.getStatusCode().is5xxServerError();
+    }
+    return e instanceof TimeoutException || e instanceof WebClientRequestException || e instanceof IOException;
+  }
+
+  private final class RemoteService {
+
+    private final String name;
+
+    private final Bulkhead bulkhead;
+
+    private final RetryBudget retryBudget;
+
+    private RemoteService(String name) {
+      var policy = properties.servicePolicy(name);
+      this.name = name;
+      this.bulkhead = bulkheads.bulkhead(name, BulkheadConfig.custom()
+              .maxConcurrentCalls(policy.getMaxConcurrentCalls())
+              .maxWaitDuration(Duration.ZERO)
+              .build());
+      this.retryBudget = new RetryBudget(policy.getRetryBudgetRatio(), policy.getRetryBudgetBurst());
+      Gauge.builder("client.retry.budget", retryBudget, RetryBudget::available)
+              .description("Retries left in the retry budget of a service")
+              .tag("service", name)
+              .register(meterRegistry);
+    }
+  }
+
+  private final class RemoteOperation {
+
+    private final RemoteService service;
+
+    private final String name;
+
+    private final OperationPolicy.Resolved policy;
+
+    private final CircuitBreaker circuitBreaker;
+
+    private final Bulkhead bulkhead;
+
+    private final Counter retried;
+
+    private final Counter budgetExhausted;
+
+    private RemoteOperation(RemoteService service, String name) {
+      this.service = service;
+      this.name = name;
+      this.policy = properties.policyFor(service.name, name);
+      var qualifiedName = service.name + "." + name;
+      this.circuitBreaker = circuitBreakers.circuitBreaker(qualifiedName, CircuitBreakerConfig.custom()
+              .failureRateThreshold(policy.failureRateThreshold())
+              .slowCallDurationThreshold(policy.slowCallDuration())
+              .slowCallRateThreshold(policy.slowCallRateThreshold())
+              .slidingWindowSize(policy.slidingWindowSize())
+              .minimumNumberOfCalls(policy.minimumNumberOfCalls())
+              .waitDurationInOpenState(policy.waitDurationInOpenState())
+              .permittedNumberOfCallsInHalfOpenState(policy.permittedCallsInHalfOpenState())
+              .recordException(ClientResilience::isTransient)
+              .build());
+      this.bulkhead = bulkheads.bulkhead(qualifiedName, BulkheadConfig.custom()
+              .maxConcurrentCalls(policy.maxConcurrentCalls())
+              .maxWaitDuration(policy.maxWait())
+              .build());
+      this.retried = retryCounter("retried");
+      this.budgetExhausted = retryCounter("budget_exhausted");
+      TimeGauge.builder("client.call.timeout", policy, TimeUnit.MILLISECONDS, p -> p.timeout().toMillis())
+              .description("Timeout of one attempt of an operation")
+              .tags("service", service.name, "operation", name)
+              .register(meterRegistry);
+      TimeGauge.builder("client.call.deadline", policy, TimeUnit.MILLISECONDS, p -> p.deadline().toMillis())
+              .description("Deadline of a call of an operation, retries included")
+              .tags("service", service.name, "operation", name)
+              .register(meterRegistry);
+    }
+
+    private <T> Mono<T> guard(Mono<T> call) {
+      //the bulkheads are taken before the circuit breaker, so that the refused calls do not count as failures
+      var attempt = call
+              .timeout(policy.timeout())
+              .transformDeferred(CircuitBreakerOperator.of(circuitBreaker))
+              .transformDeferred(BulkheadOperator.of(bulkhead))
+              .transformDeferred(BulkheadOperator.of(service.bulkhead));
+      var retriedAttempts = policy.maxRetries() > 0
+              ? attempt.retryWhen(Retry.backoff(policy.maxRetries(), policy.retryBackoff())
+                      .filter(this::mayRetry)
+                      .onRetryExhaustedThrow((spec, signal) -> signal.failure()))
+              : attempt;
+      var guarded = retriedAttempts.timeout(policy.deadline());
+      return Mono.defer(() -> {
+        service.retryBudget.deposit();
+        var sample = Timer.start(meterRegistry);
+        return guarded
+                .doOnSuccess(value -> sample.stop(timer("success")))
+                .onErrorMap(this::isRefused, e -> new RemoteServiceUnavailableException(service.name, name, e))
+                .doOnError(e -> sample.stop(timer(outcome(e))));
+      });
+    }
+
+    private boolean mayRetry(Throwable e) {
+      if (!isTransient(e)) {
+        return false;
+      }
+      if (!service.retryBudget.tryWithdraw()) {
+        budgetExhausted.increment();
+        return false;
+      }
+      retried.increment();
+      return true;
+    }
+
+    //refused by a bulkhead or the circuit breaker, or given up at the deadline
+    private boolean isRefused(Throwable e) {
+      return e instanceof BulkheadFullException || e instanceof CallNotPermittedException
+              || e instanceof TimeoutException;
+    }
+
+    private String outcome(Throwable e) {
+      var cause = e instanceof RemoteServiceUnavailableException ? e.getCause() : e;
+      if (cause instanceof BulkheadFullException) {
+        return "rejected";
+      }
+      if (cause instanceof CallNotPermittedException) {
+        return "short_circuited";
+      }
+      if (cause instanceof TimeoutException) {
+        return "timeout";
+      }
+      return "error";
+    }
+
+    private Timer timer(String outcome) {
+      return Timer.builder("client.call")
+              .description("Calls to other services")
+              .tags("service", service.name, "operation", name, "outcome", outcome)
+              .register(meterRegistry);
+    }
+
+    private Counter retryCounter(String result) {
+      return Counter.builder("client.call.retries")
+              .description("Retries of the calls to other services")
+              .tags("service", service.name, "operation", name, "result", result)
+              .register(meterRegistry);
+    }
+  }
+}
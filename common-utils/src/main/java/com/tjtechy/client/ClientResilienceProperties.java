@@ -0,0 +1,176 @@
+/*
+ * Copyright © 2025
+ * @Author = TJTechy (Tajudeen Busari)
+ * @Version = 1.0
+ * This file is part of the common-utils module of the Ecommerce Microservices project.
+ */
+
+package com.tjtechy.client;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Resilience policies of the calls to the other services (see {@link ClientResilience}).
+ * <p>
+ *   Every remote service gets a bulkhead (its calls in progress at most, all operations together) and a retry budget.
+ *   Every operation of a service gets the {@code defaults} policy, with the settings of its own entry under
+ *   {@code operations} taking precedence (see {@link OperationPolicy} for the settings).
+ * </p>
+ * Example:
+ * <pre>
+ * clients:
+ *   resilience:
+ *     defaults:
+ *       timeout: 2s
+ *       deadline: 5s
+ *       max-concurrent-calls: 32
+ *     services:
+ *       inventory-service:
+ *         max-concurrent-calls: 64
+ *         retry-budget-ratio: 0.2
+ *         operations:
+ *           get-inventory:
+ *             max-retries: 2
+ *           deduct-inventory-batch:
+ *             timeout: 3s
+ * </pre>
+ */
+@ConfigurationProperties(prefix = "clients.resilience")
+public class ClientResilienceProperties {
+
+  /** Whether the calls are guarded at all. */
+  private boolean enabled = true;
+
+  /** Policy of every operation without its own entry, and of the settings an entry leaves unset. */
+  private OperationPolicy defaults = defaultPolicy();
+
+  /** Per-service settings, by service name (inventory-service, product-service). */
+  private Map<String, ServicePolicy> services = new HashMap<>();
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+  public void setEnabled(boolean enabled) {
+    this.enabled = enabled;
+  }
+
+  public OperationPolicy getDefaults() {
+    return defaults;
+  }
+  public void setDefaults(OperationPolicy defaults) {
+    this.defaults = defaults;
+  }
+
+  public Map<String, ServicePolicy> getServices() {
+    return services;
+  }
+  public void setServices(Map<String, ServicePolicy> services) {
+    this.services = services;
+  }
+
+  /**
+   * @return the settings of the service, the default ones when it has no entry
+   */
+  public ServicePolicy servicePolicy(String service) {
+    return services.getOrDefault(service, new ServicePolicy());
+  }
+
+  /**
+   * @return the policy of the operation, its own settings completed by the defaults
+   */
+  public OperationPolicy.Resolved policyFor(String service, String operation) {
+    var policy = servicePolicy(service).getOperations().getOrDefault(operation, new OperationPolicy());
+    return new OperationPolicy.Resolved(
+            firstSet(policy.getTimeout(), defaults.getTimeout()),
+            firstSet(policy.getDeadline(), defaults.getDeadline()),
+            firstSet(policy.getMaxConcurrentCalls(), defaults.getMaxConcurrentCalls()),
+            firstSet(policy.getMaxWait(), defaults.getMaxWait()),
+            firstSet(policy.getMaxRetries(), defaults.getMaxRetries()),
+            firstSet(policy.getRetryBackoff(), defaults.getRetryBackoff()),
+            firstSet(policy.getFailureRateThreshold(), defaults.getFailureRateThreshold()),
+            firstSet(policy.getSlowCallDuration(), defaults.getSlowCallDuration()),
+            firstSet(policy.getSlowCallRateThreshold(), defaults.getSlowCallRateThreshold()),
+            firstSet(policy.getSlidingWindowSize(), defaults.getSlidingWindowSize()),
+            firstSet(policy.getMinimumNumberOfCalls(), defaults.getMinimumNumberOfCalls()),
+            firstSet(policy.getWaitDurationInOpenState(), defaults.getWaitDurationInOpenState()),
+            firstSet(policy.getPermittedCallsInHalfOpenState(), defaults.getPermittedCallsInHalfOpenState()));
+  }
+
+  private static <T> T firstSet(T value, T defaultValue) {
+    return value != null ? value : defaultValue;
+  }
+
+  private static OperationPolicy defaultPolicy() {
+    var policy = new OperationPolicy();
+    policy.setTimeout(Duration.ofSeconds(2));
+    policy.setDeadline(Duration.ofSeconds(5));
+    policy.setMaxConcurrentCalls(32);
+    policy.setMaxWait(Duration.ZERO);
+    policy.setMaxRetries(0);
+    policy.setRetryBackoff(Duration.ofMillis(100));
+    policy.setFailureRateThreshold(50f);
+    policy.setSlowCallDuration(Duration.ofSeconds(1));
+    policy.setSlowCallRateThreshold(100f);
+    policy.setSlidingWindowSize(20);
+    policy.setMinimumNumberOfCalls(10);
+    policy.setWaitDurationInOpenState(Duration.ofSeconds(10));
+    policy.setPermittedCallsInHalfOpenState(3);
+    return policy;
+  }
+
+  /**
+   * The settings of one remote service.
+   */
+  public static class ServicePolicy {
+
+    /**
+     * Calls to the service in progress at most, all operations together (bulkhead): a slow service
+     * cannot hold more connections and threads of the caller than this.
+     */
+    private int maxConcurrentCalls = 64;
+
+    /**
+     * Retries allowed per call to the service: every call adds this much to the budget, every retry takes 1.
+     * When the service fails as a whole, this bounds the extra load the retries add to it.
+     */
+    private double retryBudgetRatio = 0.2;
+
+    /** Retries the budget holds at most, and starts with. */
+    private int retryBudgetBurst = 10;
+
+    /** Per-operation policies, by operation name. */
+    private Map<String, OperationPolicy> operations = new HashMap<>();
+
+    public int getMaxConcurrentCalls() {
+      return maxConcurrentCalls;
+    }
+    public void setMaxConcurrentCalls(int maxConcurrentCalls) {
+      this.maxConcurrentCalls = maxConcurrentCalls;
+    }
+
+    public double getRetryBudgetRatio() {
+      return retryBudgetRatio;
+    }
+    public void setRetryBudgetRatio(double retryBudgetRatio) {
+      this.retryBudgetRatio = retryBudgetRatio;
+    }
+
+    public int getRetryBudgetBurst() {
+      return retryBudgetBurst;
+    }
+    public void setRetryBudgetBurst(int retryBudgetBurst) {
+      this.retryBudgetBurst = retryBudgetBurst;
+    }
+
+    public Map<String, OperationPolicy> getOperations() {
+      return operations;
+    }
+    public void setOperations(Map<String, OperationPolicy> operations) {
+      this.operations = operations;
+    }
+  }
+}
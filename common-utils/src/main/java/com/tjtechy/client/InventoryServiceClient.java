@@ -13,16 +13,20 @@ import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import com.tjtechy.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Value;
 
+import org.springframework.http.HttpStatusCode;
 import org.springframework.http.MediaType;
 import org.springframework.stereotype.Component;
 import org.springframework.web.reactive.function.client.WebClient;
 import reactor.core.publisher.Mono;
-import reactor.util.retry.Retry;
 
 
 import java.time.Duration;
+import java.util.List;
 import java.util.UUID;
 
 @Component
@@ -33,6 +37,14 @@ public class InventoryServiceClient {
   private final String inventoryServiceUrl;
   private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
 
+  //concurrent reads of the same product's inventory share one request
+  private final SingleFlight<UUID, InventoryDto> inventoryReads;
+
+  //circuit breaker, timeouts and bulkhead of every call, per operation
+  private final ClientResilience clientResilience;
+
+  private static final String SERVICE = "inventory-service";
+
 
   /**
    * The base URL for the Inventory Service.
@@ -43,10 +55,16 @@ public class InventoryServiceClient {
    * api.endpoint.base-url is used by the service itself to access its own endpoints.
    */
 
-  public InventoryServiceClient(WebClient.Builder webClientBuilder, @Value("${inventory-service.base-url}") String inventoryServiceUrl) {
+  public InventoryServiceClient(WebClient.Builder webClientBuilder,
+                                @Value("${inventory-service.base-url}") String inventoryServiceUrl,
+                                @Value("${clients.single-flight.micro-cache-ttl:0ms}") Duration microCacheTtl,
+                                ObjectProvider<MeterRegistry> meterRegistry,
+                                ClientResilience clientResilience) {
     this.inventoryServiceUrl = inventoryServiceUrl;
     this.webClient = webClientBuilder.baseUrl(inventoryServiceUrl).build();
-
+    this.inventoryReads = new SingleFlight<>("inventory-service", microCacheTtl,
+            meterRegistry.getIfAvailable(() -> Metrics.globalRegistry));
+    this.clientResilience = clientResilience;
   }
 
 
@@ -70,6 +88,44 @@ public class InventoryServiceClient {
             .bodyValue(deductInventoryRequestDto)
             .retrieve()
             .bodyToMono(Result.class)
+            .transform(clientResilience.guard(SERVICE, "deduct-inventory"))
+            .flatMap(inventoryResponse -> {
+              if(inventoryResponse == null || !inventoryResponse.isFlag()) {
+                return Mono.error(new IllegalArgumentException("Failed to deduct inventory"));
+              }
+              return Mono.empty();
+            });
+  }
+
+  /**
+   * Deducts inventory for several products in a single call.
+   * This method is called by the Order Service when an order is placed or updated, so that
+   * a whole cart costs one round trip to the Inventory Service instead of one per item.
+   * The Inventory Service applies the deduction all-or-nothing; when it is rejected the error
+   * message contains the ids of the products that were missing or short.
+   * @param items the product ids and quantities to deduct
+   * @return a Mono that completes when the whole batch has been deducted
+   */
+  public Mono<Void> deductInventoryBatch(List<DeductInventoryRequestDto> items) {
+    if (items == null || items.isEmpty()) {
+      return Mono.empty(); //nothing to reserve
+    }
+    var batchDeductInventoryRequestDto = new BatchDeductInventoryRequestDto(items);
+    var url = inventoryServiceUrl + "/inventory/internal/deduct-inventory-batch";
+    return webClient
+            .patch()
+            .uri(url)
+            .contentType(MediaType.APPLICATION_JSON)
+            .bodyValue(batchDeductInventoryRequestDto)
+            .retrieve()
+            //surface the inventory service message (which lists the failing product ids) instead of a generic 4xx error
+            .onStatus(HttpStatusCode::is4xxClientError, clientResponse -> clientResponse
+                    .bodyToMono(Result.class)
+                    .transform(clientResilience.guard(SERVICE, "deduct-inventory-batch"))
+                    .map(result -> new IllegalArgumentException(result.getMessage()))
+                    .switchIfEmpty(Mono.fromSupplier(() -> new IllegalArgumentException("Failed to deduct inventory")))
+                    .flatMap(Mono::error))
+            .bodyToMono(Result.class)
             .flatMap(inventoryResponse -> {
               if(inventoryResponse == null || !inventoryResponse.isFlag()) {
                 return Mono.error(new IllegalArgumentException("Failed to deduct inventory"));
@@ -97,6 +153,7 @@ public class InventoryServiceClient {
             .bodyValue(createInventoryDto)
             .retrieve()
             .bodyToMono(Result.class)
+            .transform(clientResilience.guard(SERVICE, "create-inventory"))
             .subscribe(response -> {
               if(response != null && response.isFlag()) {
                 logger.info("*******Inventory created successfully for product {}*******", savedProductId);
@@ -135,8 +192,7 @@ public class InventoryServiceClient {
             .bodyValue(restoreInventoryDto)
             .retrieve()
             .bodyToMono(Result.class)
-            .timeout(Duration.ofSeconds(5)) // Set a timeout for the request
-            .retryWhen(Retry.backoff(3, Duration.ofMillis(500)))// Retry with backoff
+            .transform(clientResilience.guard(SERVICE, "restore-inventory")) //timeout and retries under clients.resilience
             .flatMap(inventoryResponse -> {
               if(inventoryResponse == null || !inventoryResponse.isFlag()) {
                 return Mono.error(new IllegalArgumentException("Failed to restore inventory"));
@@ -145,11 +201,51 @@ public class InventoryServiceClient {
             });
   }
 
+  /**
+   * Restores inventory for several products in a single call.
+   * This method is called by the Order Service when an order update removes lines or lowers quantities,
+   * so the released stock costs one round trip whatever the number of lines.
+   * The Inventory Service applies the restoration all-or-nothing.
+   * Unlike {@link #restoreInventory(UUID, Integer)} it is not retried: a restoration is not idempotent,
+   * and a retry after a timeout could restore the stock twice.
+   * @param items the product ids and quantities to restore
+   * @return a Mono that completes when the whole batch has been restored
+   */
+  public Mono<Void> restoreInventoryBatch(List<RestoreInventoryDto> items) {
+    if (items == null || items.isEmpty()) {
+      return Mono.empty(); //nothing to release
+    }
+    var batchRestoreInventoryRequestDto = new BatchRestoreInventoryRequestDto(items);
+    var url = inventoryServiceUrl + "/inventory/internal/restore-inventory-batch";
+    return webClient
+            .post()
+            .uri(url)
+            .contentType(MediaType.APPLICATION_JSON)
+            .bodyValue(batchRestoreInventoryRequestDto)
+            .retrieve()
+            .bodyToMono(Result.class)
+            .transform(clientResilience.guard(SERVICE, "restore-inventory-batch"))
+            .flatMap(inventoryResponse -> {
+              if(inventoryResponse == null || !inventoryResponse.isFlag()) {
+                return Mono.error(new IllegalArgumentException("Failed to restore inventory"));
+              }
+              return Mono.empty();
+            });
+  }
+
 
+  /**
+   * Retrieves the inventory of a product.
+   * Concurrent calls for the same product share one request to inventory-service (see {@link SingleFlight}).
+   */
   public Mono<InventoryDto> getInventoryByProductId(UUID productId) {
     if (productId == null) {
       return Mono.error(new IllegalArgumentException("Product ID cannot be null"));
     }
+    return inventoryReads.execute(productId, this::fetchInventoryByProductId);
+  }
+
+  private Mono<InventoryDto> fetchInventoryByProductId(UUID productId) {
 //    var url = "http://inventory-service" + inventoryServiceUrl + "/inventory/internal/product/" + productId;
     var url = inventoryServiceUrl + "/inventory/internal/product/" + productId;
     return webClient
@@ -157,6 +253,7 @@ public class InventoryServiceClient {
             .uri(url)
             .retrieve()
             .bodyToMono(Result.class)
+            .transform(clientResilience.guard(SERVICE, "get-inventory"))
             .flatMap(result -> {
               if (result != null && result.isFlag() && result.getData() != null) {
                 //extract inventoryId from the response
@@ -178,7 +275,8 @@ public class InventoryServiceClient {
             .contentType(MediaType.APPLICATION_JSON)
             .bodyValue(updateInventoryDto)
             .retrieve()
-            .bodyToMono(Result.class);
+            .bodyToMono(Result.class)
+            .transform(clientResilience.guard(SERVICE, "update-inventory"));
   }
 
   public Mono<Result> deleteInventory(Long inventoryId) {
@@ -191,6 +289,7 @@ public class InventoryServiceClient {
             .delete()
             .uri(url)
             .retrieve()
-            .bodyToMono(Result.class);
+            .bodyToMono(Result.class)
+            .transform(clientResilience.guard(SERVICE, "delete-inventory"));
   }
 }
@@ -0,0 +1,160 @@
+/*
+ * Copyright © 2025
+ * @Author = TJTechy (Tajudeen Busari)
+ * @Version = 1.0
+ * This file is part of the common-utils module of the Ecommerce Microservices project.
+ */
+
+package com.tjtechy.client;
+
+import java.time.Duration;
+
+/**
+ * The resilience policy of one remote operation, as declared under
+ * clients.resilience.services.&lt;service&gt;.operations.&lt;operation&gt;.
+ * Every value left unset is taken from clients.resilience.defaults.
+ */
+public class OperationPolicy {
+
+  /** How long one attempt may take before it fails with a timeout. */
+  private Duration timeout;
+
+  /** How long the caller waits at most, retries and their backoff included. */
+  private Duration deadline;
+
+  /** Calls of the operation in progress at most; the next ones are refused (concurrency limit). */
+  private Integer maxConcurrentCalls;
+
+  /** How long a call waits for a free slot before it is refused, 0 to refuse at once. */
+  private Duration maxWait;
+
+  /**
+   * Attempts made after a failed one, 0 for none. Only for idempotent operations:
+   * an attempt that timed out may still have been applied.
+   */
+  private Integer maxRetries;
+
+  /** Wait before the first retry, doubled for each next one. */
+  private Duration retryBackoff;
+
+  /** Percentage of failed calls (timeouts, connection errors, 5xx) that opens the circuit breaker. */
+  private Float failureRateThreshold;
+
+  /** Calls slower than this count as slow. */
+  private Duration slowCallDuration;
+
+  /** Percentage of slow calls that opens the circuit breaker, 100 to only open on failures. */
+  private Float slowCallRateThreshold;
+
+  /** Number of the last calls the rates are computed over. */
+  private Integer slidingWindowSize;
+
+  /** Calls needed in the window before the circuit breaker can open. */
+  private Integer minimumNumberOfCalls;
+
+  /** How long an open circuit breaker refuses every call before letting a few through. */
+  private Duration waitDurationInOpenState;
+
+  /** Calls let through to test the service before the circuit breaker closes again. */
+  private Integer permittedCallsInHalfOpenState;
+
+  public Duration getTimeout() {
+    return timeout;
+  }
+  public void setTimeout(Duration timeout) {
+    this.timeout = timeout;
+  }
+
+  public Duration getDeadline() {
+    return deadline;
+  }
+  public void setDeadline(Duration deadline) {
+    this.deadline = deadline;
+  }
+
+  public Integer getMaxConcurrentCalls() {
+    return maxConcurrentCalls;
+  }
+  public void setMaxConcurrentCalls(Integer maxConcurrentCalls) {
+    this.maxConcurrentCalls = maxConcurrentCalls;
+  }
+
+  public Duration getMaxWait() {
+    return maxWait;
+  }
+  public void setMaxWait(Duration maxWait) {
+    this.maxWait = maxWait;
+  }
+
+  public Integer getMaxRetries() {
+    return maxRetries;
+  }
+  public void setMaxRetries(Integer maxRetries) {
+    this.maxRetries = maxRetries;
+  }
+
+  public Duration getRetryBackoff() {
+    return retryBackoff;
+  }
+  public void setRetryBackoff(Duration retryBackoff) {
+    this.retryBackoff = retryBackoff;
+  }
+
+  public Float getFailureRateThreshold() {
+    return failureRateThreshold;
+  }
+  public void setFailureRateThreshold(Float failureRateThreshold) {
+    this.failureRateThreshold = failureRateThreshold;
+  }
+
+  public Duration getSlowCallDuration() {
+    return slowCallDuration;
+  }
+  public void setSlowCallDuration(Duration slowCallDuration) {
+    this.slowCallDuration = slowCallDuration;
+  }
+
+  public Float getSlowCallRateThreshold() {
+    return slowCallRateThreshold;
+  }
+  public void setSlowCallRateThreshold(Float slowCallRateThreshold) {
+    this.slowCallRateThreshold = slowCallRateThreshold;
+  }
+
+  public Integer getSlidingWindowSize() {
+    return slidingWindowSize;
+  }
+  public void setSlidingWindowSize(Integer slidingWindowSize) {
+    this.slidingWindowSize = slidingWindowSize;
+  }
+
+  public Integer getMinimumNumberOfCalls() {
+    return minimumNumberOfCalls;
+  }
+  public void setMinimumNumberOfCalls(Integer minimumNumberOfCalls) {
+    this.minimumNumberOfCalls = minimumNumberOfCalls;
+  }
+
+  public Duration getWaitDurationInOpenState() {
+    return waitDurationInOpenState;
+  }
+  public void setWaitDurationInOpenState(Duration waitDurationInOpenState) {
+    this.waitDurationInOpenState = waitDurationInOpenState;
+  }
+
+  public Integer getPermittedCallsInHalfOpenState() {
+    return permittedCallsInHalfOpenState;
+  }
+  public void setPermittedCallsInHalfOpenState(Integer permittedCallsInHalfOpenState) {
+    this.permittedCallsInHalfOpenState = permittedCallsInHalfOpenState;
+  }
+
+  /**
+   * The policy of an operation with every setting resolved.
+   */
+  public record Resolved(Duration timeout, Duration deadline, int maxConcurrentCalls, Duration maxWait,
+                         int maxRetries, Duration retryBackoff, float failureRateThreshold, Duration slowCallDuration,
+                         float slowCallRateThreshold, int slidingWindowSize, int minimumNumberOfCalls,
+                         Duration waitDurationInOpenState, int permittedCallsInHalfOpenState) {
+  }
+}
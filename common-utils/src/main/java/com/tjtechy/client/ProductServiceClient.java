@@ -10,9 +10,13 @@ package com.tjtechy.client;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.tjtechy.ProductBatchDto;
 import com.tjtechy.ProductDto;
 import com.tjtechy.Result;
 import com.tjtechy.modelNotFoundException.ProductNotFoundException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.HttpStatusCode;
@@ -20,7 +24,10 @@ import org.springframework.stereotype.Component;
 import org.springframework.web.reactive.function.client.WebClient;
 import reactor.core.publisher.Mono;
 
+import java.time.Duration;
+import java.util.Collection;
 import java.util.UUID;
+import java.util.stream.Collectors;
 
 @Component //This annotation indicates that this class is a Spring component, allowing it to be auto-detected and managed by the Spring container.
 public class ProductServiceClient {
@@ -31,14 +38,36 @@ public class ProductServiceClient {
 
   private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
 
+  //concurrent reads of the same product share one request
+  private final SingleFlight<UUID, ProductDto> productReads;
+
+  //circuit breaker, timeouts and bulkhead of every call, per operation
+  private final ClientResilience clientResilience;
+
+  private static final String SERVICE = "product-service";
+
   public ProductServiceClient(
           WebClient.Builder webClientBuilder,
-          @Value("${product-service.base-url}") String productServiceBaseUrl) {
+          @Value("${product-service.base-url}") String productServiceBaseUrl,
+          @Value("${clients.single-flight.micro-cache-ttl:0ms}") Duration microCacheTtl,
+          ObjectProvider<MeterRegistry> meterRegistry,
+          ClientResilience clientResilience) {
     this.webClient = webClientBuilder.baseUrl(productServiceBaseUrl).build();
     this.productServiceBaseUrl = productServiceBaseUrl;
+    this.productReads = new SingleFlight<>("product-service", microCacheTtl,
+            meterRegistry.getIfAvailable(() -> Metrics.globalRegistry));
+    this.clientResilience = clientResilience;
   }
 
+  /**
+   * Retrieves a product by its id.
+   * Concurrent calls for the same product share one request to product-service (see {@link SingleFlight}).
+   */
   public Mono<ProductDto> getProductById(UUID productId) {
+    return productReads.execute(productId, this::fetchProductById);
+  }
+
+  private Mono<ProductDto> fetchProductById(UUID productId) {
 //    var url = "http://product-service" + productServiceBaseUrl + "/product/" + productId;
     var url = productServiceBaseUrl + "/product/" + productId;
     return webClient
@@ -55,6 +84,7 @@ public class ProductServiceClient {
               return clientResponse.createException().flatMap(Mono::error);
             })
             .bodyToMono(Result.class)
+            .transform(clientResilience.guard(SERVICE, "get-product"))
             .map(productResponse -> {
               if(productResponse == null || productResponse.getData() == null) {
                 throw new ProductNotFoundException(productId);
@@ -63,4 +93,26 @@ public class ProductServiceClient {
               return objectMapper.convertValue(productResponse.getData(), ProductDto.class);
             });
   }
+
+  /**
+   * Retrieves several products with a single call to GET /product/batch.
+   * Ids that do not exist are returned in {@link ProductBatchDto#missingProductIds()}, they are not an error.
+   * product-service accepts at most 200 ids per call.
+   */
+  public Mono<ProductBatchDto> getProductsByIds(Collection<UUID> productIds) {
+    var ids = productIds.stream().map(UUID::toString).collect(Collectors.joining(","));
+    return webClient
+            .get()
+            .uri(productServiceBaseUrl + "/product/batch?ids={ids}", ids)
+            .retrieve()
+            .bodyToMono(Result.class)
+            .transform(clientResilience.guard(SERVICE, "get-products-batch"))
+            .map(productResponse -> {
+              if (productResponse == null || productResponse.getData() == null) {
+                throw new IllegalStateException("product-service returned no data for the batch read");
+              }
+              // Convert LinkedHashMap to ProductBatchDto manually
+              return objectMapper.convertValue(productResponse.getData(), ProductBatchDto.class);
+            });
+  }
 }
@@ -0,0 +1,62 @@
+/*
+ * Copyright © 2025
+ * @Author = TJTechy (Tajudeen Busari)
+ * @Version = 1.0
+ * This file is part of the common-utils module of the Ecommerce Microservices project.
+ */
+
+package com.tjtechy.client;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounds the retries to a service to a share of its calls: every call deposits {@code ratio} of a retry,
+ * every retry withdraws a whole one, and the balance is capped at {@code burst} retries.
+ * <p>
+ *   A few failures are retried as usual, but when the service fails as a whole the budget runs out and the
+ *   retries stop multiplying the load on it, until the successful calls fill the budget again.
+ * </p>
+ */
+class RetryBudget {
+
+  //the balance is kept in thousandths of a retry
+  private static final long UNIT = 1_000;
+
+  private final long depositPerCall;
+
+  private final long capacity;
+
+  private final AtomicLong balance;
+
+  RetryBudget(double ratio, int burst) {
+    this.depositPerCall = Math.round(ratio * UNIT);
+    this.capacity = Math.max(1, burst) * UNIT;
+    this.balance = new AtomicLong(capacity);
+  }
+
+  void deposit() {
+    balance.accumulateAndGet(depositPerCall, (current, deposit) -> Math.min(capacity, current + deposit));
+  }
+
+  /**
+   * @return whether a retry may be made, in which case it is withdrawn from the budget
+   */
+  boolean tryWithdraw() {
+    while (true) {
+      var current = balance.get();
+      if (current < UNIT) {
+        return false;
+      }
+      if (balance.compareAndSet(current, current - UNIT)) {
+        return true;
+      }
+    }
+  }
+
+  /**
+   * @return the retries left in the budget
+   */
+  double available() {
+    return (double) balance.get() / UNIT;
+  }
+}
@@ -0,0 +1,93 @@
+/**
+ * Copyright © 2025
+ *
+ * @Author = TJTechy (Tajudeen Busari)
+ * @Version = 1.0
+ * This file is part of the common-utils module of the Ecommerce Microservices project.
+ */
+
+package com.tjtechy.client;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Collapses concurrent identical reads into one remote call (single-flight).
+ * <p>
+ *   The first caller for a key runs the call; callers asking for the same key while it is in flight
+ *   subscribe to the same {@link Mono} and get the same value or the same error.
+ *   When {@code microCacheTtl} is positive, a value is also kept for that long after the call completed,
+ *   so a burst arriving just after it is served without a new call. Errors are never kept.
+ * </p>
+ * Outcomes are counted in the client.single.flight counter, tagged with the client name and
+ * result=executed (remote call made), coalesced (joined a call in flight) or cached (micro-cache hit).
+ */
+public class SingleFlight<K, V> {
+
+  private static final long MAX_CACHED_ENTRIES = 10_000;
+
+  private final Map<K, Mono<V>> inFlight = new ConcurrentHashMap<>();
+
+  //null when the micro-cache is disabled
+  private final Cache<K, V> recentValues;
+
+  private final Counter executedCounter;
+  private final Counter coalescedCounter;
+  private final Counter cachedCounter;
+
+  public SingleFlight(String clientName, Duration microCacheTtl, MeterRegistry meterRegistry) {
+    this.recentValues = microCacheTtl.isPositive()
+            ? CacheBuilder.newBuilder().expireAfterWrite(microCacheTtl).maximumSize(MAX_CACHED_ENTRIES).build()
+            : null;
+    this.executedCounter = counter(meterRegistry, clientName, "executed");
+    this.coalescedCounter = counter(meterRegistry, clientName, "coalesced");
+    this.cachedCounter = counter(meterRegistry, clientName, "cached");
+  }
+
+  /**
+   * @param key identifies the read, e.g. the product id
+   * @param call the remote call, only subscribed when no identical call is in flight
+   */
+  public Mono<V> execute(K key, Function<K, Mono<V>> call) {
+    return Mono.defer(() -> {
+      if (recentValues != null) {
+        var recentValue = recentValues.getIfPresent(key);
+        if (recentValue != null) {
+          cachedCounter.increment();
+          return Mono.just(recentValue);
+        }
+      }
+      var started = new boolean[1];
+      var shared = inFlight.computeIfAbsent(key, k -> {
+        started[0] = true;
+        return call.apply(k)
+                .doOnNext(value -> {
+                  if (recentValues != null) {
+                    recentValues.put(k, value);
+                  }
+                })
+                //only this call can be mapped to the key until it terminates, so removing by key is safe
+                .doFinally(signal -> inFlight.remove(k))
+                .cache();
+      });
+      (started[0] ? executedCounter : coalescedCounter).increment();
+      return shared;
+    });
+  }
+
+  private static Counter counter(MeterRegistry meterRegistry, String clientName, String result) {
+    return Counter.builder("client.single.flight")
+            .description("Reads of the service clients by outcome: executed, coalesced into a call in flight, or cached")
+            .tag("client", clientName)
+            .tag("result", result)
+            .register(meterRegistry);
+  }
+}
@@ -1,5 +1,9 @@
 package com.tjtechy.client;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
 import io.micrometer.observation.ObservationRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.cloud.client.loadbalancer.LoadBalanced;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -15,6 +19,7 @@ import org.springframework.web.reactive.function.client.WebClient;
  * the Inventory Service to check and reserve inventory for the product being created.
  */
 @Configuration
+@EnableConfigurationProperties(ClientResilienceProperties.class)
 public class WebClientConfiguration {
 
   /**
@@ -34,4 +39,14 @@ public class WebClientConfiguration {
 
     return WebClient.builder().observationRegistry(registry);
   }
+
+  /**
+   * The circuit breakers, timeouts and bulkheads of the calls made with these WebClients
+   * (see {@link ClientResilience}), configured under clients.resilience.
+   */
+  @Bean
+  public ClientResilience clientResilience(ClientResilienceProperties properties,
+                                           ObjectProvider<MeterRegistry> meterRegistry) {
+    return new ClientResilience(properties, meterRegistry.getIfAvailable(() -> Metrics.globalRegistry));
+  }
 }
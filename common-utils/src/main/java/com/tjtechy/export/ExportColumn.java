@@ -0,0 +1,18 @@
+/*
+ * Copyright © 2025
+ * @Author = TJTechy (Tajudeen Busari)
+ * @Version = 1.0
+ * This file is part of the common-utils module of the Ecommerce Microservices project.
+ */
+
+package com.tjtechy.export;
+
+import java.util.function.Function;
+
+/**
+ * A column of an export: its name (the CSV header and the NDJSON field) and how to read it from a row.
+ *
+ * @param <T> the exported row type
+ */
+public record ExportColumn<T>(String name, Function<? super T, ?> value) {
+}
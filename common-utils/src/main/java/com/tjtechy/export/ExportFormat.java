@@ -0,0 +1,34 @@
+/*
+ * Copyright © 2025
+ * @Author = TJTechy (Tajudeen Busari)
+ * @Version = 1.0
+ * This file is part of the common-utils module of the Ecommerce Microservices project.
+ */
+
+package com.tjtechy.export;
+
+/**
+ * Formats of the streaming exports: one JSON object per line, or CSV with a header row.
+ */
+public enum ExportFormat {
+
+  NDJSON("application/x-ndjson", "ndjson"),
+  CSV("text/csv", "csv");
+
+  private final String mediaType;
+
+  private final String fileExtension;
+
+  ExportFormat(String mediaType, String fileExtension) {
+    this.mediaType = mediaType;
+    this.fileExtension = fileExtension;
+  }
+
+  public String getMediaType() {
+    return mediaType;
+  }
+
+  public String getFileExtension() {
+    return fileExtension;
+  }
+}
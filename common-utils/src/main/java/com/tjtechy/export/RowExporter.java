@@ -0,0 +1,153 @@
+/*
+ * Copyright © 2025
+ * @Author = TJTechy (Tajudeen Busari)
+ * @Version = 1.0
+ * This file is part of the common-utils module of the Ecommerce Microservices project.
+ */
+
+package com.tjtechy.export;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.temporal.TemporalAccessor;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Writes rows to an output stream one at a time, as NDJSON or CSV, while they are read from the database.
+ * <p>
+ *   Nothing but the current row is held in memory: each row is written as soon as it is read, then handed to
+ *   {@code afterRow} (typically to detach it from the persistence context), and the output is flushed every
+ *   {@link #FLUSH_INTERVAL} rows so the client receives the export progressively. Writes block while the
+ *   client is slower than the database, which in turn stops the rows from being read.
+ * </p>
+ * Column values are written as JSON values in NDJSON. In CSV, scalar values (text, numbers, dates, ids) are
+ * written as text and other values (lists, objects) as JSON. Text cells starting with a formula character
+ * are prefixed with a quote, so a spreadsheet opening the export does not evaluate them.
+ * The output stream is flushed but not closed.
+ *
+ * @param <T> the exported row type
+ */
+public class RowExporter<T> {
+
+  static final int FLUSH_INTERVAL = 500;
+
+  private static final ObjectMapper objectMapper = new ObjectMapper(JsonFactory.builder()
+          .rootValueSeparator((String) null)
+          .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+          .build())
+          .registerModule(new JavaTimeModule())
+          .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+          //flushing is done every FLUSH_INTERVAL rows, not after every value
+          .disable(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+
+  private final List<ExportColumn<T>> columns;
+
+  public RowExporter(List<ExportColumn<T>> columns) {
+    this.columns = List.copyOf(columns);
+  }
+
+  /**
+   * @param rows the rows to export, consumed but not closed
+   * @param format the output format
+   * @param outputStream where the export is written, UTF-8 encoded
+   * @param afterRow called with each row once it is written
+   * @return the number of exported rows
+   */
+  public long export(Stream<? extends T> rows, ExportFormat format, OutputStream outputStream,
+                     Consumer<? super T> afterRow) throws IOException {
+    var writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+    return switch (format) {
+      case NDJSON -> writeNdjson(rows, writer, afterRow);
+      case CSV -> writeCsv(rows, writer, afterRow);
+    };
+  }
+
+  private long writeNdjson(Stream<? extends T> rows, Writer writer, Consumer<? super T> afterRow) throws IOException {
+    var count = 0L;
+    try (var generator = objectMapper.createGenerator(writer)) {
+      for (var iterator = rows.iterator(); iterator.hasNext(); ) {
+        var row = iterator.next();
+        generator.writeStartObject();
+        for (var column : columns) {
+          generator.writeFieldName(column.name());
+          generator.writeObject(column.value().apply(row));
+        }
+        generator.writeEndObject();
+        generator.writeRaw('\n');
+        afterRow.accept(row);
+        if (++count % FLUSH_INTERVAL == 0) {
+          generator.flush();
+        }
+      }
+      generator.flush();
+    }
+    return count;
+  }
+
+  private long writeCsv(Stream<? extends T> rows, Writer writer, Consumer<? super T> afterRow) throws IOException {
+    for (var i = 0; i < columns.size(); i++) {
+      if (i > 0) {
+        writer.write(',');
+      }
+      writer.write(csvCell(columns.get(i).name()));
+    }
+    writer.write("\r\n");
+
+    var count = 0L;
+    for (var iterator = rows.iterator(); iterator.hasNext(); ) {
+      var row = iterator.next();
+      for (var i = 0; i < columns.size(); i++) {
+        if (i > 0) {
+          writer.write(',');
+        }
+        writer.write(csvCell(columns.get(i).value().apply(row)));
+      }
+      writer.write("\r\n");
+      afterRow.accept(row);
+      if (++count % FLUSH_INTERVAL == 0) {
+        writer.flush();
+      }
+    }
+    writer.flush();
+    return count;
+  }
+
+  private static String csvCell(Object value) throws IOException {
+    var text = switch (value) {
+      case null -> "";
+      case String string -> neutralizeFormula(string);
+      case BigDecimal decimal -> decimal.toPlainString();
+      case Number number -> number.toString();
+      case Boolean bool -> bool.toString();
+      case Enum<?> constant -> constant.name();
+      case UUID uuid -> uuid.toString();
+      case TemporalAccessor temporal -> temporal.toString();
+      default -> objectMapper.writeValueAsString(value);
+    };
+    if (text.indexOf(',') < 0 && text.indexOf('"') < 0 && text.indexOf('\n') < 0 && text.indexOf('\r') < 0) {
+      return text;
+    }
+    return '"' + text.replace("\"", "\"\"") + '"';
+  }
+
+  private static String neutralizeFormula(String text) {
+    if (!text.isEmpty() && "=+-@\t\r".indexOf(text.charAt(0)) >= 0) {
+      return "'" + text;
+    }
+    return text;
+  }
+}
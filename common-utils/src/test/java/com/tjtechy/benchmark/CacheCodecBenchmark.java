@@ -0,0 +1,259 @@
+/*
+ * Copyright © 2025
+ * @Author = TJTechy (Tajudeen Busari)
+ * @Version = 1.0
+ * This file is part of the common-utils module of the Ecommerce Microservices project.
+ */
+
+package com.tjtechy.benchmark;
+
+import com.tjtechy.Inventory;
+import com.tjtechy.ProductDto;
+import com.tjtechy.RedisCacheConfig;
+import com.tjtechy.cache.BinaryCacheCodec;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntFunction;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * JMH comparison of the cache value serializers every service gets from {@link RedisCacheConfig}:
+ * the polymorphic JSON serializer the caches used so far, and the {@link BinaryCacheCodec}.
+ * <p>
+ *   The codec does not depend on the classes of a service, only on the shape of the values, so the services
+ *   share this one suite: a single value, and a list of {@code size} values like the cached findAll results.
+ *   The samples cover the shapes the services cache: a flat entity ({@link Inventory}), a record with dates and a
+ *   BigDecimal ({@link ProductDto}), and an order holding a list of items, like the Order entity of the order-service.
+ *   It is not part of the regular build (the class name does not end with Test) and only runs when asked:
+ *   <pre>
+ *   mvn -pl common-utils test -Dtest=CacheCodecBenchmark -Dbenchmark=true -Dsurefire.failIfNoSpecifiedTests=false
+ *   </pre>
+ *   JMH reports the encode and decode time per value; the encoded size of every value is printed when it is set up.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+public class CacheCodecBenchmark {
+
+  //1 is a single value, the others lists of that many values
+  @Param({"1", "100", "1000"})
+  public int size;
+
+  @Param({"inventory", "product", "order"})
+  public String sample;
+
+  @Param({"json", "binary"})
+  public String codec;
+
+  private RedisSerializer<Object> serializer;
+
+  private Object cachedValue;
+
+  private byte[] encoded;
+
+  @Setup
+  public void setUp() {
+    serializer = "json".equals(codec)
+            ? RedisCacheConfig.jsonCacheSerializer()
+            : new BinaryCacheCodec(RedisCacheConfig.jsonCacheSerializer(), 1024, true);
+    IntFunction<Object> values = switch (sample) {
+      case "inventory" -> CacheCodecBenchmark::inventory;
+      case "product" -> CacheCodecBenchmark::product;
+      case "order" -> CacheCodecBenchmark::order;
+      default -> throw new IllegalArgumentException("Unknown sample: " + sample);
+    };
+    //the repositories return ArrayLists, which is what ends up in the cache.
+    //The JSON serializer only writes the class of a non-final root value, it cannot read a record back on its own,
+    //so a single ProductDto is measured in a list of one
+    cachedValue = size == 1 && !"product".equals(sample)
+            ? values.apply(0)
+            : IntStream.range(0, size).mapToObj(values).collect(Collectors.toCollection(ArrayList::new));
+    encoded = serializer.serialize(cachedValue);
+    System.out.printf("[%d, %s, %s] %d bytes%n", size, sample, codec, encoded.length);
+  }
+
+  @Benchmark
+  public byte[] encode() {
+    return serializer.serialize(cachedValue);
+  }
+
+  @Benchmark
+  public Object decode() {
+    return serializer.deserialize(encoded);
+  }
+
+  @Test
+  void runBenchmarks() throws RunnerException {
+    new Runner(new OptionsBuilder().include(CacheCodecBenchmark.class.getName()).build()).run();
+  }
+
+  private static Inventory inventory(int index) {
+    return new Inventory((long) index, UUID.randomUUID(), 100, index % 10);
+  }
+
+  private static ProductDto product(int index) {
+    return new ProductDto(UUID.randomUUID(), "product-" + index, "benchmark", "Product " + index + " of the codec benchmark",
+            10, 100, LocalDate.of(2025, 1, 1), LocalDate.of(2026, 1, 1), BigDecimal.valueOf(1999 + index, 2));
+  }
+
+  private static OrderSample order(int index) {
+    var order = new OrderSample();
+    order.setOrderId((long) index);
+    order.setCustomerName("customer-" + index);
+    order.setCustomerEmail("customer-" + index + "@example.com");
+    order.setShippingAddress(index + " Benchmark Street");
+    order.setOrderStatus("PLACED");
+    order.setOrderDate(LocalDate.of(2025, 1, 1));
+    order.setCreatedAt(LocalDateTime.of(2025, 1, 1, 12, 0).plusSeconds(index));
+    var items = new ArrayList<OrderItemSample>();
+    for (int line = 0; line < 1 + index % 5; line++) {
+      var item = new OrderItemSample();
+      item.setProductId(UUID.randomUUID());
+      item.setProductName("product-" + line);
+      item.setProductPrice(BigDecimal.valueOf(1999 + line, 2));
+      item.setProductQuantity(1 + line);
+      items.add(item);
+    }
+    order.setOrderItems(items);
+    order.setTotalAmount(items.stream()
+            .map(item -> item.getProductPrice().multiply(BigDecimal.valueOf(item.getProductQuantity())))
+            .reduce(BigDecimal.ZERO, BigDecimal::add));
+    return order;
+  }
+
+  /**
+   * An order with its items, shaped like the Order entity of the order-service, which lives outside common-utils.
+   */
+  public static class OrderSample {
+
+    private Long orderId;
+    private String customerName;
+    private String customerEmail;
+    private String shippingAddress;
+    private BigDecimal totalAmount;
+    private String orderStatus;
+    private LocalDate orderDate;
+    private LocalDateTime createdAt;
+    private List<OrderItemSample> orderItems;
+
+    public Long getOrderId() {
+      return orderId;
+    }
+    public void setOrderId(Long orderId) {
+      this.orderId = orderId;
+    }
+    public String getCustomerName() {
+      return customerName;
+    }
+    public void setCustomerName(String customerName) {
+      this.customerName = customerName;
+    }
+    public String getCustomerEmail() {
+      return customerEmail;
+    }
+    public void setCustomerEmail(String customerEmail) {
+      this.customerEmail = customerEmail;
+    }
+    public String getShippingAddress() {
+      return shippingAddress;
+    }
+    public void setShippingAddress(String shippingAddress) {
+      this.shippingAddress = shippingAddress;
+    }
+    public BigDecimal getTotalAmount() {
+      return totalAmount;
+    }
+    public void setTotalAmount(BigDecimal totalAmount) {
+      this.totalAmount = totalAmount;
+    }
+    public String getOrderStatus() {
+      return orderStatus;
+    }
+    public void setOrderStatus(String orderStatus) {
+      this.orderStatus = orderStatus;
+    }
+    public LocalDate getOrderDate() {
+      return orderDate;
+    }
+    public void setOrderDate(LocalDate orderDate) {
+      this.orderDate = orderDate;
+    }
+    public LocalDateTime getCreatedAt() {
+      return createdAt;
+    }
+    public void setCreatedAt(LocalDateTime createdAt) {
+      this.createdAt = createdAt;
+    }
+    public List<OrderItemSample> getOrderItems() {
+      return orderItems;
+    }
+    public void setOrderItems(List<OrderItemSample> orderItems) {
+      this.orderItems = orderItems;
+    }
+  }
+
+  /**
+   * A line of an {@link OrderSample}.
+   */
+  public static class OrderItemSample {
+
+    private UUID productId;
+    private String productName;
+    private BigDecimal productPrice;
+    private Integer productQuantity;
+
+    public UUID getProductId() {
+      return productId;
+    }
+    public void setProductId(UUID productId) {
+      this.productId = productId;
+    }
+    public String getProductName() {
+      return productName;
+    }
+    public void setProductName(String productName) {
+      this.productName = productName;
+    }
+    public BigDecimal getProductPrice() {
+      return productPrice;
+    }
+    public void setProductPrice(BigDecimal productPrice) {
+      this.productPrice = productPrice;
+    }
+    public Integer getProductQuantity() {
+      return productQuantity;
+    }
+    public void setProductQuantity(Integer productQuantity) {
+      this.productQuantity = productQuantity;
+    }
+  }
+}
@@ -0,0 +1,190 @@
+/*
+ * Copyright © 2025
+ * @Author = TJTechy (Tajudeen Busari)
+ * @Version = 1.0
+ * This file is part of the common-utils module of the Ecommerce Microservices project.
+ */
+
+package com.tjtechy.cache;
+
+import com.tjtechy.Inventory;
+import com.tjtechy.ProductDto;
+import com.tjtechy.RedisCacheConfig;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BinaryCacheCodecTest {
+
+  private static final int COMPRESSION_THRESHOLD = 1024;
+
+  private final RedisSerializer<Object> jsonSerializer = RedisCacheConfig.jsonCacheSerializer();
+
+  private final BinaryCacheCodec codec = new BinaryCacheCodec(jsonSerializer, COMPRESSION_THRESHOLD, true);
+
+  @Test
+  void testValueRoundTrip() {
+    //Given
+    var product = product(1);
+
+    //When
+    var bytes = codec.serialize(product);
+
+    //Then
+    assertEquals(BinaryCacheCodec.MAGIC, bytes[0]);
+    assertEquals(BinaryCacheCodec.FORMAT_VERSION, bytes[1]);
+    assertEquals(product, codec.deserialize(bytes));
+  }
+
+  @Test
+  void testListRoundTripDecodesToAnArrayList() {
+    var products = new ArrayList<>(List.of(product(1), product(2), product(3)));
+
+    var decoded = codec.deserialize(codec.serialize(products));
+
+    assertInstanceOf(ArrayList.class, decoded);
+    assertEquals(products, decoded);
+  }
+
+  @Test
+  void testSetRoundTripDecodesToALinkedHashSetInTheSameOrder() {
+    var products = new LinkedHashSet<>(List.of(product(3), product(1), product(2)));
+
+    var decoded = codec.deserialize(codec.serialize(products));
+
+    assertInstanceOf(LinkedHashSet.class, decoded);
+    assertEquals(new ArrayList<>(products), new ArrayList<>((LinkedHashSet<?>) decoded));
+  }
+
+  @Test
+  void testEmptyCollectionsRoundTrip() {
+    assertEquals(new ArrayList<>(), codec.deserialize(codec.serialize(new ArrayList<>())));
+    assertInstanceOf(LinkedHashSet.class, codec.deserialize(codec.serialize(new LinkedHashSet<>())));
+  }
+
+  @Test
+  void testMapsAndMixedListsAreWrittenAsJson() {
+    //Given
+    var map = new HashMap<>(Map.of("p1", "product-1"));
+    var mixed = new ArrayList<Object>(List.of(product(1), new Inventory(1L, UUID.randomUUID(), 10, 0)));
+
+    //When
+    var mapBytes = codec.serialize(map);
+    var mixedBytes = codec.serialize(mixed);
+
+    //Then
+    assertNotEquals(BinaryCacheCodec.MAGIC, mapBytes[0]);
+    assertNotEquals(BinaryCacheCodec.MAGIC, mixedBytes[0]);
+    assertEquals(map, codec.deserialize(mapBytes));
+  }
+
+  @Test
+  void testEntryWrittenByTheJsonSerializerIsRead() {
+    //Given: an entry written before the switch to this codec
+    var inventory = new Inventory(7L, UUID.randomUUID(), 100, 3);
+    var legacyEntry = jsonSerializer.serialize(inventory);
+
+    //When
+    var decoded = codec.deserialize(legacyEntry);
+
+    //Then
+    var decodedInventory = assertInstanceOf(Inventory.class, decoded);
+    assertEquals(inventory.getInventoryId(), decodedInventory.getInventoryId());
+    assertEquals(inventory.getProductId(), decodedInventory.getProductId());
+    assertEquals(inventory.getAvailableStock(), decodedInventory.getAvailableStock());
+    assertEquals(inventory.getReservedQuantity(), decodedInventory.getReservedQuantity());
+  }
+
+  @Test
+  void testJsonWritesStillReadBinaryEntries() {
+    //Given: an instance not switched to binary yet, next to one that is
+    var jsonWriting = new BinaryCacheCodec(jsonSerializer, COMPRESSION_THRESHOLD, false);
+    var inventory = new Inventory(7L, UUID.randomUUID(), 100, 3);
+
+    //When, Then: it writes what the JSON serializer writes, and reads what the switched instance writes
+    assertArrayEquals(jsonSerializer.serialize(inventory), jsonWriting.serialize(inventory));
+    assertEquals(product(1), jsonWriting.deserialize(codec.serialize(product(1))));
+  }
+
+  @Test
+  void testEntryOfAnotherFormatVersionIsAMiss() {
+    //Given: an entry written by a later version of the codec
+    var bytes = codec.serialize(product(1));
+    bytes[1] = BinaryCacheCodec.FORMAT_VERSION + 1;
+
+    //When, Then
+    assertNull(codec.deserialize(bytes));
+  }
+
+  @Test
+  void testEntryOfAnUnknownClassIsAMiss() throws Exception {
+    //Given: an entry of a class this deployment does not have
+    var bytes = new ByteArrayOutputStream();
+    var entry = new DataOutputStream(bytes);
+    entry.writeByte(BinaryCacheCodec.MAGIC);
+    entry.writeByte(BinaryCacheCodec.FORMAT_VERSION);
+    entry.writeByte(0);
+    entry.writeByte(0);
+    entry.writeUTF("com.tjtechy.RenamedProductDto");
+    entry.write(new byte[]{':', ')', '\n', 0, (byte) 0xFA, (byte) 0xFB});
+
+    //When, Then
+    assertNull(codec.deserialize(bytes.toByteArray()));
+  }
+
+  @Test
+  void testLargePayloadIsCompressed() {
+    //Given: a list well above the compression threshold
+    var products = IntStream.range(0, 1_000).mapToObj(BinaryCacheCodecTest::product)
+            .collect(Collectors.toCollection(ArrayList::new));
+    var neverCompressing = new BinaryCacheCodec(jsonSerializer, Integer.MAX_VALUE, true);
+
+    //When
+    var compressed = codec.serialize(products);
+    var uncompressed = neverCompressing.serialize(products);
+
+    //Then: the deflated flag is set, the entry is smaller, and both decode to the list
+    assertEquals(1, compressed[2]);
+    assertEquals(0, uncompressed[2]);
+    assertTrue(compressed.length < uncompressed.length);
+    assertEquals(products, codec.deserialize(compressed));
+    assertEquals(products, neverCompressing.deserialize(compressed));
+  }
+
+  @Test
+  void testSmallPayloadIsNotCompressed() {
+    assertEquals(0, codec.serialize(product(1))[2]);
+  }
+
+  @Test
+  void testNullAndEmptyEntries() {
+    assertNull(codec.serialize(null));
+    assertNull(codec.deserialize(null));
+    assertNull(codec.deserialize(new byte[0]));
+  }
+
+  private static ProductDto product(int index) {
+    return new ProductDto(UUID.nameUUIDFromBytes(("product-" + index).getBytes()), "product-" + index, "benchmark",
+            "Product " + index + " of the codec tests", 10, 100, LocalDate.of(2025, 1, 1), LocalDate.of(2026, 1, 1),
+            BigDecimal.valueOf(1999, 2));
+  }
+}
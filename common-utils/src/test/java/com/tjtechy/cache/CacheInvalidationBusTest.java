@@ -0,0 +1,158 @@
+/*
+ * Copyright © 2025
+ * @Author = TJTechy (Tajudeen Busari)
+ * @Version = 1.0
+ * This file is part of the common-utils module of the Ecommerce Microservices project.
+ */
+
+package com.tjtechy.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.support.SimpleValueWrapper;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.willThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class CacheInvalidationBusTest {
+
+  private static final String CHANNEL = "cache:invalidation";
+
+  private final ObjectMapper objectMapper = new ObjectMapper();
+
+  @Mock
+  private StringRedisTemplate redisTemplate;
+
+  private CacheInvalidationBus invalidationBus;
+
+  private final List<CacheInvalidationMessage> received = new ArrayList<>();
+
+  @BeforeEach
+  void setUp() {
+    invalidationBus = new CacheInvalidationBus(redisTemplate, CHANNEL);
+    invalidationBus.subscribe(received::add);
+  }
+
+  @Test
+  void testPublishSendsTheKeyOnTheChannel() throws Exception {
+    //When
+    invalidationBus.publish("product", "p1");
+
+    //Then
+    var sent = sentMessage();
+    assertEquals("product", sent.cacheName());
+    assertEquals("p1", sent.key());
+    assertNotNull(sent.origin());
+  }
+
+  @Test
+  void testOwnMessagesAreSkipped() throws Exception {
+    //Given: the message this instance sent comes back on the channel
+    invalidationBus.publish("product", "p1");
+
+    //When
+    invalidationBus.onMessage(message(sentMessage()), null);
+
+    //Then
+    assertTrue(received.isEmpty());
+  }
+
+  @Test
+  void testMessagesOfOtherInstancesReachTheSubscribers() throws Exception {
+    //When
+    invalidationBus.onMessage(message(new CacheInvalidationMessage("other-instance", "product", "p1")), null);
+    invalidationBus.onMessage(message(new CacheInvalidationMessage("other-instance", "product", null)), null);
+
+    //Then
+    assertEquals(List.of(
+            new CacheInvalidationMessage("other-instance", "product", "p1"),
+            new CacheInvalidationMessage("other-instance", "product", null)), received);
+  }
+
+  @Test
+  void testUnreadableMessagesAreIgnored() {
+    var message = new DefaultMessage(CHANNEL.getBytes(StandardCharsets.UTF_8), "not json".getBytes(StandardCharsets.UTF_8));
+
+    assertDoesNotThrow(() -> invalidationBus.onMessage(message, null));
+    assertTrue(received.isEmpty());
+  }
+
+  @Test
+  void testPublishFailureDoesNotFailTheCacheWrite() {
+    willThrow(new RedisConnectionFailureException("redis down")).given(redisTemplate).convertAndSend(anyString(), anyString());
+
+    assertDoesNotThrow(() -> invalidationBus.publish("product", "p1"));
+  }
+
+  @Test
+  void testInvalidationOfAKeyDropsItFromTheL1OfTheManagerCache() throws Exception {
+    //Given: p1 and p2 read into the L1 of the product cache
+    var remote = mock(Cache.class);
+    var remoteCacheManager = mock(CacheManager.class);
+    given(remote.getName()).willReturn("product");
+    given(remoteCacheManager.getCache("product")).willReturn(remote);
+    given(remote.get("p1")).willReturn(new SimpleValueWrapper("product-1"));
+    given(remote.get("p2")).willReturn(new SimpleValueWrapper("product-2"));
+    var cacheManager = new TwoTierCacheManager(remoteCacheManager, new LayeredCacheProperties(), invalidationBus,
+            new SimpleMeterRegistry());
+    var cache = cacheManager.getCache("product");
+    assertInstanceOf(TwoTierCache.class, cache);
+    cache.get("p1");
+    cache.get("p2");
+
+    //When: another instance changed p1
+    invalidationBus.onMessage(message(new CacheInvalidationMessage("other-instance", "product", "p1")), null);
+    cache.get("p1");
+    cache.get("p2");
+
+    //Then: only p1 was read from L2 again
+    verify(remote, times(2)).get("p1");
+    verify(remote, times(1)).get("p2");
+
+    //When: another instance cleared the cache
+    given(remote.get("p2")).willReturn(null);
+    invalidationBus.onMessage(message(new CacheInvalidationMessage("other-instance", "product", null)), null);
+
+    //Then
+    assertNull(cache.get("p2"));
+    verify(remote, times(2)).get("p2");
+  }
+
+  private CacheInvalidationMessage sentMessage() throws Exception {
+    var payload = ArgumentCaptor.forClass(String.class);
+    verify(redisTemplate).convertAndSend(eq(CHANNEL), payload.capture());
+    return objectMapper.readValue(payload.getValue(), CacheInvalidationMessage.class);
+  }
+
+  private Message message(CacheInvalidationMessage invalidation) throws Exception {
+    return new DefaultMessage(CHANNEL.getBytes(StandardCharsets.UTF_8), objectMapper.writeValueAsBytes(invalidation));
+  }
+}
@@ -0,0 +1,207 @@
+/*
+ * Copyright © 2025
+ * @Author = TJTechy (Tajudeen Busari)
+ * @Version = 1.0
+ * This file is part of the common-utils module of the Ecommerce Microservices project.
+ */
+
+package com.tjtechy.cache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+import org.springframework.dao.DataAccessResourceFailureException;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RefreshAheadCacheTest {
+
+  private ConcurrentMapCache delegate;
+
+  private SimpleMeterRegistry meterRegistry;
+
+  //the refreshes submitted in the background, run by the tests when they choose
+  private final ConcurrentLinkedQueue<Runnable> refreshTasks = new ConcurrentLinkedQueue<>();
+
+  @BeforeEach
+  void setUp() {
+    delegate = new ConcurrentMapCache("product");
+    meterRegistry = new SimpleMeterRegistry();
+  }
+
+  @Test
+  void testConcurrentMissesOfAKeyShareOneLoad() throws Exception {
+    //Given: the first load of the key blocks until the other readers wait for it
+    var cache = cache(policy(Duration.ofMinutes(10), false, Duration.ZERO));
+    var calls = new AtomicInteger();
+    var loadStarted = new CountDownLatch(1);
+    var release = new CountDownLatch(1);
+    var results = new ConcurrentLinkedQueue<Object>();
+    Runnable reader = () -> results.add(cache.get("p1", () -> {
+      calls.incrementAndGet();
+      loadStarted.countDown();
+      release.await();
+      return "product-1";
+    }));
+
+    //When
+    var first = Thread.ofPlatform().start(reader);
+    assertTrue(loadStarted.await(5, TimeUnit.SECONDS));
+    var waiting = new ArrayList<Thread>();
+    for (var i = 0; i < 7; i++) {
+      waiting.add(Thread.ofPlatform().start(reader));
+    }
+    awaitWaiting(waiting);
+    release.countDown();
+    first.join();
+    for (var thread : waiting) {
+      thread.join();
+    }
+
+    //Then
+    assertEquals(1, calls.get());
+    assertEquals(8, results.size());
+    assertTrue(results.stream().allMatch("product-1"::equals));
+    assertEquals(1, loads("loaded"));
+    assertEquals(7, loads("coalesced"));
+    assertEquals("product-1", delegate.get("p1").get());
+  }
+
+  @Test
+  void testLastValueIsServedWhenTheReloadFailsWithADatabaseError() {
+    //Given: the value was loaded, then left the shared cache
+    var cache = cache(policy(Duration.ofMinutes(10), false, Duration.ofMinutes(5)));
+    cache.get("p1", () -> "product-1");
+    delegate.evict("p1");
+
+    //When
+    var value = cache.get("p1", () -> {
+      throw new DataAccessResourceFailureException("database down");
+    });
+
+    //Then
+    assertEquals("product-1", value);
+    assertEquals(1, loads("stale"));
+  }
+
+  @Test
+  void testNotFoundIsThrownInsteadOfTheLastValue() {
+    //Given
+    var cache = cache(policy(Duration.ofMinutes(10), false, Duration.ofMinutes(5)));
+    cache.get("p1", () -> "product-1");
+    delegate.evict("p1");
+
+    //When
+    var failure = assertThrows(Cache.ValueRetrievalException.class, () -> cache.get("p1", () -> {
+      throw new IllegalArgumentException("product p1 not found");
+    }));
+
+    //Then
+    assertInstanceOf(IllegalArgumentException.class, failure.getCause());
+    assertEquals(0, loads("stale"));
+    assertEquals(1, loads("failed"));
+  }
+
+  @Test
+  void testNoStaleValueAfterTheStaleTtl() throws Exception {
+    //Given: the value expired, and there is no stale ttl
+    var cache = cache(policy(Duration.ofMillis(20), false, Duration.ZERO));
+    cache.get("p1", () -> "product-1");
+    delegate.evict("p1");
+    Thread.sleep(30);
+
+    //When, Then
+    assertThrows(Cache.ValueRetrievalException.class, () -> cache.get("p1", () -> {
+      throw new DataAccessResourceFailureException("database down");
+    }));
+  }
+
+  @Test
+  void testDueEntryIsRefreshedInTheBackground() throws Exception {
+    //Given: an entry past the ttl this instance knows of, still in the shared cache
+    var cache = cache(policy(Duration.ofMillis(20), true, Duration.ofMinutes(1)));
+    cache.get("p1", () -> "product-1");
+    Thread.sleep(30);
+
+    //When: it is read, the refresh runs in the background
+    var value = cache.get("p1", () -> "product-1 v2");
+    runRefreshes();
+
+    //Then: the reader got the cached value without waiting, the next ones get the refreshed one
+    assertEquals("product-1", value);
+    assertEquals("product-1 v2", delegate.get("p1").get());
+    assertEquals(1, loads("refreshed"));
+  }
+
+  @Test
+  void testRefreshDoesNotOverwriteAPutMadeWhileItLoaded() throws Exception {
+    //Given: a refresh of the entry started before the entry was updated
+    var cache = cache(policy(Duration.ofMillis(20), true, Duration.ofMinutes(1)));
+    cache.get("p1", () -> "product-1");
+    Thread.sleep(30);
+    cache.get("p1", () -> "product-1 read before the update");
+
+    //When
+    cache.put("p1", "product-1 updated");
+    runRefreshes();
+
+    //Then
+    assertEquals("product-1 updated", delegate.get("p1").get());
+    assertEquals("product-1 updated", cache.get("p1", () -> "product-1 reloaded"));
+  }
+
+  @Test
+  void testRefreshDoesNotRestoreAnEvictedEntry() throws Exception {
+    var cache = cache(policy(Duration.ofMillis(20), true, Duration.ofMinutes(1)));
+    cache.get("p1", () -> "product-1");
+    Thread.sleep(30);
+    cache.get("p1", () -> "product-1 read before the delete");
+
+    cache.evict("p1");
+    runRefreshes();
+
+    assertNull(delegate.get("p1"));
+  }
+
+  private RefreshAheadCache cache(CachePolicy.Resolved policy) {
+    return new RefreshAheadCache(delegate, policy, refreshTasks::add, meterRegistry);
+  }
+
+  private static CachePolicy.Resolved policy(Duration ttl, boolean refreshAhead, Duration staleTtl) {
+    return new CachePolicy.Resolved(ttl, Duration.ZERO, false, CacheSerializer.JSON, 1_000, false, Duration.ZERO,
+            refreshAhead, 1.0, staleTtl);
+  }
+
+  private void runRefreshes() {
+    List<Runnable> tasks = new ArrayList<>(refreshTasks);
+    refreshTasks.clear();
+    tasks.forEach(Runnable::run);
+  }
+
+  private double loads(String outcome) {
+    return meterRegistry.get("cache.loads").tag("outcome", outcome).counter().count();
+  }
+
+  //the threads are blocked waiting for the load in progress
+  private static void awaitWaiting(List<Thread> threads) throws InterruptedException {
+    var deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+    while (!threads.stream().allMatch(thread -> thread.getState() == Thread.State.WAITING)) {
+      assertTrue(System.nanoTime() < deadline, "the readers did not wait for the load");
+      Thread.sleep(1);
+    }
+  }
+}
@@ -0,0 +1,244 @@
+/*
+ * Copyright © 2025
+ * @Author = TJTechy (Tajudeen Busari)
+ * @Version = 1.0
+ * This file is part of the common-utils module of the Ecommerce Microservices project.
+ */
+
+package com.tjtechy.cache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.SimpleValueWrapper;
+
+import java.time.Duration;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+@ExtendWith(MockitoExtension.class)
+class TwoTierCacheTest {
+
+  @Mock
+  private Cache remote;
+
+  @Mock
+  private CacheInvalidationBus invalidationBus;
+
+  private SimpleMeterRegistry meterRegistry;
+
+  @BeforeEach
+  void setUp() {
+    given(remote.getName()).willReturn("product");
+    meterRegistry = new SimpleMeterRegistry();
+  }
+
+  @Test
+  void testGetReadsThroughL2OnceThenServesFromL1() {
+    //Given
+    var cache = cache(false);
+    given(remote.get("p1")).willReturn(new SimpleValueWrapper("product-1"));
+
+    //When
+    var first = cache.get("p1");
+    var second = cache.get("p1");
+
+    //Then
+    assertEquals("product-1", first.get());
+    assertEquals("product-1", second.get());
+    verify(remote, times(1)).get("p1");
+    assertEquals(1, gets("l1", "hit"));
+    assertEquals(1, gets("l1", "miss"));
+    assertEquals(1, gets("l2", "hit"));
+  }
+
+  @Test
+  void testMissInBothTiersIsNotKeptInL1() {
+    var cache = cache(false);
+
+    assertNull(cache.get("p1"));
+    assertNull(cache.get("p1"));
+
+    verify(remote, times(2)).get("p1");
+    assertEquals(2, gets("l2", "miss"));
+  }
+
+  @Test
+  void testGetWithLoaderLoadsThroughL2AndKeepsTheValueInL1() throws Exception {
+    //Given
+    var cache = cache(false);
+    Callable<String> loader = () -> "product-1";
+    given(remote.get("p1", loader)).willReturn("product-1");
+
+    //When
+    var first = cache.get("p1", loader);
+    var second = cache.get("p1", loader);
+
+    //Then
+    assertEquals("product-1", first);
+    assertEquals("product-1", second);
+    verify(remote, times(1)).get("p1", loader);
+  }
+
+  @Test
+  void testPutWritesBothTiersAndTellsTheOtherInstances() {
+    //Given
+    var cache = cache(false);
+
+    //When
+    cache.put("p1", "product-1");
+
+    //Then: L2 is written first, the next read is served by L1
+    verify(remote).put("p1", "product-1");
+    verify(invalidationBus).publish("product", "p1");
+    assertEquals("product-1", cache.get("p1").get());
+    verify(remote, times(0)).get("p1");
+  }
+
+  @Test
+  void testRetrieveOfACachedNullIsAWrapperWhenNullsAreAllowed() {
+    //Given: L2 holds a cached null
+    var cache = cache(true);
+    given(remote.retrieve("p1")).willReturn(CompletableFuture.completedFuture(new SimpleValueWrapper(null)));
+
+    //When
+    var fromL2 = cache.retrieve("p1").join();
+    var fromL1 = cache.retrieve("p1").join();
+
+    //Then: a wrapper of null both times, which tells a cached null from a miss
+    assertInstanceOf(Cache.ValueWrapper.class, fromL2);
+    assertNull(((Cache.ValueWrapper) fromL2).get());
+    assertInstanceOf(Cache.ValueWrapper.class, fromL1);
+    assertNull(((Cache.ValueWrapper) fromL1).get());
+    verify(remote, times(1)).retrieve("p1");
+  }
+
+  @Test
+  void testRetrieveReturnsTheValueItselfWhenNullsAreNotAllowed() {
+    var cache = cache(false);
+    given(remote.retrieve("p1")).willReturn(CompletableFuture.completedFuture("product-1"));
+
+    assertEquals("product-1", cache.retrieve("p1").join());
+    assertEquals("product-1", cache.retrieve("p1").join());
+    verify(remote, times(1)).retrieve("p1");
+  }
+
+  @Test
+  void testRetrieveOfAMissIsNull() {
+    var cache = cache(true);
+    given(remote.retrieve("p1")).willReturn(null);
+
+    assertNull(cache.retrieve("p1"));
+  }
+
+  @Test
+  void testRetrieveWithLoaderDoesNotKeepANullInL1WhenNullsAreNotAllowed() {
+    //Given
+    var cache = cache(false);
+    given(remote.retrieve(any(), any())).willReturn(CompletableFuture.completedFuture(null));
+
+    //When
+    var first = cache.retrieve("p1", () -> CompletableFuture.completedFuture(null)).join();
+    var second = cache.retrieve("p1", () -> CompletableFuture.completedFuture(null)).join();
+
+    //Then
+    assertNull(first);
+    assertNull(second);
+    verify(remote, times(2)).retrieve(any(), any());
+  }
+
+  @Test
+  void testEvictDropsBothTiersAndTellsTheOtherInstances() {
+    //Given
+    var cache = cache(false);
+    cache.put("p1", "product-1");
+
+    //When
+    cache.evict("p1");
+
+    //Then
+    verify(remote).evict("p1");
+    verify(invalidationBus, times(2)).publish("product", "p1");
+    assertNull(cache.get("p1"));
+    verify(remote).get("p1");
+  }
+
+  @Test
+  void testClearDropsBothTiersAndTellsTheOtherInstances() {
+    var cache = cache(false);
+    cache.put("p1", "product-1");
+
+    cache.clear();
+
+    verify(remote).clear();
+    verify(invalidationBus).publish(any(), isNull());
+    assertNull(cache.get("p1"));
+  }
+
+  @Test
+  void testInvalidateLocalDropsOnlyL1() {
+    //Given: two entries in L1
+    var cache = cache(false);
+    cache.put("p1", "product-1");
+    cache.put("p2", "product-2");
+    given(remote.get("p1")).willReturn(new SimpleValueWrapper("product-1 v2"));
+
+    //When: another instance changed p1
+    cache.invalidateLocal("p1");
+
+    //Then: p1 is read again from L2, p2 is still served by L1, and nothing is written or published
+    assertEquals("product-1 v2", cache.get("p1").get());
+    assertEquals("product-2", cache.get("p2").get());
+    verify(remote, times(0)).get("p2");
+    verify(remote, times(0)).evict(any());
+    verify(invalidationBus, times(2)).publish(any(), any());
+    assertEquals(1, meterRegistry.get("cache.tier.invalidations").counter().count());
+  }
+
+  @Test
+  void testInvalidateLocalOfAClearDropsTheWholeL1() {
+    var cache = cache(false);
+    cache.put("p1", "product-1");
+    cache.put("p2", "product-2");
+
+    cache.invalidateLocal(null);
+
+    assertNull(cache.get("p1"));
+    assertNull(cache.get("p2"));
+    verify(remote, times(0)).clear();
+  }
+
+  @Test
+  void testBusIsNotUsedByReads() {
+    var cache = cache(false);
+    given(remote.get("p1")).willReturn(new SimpleValueWrapper("product-1"));
+
+    cache.get("p1");
+
+    verifyNoInteractions(invalidationBus);
+  }
+
+  private TwoTierCache cache(boolean cacheNullValues) {
+    var policy = new CachePolicy.Resolved(Duration.ofMinutes(10), Duration.ZERO, cacheNullValues,
+            CacheSerializer.JSON, 100, true, Duration.ofMinutes(1), false, 1.0, Duration.ZERO);
+    return new TwoTierCache(remote, policy, invalidationBus, meterRegistry);
+  }
+
+  private double gets(String tier, String result) {
+    return meterRegistry.get("cache.tier.gets").tag("tier", tier).tag("result", result).counter().count();
+  }
+}
@@ -0,0 +1,238 @@
+/*
+ * Copyright © 2025
+ * @Author = TJTechy (Tajudeen Busari)
+ * @Version = 1.0
+ * This file is part of the common-utils module of the Ecommerce Microservices project.
+ */
+
+package com.tjtechy.client;
+
+import com.tjtechy.businessException.RemoteServiceUnavailableException;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+
+class ClientResilienceTest {
+
+  private static final String SERVICE = "inventory-service";
+
+  private ClientResilienceProperties properties;
+
+  private SimpleMeterRegistry meterRegistry;
+
+  //attempts actually made, per test
+  private AtomicInteger calls;
+
+  @BeforeEach
+  void setUp() {
+    properties = new ClientResilienceProperties();
+    meterRegistry = new SimpleMeterRegistry();
+    calls = new AtomicInteger();
+  }
+
+  @Test
+  void testCircuitBreakerOpensOnServerErrors() {
+    //Given: the breaker opens once half of 4 calls failed
+    var policy = operation("deduct-inventory");
+    policy.setSlidingWindowSize(4);
+    policy.setMinimumNumberOfCalls(4);
+    policy.setFailureRateThreshold(50f);
+    var clientResilience = new ClientResilience(properties, meterRegistry);
+
+    //When: 4 calls get a 503
+    for (var i = 0; i < 4; i++) {
+      StepVerifier.create(countedCall(Mono.<String>error(responseError(HttpStatus.SERVICE_UNAVAILABLE)))
+                      .transform(clientResilience.guard(SERVICE, "deduct-inventory")))
+              .expectError(WebClientResponseException.class)
+              .verify();
+    }
+
+    //Then: the next call is refused without reaching the service
+    StepVerifier.create(countedCall(Mono.just("deducted")).transform(clientResilience.guard(SERVICE, "deduct-inventory")))
+            .expectErrorSatisfies(e -> {
+              assertInstanceOf(RemoteServiceUnavailableException.class, e);
+              assertInstanceOf(CallNotPermittedException.class, e.getCause());
+            })
+            .verify();
+    assertEquals(4, calls.get());
+    assertEquals(1, meterRegistry.get("client.call").tag("outcome", "short_circuited").timer().count());
+  }
+
+  @Test
+  void testCircuitBreakerStaysClosedOnClientErrors() {
+    //Given
+    var policy = operation("get-inventory");
+    policy.setSlidingWindowSize(4);
+    policy.setMinimumNumberOfCalls(4);
+    policy.setFailureRateThreshold(50f);
+    policy.setMaxRetries(3);
+    var clientResilience = new ClientResilience(properties, meterRegistry);
+
+    //When: 4 calls get a 404, which is an answer
+    for (var i = 0; i < 4; i++) {
+      StepVerifier.create(countedCall(Mono.<String>error(responseError(HttpStatus.NOT_FOUND)))
+                      .transform(clientResilience.guard(SERVICE, "get-inventory")))
+              .expectErrorSatisfies(e -> assertEquals(HttpStatus.NOT_FOUND,
+                      ((WebClientResponseException) e).getStatusCode()))
+              .verify();
+    }
+
+    //Then: they were not retried, and the next call still reaches the service
+    assertEquals(4, calls.get());
+    StepVerifier.create(countedCall(Mono.just("inventory")).transform(clientResilience.guard(SERVICE, "get-inventory")))
+            .expectNext("inventory")
+            .verifyComplete();
+    assertEquals(5, calls.get());
+  }
+
+  @Test
+  void testFullBulkheadOfAnOperationRefusesTheCall() {
+    //Given: one call at a time, and one call in progress
+    operation("deduct-inventory").setMaxConcurrentCalls(1);
+    var clientResilience = new ClientResilience(properties, meterRegistry);
+    var response = Sinks.<String>one();
+
+    //When, Then: a second call is refused at once, the first one is not disturbed
+    StepVerifier.create(countedCall(response.asMono()).transform(clientResilience.guard(SERVICE, "deduct-inventory")))
+            .then(() -> StepVerifier.create(countedCall(Mono.just("deducted"))
+                            .transform(clientResilience.guard(SERVICE, "deduct-inventory")))
+                    .expectErrorSatisfies(e -> {
+                      assertInstanceOf(RemoteServiceUnavailableException.class, e);
+                      assertInstanceOf(BulkheadFullException.class, e.getCause());
+                    })
+                    .verify())
+            .then(() -> response.tryEmitValue("deducted"))
+            .expectNext("deducted")
+            .verifyComplete();
+    assertEquals(1, calls.get());
+    assertEquals(1, meterRegistry.get("client.call").tag("outcome", "rejected").timer().count());
+  }
+
+  @Test
+  void testFullBulkheadOfAServiceRefusesTheCallsOfAllItsOperations() {
+    //Given: the service takes one call at a time, whatever the operation
+    var servicePolicy = new ClientResilienceProperties.ServicePolicy();
+    servicePolicy.setMaxConcurrentCalls(1);
+    properties.getServices().put(SERVICE, servicePolicy);
+    var clientResilience = new ClientResilience(properties, meterRegistry);
+    var response = Sinks.<String>one();
+
+    //When, Then
+    StepVerifier.create(countedCall(response.asMono()).transform(clientResilience.guard(SERVICE, "deduct-inventory")))
+            .then(() -> StepVerifier.create(countedCall(Mono.just("inventory"))
+                            .transform(clientResilience.guard(SERVICE, "get-inventory")))
+                    .expectErrorSatisfies(e -> {
+                      assertInstanceOf(RemoteServiceUnavailableException.class, e);
+                      assertInstanceOf(BulkheadFullException.class, e.getCause());
+                    })
+                    .verify())
+            .then(() -> response.tryEmitValue("deducted"))
+            .expectNext("deducted")
+            .verifyComplete();
+    assertEquals(1, calls.get());
+  }
+
+  @Test
+  void testDeadlineCoversTheRetries() {
+    //Given: attempts of 100ms, retried up to 10 times, within a deadline of 300ms
+    var policy = operation("deduct-inventory");
+    policy.setTimeout(Duration.ofMillis(100));
+    policy.setDeadline(Duration.ofMillis(300));
+    policy.setMaxRetries(10);
+    policy.setRetryBackoff(Duration.ofMillis(10));
+    var clientResilience = new ClientResilience(properties, meterRegistry);
+
+    //When, Then: a service that never answers is given up at the deadline, not after 11 timeouts
+    StepVerifier.withVirtualTime(() -> countedCall(Mono.<String>never())
+                    .transform(clientResilience.guard(SERVICE, "deduct-inventory")))
+            .expectSubscription()
+            .expectNoEvent(Duration.ofMillis(299))
+            .thenAwait(Duration.ofMillis(1))
+            .expectErrorSatisfies(e -> {
+              assertInstanceOf(RemoteServiceUnavailableException.class, e);
+              assertInstanceOf(TimeoutException.class, e.getCause());
+            })
+            .verify();
+    //attempts at 0ms, 110..115ms and 220..245ms: the backoff starts at 10ms and doubles, give or take its jitter
+    assertEquals(3, calls.get());
+    assertEquals(1, meterRegistry.get("client.call").tag("outcome", "timeout").timer().count());
+  }
+
+  @Test
+  void testRetryBudgetStopsTheRetries() {
+    //Given: a budget of 2 retries, not refilled by the calls
+    var servicePolicy = new ClientResilienceProperties.ServicePolicy();
+    servicePolicy.setRetryBudgetRatio(0);
+    servicePolicy.setRetryBudgetBurst(2);
+    properties.getServices().put(SERVICE, servicePolicy);
+    var policy = operation("deduct-inventory");
+    policy.setMaxRetries(5);
+    policy.setRetryBackoff(Duration.ofMillis(1));
+    var clientResilience = new ClientResilience(properties, meterRegistry);
+
+    //When: the service fails every call
+    for (var i = 0; i < 2; i++) {
+      StepVerifier.create(countedCall(Mono.<String>error(responseError(HttpStatus.SERVICE_UNAVAILABLE)))
+                      .transform(clientResilience.guard(SERVICE, "deduct-inventory")))
+              .expectError(WebClientResponseException.class)
+              .verify(Duration.ofSeconds(5));
+    }
+
+    //Then: the first call spent the budget on 2 retries, the second one was not retried
+    assertEquals(4, calls.get());
+    assertEquals(2, retries("retried"));
+    assertEquals(2, retries("budget_exhausted"));
+    assertEquals(0, meterRegistry.get("client.retry.budget").tag("service", SERVICE).gauge().value());
+  }
+
+  @Test
+  void testGuardIsANoOpWhenDisabled() {
+    properties.setEnabled(false);
+    operation("deduct-inventory").setMaxRetries(3);
+    var clientResilience = new ClientResilience(properties, meterRegistry);
+
+    StepVerifier.create(countedCall(Mono.<String>error(responseError(HttpStatus.SERVICE_UNAVAILABLE)))
+                    .transform(clientResilience.guard(SERVICE, "deduct-inventory")))
+            .expectError(WebClientResponseException.class)
+            .verify();
+    assertEquals(1, calls.get());
+  }
+
+  private OperationPolicy operation(String operation) {
+    return properties.getServices()
+            .computeIfAbsent(SERVICE, service -> new ClientResilienceProperties.ServicePolicy())
+            .getOperations()
+            .computeIfAbsent(operation, name -> new OperationPolicy());
+  }
+
+  //the call, counting its subscriptions: each one is an attempt
+  private Mono<String> countedCall(Mono<String> call) {
+    return Mono.defer(() -> {
+      calls.incrementAndGet();
+      return call;
+    });
+  }
+
+  private static WebClientResponseException responseError(HttpStatus status) {
+    return WebClientResponseException.create(status, status.getReasonPhrase(), new HttpHeaders(), new byte[0], null);
+  }
+
+  private double retries(String result) {
+    return meterRegistry.get("client.call.retries").tag("result", result).counter().count();
+  }
+}
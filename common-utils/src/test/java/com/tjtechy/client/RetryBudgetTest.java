@@ -0,0 +1,72 @@
+/*
+ * Copyright © 2025
+ * @Author = TJTechy (Tajudeen Busari)
+ * @Version = 1.0
+ * This file is part of the common-utils module of the Ecommerce Microservices project.
+ */
+
+package com.tjtechy.client;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RetryBudgetTest {
+
+  @Test
+  void testBudgetStartsFullAndRunsOut() {
+    //Given
+    var retryBudget = new RetryBudget(0.1, 3);
+
+    //When, Then
+    assertEquals(3, retryBudget.available());
+    assertTrue(retryBudget.tryWithdraw());
+    assertTrue(retryBudget.tryWithdraw());
+    assertTrue(retryBudget.tryWithdraw());
+    assertFalse(retryBudget.tryWithdraw());
+    assertEquals(0, retryBudget.available());
+  }
+
+  @Test
+  void testCallsRefillTheBudgetByTheirRatio() {
+    //Given: an empty budget, refilled by a tenth of a retry per call
+    var retryBudget = new RetryBudget(0.1, 3);
+    while (retryBudget.tryWithdraw()) {
+      //spend it
+    }
+
+    //When: 9 calls
+    for (var i = 0; i < 9; i++) {
+      retryBudget.deposit();
+    }
+
+    //Then: not a whole retry yet
+    assertFalse(retryBudget.tryWithdraw());
+
+    //the 10th call makes one
+    retryBudget.deposit();
+    assertTrue(retryBudget.tryWithdraw());
+    assertFalse(retryBudget.tryWithdraw());
+  }
+
+  @Test
+  void testBalanceIsCappedAtTheBurst() {
+    var retryBudget = new RetryBudget(1, 2);
+
+    for (var i = 0; i < 10; i++) {
+      retryBudget.deposit();
+    }
+
+    assertEquals(2, retryBudget.available());
+  }
+
+  @Test
+  void testBudgetAllowsOneRetryAtLeast() {
+    var retryBudget = new RetryBudget(0.2, 0);
+
+    assertTrue(retryBudget.tryWithdraw());
+    assertFalse(retryBudget.tryWithdraw());
+  }
+}
@@ -0,0 +1,166 @@
+/**
+ * Copyright © 2025
+ *
+ * @Author = TJTechy (Tajudeen Busari)
+ * @Version = 1.0
+ * This file is part of the common-utils module of the Ecommerce Microservices project.
+ */
+
+package com.tjtechy.client;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+import reactor.util.function.Tuples;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class SingleFlightTest {
+
+  private SimpleMeterRegistry meterRegistry;
+
+  //remote calls actually made, per test
+  private AtomicInteger calls;
+
+  @BeforeEach
+  void setUp() {
+    meterRegistry = new SimpleMeterRegistry();
+    calls = new AtomicInteger();
+  }
+
+  @Test
+  void testConcurrentIdenticalReadsShareOneCall() {
+    //Given: a call that completes when the test emits its value
+    var singleFlight = new SingleFlight<String, String>("product-service", Duration.ZERO, meterRegistry);
+    var response = Sinks.<String>one();
+    var call = countedCall(key -> response.asMono());
+
+    //When: three reads of the same key are in flight together
+    var reads = Mono.zip(
+            singleFlight.execute("p1", call),
+            singleFlight.execute("p1", call),
+            singleFlight.execute("p1", call));
+
+    //Then
+    StepVerifier.create(reads)
+            .then(() -> response.tryEmitValue("product-1"))
+            .expectNext(Tuples.of("product-1", "product-1", "product-1"))
+            .verifyComplete();
+    assertEquals(1, calls.get());
+    assertEquals(1, count("executed"));
+    assertEquals(2, count("coalesced"));
+  }
+
+  @Test
+  void testReadsOfDifferentKeysAreNotShared() {
+    var singleFlight = new SingleFlight<String, String>("product-service", Duration.ZERO, meterRegistry);
+    var call = countedCall(key -> Mono.just("product " + key));
+
+    StepVerifier.create(Mono.zip(singleFlight.execute("p1", call), singleFlight.execute("p2", call)))
+            .expectNext(Tuples.of("product p1", "product p2"))
+            .verifyComplete();
+    assertEquals(2, calls.get());
+    assertEquals(2, count("executed"));
+  }
+
+  @Test
+  void testCallersInFlightShareTheErrorButItIsNotCached() {
+    //Given
+    var singleFlight = new SingleFlight<String, String>("product-service", Duration.ofMinutes(1), meterRegistry);
+    var response = Sinks.<String>one();
+    var failingCall = countedCall(key -> response.asMono());
+
+    //When: two reads in flight when the call fails
+    StepVerifier.create(Mono.zipDelayError(
+                    singleFlight.execute("p1", failingCall).onErrorReturn("failed"),
+                    singleFlight.execute("p1", failingCall).onErrorReturn("failed")))
+            .then(() -> response.tryEmitError(new IllegalStateException("product-service unavailable")))
+            .expectNext(Tuples.of("failed", "failed"))
+            .verifyComplete();
+
+    //Then: the next read makes a new call
+    StepVerifier.create(singleFlight.execute("p1", countedCall(key -> Mono.just("product-1"))))
+            .expectNext("product-1")
+            .verifyComplete();
+    assertEquals(2, calls.get());
+    assertEquals(0, count("cached"));
+  }
+
+  @Test
+  void testMicroCacheServesRecentValuesUntilItExpires() throws InterruptedException {
+    //Given
+    var singleFlight = new SingleFlight<String, String>("product-service", Duration.ofMillis(100), meterRegistry);
+    var call = countedCall(key -> Mono.just("product-" + calls.get()));
+
+    //When, Then: the read right after the call is served from the micro-cache
+    StepVerifier.create(singleFlight.execute("p1", call)).expectNext("product-1").verifyComplete();
+    StepVerifier.create(singleFlight.execute("p1", call)).expectNext("product-1").verifyComplete();
+    assertEquals(1, calls.get());
+
+    //once the value expired, a new call is made
+    Thread.sleep(150);
+    StepVerifier.create(singleFlight.execute("p1", call)).expectNext("product-2").verifyComplete();
+    assertEquals(2, calls.get());
+    assertEquals(2, count("executed"));
+    assertEquals(1, count("cached"));
+  }
+
+  @Test
+  void testWithoutMicroCacheEveryCompletedReadMakesANewCall() {
+    var singleFlight = new SingleFlight<String, String>("product-service", Duration.ZERO, meterRegistry);
+    var call = countedCall(key -> Mono.just("product-1"));
+
+    StepVerifier.create(singleFlight.execute("p1", call)).expectNext("product-1").verifyComplete();
+    StepVerifier.create(singleFlight.execute("p1", call)).expectNext("product-1").verifyComplete();
+
+    assertEquals(2, calls.get());
+    assertEquals(0, count("cached"));
+  }
+
+  @Test
+  void testCountersAddUpToTheReads() {
+    //Given
+    var singleFlight = new SingleFlight<String, String>("product-service", Duration.ofMinutes(1), meterRegistry);
+    var response = Sinks.<String>one();
+    var call = countedCall(key -> response.asMono());
+
+    //When: 4 reads in flight together, then 3 reads of the cached value
+    StepVerifier.create(Mono.zip(
+                    singleFlight.execute("p1", call),
+                    singleFlight.execute("p1", call),
+                    singleFlight.execute("p1", call),
+                    singleFlight.execute("p1", call)))
+            .then(() -> response.tryEmitValue("product-1"))
+            .expectNextCount(1)
+            .verifyComplete();
+    for (var i = 0; i < 3; i++) {
+      StepVerifier.create(singleFlight.execute("p1", call)).expectNext("product-1").verifyComplete();
+    }
+
+    //Then: every read is counted once, and only the executed ones called the service
+    assertEquals(1, count("executed"));
+    assertEquals(3, count("coalesced"));
+    assertEquals(3, count("cached"));
+    assertEquals(7, count("executed") + count("coalesced") + count("cached"));
+    assertEquals(calls.get(), (int) count("executed"));
+  }
+
+  //the call, counting its subscriptions: each one is a remote call
+  private Function<String, Mono<String>> countedCall(Function<String, Mono<String>> call) {
+    return key -> Mono.defer(() -> {
+      calls.incrementAndGet();
+      return call.apply(key);
+    });
+  }
+
+  private double count(String result) {
+    return meterRegistry.get("client.single.flight").tag("result", result).counter().count();
+  }
+}
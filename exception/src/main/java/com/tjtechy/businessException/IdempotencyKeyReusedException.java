@@ -0,0 +1,18 @@
+/*
+ * Copyright © 2025
+ * @Author = TJTechy (Tajudeen Busari)
+ * @Version = 1.0
+ * This file is part of the exception module of the Ecommerce Microservices project.
+ */
+
+package com.tjtechy.businessException;
+
+/**
+ * Thrown when an Idempotency-Key is sent again with a request body that differs from the first request.
+ */
+public class IdempotencyKeyReusedException extends RuntimeException {
+
+    public IdempotencyKeyReusedException(String idempotencyKey) {
+        super("Idempotency key " + idempotencyKey + " was already used with a different request.");
+    }
+}
@@ -0,0 +1,18 @@
+/*
+ * Copyright © 2025
+ * @Author = TJTechy (Tajudeen Busari)
+ * @Version = 1.0
+ * This file is part of the exception module of the Ecommerce Microservices project.
+ */
+
+package com.tjtechy.businessException;
+
+/**
+ * Thrown when a request with the same Idempotency-Key is still being processed and did not finish in time.
+ */
+public class IdempotentRequestInProgressException extends RuntimeException {
+
+    public IdempotentRequestInProgressException(String idempotencyKey) {
+        super("A request with idempotency key " + idempotencyKey + " is still in progress, retry later.");
+    }
+}
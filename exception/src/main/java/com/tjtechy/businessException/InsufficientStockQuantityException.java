@@ -7,6 +7,7 @@
 
 package com.tjtechy.businessException;
 
+import java.util.List;
 import java.util.UUID;
 
 /**
@@ -18,4 +19,8 @@ public class InsufficientStockQuantityException extends RuntimeException {
     public InsufficientStockQuantityException(UUID id) {
         super("Insufficient stock quantity for product with id: " + id);
     }
+
+    public InsufficientStockQuantityException(List<UUID> ids) {
+        super("Insufficient stock quantity for products with ids: " + ids);
+    }
 }
@@ -0,0 +1,19 @@
+/*
+ * Copyright © 2025
+ * @Author = TJTechy (Tajudeen Busari)
+ * @Version = 1.0
+ * This file is part of the exception module of the Ecommerce Microservices project.
+ */
+
+package com.tjtechy.businessException;
+
+/**
+ * Thrown when a call to another service is not made or given up: its circuit breaker is open,
+ * too many calls to it are in progress, or it did not answer before the deadline.
+ */
+public class RemoteServiceUnavailableException extends RuntimeException {
+
+    public RemoteServiceUnavailableException(String service, String operation, Throwable cause) {
+        super(service + " is unavailable (" + operation + "), retry later.", cause);
+    }
+}
@@ -0,0 +1,19 @@
+/*
+ * Copyright © 2025
+ * @Author = TJTechy (Tajudeen Busari)
+ * @Version = 1.0
+ * This file is part of the exception module of the Ecommerce Microservices project.
+ */
+
+package com.tjtechy.businessException;
+
+/**
+ * Thrown when a login is refused before its password is checked: too many logins of the same username or
+ * client are in progress, or the password hashing pool is saturated.
+ */
+public class TooManyLoginAttemptsException extends RuntimeException {
+
+    public TooManyLoginAttemptsException() {
+        super("Too many login attempts in progress, retry later.");
+    }
+}
@@ -21,10 +21,12 @@ import org.springframework.cloud.client.discovery.EnableDiscoveryClient;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Import;
 import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
 
 
 @EnableCaching
+@EnableScheduling // flushes and hotness evaluation of the hot-SKU counters
 @SpringBootApplication(scanBasePackages = "com.tjtechy") // This is to scan the common-utils package for Inventory and RedisCacheConfig class
 @EnableDiscoveryClient
 @EnableJpaRepositories(basePackages = "com.tjtechy") // This is to scan the common-utils package for the Inventory class
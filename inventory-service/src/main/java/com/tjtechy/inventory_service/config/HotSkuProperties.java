@@ -0,0 +1,137 @@
+/*
+ * Copyright © 2025
+ * @Author = TJTechy (Tajudeen Busari)
+ * @Version = 1.0
+ * This file is part of the inventory-service module of the Ecommerce Microservices project.
+ */
+
+package com.tjtechy.inventory_service.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Settings for the hot-SKU mode of the inventory service.
+ * <p>
+ *   When enabled, deductions for hot products are served from an in-memory, striped stock counter
+ *   that is fed by leases taken from the inventory row, instead of hitting PostgreSQL on every request.
+ *   A product is hot either because it is listed in {@code productIds} or because it received at least
+ *   {@code hotnessThreshold} deductions during the last evaluation interval.
+ * </p>
+ * Example:
+ * <pre>
+ * inventory:
+ *   hot-sku:
+ *     enabled: true
+ *     product-ids: 3f0c...,9a1b...
+ *     hotness-threshold: 500
+ * </pre>
+ */
+@Configuration
+@ConfigurationProperties(prefix = "inventory.hot-sku")
+public class HotSkuProperties {
+
+  /** Turns the hot-SKU mode on or off for this service instance. */
+  private boolean enabled = false;
+
+  /** Products that are always served from memory while the mode is enabled. */
+  private Set<UUID> productIds = new HashSet<>();
+
+  /** Deductions per evaluation interval above which a product is promoted automatically, 0 disables auto promotion. */
+  private long hotnessThreshold = 500;
+
+  /** How often the hotness of products is evaluated, in milliseconds. */
+  private long evaluationIntervalMs = 1000;
+
+  /** How often consumed units are flushed to the inventory row, in milliseconds. */
+  private long flushIntervalMs = 200;
+
+  /** Number of stripes each in-memory counter is split into to spread contention across threads. */
+  private int stripes = Runtime.getRuntime().availableProcessors();
+
+  /** Number of units taken from the inventory row each time a counter runs dry. */
+  private int leaseSize = 100;
+
+  /** How often an instance that holds counters refreshes its heartbeat, in milliseconds. */
+  private long heartbeatIntervalMs = 5000;
+
+  /** Age of the heartbeat after which an instance is taken for dead and its leased stock is returned, in milliseconds. */
+  private long instanceTimeoutMs = 60000;
+
+  /** How often the leased stock of dead instances is looked for, in milliseconds. */
+  private long reconcileIntervalMs = 60000;
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+  public void setEnabled(boolean enabled) {
+    this.enabled = enabled;
+  }
+
+  public Set<UUID> getProductIds() {
+    return productIds;
+  }
+  public void setProductIds(Set<UUID> productIds) {
+    this.productIds = productIds;
+  }
+
+  public long getHotnessThreshold() {
+    return hotnessThreshold;
+  }
+  public void setHotnessThreshold(long hotnessThreshold) {
+    this.hotnessThreshold = hotnessThreshold;
+  }
+
+  public long getEvaluationIntervalMs() {
+    return evaluationIntervalMs;
+  }
+  public void setEvaluationIntervalMs(long evaluationIntervalMs) {
+    this.evaluationIntervalMs = evaluationIntervalMs;
+  }
+
+  public long getFlushIntervalMs() {
+    return flushIntervalMs;
+  }
+  public void setFlushIntervalMs(long flushIntervalMs) {
+    this.flushIntervalMs = flushIntervalMs;
+  }
+
+  public int getStripes() {
+    return stripes;
+  }
+  public void setStripes(int stripes) {
+    this.stripes = stripes;
+  }
+
+  public int getLeaseSize() {
+    return leaseSize;
+  }
+  public void setLeaseSize(int leaseSize) {
+    this.leaseSize = leaseSize;
+  }
+
+  public long getHeartbeatIntervalMs() {
+    return heartbeatIntervalMs;
+  }
+  public void setHeartbeatIntervalMs(long heartbeatIntervalMs) {
+    this.heartbeatIntervalMs = heartbeatIntervalMs;
+  }
+
+  public long getInstanceTimeoutMs() {
+    return instanceTimeoutMs;
+  }
+  public void setInstanceTimeoutMs(long instanceTimeoutMs) {
+    this.instanceTimeoutMs = instanceTimeoutMs;
+  }
+
+  public long getReconcileIntervalMs() {
+    return reconcileIntervalMs;
+  }
+  public void setReconcileIntervalMs(long reconcileIntervalMs) {
+    this.reconcileIntervalMs = reconcileIntervalMs;
+  }
+}
@@ -7,15 +7,21 @@
 package com.tjtechy.inventory_service.controller;
 
 import com.tjtechy.*;
+import com.tjtechy.export.ExportFormat;
 import com.tjtechy.inventory_service.mapper.InventoryMapper;
 import com.tjtechy.inventory_service.service.InventoryService;
 import io.micrometer.core.instrument.MeterRegistry;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.web.bind.annotation.*;
 import reactor.core.publisher.Mono;
 
+import java.io.IOException;
+import java.time.LocalDate;
 import java.util.List;
 import java.util.UUID;
 
@@ -85,6 +91,35 @@ public class InventoryController {
     return new Result("All inventories retrieved successfully", true, inventoryDtos, StatusCode.SUCCESS);
   }
 
+  /**
+   * This method is used to export all inventories as NDJSON (one inventory per line) or CSV.
+   * The inventories are written to the response while they are read from the database,
+   * so the export runs in constant memory whatever the number of inventories.
+   * With since, only the inventories changed on or after that date are exported (incremental pull).
+   */
+  @Operation(summary = "Export Inventories",
+          description = "This endpoint streams all inventories, or those changed since a date, as NDJSON or CSV.",
+          responses = {
+                  @ApiResponse(responseCode = "200", description = "Inventories exported successfully")
+          })
+  @GetMapping("/export")
+  public void exportInventories(@RequestParam(defaultValue = "NDJSON") ExportFormat format,
+                                @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate since,
+                                HttpServletResponse response) throws IOException {
+    response.setContentType(format.getMediaType());
+    response.setCharacterEncoding("UTF-8");
+    response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"inventories." + format.getFileExtension() + "\"");
+    try {
+      inventoryService.exportInventories(since, format, response.getOutputStream());
+    } catch (RuntimeException exception) {
+      //nothing sent yet: drop the export headers so the error is written as a regular Result
+      if (!response.isCommitted()) {
+        response.reset();
+      }
+      throw exception;
+    }
+  }
+
   /**
    * This method is used to get inventory by product id.
    * It is used internally by the product service.
@@ -197,6 +232,27 @@ public class InventoryController {
             .thenReturn(new Result("Inventory deducted successfully", true, null, StatusCode.SUCCESS));
   }
 
+  /**
+   * This method is used to deduct inventory for all the items of an order in one call.
+   * It is used internally by the order service when an order is placed or updated.
+   * The deduction is all-or-nothing: if any product is missing or short, nothing is deducted.
+   * @return Result {@link Result}
+   */
+  @Operation(summary = "Deduct Inventory in Batch",
+          description = "This endpoint is used to deduct inventory for several products in one transaction. It is used internally by the order service when an order is placed. " +
+                  "If any product is not found or has insufficient stock, no inventory is deducted and the affected product IDs are returned in the error message.",
+          responses = {
+                  @ApiResponse(responseCode = "200", description = "Inventory deducted successfully"),
+                  @ApiResponse(responseCode = "400", description = "Insufficient stock for one or more products"),
+                  @ApiResponse(responseCode = "404", description = "One or more products not found")
+          })
+  @PatchMapping("/internal/deduct-inventory-batch")
+  public Result deductInventoryBatch(@Valid @RequestBody BatchDeductInventoryRequestDto batchDeductInventoryRequestDto) {
+
+    inventoryService.deductInventoryBatch(batchDeductInventoryRequestDto.items());
+    return new Result("Inventory deducted successfully", true, null, StatusCode.SUCCESS);
+  }
+
   /**
    * This method is used to restore inventory by product id and quantity.
    * It is typically used internally by the Order-Service when an order is canceled,
@@ -218,5 +274,24 @@ public class InventoryController {
     return new Result("Inventory restored successfully", true, null, StatusCode.SUCCESS);
   }
 
+  /**
+   * This method is used to restore inventory for several products in one call.
+   * It is used internally by the Order-Service when an order update removes lines or lowers quantities.
+   * @return Result {@link Result}
+   */
+  @Operation(summary = "Restore Inventory in Batch",
+          description = "This endpoint is used to restore inventory for several products in one transaction. It is used internally by the Order-Service " +
+                  "when an order update releases stock. If any product is not found, no inventory is restored.",
+          responses = {
+                  @ApiResponse(responseCode = "200", description = "Inventory restored successfully"),
+                  @ApiResponse(responseCode = "404", description = "One or more products not found")
+          })
+  @PostMapping("/internal/restore-inventory-batch")
+  public Result restoreInventoryBatch(@Valid @RequestBody BatchRestoreInventoryRequestDto batchRestoreInventoryRequestDto) {
+
+    inventoryService.restoreInventoryBatch(batchRestoreInventoryRequestDto.items());
+    return new Result("Inventory restored successfully", true, null, StatusCode.SUCCESS);
+  }
+
 }
 
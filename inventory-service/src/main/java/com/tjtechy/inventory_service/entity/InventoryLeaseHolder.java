@@ -0,0 +1,49 @@
+/*
+ * Copyright © 2025
+ * @Author = TJTechy (Tajudeen Busari)
+ * @Version = 1.0
+ * This file is part of the inventory-service module of the Ecommerce Microservices project.
+ */
+
+package com.tjtechy.inventory_service.entity;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Heartbeat of a service instance that holds hot-SKU stock in memory.
+ * <p>
+ *   An instance writes its row before each lease and refreshes it while it has counters. Once the heartbeat
+ *   is older than {@code instance-timeout-ms}, the balance of the instance in the {@link InventoryReservationLog}
+ *   is returned to the available stock and the row is deleted.
+ * </p>
+ */
+@Entity
+@Table(name = "inventory_lease_holder")
+public class InventoryLeaseHolder {
+
+  @Id
+  private String instanceId;
+  @Column(nullable = false)
+  private LocalDateTime heartbeatAt;
+
+  public InventoryLeaseHolder() {
+  }
+  public InventoryLeaseHolder(String instanceId, LocalDateTime heartbeatAt) {
+    this.instanceId = instanceId;
+    this.heartbeatAt = heartbeatAt;
+  }
+  public String getInstanceId() {
+    return instanceId;
+  }
+  public void setInstanceId(String instanceId) {
+    this.instanceId = instanceId;
+  }
+  public LocalDateTime getHeartbeatAt() {
+    return heartbeatAt;
+  }
+  public void setHeartbeatAt(LocalDateTime heartbeatAt) {
+    this.heartbeatAt = heartbeatAt;
+  }
+}
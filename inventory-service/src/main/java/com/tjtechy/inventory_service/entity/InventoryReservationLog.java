@@ -0,0 +1,102 @@
+/*
+ * Copyright © 2025
+ * @Author = TJTechy (Tajudeen Busari)
+ * @Version = 1.0
+ * This file is part of the inventory-service module of the Ecommerce Microservices project.
+ */
+
+package com.tjtechy.inventory_service.entity;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Append-only record of the stock that the hot-SKU mode moves between the inventory row and memory.
+ * <p>
+ *   Every entry is written in the same transaction as the inventory row update it describes:
+ *   <ul>
+ *     <li>LEASED: units taken out of available stock into an in-memory counter.</li>
+ *     <li>CONSUMED: leased units that were reserved by orders and added to the reserved quantity.</li>
+ *     <li>RELEASED: leased units that were not used and went back to the available stock.</li>
+ *   </ul>
+ *   For a given instance and product, LEASED - CONSUMED - RELEASED is the stock still held in memory.
+ *   When the {@link InventoryLeaseHolder} heartbeat of an instance times out, that balance goes back to the
+ *   available stock and is logged as RELEASED under the id of the instance. The balance also holds the units
+ *   consumed since the last flush, which a crash does not tell apart: they are returned too, so a crash can
+ *   oversell up to the deductions of one flush interval.
+ * </p>
+ */
+@Entity
+@Table(name = "inventory_reservation_log",
+        indexes = @Index(name = "idx_reservation_log_product_instance", columnList = "productId, instanceId"))
+public class InventoryReservationLog {
+
+  public enum EventType {
+    LEASED,
+    CONSUMED,
+    RELEASED
+  }
+
+  @Id
+  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  private Long id;
+  @Column(nullable = false)
+  private UUID productId;
+  @Enumerated(EnumType.STRING)
+  @Column(nullable = false)
+  private EventType eventType;
+  @Column(nullable = false)
+  private Integer quantity;
+  @Column(nullable = false)
+  private String instanceId;
+  @Column(nullable = false)
+  private LocalDateTime createdAt;
+
+  public InventoryReservationLog() {
+  }
+  public InventoryReservationLog(UUID productId, EventType eventType, Integer quantity, String instanceId) {
+    this.productId = productId;
+    this.eventType = eventType;
+    this.quantity = quantity;
+    this.instanceId = instanceId;
+    this.createdAt = LocalDateTime.now();
+  }
+  public Long getId() {
+    return id;
+  }
+  public void setId(Long id) {
+    this.id = id;
+  }
+  public UUID getProductId() {
+    return productId;
+  }
+  public void setProductId(UUID productId) {
+    this.productId = productId;
+  }
+  public EventType getEventType() {
+    return eventType;
+  }
+  public void setEventType(EventType eventType) {
+    this.eventType = eventType;
+  }
+  public Integer getQuantity() {
+    return quantity;
+  }
+  public void setQuantity(Integer quantity) {
+    this.quantity = quantity;
+  }
+  public String getInstanceId() {
+    return instanceId;
+  }
+  public void setInstanceId(String instanceId) {
+    this.instanceId = instanceId;
+  }
+  public LocalDateTime getCreatedAt() {
+    return createdAt;
+  }
+  public void setCreatedAt(LocalDateTime createdAt) {
+    this.createdAt = createdAt;
+  }
+}
@@ -8,12 +8,14 @@ package com.tjtechy.inventory_service.exception;
 
 import com.tjtechy.Result;
 import com.tjtechy.StatusCode;
+import com.tjtechy.businessException.InsufficientStockQuantityException;
 import com.tjtechy.modelNotFoundException.InventoryNotFoundException;
 import com.tjtechy.modelNotFoundException.ProductNotFoundException;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.method.annotation.MethodArgumentTypeMismatchException;
 
 @RestControllerAdvice
 public class ExceptionHandlingAdvice {
@@ -52,6 +54,29 @@ public class ExceptionHandlingAdvice {
     return new Result(exception.getMessage(), false, StatusCode.BAD_REQUEST);
   }
 
+  /**
+   * Handles exceptions of type {@link InsufficientStockQuantityException}.
+   * The message carries the id(s) of the product(s) that are short, so the caller
+   * (e.g. the order service during a batch deduction) knows which items failed.
+   * @return Result {@link Result}
+   */
+  @ExceptionHandler(InsufficientStockQuantityException.class)
+  @ResponseStatus(HttpStatus.BAD_REQUEST)
+  public Result handleInsufficientStockQuantityException(InsufficientStockQuantityException exception) {
+    return new Result(exception.getMessage(), false, StatusCode.BAD_REQUEST);
+  }
+
+  /**
+   * Handles exceptions of type {@link MethodArgumentTypeMismatchException}, thrown for request parameters
+   * that cannot be converted, e.g. an unknown format of the inventory export.
+   * @return Result {@link Result}
+   */
+  @ExceptionHandler(MethodArgumentTypeMismatchException.class)
+  @ResponseStatus(HttpStatus.BAD_REQUEST)
+  public Result handleMethodArgumentTypeMismatchException(MethodArgumentTypeMismatchException exception) {
+    return new Result("Invalid value of the " + exception.getName() + " parameter", false, StatusCode.BAD_REQUEST);
+  }
+
 
 
 
@@ -0,0 +1,44 @@
+/*
+ * Copyright © 2025
+ * @Author = TJTechy (Tajudeen Busari)
+ * @Version = 1.0
+ * This file is part of the inventory-service module of the Ecommerce Microservices project.
+ */
+package com.tjtechy.inventory_service.repository;
+
+import com.tjtechy.inventory_service.entity.InventoryLeaseHolder;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface InventoryLeaseHolderRepository extends JpaRepository<InventoryLeaseHolder, String> {
+
+  /**
+   * Inserts or refreshes the heartbeat of an instance. Waits while a reconciliation holds the row,
+   * and inserts a new one if that reconciliation deleted it.
+   */
+  @Modifying
+  @Query(value = "INSERT INTO inventory_lease_holder (instance_id, heartbeat_at) VALUES (:instanceId, :heartbeatAt) " +
+          "ON CONFLICT (instance_id) DO UPDATE SET heartbeat_at = EXCLUDED.heartbeat_at", nativeQuery = true)
+  int heartbeat(@Param("instanceId") String instanceId, @Param("heartbeatAt") LocalDateTime heartbeatAt);
+
+  @Query("SELECT h.instanceId FROM InventoryLeaseHolder h WHERE h.heartbeatAt < :cutoff")
+  List<String> findInstanceIdsWithHeartbeatBefore(@Param("cutoff") LocalDateTime cutoff);
+
+  /**
+   * Locks the row of an instance, so that one reconciliation at a time returns its balance.
+   * Must be called inside a transaction.
+   */
+  @Lock(LockModeType.PESSIMISTIC_WRITE)
+  @Query("SELECT h FROM InventoryLeaseHolder h WHERE h.instanceId = :instanceId")
+  Optional<InventoryLeaseHolder> findByInstanceIdForUpdate(@Param("instanceId") String instanceId);
+}
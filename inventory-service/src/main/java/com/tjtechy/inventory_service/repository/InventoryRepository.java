@@ -8,19 +8,163 @@ package com.tjtechy.inventory_service.repository;
 
 
 import com.tjtechy.Inventory;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 @Repository
 public interface InventoryRepository extends JpaRepository<Inventory, Long> {
+
+    /**
+     * Rows fetched per database round trip by the export streams.
+     */
+    int EXPORT_FETCH_SIZE = 500;
+
     Optional<Inventory> findByProductId(UUID productId);
 
     Inventory findByProductIdAndReservedQuantity(UUID productId, Integer reservedQuantity);
 
     Inventory findByProductIdAndAvailableStock(UUID productId, Integer availableStock);
 
+    boolean existsByProductId(UUID productId);
+
+    /**
+     * Moves the given quantity from available stock to reserved quantity in a single conditional statement.
+     * The row is only updated if there is enough available stock, so concurrent deductions for the same
+     * product can neither lose updates nor oversell; the database serializes them on the row.
+     * @return the number of updated rows: 1 on success, 0 if the product does not exist or the stock is insufficient
+     */
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE Inventory i SET i.updatedAt = CURRENT_DATE, i.availableStock = i.availableStock - :quantity, " +
+            "i.reservedQuantity = i.reservedQuantity + :quantity " +
+            "WHERE i.productId = :productId AND i.availableStock >= :quantity")
+    int deductStock(@Param("productId") UUID productId, @Param("quantity") Integer quantity);
+
+    /**
+     * Moves the given quantity from reserved quantity back to available stock in a single statement.
+     * @return the number of updated rows: 1 on success, 0 if the product does not exist
+     */
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE Inventory i SET i.updatedAt = CURRENT_DATE, i.availableStock = i.availableStock + :quantity, " +
+            "i.reservedQuantity = i.reservedQuantity - :quantity " +
+            "WHERE i.productId = :productId")
+    int restoreStock(@Param("productId") UUID productId, @Param("quantity") Integer quantity);
+
+    /**
+     * Moves the quantity of every line from the available stock to the reserved quantity in one statement,
+     * all or nothing: the rows are only updated if every product exists and has enough available stock.
+     * The rows are locked (FOR UPDATE) in inventory id order before they are checked, so that concurrent
+     * batches always acquire the locks in the same order and cannot deadlock each other.
+     * @param productIds the products, each at most once
+     * @param quantities the quantity of each product, in the same order
+     * @return the number of updated rows: the number of lines on success, 0 otherwise
+     */
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query(value = "WITH line AS (" +
+            "  SELECT * FROM unnest(CAST(:productIds AS uuid[]), CAST(:quantities AS integer[])) AS line(product_id, quantity)" +
+            "), locked AS (" +
+            "  SELECT i.inventory_id FROM inventory i JOIN line ON line.product_id = i.product_id" +
+            "  WHERE i.available_stock >= line.quantity ORDER BY i.inventory_id FOR UPDATE OF i" +
+            ") " +
+            "UPDATE inventory i SET updated_at = CURRENT_DATE, available_stock = i.available_stock - line.quantity, " +
+            "reserved_quantity = i.reserved_quantity + line.quantity " +
+            "FROM line WHERE i.product_id = line.product_id AND i.available_stock >= line.quantity " +
+            "AND (SELECT count(*) FROM locked) = cardinality(CAST(:productIds AS uuid[]))", nativeQuery = true)
+    int deductStockBatch(@Param("productIds") UUID[] productIds, @Param("quantities") Integer[] quantities);
+
+    /**
+     * Like {@link #deductStockBatch(UUID[], Integer[])}, moves the quantities back from the reserved quantity
+     * to the available stock, only if every product exists.
+     * @return the number of updated rows: the number of lines on success, 0 otherwise
+     */
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query(value = "WITH line AS (" +
+            "  SELECT * FROM unnest(CAST(:productIds AS uuid[]), CAST(:quantities AS integer[])) AS line(product_id, quantity)" +
+            "), locked AS (" +
+            "  SELECT i.inventory_id FROM inventory i JOIN line ON line.product_id = i.product_id" +
+            "  ORDER BY i.inventory_id FOR UPDATE OF i" +
+            ") " +
+            "UPDATE inventory i SET updated_at = CURRENT_DATE, available_stock = i.available_stock + line.quantity, " +
+            "reserved_quantity = i.reserved_quantity - line.quantity " +
+            "FROM line WHERE i.product_id = line.product_id " +
+            "AND (SELECT count(*) FROM locked) = cardinality(CAST(:productIds AS uuid[]))", nativeQuery = true)
+    int restoreStockBatch(@Param("productIds") UUID[] productIds, @Param("quantities") Integer[] quantities);
+
+    /**
+     * Reads the rows of a batch that could not be updated, to tell the missing products from the short ones.
+     */
+    List<Inventory> findAllByProductIdIn(Collection<UUID> productIds);
+
+    /**
+     * Reads only the available stock of a product, without loading the entity.
+     */
+    @Query("SELECT i.availableStock FROM Inventory i WHERE i.productId = :productId")
+    Optional<Integer> findAvailableStockByProductId(@Param("productId") UUID productId);
+
+    /**
+     * Takes the given quantity out of the available stock for an in-memory hot-SKU counter.
+     * Like {@link #deductStock(UUID, Integer)} the row is only updated if enough stock is available.
+     * @return 1 if the lease was granted, 0 otherwise
+     */
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE Inventory i SET i.updatedAt = CURRENT_DATE, i.availableStock = i.availableStock - :quantity " +
+            "WHERE i.productId = :productId AND i.availableStock >= :quantity")
+    int leaseStock(@Param("productId") UUID productId, @Param("quantity") Integer quantity);
+
+    /**
+     * Records leased units that were reserved in memory by adding them to the reserved quantity.
+     * The available stock was already reduced when the units were leased.
+     */
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE Inventory i SET i.updatedAt = CURRENT_DATE, i.reservedQuantity = i.reservedQuantity + :quantity WHERE i.productId = :productId")
+    int confirmLeasedStock(@Param("productId") UUID productId, @Param("quantity") Integer quantity);
+
+    /**
+     * Gives unused leased units back to the available stock.
+     */
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE Inventory i SET i.updatedAt = CURRENT_DATE, i.availableStock = i.availableStock + :quantity WHERE i.productId = :productId")
+    int returnLeasedStock(@Param("productId") UUID productId, @Param("quantity") Integer quantity);
+
+    /**
+     * Streams all the inventories in id order for the exports, reading them from a database cursor
+     * EXPORT_FETCH_SIZE rows at a time instead of loading the whole table.
+     * Must be called inside a transaction, and the stream closed.
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + EXPORT_FETCH_SIZE),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT i FROM Inventory i ORDER BY i.inventoryId")
+    Stream<Inventory> streamAll();
 
+    /**
+     * Like {@link #streamAll()}, for the inventories changed on or after the given date.
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + EXPORT_FETCH_SIZE),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT i FROM Inventory i WHERE i.updatedAt >= :since ORDER BY i.inventoryId")
+    Stream<Inventory> streamUpdatedSince(@Param("since") LocalDate since);
 }
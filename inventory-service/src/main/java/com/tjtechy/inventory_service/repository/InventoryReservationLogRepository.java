@@ -0,0 +1,41 @@
+/*
+ * Copyright © 2025
+ * @Author = TJTechy (Tajudeen Busari)
+ * @Version = 1.0
+ * This file is part of the inventory-service module of the Ecommerce Microservices project.
+ */
+package com.tjtechy.inventory_service.repository;
+
+import com.tjtechy.inventory_service.entity.InventoryReservationLog;
+import com.tjtechy.inventory_service.entity.InventoryReservationLog.EventType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface InventoryReservationLogRepository extends JpaRepository<InventoryReservationLog, Long> {
+
+  List<InventoryReservationLog> findByProductIdAndInstanceId(UUID productId, String instanceId);
+
+  /**
+   * LEASED - CONSUMED - RELEASED of an instance for each product where it is not 0.
+   * @param leased {@link EventType#LEASED}, the only event that adds to the balance
+   */
+  @Query("SELECT l.productId AS productId, " +
+          "SUM(CASE WHEN l.eventType = :leased THEN l.quantity ELSE -l.quantity END) AS quantity " +
+          "FROM InventoryReservationLog l WHERE l.instanceId = :instanceId GROUP BY l.productId " +
+          "HAVING SUM(CASE WHEN l.eventType = :leased THEN l.quantity ELSE -l.quantity END) <> 0")
+  List<HeldStock> findHeldStock(@Param("instanceId") String instanceId, @Param("leased") EventType leased);
+
+  /**
+   * Leased units of a product that an instance has neither consumed nor released.
+   */
+  interface HeldStock {
+    UUID getProductId();
+    Long getQuantity();
+  }
+}
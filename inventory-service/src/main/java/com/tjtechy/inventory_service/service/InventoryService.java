@@ -6,9 +6,15 @@
  */
 package com.tjtechy.inventory_service.service;
 
+import com.tjtechy.DeductInventoryRequestDto;
 import com.tjtechy.Inventory;
+import com.tjtechy.RestoreInventoryDto;
+import com.tjtechy.export.ExportFormat;
 import reactor.core.publisher.Mono;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDate;
 import java.util.List;
 import java.util.UUID;
 
@@ -36,8 +42,14 @@ public interface InventoryService {
 
   Mono<Void> deductInventoryReactive(UUID productId, Integer quantity);
 
+  void deductInventoryBatch(List<DeductInventoryRequestDto> items);
+
   void restoreInventoryStock(UUID productId, Integer quantity);
 
+  void restoreInventoryBatch(List<RestoreInventoryDto> items);
+
+  long exportInventories(LocalDate since, ExportFormat format, OutputStream outputStream) throws IOException;
+
 
 
 }
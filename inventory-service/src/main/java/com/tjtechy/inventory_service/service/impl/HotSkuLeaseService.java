@@ -0,0 +1,196 @@
+/*
+ * Copyright © 2025
+ * @Author = TJTechy (Tajudeen Busari)
+ * @Version = 1.0
+ * This file is part of the inventory-service module of the Ecommerce Microservices project.
+ */
+package com.tjtechy.inventory_service.service.impl;
+
+import com.tjtechy.inventory_service.entity.InventoryReservationLog;
+import com.tjtechy.inventory_service.entity.InventoryReservationLog.EventType;
+import com.tjtechy.inventory_service.repository.InventoryLeaseHolderRepository;
+import com.tjtechy.inventory_service.repository.InventoryRepository;
+import com.tjtechy.inventory_service.repository.InventoryReservationLogRepository;
+import jakarta.transaction.Transactional;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Moves stock between the inventory rows and the in-memory hot-SKU counters.
+ * <p>
+ *   Each method updates the inventory row and appends the matching entry to the reservation log
+ *   in the same transaction, so the log always agrees with the stock that left or came back to the row.
+ *   Leases and settlements never join the transaction of the caller (a batch deduction): the counters
+ *   are not rolled back with it, so the row must not be either.
+ * </p>
+ */
+@Service
+public class HotSkuLeaseService {
+
+  private static final Logger logger = LoggerFactory.getLogger(HotSkuLeaseService.class);
+
+  private static final int MAX_LEASE_ATTEMPTS = 3;
+
+  private final InventoryRepository inventoryRepository;
+  private final InventoryReservationLogRepository reservationLogRepository;
+  private final InventoryLeaseHolderRepository leaseHolderRepository;
+  private final String instanceId;
+
+  public HotSkuLeaseService(InventoryRepository inventoryRepository,
+                            InventoryReservationLogRepository reservationLogRepository,
+                            InventoryLeaseHolderRepository leaseHolderRepository,
+                            @Value("${spring.application.name:inventory-service}") String applicationName) {
+    this.inventoryRepository = inventoryRepository;
+    this.reservationLogRepository = reservationLogRepository;
+    this.leaseHolderRepository = leaseHolderRepository;
+    //unique per process, so the log balance of a crashed instance can be told apart from a restarted one
+    this.instanceId = applicationName + "-" + UUID.randomUUID();
+  }
+
+  public String getInstanceId() {
+    return instanceId;
+  }
+
+  /**
+   * Leases up to the requested number of units out of the available stock of a product.
+   * <p>
+   *   If less stock is available than requested, whatever is left is leased. The conditional update
+   *   is retried a few times when a concurrent deduction changes the stock between the read and the update.
+   *   The heartbeat of this instance is refreshed first, so no lease is ever logged for an instance
+   *   that could be taken for dead.
+   * </p>
+   * @param productId the product to lease stock for
+   * @param requested the number of units wanted
+   * @return the number of units leased, 0 if the product has no stock left or does not exist
+   */
+  @Transactional(Transactional.TxType.REQUIRES_NEW)
+  public int acquireLease(UUID productId, int requested) {
+    leaseHolderRepository.heartbeat(instanceId, LocalDateTime.now());
+    for (int attempt = 0; attempt < MAX_LEASE_ATTEMPTS; attempt++) {
+      var available = inventoryRepository.findAvailableStockByProductId(productId).orElse(0);
+      var quantity = Math.min(available, requested);
+      if (quantity <= 0) {
+        return 0;
+      }
+      if (inventoryRepository.leaseStock(productId, quantity) == 1) {
+        appendLog(productId, EventType.LEASED, quantity);
+        return quantity;
+      }
+    }
+    return 0;
+  }
+
+  /**
+   * Adds leased units that were reserved in memory to the reserved quantity of the product,
+   * or takes them out of it when negative (units put back after a flush).
+   * @throws IllegalStateException if the inventory row no longer exists
+   */
+  @Transactional
+  public void confirmConsumed(UUID productId, int consumed) {
+    if (inventoryRepository.confirmLeasedStock(productId, consumed) == 0) {
+      throw new IllegalStateException("Inventory for product " + productId + " no longer exists");
+    }
+    appendLog(productId, EventType.CONSUMED, consumed);
+  }
+
+  /**
+   * Settles a closed counter: confirms the units that were still unflushed and returns the unused units
+   * to the available stock, in one transaction.
+   * @throws IllegalStateException if the inventory row no longer exists
+   */
+  @Transactional(Transactional.TxType.REQUIRES_NEW)
+  public void settle(UUID productId, int unconfirmed, int unused) {
+    if (unconfirmed != 0) {
+      confirmConsumed(productId, unconfirmed);
+    }
+    if (unused > 0) {
+      if (inventoryRepository.returnLeasedStock(productId, unused) == 0) {
+        throw new IllegalStateException("Inventory for product " + productId + " no longer exists");
+      }
+      appendLog(productId, EventType.RELEASED, unused);
+    }
+  }
+
+  /**
+   * Gives back units that were reserved in memory and already confirmed, when the deduction they were
+   * reserved for failed after the counter was closed. Like a restore, the units move from the reserved
+   * quantity back to the available stock; the counter is settled, so nothing is logged. Runs in its own
+   * transaction, as it is called once the deduction rolled back.
+   * @throws IllegalStateException if the inventory row no longer exists
+   */
+  @Transactional(Transactional.TxType.REQUIRES_NEW)
+  public void returnConsumed(UUID productId, int quantity) {
+    if (inventoryRepository.restoreStock(productId, quantity) == 0) {
+      throw new IllegalStateException("Inventory for product " + productId + " no longer exists");
+    }
+  }
+
+  /**
+   * Refreshes the heartbeat of this instance while it holds stock in memory.
+   */
+  @Transactional(Transactional.TxType.REQUIRES_NEW)
+  public void heartbeat() {
+    leaseHolderRepository.heartbeat(instanceId, LocalDateTime.now());
+  }
+
+  /**
+   * @return the instances, this one included, whose last heartbeat is older than the cutoff
+   */
+  public List<String> findInstancesWithHeartbeatBefore(LocalDateTime cutoff) {
+    return leaseHolderRepository.findInstanceIdsWithHeartbeatBefore(cutoff);
+  }
+
+  /**
+   * Gives the stock still leased by an instance that stopped sending heartbeats back to the available stock.
+   * <p>
+   *   The heartbeat row of the instance is locked and checked again, so concurrent reconciliations return
+   *   the balance once, and an instance that came back in the meantime keeps it. Each returned quantity is
+   *   logged as RELEASED under the id of that instance, which brings its balance to 0, and the row is deleted.
+   *   Units consumed since the last flush of the instance cannot be told apart from its unused units,
+   *   so they are returned as well.
+   * </p>
+   * @param deadInstanceId the instance to reconcile
+   * @param cutoff heartbeats older than this mark the instance as dead
+   * @return the number of units returned
+   */
+  @Transactional(Transactional.TxType.REQUIRES_NEW)
+  public long reconcile(String deadInstanceId, LocalDateTime cutoff) {
+    var holder = leaseHolderRepository.findByInstanceIdForUpdate(deadInstanceId);
+    if (holder.isEmpty() || !holder.get().getHeartbeatAt().isBefore(cutoff)) {
+      return 0;
+    }
+    var returned = 0L;
+    for (var heldStock : reservationLogRepository.findHeldStock(deadInstanceId, EventType.LEASED)) {
+      var quantity = heldStock.getQuantity().intValue();
+      if (quantity < 0) {
+        logger.warn("Reservation log of instance {} has a negative balance of {} for productId: {}",
+                deadInstanceId, quantity, heldStock.getProductId());
+        continue;
+      }
+      if (inventoryRepository.returnLeasedStock(heldStock.getProductId(), quantity) == 1) {
+        returned += quantity;
+      } else {
+        //the row was deleted, the balance is closed all the same
+        logger.warn("Inventory for productId: {} no longer exists, dropping {} units leased by instance {}",
+                heldStock.getProductId(), quantity, deadInstanceId);
+      }
+      appendLog(heldStock.getProductId(), EventType.RELEASED, quantity, deadInstanceId);
+    }
+    leaseHolderRepository.deleteById(deadInstanceId);
+    return returned;
+  }
+
+  private void appendLog(UUID productId, EventType eventType, int quantity) {
+    appendLog(productId, eventType, quantity, instanceId);
+  }
+
+  private void appendLog(UUID productId, EventType eventType, int quantity, String logInstanceId) {
+    reservationLogRepository.save(new InventoryReservationLog(productId, eventType, quantity, logInstanceId));
+  }
+}
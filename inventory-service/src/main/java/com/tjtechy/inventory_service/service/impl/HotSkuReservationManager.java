@@ -0,0 +1,308 @@
+/*
+ * Copyright © 2025
+ * @Author = TJTechy (Tajudeen Busari)
+ * @Version = 1.0
+ * This file is part of the inventory-service module of the Ecommerce Microservices project.
+ */
+package com.tjtechy.inventory_service.service.impl;
+
+import com.tjtechy.inventory_service.config.HotSkuProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Serves stock deductions for hot products from in-memory counters.
+ * <p>
+ *   A hot product gets a {@link HotSkuStockCounter} that is fed with leases taken from its inventory row.
+ *   Deductions are reserved from the counter without touching the database, and the consumed units are
+ *   written behind to the reserved quantity of the row every {@code flush-interval-ms}.
+ *   When a product cools down, when an admin edits the inventory, or when the service stops, the counter
+ *   is closed and its unused units go back to the available stock.
+ * </p>
+ * <p>
+ *   While it holds counters the instance refreshes its heartbeat. The stock leased by an instance whose
+ *   heartbeat stopped, because it crashed or could not settle a counter, is given back by
+ *   {@link #reconcileDeadInstances()} on any instance.
+ * </p>
+ * <p>
+ *   Whenever the counter cannot serve a deduction (mode disabled, product not hot, lease exhausted)
+ *   {@link #tryReserve(UUID, int)} returns false and the caller falls back to the conditional UPDATE,
+ *   which also produces the usual not-found and insufficient-stock errors.
+ * </p>
+ */
+@Component
+public class HotSkuReservationManager {
+
+  private static final Logger logger = LoggerFactory.getLogger(HotSkuReservationManager.class);
+
+  private final HotSkuProperties hotSkuProperties;
+  private final HotSkuLeaseService hotSkuLeaseService;
+  private final Map<UUID, HotSkuStockCounter> counters = new ConcurrentHashMap<>();
+  private final Map<UUID, LongAdder> deductionHits = new ConcurrentHashMap<>();
+  private final Counter memoryReservations;
+  private final Counter databaseFallbacks;
+  private final Counter flushFailures;
+
+  public HotSkuReservationManager(HotSkuProperties hotSkuProperties,
+                                  HotSkuLeaseService hotSkuLeaseService,
+                                  MeterRegistry meterRegistry) {
+    this.hotSkuProperties = hotSkuProperties;
+    this.hotSkuLeaseService = hotSkuLeaseService;
+    this.memoryReservations = meterRegistry.counter("inventory.hot_sku.reservations", "path", "memory");
+    this.databaseFallbacks = meterRegistry.counter("inventory.hot_sku.reservations", "path", "database");
+    this.flushFailures = meterRegistry.counter("inventory.hot_sku.flush.failures");
+    Gauge.builder("inventory.hot_sku.active", counters, Map::size)
+            .description("Number of products currently served from memory")
+            .register(meterRegistry);
+  }
+
+  /**
+   * Tries to reserve the quantity of a product from memory.
+   * @param productId the product to reserve stock for
+   * @param quantity the quantity to reserve, already validated to be greater than 0
+   * @return true if the stock was reserved, false if the caller must deduct it from the database
+   */
+  public boolean tryReserve(UUID productId, int quantity) {
+    return reserve(productId, quantity) != null;
+  }
+
+  /**
+   * Like {@link #tryReserve(UUID, int)}, for a reservation that may have to be cancelled, like a line of a
+   * batch deduction whose other lines can still fail.
+   * @return the reservation, null if the caller must deduct the quantity from the database
+   */
+  public Reservation tryReserveCancellable(UUID productId, int quantity) {
+    var counter = reserve(productId, quantity);
+    return counter != null ? new Reservation(productId, quantity, counter) : null;
+  }
+
+  /**
+   * Gives the units of a reservation back: to its counter, or to the available stock of the row when the
+   * counter was closed since and its settlement already counted them as consumed.
+   */
+  public void cancel(Reservation reservation) {
+    if (reservation.counter().unreserve(reservation.quantity())) {
+      return;
+    }
+    try {
+      hotSkuLeaseService.returnConsumed(reservation.productId(), reservation.quantity());
+      logger.info("Returned {} units of a cancelled reservation of a released counter for productId: {}",
+              reservation.quantity(), reservation.productId());
+    } catch (RuntimeException e) {
+      //the units stay in the reserved quantity, like those of an order that was never restored
+      logger.error("Could not return {} units of a cancelled reservation for productId: {}",
+              reservation.quantity(), reservation.productId(), e);
+    }
+  }
+
+  /**
+   * Closes the counter of a product, if any, and settles its stock with the inventory row.
+   * Called before the inventory row is edited or deleted so that the row reflects every reservation.
+   */
+  public void release(UUID productId) {
+    var counter = counters.remove(productId);
+    if (counter == null) {
+      return;
+    }
+    counter.refillLock().lock();
+    try {
+      var settlement = counter.close();
+      hotSkuLeaseService.settle(productId, (int) settlement.unconfirmed(), (int) settlement.unused());
+      logger.info("Released hot-SKU counter for productId: {}, consumed: {}, returned: {}",
+              productId, settlement.unconfirmed(), settlement.unused());
+    } catch (RuntimeException e) {
+      //the reservation log still holds the balance: it is returned once this instance has had no counter,
+      //or has been stopped, for instance-timeout-ms, see reconcileDeadInstances()
+      logger.error("Could not settle hot-SKU counter for productId: {}", productId, e);
+    } finally {
+      counter.refillLock().unlock();
+    }
+  }
+
+  /**
+   * Writes the units consumed since the last flush to the reserved quantity of each hot product.
+   * <p>
+   *   Each counter is flushed under its refill lock, like {@link #release(UUID)} closes and settles it:
+   *   units taken out of a counter are either confirmed or put back before the counter can be closed,
+   *   so its settlement always counts them.
+   * </p>
+   */
+  @Scheduled(fixedDelayString = "${inventory.hot-sku.flush-interval-ms:200}")
+  public void flushConsumedStock() {
+    counters.forEach((productId, counter) -> {
+      counter.refillLock().lock();
+      try {
+        if (counter.isClosed()) {
+          return; //released since, its settlement confirmed the units
+        }
+        var unconfirmed = counter.takeUnconfirmed();
+        if (unconfirmed == 0) {
+          return;
+        }
+        try {
+          hotSkuLeaseService.confirmConsumed(productId, (int) unconfirmed);
+        } catch (RuntimeException e) {
+          //keep the units unconfirmed so the next flush, or the settlement, retries them
+          counter.restoreUnconfirmed(unconfirmed);
+          flushFailures.increment();
+          logger.warn("Could not flush {} consumed units for productId: {}", unconfirmed, productId, e);
+        }
+      } finally {
+        counter.refillLock().unlock();
+      }
+    });
+  }
+
+  /**
+   * Keeps this instance from being taken for dead while it holds stock in memory.
+   */
+  @Scheduled(fixedDelayString = "${inventory.hot-sku.heartbeat-interval-ms:5000}")
+  public void heartbeat() {
+    if (counters.isEmpty()) {
+      return;
+    }
+    try {
+      hotSkuLeaseService.heartbeat();
+    } catch (RuntimeException e) {
+      logger.warn("Could not refresh the hot-SKU heartbeat of instance {}", hotSkuLeaseService.getInstanceId(), e);
+    }
+  }
+
+  /**
+   * Gives the stock still leased by dead instances back to the available stock, at startup and then every
+   * {@code reconcile-interval-ms}. Runs whether the mode is enabled or not, as the dead instances may have
+   * had it enabled. This instance is reconciled too once it has had no counter for {@code instance-timeout-ms}:
+   * its balance is then stock that a failed settlement left behind.
+   */
+  @Scheduled(fixedDelayString = "${inventory.hot-sku.reconcile-interval-ms:60000}")
+  public void reconcileDeadInstances() {
+    var cutoff = LocalDateTime.now().minus(Duration.ofMillis(hotSkuProperties.getInstanceTimeoutMs()));
+    try {
+      hotSkuLeaseService.findInstancesWithHeartbeatBefore(cutoff).forEach(instanceId -> {
+        try {
+          var returned = hotSkuLeaseService.reconcile(instanceId, cutoff);
+          logger.info("Reconciled hot-SKU leases of instance {}, returned: {}", instanceId, returned);
+        } catch (RuntimeException e) {
+          logger.error("Could not reconcile hot-SKU leases of instance {}", instanceId, e);
+        }
+      });
+    } catch (RuntimeException e) {
+      logger.error("Could not look for dead hot-SKU instances", e);
+    }
+  }
+
+  /**
+   * Promotes products that are pinned in the configuration or received at least {@code hotness-threshold}
+   * deductions during the last interval, and demotes products whose traffic dropped below half of it.
+   */
+  @Scheduled(fixedDelayString = "${inventory.hot-sku.evaluation-interval-ms:1000}")
+  public void evaluateHotness() {
+    if (!hotSkuProperties.isEnabled()) {
+      deductionHits.clear();
+      releaseAll();
+      return;
+    }
+
+    //1. take the hits of the last interval and forget products that went quiet
+    var hitsByProductId = new HashMap<UUID, Long>();
+    deductionHits.entrySet().removeIf(entry -> {
+      var hits = entry.getValue().sumThenReset();
+      hitsByProductId.put(entry.getKey(), hits);
+      return hits == 0;
+    });
+
+    //2. promote pinned and hot products
+    var threshold = hotSkuProperties.getHotnessThreshold();
+    hotSkuProperties.getProductIds().forEach(this::activate);
+    if (threshold > 0) {
+      hitsByProductId.forEach((productId, hits) -> {
+        if (hits >= threshold && !counters.containsKey(productId)) {
+          logger.info("Product {} is hot ({} deductions in the last interval), serving it from memory", productId, hits);
+          activate(productId);
+        }
+      });
+    }
+
+    //3. demote products that cooled down
+    new ArrayList<>(counters.keySet()).stream()
+            .filter(productId -> !hotSkuProperties.getProductIds().contains(productId))
+            .filter(productId -> threshold <= 0 || hitsByProductId.getOrDefault(productId, 0L) < threshold / 2)
+            .forEach(this::release);
+  }
+
+  /**
+   * Flushes and releases every counter, used on shutdown and when the mode is switched off.
+   */
+  @PreDestroy
+  public void releaseAll() {
+    new ArrayList<>(counters.keySet()).forEach(this::release);
+  }
+
+  //the counter the quantity was reserved from, null if it must be deducted from the database
+  private HotSkuStockCounter reserve(UUID productId, int quantity) {
+    if (!hotSkuProperties.isEnabled()) {
+      return null;
+    }
+    deductionHits.computeIfAbsent(productId, id -> new LongAdder()).increment();
+    var counter = counters.get(productId);
+    if (counter == null) {
+      return null;
+    }
+    if (counter.tryReserve(quantity) || refillAndReserve(counter, quantity)) {
+      memoryReservations.increment();
+      return counter;
+    }
+    databaseFallbacks.increment();
+    return null;
+  }
+
+  private void activate(UUID productId) {
+    counters.computeIfAbsent(productId, id -> new HotSkuStockCounter(id, hotSkuProperties.getStripes()));
+  }
+
+  /**
+   * Slow path taken when no single stripe holds enough units. Only one thread per product refills at a time;
+   * the others wait for it and then try the units it leased.
+   */
+  private boolean refillAndReserve(HotSkuStockCounter counter, int quantity) {
+    counter.refillLock().lock();
+    try {
+      if (counter.tryReserveAcrossStripes(quantity)) {
+        return true;
+      }
+      if (counter.isClosed()) {
+        return false;
+      }
+      var productId = counter.getProductId();
+      var leased = hotSkuLeaseService.acquireLease(productId, Math.max(quantity, hotSkuProperties.getLeaseSize()));
+      if (leased > 0 && !counter.addLease(leased)) {
+        hotSkuLeaseService.settle(productId, 0, leased);
+        return false;
+      }
+      return counter.tryReserveAcrossStripes(quantity);
+    } finally {
+      counter.refillLock().unlock();
+    }
+  }
+
+  /**
+   * Units reserved in memory for a product, from the counter that holds them.
+   */
+  public record Reservation(UUID productId, int quantity, HotSkuStockCounter counter) {
+  }
+}
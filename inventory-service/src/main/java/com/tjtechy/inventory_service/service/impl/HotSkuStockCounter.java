@@ -0,0 +1,202 @@
+/*
+ * Copyright © 2025
+ * @Author = TJTechy (Tajudeen Busari)
+ * @Version = 1.0
+ * This file is part of the inventory-service module of the Ecommerce Microservices project.
+ */
+package com.tjtechy.inventory_service.service.impl;
+
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * In-memory stock counter for one hot product.
+ * <p>
+ *   The counter holds units that were leased out of the inventory row (so they are already gone from the
+ *   available stock in the database). The units are spread over several stripes, and each thread starts
+ *   on its own stripe, so concurrent reservations rarely touch the same memory location.
+ *   A stripe can never go below zero, which means the counter can never hand out more than it leased.
+ * </p>
+ * <p>
+ *   Consumed units are not counted on the hot path: they are derived as
+ *   {@code leased - remaining - confirmed} when the flush asks for them, which keeps a reservation down
+ *   to a single compare-and-set.
+ * </p>
+ */
+public class HotSkuStockCounter {
+
+  /** One stripe per 64-byte cache line (8 longs) to avoid false sharing between stripes. */
+  private static final int PADDING = 8;
+
+  private final UUID productId;
+  private final int stripes;
+  private final AtomicLongArray remaining;
+  /** Serializes the slow path that goes to the database to refill the counter. */
+  private final ReentrantLock refillLock = new ReentrantLock();
+
+  //guarded by this
+  private long leased;
+  private long confirmed;
+  private volatile boolean closed;
+
+  /**
+   * What is left in a counter when it is closed.
+   * @param unconfirmed units reserved in memory but not flushed to the inventory row yet
+   * @param unused leased units that were never reserved and go back to the available stock
+   */
+  public record Settlement(long unconfirmed, long unused) {
+  }
+
+  public HotSkuStockCounter(UUID productId, int stripes) {
+    this.productId = productId;
+    this.stripes = Math.max(1, stripes);
+    this.remaining = new AtomicLongArray(this.stripes * PADDING);
+  }
+
+  public UUID getProductId() {
+    return productId;
+  }
+
+  public ReentrantLock refillLock() {
+    return refillLock;
+  }
+
+  public boolean isClosed() {
+    return closed;
+  }
+
+  /**
+   * Lock-free fast path: reserves the quantity from the first stripe that holds enough units,
+   * starting with the stripe of the calling thread.
+   * @return true if the units were reserved, false if no single stripe holds enough
+   */
+  public boolean tryReserve(int quantity) {
+    if (closed) {
+      return false;
+    }
+    var start = (int) (Thread.currentThread().threadId() % stripes);
+    for (int i = 0; i < stripes; i++) {
+      var index = ((start + i) % stripes) * PADDING;
+      long current;
+      while ((current = remaining.get(index)) >= quantity) {
+        if (remaining.compareAndSet(index, current, current - quantity)) {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Slow path: collects the quantity from several stripes when no single stripe holds enough.
+   * If the stripes together hold less than the quantity, whatever was taken is put back.
+   * @return true if the units were reserved
+   */
+  public synchronized boolean tryReserveAcrossStripes(int quantity) {
+    if (closed) {
+      return false;
+    }
+    var takenPerStripe = new long[stripes];
+    long taken = 0;
+    for (int stripe = 0; stripe < stripes && taken < quantity; stripe++) {
+      var index = stripe * PADDING;
+      long current;
+      while ((current = remaining.get(index)) > 0) {
+        var take = Math.min(current, quantity - taken);
+        if (remaining.compareAndSet(index, current, current - take)) {
+          takenPerStripe[stripe] = take;
+          taken += take;
+          break;
+        }
+      }
+    }
+    if (taken < quantity) {
+      for (int stripe = 0; stripe < stripes; stripe++) {
+        if (takenPerStripe[stripe] > 0) {
+          remaining.addAndGet(stripe * PADDING, takenPerStripe[stripe]);
+        }
+      }
+      return false;
+    }
+    return true;
+  }
+
+  /**
+   * Adds freshly leased units, spread evenly over the stripes.
+   * @return false if the counter was closed in the meantime and the units were not added
+   */
+  public synchronized boolean addLease(int units) {
+    if (closed) {
+      return false;
+    }
+    leased += units;
+    var share = units / stripes;
+    var rest = units % stripes;
+    for (int stripe = 0; stripe < stripes; stripe++) {
+      remaining.addAndGet(stripe * PADDING, share + (stripe < rest ? 1 : 0));
+    }
+    return true;
+  }
+
+  /**
+   * Puts back units reserved with {@link #tryReserve(int)} or {@link #tryReserveAcrossStripes(int)} that the
+   * caller could not use, like the hot lines of a batch deduction whose other lines failed.
+   * If a flush already confirmed them, the next {@link #takeUnconfirmed()} is negative and takes them back.
+   * @return false if the counter was closed in the meantime: its settlement already counted the units as consumed
+   */
+  public synchronized boolean unreserve(int quantity) {
+    if (closed) {
+      return false;
+    }
+    var stripe = (int) (Thread.currentThread().threadId() % stripes);
+    remaining.addAndGet(stripe * PADDING, quantity);
+    return true;
+  }
+
+  /**
+   * Returns the units reserved since the last call and marks them as confirmed; negative when more
+   * units were put back with {@link #unreserve(int)} than reserved.
+   * Stripes only shrink outside this lock, so reading them one by one can only under-report
+   * consumption; anything missed is picked up by the next call.
+   */
+  public synchronized long takeUnconfirmed() {
+    var unconfirmed = leased - remainingUnits() - confirmed;
+    confirmed += unconfirmed;
+    return unconfirmed;
+  }
+
+  /**
+   * Hands back units returned by {@link #takeUnconfirmed()} whose flush failed, so they are retried.
+   */
+  public synchronized void restoreUnconfirmed(long units) {
+    confirmed -= units;
+  }
+
+  /**
+   * Closes the counter and empties every stripe. After this call no reservation can succeed,
+   * and the returned settlement is exact because each stripe is emptied atomically.
+   */
+  public synchronized Settlement close() {
+    closed = true;
+    long unused = 0;
+    for (int stripe = 0; stripe < stripes; stripe++) {
+      unused += remaining.getAndSet(stripe * PADDING, 0);
+    }
+    var unconfirmed = leased - unused - confirmed;
+    confirmed += unconfirmed;
+    leased -= unused;
+    return new Settlement(unconfirmed, unused);
+  }
+
+  /**
+   * Units still available in memory.
+   */
+  public long remainingUnits() {
+    long total = 0;
+    for (int stripe = 0; stripe < stripes; stripe++) {
+      total += remaining.get(stripe * PADDING);
+    }
+    return total;
+  }
+}
@@ -6,30 +6,61 @@
  */
 package com.tjtechy.inventory_service.service.impl;
 
+import com.tjtechy.DeductInventoryRequestDto;
+import com.tjtechy.RestoreInventoryDto;
 import com.tjtechy.businessException.InsufficientStockQuantityException;
 import com.tjtechy.inventory_service.repository.InventoryRepository;
 import com.tjtechy.Inventory;
+import com.tjtechy.export.ExportColumn;
+import com.tjtechy.export.ExportFormat;
+import com.tjtechy.export.RowExporter;
 import com.tjtechy.inventory_service.service.InventoryService;
 import com.tjtechy.modelNotFoundException.InventoryNotFoundException;
 import com.tjtechy.modelNotFoundException.ProductNotFoundException;
+import jakarta.persistence.EntityManager;
+import jakarta.transaction.Transactional;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.cache.annotation.CachePut;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import reactor.core.publisher.Mono;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Collectors;
 
 @Service
 public class InventoryServiceImpl implements InventoryService {
 
   private final InventoryRepository inventoryRepository;
+  private final HotSkuReservationManager hotSkuReservationManager;
+  private final EntityManager entityManager;
   private static final Logger logger = LoggerFactory.getLogger(InventoryServiceImpl.class);
-  public InventoryServiceImpl(InventoryRepository inventoryRepository) {
+
+  private static final RowExporter<Inventory> INVENTORY_EXPORTER = new RowExporter<>(List.of(
+          new ExportColumn<>("inventoryId", Inventory::getInventoryId),
+          new ExportColumn<>("productId", Inventory::getProductId),
+          new ExportColumn<>("availableStock", Inventory::getAvailableStock),
+          new ExportColumn<>("reservedQuantity", Inventory::getReservedQuantity),
+          new ExportColumn<>("updatedAt", Inventory::getUpdatedAt)));
+
+  public InventoryServiceImpl(InventoryRepository inventoryRepository,
+                              HotSkuReservationManager hotSkuReservationManager,
+                              EntityManager entityManager) {
     this.inventoryRepository = inventoryRepository;
+    this.hotSkuReservationManager = hotSkuReservationManager;
+    this.entityManager = entityManager;
   }
 
   /**
@@ -76,9 +107,10 @@ public class InventoryServiceImpl implements InventoryService {
 
   /**
    * This method is used to get inventory by product id and cached for performance.
+   * Concurrent misses of a product id are loaded once (sync), and hot entries are refreshed before they expire.
    * @return Inventory
    */
-  @Cacheable(value = "inventoryByProductId", key = "#productId")
+  @Cacheable(value = "inventoryByProductId", key = "#productId", sync = true)
   @Override
   public Inventory getInventoryByProductId(UUID productId) {
     var foundInventory = inventoryRepository.findByProductId(productId)
@@ -114,6 +146,7 @@ public class InventoryServiceImpl implements InventoryService {
 
     var foundInventory = inventoryRepository.findById(inventoryId)
             .orElseThrow(() -> new InventoryNotFoundException(inventoryId));
+    hotSkuReservationManager.release(foundInventory.getProductId());
 
     foundInventory.setAvailableStock(inventory.getAvailableStock());
     foundInventory.setReservedQuantity(inventory.getReservedQuantity());
@@ -134,6 +167,7 @@ public class InventoryServiceImpl implements InventoryService {
   public void deleteInventory(Long inventoryId) {
     var foundInventory = inventoryRepository.findById(inventoryId)
             .orElseThrow(() -> new InventoryNotFoundException(inventoryId));
+    hotSkuReservationManager.release(foundInventory.getProductId());
     inventoryRepository.delete(foundInventory);
   }
 
@@ -173,9 +207,10 @@ public class InventoryServiceImpl implements InventoryService {
    * It is a non-reactive operation that deducts the specified quantity from the
    * inventory stock for a given product.
    * <p>
-   *   This method retrieves the inventory record for the specified product ID, checks if there is
-   *   sufficient stock available, and then updates the inventory by deducting the requested
-   *   quantity from the available stock, while also increasing the reserved quantity by the same amount.
+   *   The deduction is done with a single conditional UPDATE that moves the requested quantity from
+   *   the available stock to the reserved quantity only if enough stock is available. Success is decided
+   *   from the affected row count, so concurrent orders for the same product cannot lose updates or oversell.
+   *   Products in hot-SKU mode are served from an in-memory counter first (see {@link HotSkuReservationManager}).
    * </p>
    * @param productId the ID of the product for which to deduct inventory
    * @param quantity the quantity to deduct from the inventory
@@ -184,28 +219,16 @@ public class InventoryServiceImpl implements InventoryService {
    */
   @Override
   public void deductInventory(UUID productId, Integer quantity) {
-    var foundInventory = inventoryRepository.findByProductId(productId)
-            .orElseThrow(() -> new ProductNotFoundException(productId));
-
-    if (foundInventory.getAvailableStock() < quantity) {
-      throw new InsufficientStockQuantityException(productId);
-    }
-
-    foundInventory.setAvailableStock(foundInventory.getAvailableStock() - quantity);
-    foundInventory.setReservedQuantity(foundInventory.getReservedQuantity() + quantity);
-    inventoryRepository.save(foundInventory);
+    deductStockAtomically(productId, quantity);
   }
 
   /**
    * Deducts the specified quantity from the inventory stock for a given product in a reactive way.
    * <p>
-   *   This method retrieve the inventory record for the specified product ID, checks if there is
-   *   sufficient stock available, and then updates the inventory by deducting the requested
-   *   quantity from the available stock, while also increasing the reserved quantity by the same amount.
-   *   By default, the reserved quantity is set to 1, so reserved amount will just increase by the quantity
-   *   number.
-   *   The operation is performed in a NON-BLOCKING manner using Project Reactor's Mono suitable for
-   *   microservices architecture.
+   *   The deduction is done with a single conditional UPDATE (see {@link #deductInventory(UUID, Integer)}):
+   *   the requested quantity is moved from the available stock to the reserved quantity only if enough
+   *   stock is available, in one round trip to the database.
+   *   The operation is exposed through Project Reactor's Mono suitable for microservices architecture.
    * </p>
    * @param productId the ID of the product for which to deduct inventory
    * @Param quantity the quantity to deduct from the inventory
@@ -217,24 +240,68 @@ public class InventoryServiceImpl implements InventoryService {
    */
   @Override
   public Mono<Void> deductInventoryReactive(UUID productId, Integer quantity) {
-    return Mono.fromCallable(() -> inventoryRepository.findByProductId(productId)
-            .orElseThrow(() -> new ProductNotFoundException(productId)))
-            .flatMap(foundInventory -> {
-              if (foundInventory.getAvailableStock() < quantity) {
-                throw new InsufficientStockQuantityException(productId);
-              }
-              foundInventory.setAvailableStock(foundInventory.getAvailableStock() - quantity);
-              foundInventory.setReservedQuantity(foundInventory.getReservedQuantity() + quantity);
-              return Mono.fromCallable(() -> inventoryRepository.save(foundInventory));
-            }).then(); //convert to Mono<Void>
+    return Mono.fromRunnable(() -> deductStockAtomically(productId, quantity));
+  }
 
+  /**
+   * Deducts stock for several products at once in a single, all-or-nothing transaction.
+   * <p>
+   *   This method is used by the order service to reserve the stock of every item in an order
+   *   with one call instead of one call per item. Quantities for the same product are summed and all
+   *   the rows are checked and updated with one conditional UPDATE (see {@link InventoryRepository#deductStockBatch}).
+   *   If any product is missing or short, nothing is deducted and the offending product ids are reported.
+   * </p>
+   * <p>
+   *   Hot products are reserved from their in-memory counters first (see {@link HotSkuReservationManager}),
+   *   since their leased units are no longer in the available stock of the rows; only the other lines go
+   *   to the database. If the transaction does not commit, the memory reservations are cancelled.
+   * </p>
+   * @param items the product ids and the quantities to deduct
+   * @throws IllegalArgumentException if the list is empty or contains an invalid item
+   * @throws ProductNotFoundException if any of the product ids does not exist in the inventory
+   * @throws InsufficientStockQuantityException if the available stock of any product is less than requested
+   */
+  @Override
+  @Transactional
+  public void deductInventoryBatch(List<DeductInventoryRequestDto> items) {
+    if (items == null || items.isEmpty()) {
+      throw new IllegalArgumentException("At least one item is required");
+    }
+    if (items.stream().anyMatch(item -> item.productId() == null || item.quantity() == null || item.quantity() <= 0)) {
+      throw new IllegalArgumentException("Each item must have a product ID and a quantity greater than 0");
+    }
+
+    //1. merge duplicate lines so that each product row is only touched once
+    var quantitiesByProductId = items.stream()
+            .collect(Collectors.toMap(DeductInventoryRequestDto::productId,
+                    DeductInventoryRequestDto::quantity, Integer::sum, LinkedHashMap::new));
+
+    //2. serve the hot products from memory, the rest goes to the database
+    var memoryReservations = new ArrayList<HotSkuReservationManager.Reservation>();
+    var cancelledOnRollback = cancelOnRollback(memoryReservations);
+    try {
+      quantitiesByProductId.entrySet().removeIf(entry -> {
+        var reservation = hotSkuReservationManager.tryReserveCancellable(entry.getKey(), entry.getValue());
+        return reservation != null && memoryReservations.add(reservation);
+      });
+      if (!quantitiesByProductId.isEmpty()) {
+        deductRows(quantitiesByProductId);
+      }
+    } catch (RuntimeException e) {
+      if (!cancelledOnRollback) {
+        memoryReservations.forEach(hotSkuReservationManager::cancel);
+      }
+      throw e;
+    }
+    logger.info("Deducted inventory for {} products in one batch, {} of them from memory",
+            quantitiesByProductId.size() + memoryReservations.size(), memoryReservations.size());
   }
 
   /**
    * Restores the specified quantity of inventory stock for a given product.
    * <p>
-   *   This method retrieves the inventory record for the specified product ID, updates the available stock.
-   *   by adding the quantity to restore, and decreases the reserved quantity by the same amount.
+   *   The quantity is added back to the available stock and removed from the reserved quantity
+   *   with a single UPDATE statement, so concurrent restorations and deductions do not overwrite each other.
    *   It is typically used when an order is cancelled, returned/deleted, or updated and
    *   the inventory needs to be restored.
    * </p>
@@ -244,17 +311,148 @@ public class InventoryServiceImpl implements InventoryService {
    */
   @Override
   public void restoreInventoryStock(UUID productId, Integer quantityToRestore) {
-    var foundInventory = inventoryRepository.findByProductId(productId)
-            .orElseThrow(() -> new ProductNotFoundException(productId));
-
-    //Add the quantity back to available stock
-    var updatedAvailableStock = foundInventory.getAvailableStock() + quantityToRestore;
-    //update the reserved quantity
-    foundInventory.setReservedQuantity(foundInventory.getReservedQuantity() - quantityToRestore);
-    foundInventory.setAvailableStock(updatedAvailableStock);
-    inventoryRepository.save(foundInventory);
+    validateQuantity(quantityToRestore);
+    var updatedRows = inventoryRepository.restoreStock(productId, quantityToRestore);
+    if (updatedRows == 0) {
+      throw new ProductNotFoundException(productId);
+    }
     logger.info("Restored {} units of inventory for productId: {}", quantityToRestore, productId);
 
   }
 
+  /**
+   * Restores stock for several products at once in a single, all-or-nothing transaction.
+   * <p>
+   *   This method is used by the order service when an order update removes lines or lowers quantities,
+   *   so the released stock of a whole order costs one call. Quantities for the same product are summed
+   *   and the rows are updated with one UPDATE, which locks them in the same order as the batch deduction.
+   *   If any product is missing, nothing is restored.
+   * </p>
+   * @param items the product ids and the quantities to restore
+   * @throws IllegalArgumentException if the list is empty or contains an invalid item
+   * @throws ProductNotFoundException if any of the product ids does not exist in the inventory
+   */
+  @Override
+  @Transactional
+  public void restoreInventoryBatch(List<RestoreInventoryDto> items) {
+    if (items == null || items.isEmpty()) {
+      throw new IllegalArgumentException("At least one item is required");
+    }
+    if (items.stream().anyMatch(item -> item.productId() == null || item.quantity() == null || item.quantity() <= 0)) {
+      throw new IllegalArgumentException("Each item must have a product ID and a quantity greater than 0");
+    }
+
+    var quantitiesByProductId = items.stream()
+            .collect(Collectors.toMap(RestoreInventoryDto::productId,
+                    RestoreInventoryDto::quantity, Integer::sum, LinkedHashMap::new));
+
+    var updatedRows = inventoryRepository.restoreStockBatch(quantitiesByProductId.keySet().toArray(UUID[]::new),
+            quantitiesByProductId.values().toArray(Integer[]::new));
+    if (updatedRows != quantitiesByProductId.size()) {
+      var availableStocks = availableStocksOf(quantitiesByProductId.keySet());
+      throw new ProductNotFoundException(quantitiesByProductId.keySet().stream()
+              .filter(productId -> !availableStocks.containsKey(productId))
+              .toList());
+    }
+    logger.info("Restored inventory for {} products in one batch", quantitiesByProductId.size());
+  }
+
+  /**
+   * Streams the inventories to the output stream, in inventory id order, straight from a database cursor.
+   * Each row is detached once written, so memory use does not grow with the number of inventories.
+   * Not cached: an export reads the current data.
+   * @param since when not null, only the inventories changed on or after this date (incremental pull)
+   * @return the number of exported inventories
+   */
+  @Override
+  @Transactional
+  public long exportInventories(LocalDate since, ExportFormat format, OutputStream outputStream) throws IOException {
+    try (var inventories = since == null
+            ? inventoryRepository.streamAll()
+            : inventoryRepository.streamUpdatedSince(since)) {
+      var count = INVENTORY_EXPORTER.export(inventories, format, outputStream, entityManager::detach);
+      logger.info("exported {} inventories as {} (since: {})", count, format, since);
+      return count;
+    }
+  }
+
+  /**
+   * Runs the conditional stock deduction and translates a zero row count into the right exception.
+   * The extra existence check only runs on the failure path.
+   * Hot products are reserved from memory when their counter can cover the quantity.
+   */
+  private void deductStockAtomically(UUID productId, Integer quantity) {
+    validateQuantity(quantity);
+    if (hotSkuReservationManager.tryReserve(productId, quantity)) {
+      return;
+    }
+    var updatedRows = inventoryRepository.deductStock(productId, quantity);
+    if (updatedRows == 0) {
+      if (!inventoryRepository.existsByProductId(productId)) {
+        throw new ProductNotFoundException(productId);
+      }
+      throw new InsufficientStockQuantityException(productId);
+    }
+  }
+
+  /**
+   * Moves the quantities of the products from the available stock to the reserved quantity with one
+   * all-or-nothing UPDATE. Only when it updates fewer rows than there are lines are the rows read again,
+   * to report the missing products, or else the short ones.
+   */
+  private void deductRows(Map<UUID, Integer> quantitiesByProductId) {
+    var updatedRows = inventoryRepository.deductStockBatch(quantitiesByProductId.keySet().toArray(UUID[]::new),
+            quantitiesByProductId.values().toArray(Integer[]::new));
+    if (updatedRows == quantitiesByProductId.size()) {
+      return;
+    }
+
+    var availableStocks = availableStocksOf(quantitiesByProductId.keySet());
+    var missingProductIds = quantitiesByProductId.keySet().stream()
+            .filter(productId -> !availableStocks.containsKey(productId))
+            .toList();
+    if (!missingProductIds.isEmpty()) {
+      throw new ProductNotFoundException(missingProductIds);
+    }
+    var insufficientProductIds = quantitiesByProductId.entrySet().stream()
+            .filter(entry -> availableStocks.get(entry.getKey()) < entry.getValue())
+            .map(Map.Entry::getKey)
+            .toList();
+    //stock restored between the UPDATE and the read: the batch was short when it ran
+    throw new InsufficientStockQuantityException(insufficientProductIds.isEmpty()
+            ? List.copyOf(quantitiesByProductId.keySet())
+            : insufficientProductIds);
+  }
+
+  //the available stock of each product that exists
+  private Map<UUID, Integer> availableStocksOf(Collection<UUID> productIds) {
+    return inventoryRepository.findAllByProductIdIn(productIds).stream()
+            .collect(Collectors.toMap(Inventory::getProductId, Inventory::getAvailableStock));
+  }
+
+  /**
+   * Cancels the memory reservations of a batch when its transaction rolls back, including a failed commit.
+   * @return false when no transaction is active, the caller then cancels them itself on failure
+   */
+  private boolean cancelOnRollback(List<HotSkuReservationManager.Reservation> memoryReservations) {
+    if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+      return false;
+    }
+    TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+      @Override
+      public void afterCompletion(int status) {
+        if (status != STATUS_COMMITTED) {
+          memoryReservations.forEach(hotSkuReservationManager::cancel);
+        }
+      }
+    });
+    return true;
+  }
+
+  private void validateQuantity(Integer quantity) {
+    if (quantity == null || quantity <= 0) {
+      throw new IllegalArgumentException("Quantity must be greater than 0");
+    }
+  }
+
 }
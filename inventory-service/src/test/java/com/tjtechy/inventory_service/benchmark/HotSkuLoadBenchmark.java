@@ -0,0 +1,170 @@
+/*
+ * Copyright © 2025
+ * @Author = TJTechy (Tajudeen Busari)
+ * @Version = 1.0
+ * This file is part of the inventory-service module of the Ecommerce Microservices project.
+ */
+package com.tjtechy.inventory_service.benchmark;
+
+import com.tjtechy.Inventory;
+import com.tjtechy.businessException.InsufficientStockQuantityException;
+import com.tjtechy.inventory_service.repository.InventoryRepository;
+import com.tjtechy.inventory_service.service.InventoryService;
+import com.tjtechy.inventory_service.service.impl.HotSkuReservationManager;
+import com.tjtechy.test_helper.config.TestConfiguration;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.jdbc.test.autoconfigure.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cloud.netflix.eureka.EurekaClientAutoConfiguration;
+import org.springframework.cloud.netflix.eureka.EurekaDiscoveryClientConfiguration;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.postgresql.PostgreSQLContainer;
+
+import java.util.ArrayList;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Load benchmark for deductions on a single product, comparing the conditional UPDATE path with the
+ * in-memory hot-SKU path against a real PostgreSQL.
+ * <p>
+ *   It is not part of the regular build (the class name does not end with Test) and only runs when asked:
+ *   <pre>
+ *   mvn -pl inventory-service test -Dtest=HotSkuLoadBenchmark -Dbenchmark=true -Dsurefire.failIfNoSpecifiedTests=false
+ *   </pre>
+ *   Both runs also check that no unit is oversold and that, once the counters are released,
+ *   available + reserved stock is unchanged.
+ * </p>
+ */
+@Testcontainers
+@SpringBootTest(properties = {
+        "spring.cloud.config.enabled=false",
+        "spring.cloud.config.discovery.enabled=false",
+        "spring.cloud.discovery.enabled=false",
+        "eureka.client.enabled=false",
+        "spring.cloud.loadbalancer.enabled=false",
+        "spring.cloud.service-registry.auto-registration.enabled=false",
+        "redis.enabled=false",
+        "spring.cache.type=none",
+        "spring.jpa.show-sql=false",
+        "inventory.hot-sku.enabled=true",
+        "inventory.hot-sku.hotness-threshold=0",
+        "inventory.hot-sku.product-ids=" + HotSkuLoadBenchmark.HOT_PRODUCT_ID,
+        "inventory.hot-sku.lease-size=500",
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+@EnableAutoConfiguration(exclude = {
+        EurekaClientAutoConfiguration.class,
+        EurekaDiscoveryClientConfiguration.class,
+})
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS)
+@Import(TestConfiguration.class)
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class HotSkuLoadBenchmark {
+
+  static final String HOT_PRODUCT_ID = "0b7f6c52-3f7e-4d0c-9a55-6f1b2d9a8e11";
+  private static final int THREADS = 32;
+  private static final int DEDUCTIONS_PER_THREAD = 500;
+  private static final int STOCK = 10_000; //less than THREADS * DEDUCTIONS_PER_THREAD, so the product sells out
+
+  @Container
+  public static PostgreSQLContainer postgreSQLContainer = new PostgreSQLContainer("postgres:latest")
+          .withDatabaseName("inventory_db")
+          .withUsername("postgres")
+          .withPassword("password");
+
+  @DynamicPropertySource
+  static void registerPgProperties(DynamicPropertyRegistry registry) {
+    registry.add("spring.datasource.url", postgreSQLContainer::getJdbcUrl);
+    registry.add("spring.datasource.username", postgreSQLContainer::getUsername);
+    registry.add("spring.datasource.password", postgreSQLContainer::getPassword);
+    registry.add("spring.datasource.driver-class-name", postgreSQLContainer::getDriverClassName);
+    registry.add("api.endpoint.base-url", () -> "/api/v1");
+  }
+
+  @Autowired
+  private InventoryService inventoryService;
+
+  @Autowired
+  private InventoryRepository inventoryRepository;
+
+  @Autowired
+  private HotSkuReservationManager hotSkuReservationManager;
+
+  @Test
+  void benchmarkDatabasePath() throws Exception {
+    run("conditional UPDATE", UUID.randomUUID());
+  }
+
+  @Test
+  void benchmarkHotSkuPath() throws Exception {
+    hotSkuReservationManager.evaluateHotness(); //activate the pinned product without waiting for the scheduler
+    run("hot-SKU counter", UUID.fromString(HOT_PRODUCT_ID));
+  }
+
+  private void run(String label, UUID productId) throws Exception {
+    //1. create the product with a fixed stock
+    var inventory = new Inventory();
+    inventory.setProductId(productId);
+    inventory.setAvailableStock(STOCK);
+    inventory.setReservedQuantity(0);
+    inventoryService.createInventory(inventory);
+
+    //2. hammer the same product from all threads
+    var succeeded = new AtomicInteger();
+    var rejected = new AtomicInteger();
+    var start = new CountDownLatch(1);
+    var tasks = new ArrayList<Callable<Void>>();
+    for (int t = 0; t < THREADS; t++) {
+      tasks.add(() -> {
+        start.await();
+        for (int i = 0; i < DEDUCTIONS_PER_THREAD; i++) {
+          try {
+            inventoryService.deductInventory(productId, 1);
+            succeeded.incrementAndGet();
+          } catch (InsufficientStockQuantityException e) {
+            rejected.incrementAndGet();
+          }
+        }
+        return null;
+      });
+    }
+    long elapsedNanos;
+    try (var executor = Executors.newFixedThreadPool(THREADS)) {
+      var futures = tasks.stream().map(executor::submit).toList();
+      var startedAt = System.nanoTime();
+      start.countDown();
+      for (var future : futures) {
+        future.get();
+      }
+      elapsedNanos = System.nanoTime() - startedAt;
+    }
+
+    //3. settle the counters and check the books
+    hotSkuReservationManager.releaseAll();
+    var stored = inventoryRepository.findByProductId(productId).orElseThrow();
+    var total = THREADS * DEDUCTIONS_PER_THREAD;
+    System.out.printf("[%s] %d deductions from %d threads in %d ms: %.0f ops/s (%d succeeded, %d rejected)%n",
+            label, total, THREADS, elapsedNanos / 1_000_000, total / (elapsedNanos / 1e9),
+            succeeded.get(), rejected.get());
+
+    assertEquals(STOCK, succeeded.get());
+    assertEquals(0, stored.getAvailableStock());
+    assertEquals(STOCK, stored.getReservedQuantity());
+  }
+}
@@ -11,6 +11,8 @@ import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import com.github.javafaker.Faker;
 import com.tjtechy.*;
+import com.tjtechy.businessException.InsufficientStockQuantityException;
+import com.tjtechy.export.ExportFormat;
 import com.tjtechy.inventory_service.exception.ExceptionHandlingAdvice;
 import com.tjtechy.inventory_service.service.InventoryService;
 import com.tjtechy.modelNotFoundException.InventoryNotFoundException;
@@ -37,6 +39,8 @@ import org.springframework.test.web.reactive.server.WebTestClient;
 import org.springframework.test.web.servlet.MockMvc;
 import reactor.core.publisher.Mono;
 
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
@@ -44,7 +48,10 @@ import java.util.UUID;
 
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @WebMvcTest(controllers = InventoryController.class)
 @AutoConfigureMockMvc
@@ -254,6 +261,38 @@ class InventoryControllerTest {
             .andExpect(jsonPath("$.data[0].reservedQuantity").value(inventoryDtoList.getFirst().reservedQuantity()));
   }
 
+  @Test
+  void testExportInventoriesSuccess() throws Exception {
+    //Given
+    var since = LocalDate.of(2025, 1, 1);
+    when(inventoryService.exportInventories(eq(since), eq(ExportFormat.CSV), any(OutputStream.class)))
+            .thenAnswer(invocation -> {
+              invocation.getArgument(2, OutputStream.class)
+                      .write("inventoryId,productId\r\n1,x\r\n".getBytes(StandardCharsets.UTF_8));
+              return 1L;
+            });
+
+    //When and then
+    mockMvc.perform(get(baseUrl + "/inventory/export")
+            .param("format", "CSV")
+            .param("since", "2025-01-01"))
+            .andExpect(status().isOk())
+            .andExpect(content().contentTypeCompatibleWith("text/csv"))
+            .andExpect(header().string("Content-Disposition", "attachment; filename=\"inventories.csv\""))
+            .andExpect(content().string("inventoryId,productId\r\n1,x\r\n"));
+  }
+
+  @Test
+  void testExportInventoriesInvalidFormat() throws Exception {
+    //When and then
+    mockMvc.perform(get(baseUrl + "/inventory/export")
+            .param("format", "XML"))
+            .andExpect(status().isBadRequest())
+            .andExpect(jsonPath("$.message").value("Invalid value of the format parameter"))
+            .andExpect(jsonPath("$.flag").value(false));
+    verifyNoInteractions(inventoryService);
+  }
+
   @Test
   void testGetInventoryByProductId() throws Exception {
     //Given
@@ -399,6 +438,65 @@ class InventoryControllerTest {
             .andExpect(jsonPath("$.flag").value(true));
   }
 
+  @Test
+  void testDeductInventoryBatchSuccess() throws Exception {
+    //Given
+    var items = List.of(
+            new DeductInventoryRequestDto(UUID.randomUUID(), 2),
+            new DeductInventoryRequestDto(UUID.randomUUID(), 3)
+    );
+    var batchDeductInventoryRequestDto = new BatchDeductInventoryRequestDto(items);
+    doNothing().when(inventoryService).deductInventoryBatch(items);
+
+    //When and then
+    mockMvc.perform(patch(baseUrl + "/inventory/internal/deduct-inventory-batch")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(objectMapper.writeValueAsString(batchDeductInventoryRequestDto)))
+            .andExpect(jsonPath("$.message").value("Inventory deducted successfully"))
+            .andExpect(jsonPath("$.flag").value(true));
+    verify(inventoryService, times(1)).deductInventoryBatch(items);
+  }
+
+  @Test
+  void testDeductInventoryBatchWithInsufficientStock() throws Exception {
+    //Given
+    var shortProductId = UUID.randomUUID();
+    var items = List.of(
+            new DeductInventoryRequestDto(UUID.randomUUID(), 2),
+            new DeductInventoryRequestDto(shortProductId, 300)
+    );
+    var batchDeductInventoryRequestDto = new BatchDeductInventoryRequestDto(items);
+    doThrow(new InsufficientStockQuantityException(List.of(shortProductId)))
+            .when(inventoryService).deductInventoryBatch(items);
+
+    //When and then
+    mockMvc.perform(patch(baseUrl + "/inventory/internal/deduct-inventory-batch")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(objectMapper.writeValueAsString(batchDeductInventoryRequestDto)))
+            .andExpect(status().isBadRequest())
+            .andExpect(jsonPath("$.message").value("Insufficient stock quantity for products with ids: [" + shortProductId + "]"))
+            .andExpect(jsonPath("$.flag").value(false));
+  }
+
+  @Test
+  void testRestoreInventoryBatchSuccess() throws Exception {
+    //Given
+    var items = List.of(
+            new RestoreInventoryDto(UUID.randomUUID(), 2),
+            new RestoreInventoryDto(UUID.randomUUID(), 3)
+    );
+    var batchRestoreInventoryRequestDto = new BatchRestoreInventoryRequestDto(items);
+    doNothing().when(inventoryService).restoreInventoryBatch(items);
+
+    //When and then
+    mockMvc.perform(post(baseUrl + "/inventory/internal/restore-inventory-batch")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(objectMapper.writeValueAsString(batchRestoreInventoryRequestDto)))
+            .andExpect(jsonPath("$.message").value("Inventory restored successfully"))
+            .andExpect(jsonPath("$.flag").value(true));
+    verify(inventoryService, times(1)).restoreInventoryBatch(items);
+  }
+
   /**
    * For reactive endpoint testing, we use WebTestClient.
    * The WebTestClient is a non-blocking, reactive client for testing web applications
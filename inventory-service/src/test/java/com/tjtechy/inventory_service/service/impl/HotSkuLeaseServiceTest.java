@@ -0,0 +1,159 @@
+/*
+ * Copyright © 2025
+ * @Author = TJTechy (Tajudeen Busari)
+ * @Version = 1.0
+ * This file is part of the inventory-service module of the Ecommerce Microservices project.
+ */
+package com.tjtechy.inventory_service.service.impl;
+
+import com.tjtechy.inventory_service.entity.InventoryLeaseHolder;
+import com.tjtechy.inventory_service.entity.InventoryReservationLog;
+import com.tjtechy.inventory_service.entity.InventoryReservationLog.EventType;
+import com.tjtechy.inventory_service.repository.InventoryLeaseHolderRepository;
+import com.tjtechy.inventory_service.repository.InventoryRepository;
+import com.tjtechy.inventory_service.repository.InventoryReservationLogRepository;
+import com.tjtechy.inventory_service.repository.InventoryReservationLogRepository.HeldStock;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class HotSkuLeaseServiceTest {
+
+  private static final String DEAD_INSTANCE_ID = "inventory-service-dead";
+
+  @Mock
+  private InventoryRepository inventoryRepository;
+
+  @Mock
+  private InventoryReservationLogRepository reservationLogRepository;
+
+  @Mock
+  private InventoryLeaseHolderRepository leaseHolderRepository;
+
+  private HotSkuLeaseService hotSkuLeaseService;
+
+  private final LocalDateTime cutoff = LocalDateTime.now().minusMinutes(1);
+
+  @BeforeEach
+  void setUp() {
+    hotSkuLeaseService = new HotSkuLeaseService(inventoryRepository, reservationLogRepository,
+            leaseHolderRepository, "inventory-service");
+  }
+
+  @Test
+  void testAcquireLeaseRefreshesTheHeartbeatBeforeLeasing() {
+    //Given
+    var productId = UUID.randomUUID();
+    when(inventoryRepository.findAvailableStockByProductId(productId)).thenReturn(Optional.of(50));
+    when(inventoryRepository.leaseStock(productId, 50)).thenReturn(1);
+
+    //When
+    var leased = hotSkuLeaseService.acquireLease(productId, 100);
+
+    //Then
+    assertEquals(50, leased);
+    var inOrder = inOrder(leaseHolderRepository, inventoryRepository, reservationLogRepository);
+    inOrder.verify(leaseHolderRepository).heartbeat(eq(hotSkuLeaseService.getInstanceId()), any());
+    inOrder.verify(inventoryRepository).leaseStock(productId, 50);
+    inOrder.verify(reservationLogRepository).save(argThat(log -> log.getEventType() == EventType.LEASED));
+  }
+
+  @Test
+  void testReconcileReturnsTheBalanceOfADeadInstance() {
+    //Given: a dead instance that held 30 units of one product and 5 of another
+    var firstProductId = UUID.randomUUID();
+    var secondProductId = UUID.randomUUID();
+    when(leaseHolderRepository.findByInstanceIdForUpdate(DEAD_INSTANCE_ID))
+            .thenReturn(Optional.of(new InventoryLeaseHolder(DEAD_INSTANCE_ID, cutoff.minusSeconds(10))));
+    when(reservationLogRepository.findHeldStock(DEAD_INSTANCE_ID, EventType.LEASED))
+            .thenReturn(List.of(heldStock(firstProductId, 30), heldStock(secondProductId, 5)));
+    when(inventoryRepository.returnLeasedStock(firstProductId, 30)).thenReturn(1);
+    when(inventoryRepository.returnLeasedStock(secondProductId, 5)).thenReturn(1);
+
+    //When
+    var returned = hotSkuLeaseService.reconcile(DEAD_INSTANCE_ID, cutoff);
+
+    //Then: the returned units are logged under the dead instance, which brings its balance to 0
+    assertEquals(35, returned);
+    verify(reservationLogRepository).save(argThat(log -> isReleased(log, firstProductId, 30)));
+    verify(reservationLogRepository).save(argThat(log -> isReleased(log, secondProductId, 5)));
+    verify(leaseHolderRepository).deleteById(DEAD_INSTANCE_ID);
+  }
+
+  @Test
+  void testReconcileClosesTheBalanceOfADeletedInventory() {
+    //Given
+    var productId = UUID.randomUUID();
+    when(leaseHolderRepository.findByInstanceIdForUpdate(DEAD_INSTANCE_ID))
+            .thenReturn(Optional.of(new InventoryLeaseHolder(DEAD_INSTANCE_ID, cutoff.minusSeconds(10))));
+    when(reservationLogRepository.findHeldStock(DEAD_INSTANCE_ID, EventType.LEASED))
+            .thenReturn(List.of(heldStock(productId, 30)));
+    when(inventoryRepository.returnLeasedStock(productId, 30)).thenReturn(0);
+
+    //When
+    var returned = hotSkuLeaseService.reconcile(DEAD_INSTANCE_ID, cutoff);
+
+    //Then
+    assertEquals(0, returned);
+    verify(reservationLogRepository).save(argThat(log -> isReleased(log, productId, 30)));
+    verify(leaseHolderRepository).deleteById(DEAD_INSTANCE_ID);
+  }
+
+  @Test
+  void testReconcileSkipsAnInstanceThatSentAHeartbeatSince() {
+    //Given: the heartbeat was refreshed after the instance was found dead
+    when(leaseHolderRepository.findByInstanceIdForUpdate(DEAD_INSTANCE_ID))
+            .thenReturn(Optional.of(new InventoryLeaseHolder(DEAD_INSTANCE_ID, LocalDateTime.now())));
+
+    //When
+    var returned = hotSkuLeaseService.reconcile(DEAD_INSTANCE_ID, cutoff);
+
+    //Then
+    assertEquals(0, returned);
+    verifyNoInteractions(reservationLogRepository, inventoryRepository);
+    verify(leaseHolderRepository, never()).deleteById(any());
+  }
+
+  @Test
+  void testReconcileSkipsAnInstanceAlreadyReconciled() {
+    //Given: another instance reconciled it first and deleted its heartbeat
+    when(leaseHolderRepository.findByInstanceIdForUpdate(DEAD_INSTANCE_ID)).thenReturn(Optional.empty());
+
+    //When
+    var returned = hotSkuLeaseService.reconcile(DEAD_INSTANCE_ID, cutoff);
+
+    //Then
+    assertEquals(0, returned);
+    verifyNoInteractions(reservationLogRepository, inventoryRepository);
+  }
+
+  private static boolean isReleased(InventoryReservationLog log, UUID productId, int quantity) {
+    return log.getEventType() == EventType.RELEASED && log.getProductId().equals(productId)
+            && log.getQuantity() == quantity && log.getInstanceId().equals(DEAD_INSTANCE_ID);
+  }
+
+  private static HeldStock heldStock(UUID productId, long quantity) {
+    return new HeldStock() {
+      @Override
+      public UUID getProductId() {
+        return productId;
+      }
+
+      @Override
+      public Long getQuantity() {
+        return quantity;
+      }
+    };
+  }
+}
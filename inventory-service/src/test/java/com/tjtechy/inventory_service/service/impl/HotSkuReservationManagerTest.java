@@ -0,0 +1,127 @@
+/*
+ * Copyright © 2025
+ * @Author = TJTechy (Tajudeen Busari)
+ * @Version = 1.0
+ * This file is part of the inventory-service module of the Ecommerce Microservices project.
+ */
+package com.tjtechy.inventory_service.service.impl;
+
+import com.tjtechy.inventory_service.config.HotSkuProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class HotSkuReservationManagerTest {
+
+  private final UUID productId = UUID.randomUUID();
+
+  private final HotSkuLeaseService hotSkuLeaseService = mock(HotSkuLeaseService.class);
+
+  private HotSkuReservationManager manager;
+
+  @BeforeEach
+  void setUp() {
+    var properties = new HotSkuProperties();
+    properties.setEnabled(true);
+    properties.setProductIds(Set.of(productId));
+    properties.setStripes(1);
+    properties.setLeaseSize(10);
+    manager = new HotSkuReservationManager(properties, hotSkuLeaseService, new SimpleMeterRegistry());
+    manager.evaluateHotness();
+    when(hotSkuLeaseService.acquireLease(eq(productId), anyInt())).thenReturn(10);
+  }
+
+  @Test
+  void testFlushConfirmsConsumedUnits() {
+    //Given
+    assertTrue(manager.tryReserve(productId, 3));
+
+    //When
+    manager.flushConsumedStock();
+    manager.flushConsumedStock();
+
+    //Then
+    verify(hotSkuLeaseService).confirmConsumed(productId, 3);
+  }
+
+  @Test
+  void testReleaseDuringAFailingFlushSettlesTheUnflushedUnits() throws Exception {
+    //Given: a flush that is confirming 3 units when the counter is released
+    var reservation = manager.tryReserveCancellable(productId, 3);
+    var flushing = new CountDownLatch(1);
+    var failFlush = new CountDownLatch(1);
+    doAnswer(invocation -> {
+      flushing.countDown();
+      failFlush.await(5, TimeUnit.SECONDS);
+      throw new IllegalStateException("connection reset");
+    }).when(hotSkuLeaseService).confirmConsumed(productId, 3);
+
+    try (var executor = Executors.newFixedThreadPool(2)) {
+      var flush = executor.submit(manager::flushConsumedStock);
+      assertTrue(flushing.await(5, TimeUnit.SECONDS));
+
+      //When: the release waits for the flush, which fails and puts the units back
+      var release = executor.submit(() -> manager.release(productId));
+      while (!reservation.counter().refillLock().hasQueuedThreads()) {
+        Thread.onSpinWait();
+      }
+      failFlush.countDown();
+      flush.get(5, TimeUnit.SECONDS);
+      release.get(5, TimeUnit.SECONDS);
+    }
+
+    //Then: the settlement confirms the units the flush could not, and returns the rest
+    verify(hotSkuLeaseService).settle(productId, 3, 7);
+    assertTrue(reservation.counter().isClosed());
+  }
+
+  @Test
+  void testFlushAfterAReleaseConfirmsNothing() {
+    //Given
+    assertTrue(manager.tryReserve(productId, 3));
+    manager.release(productId);
+
+    //When
+    manager.flushConsumedStock();
+
+    //Then
+    verify(hotSkuLeaseService).settle(productId, 3, 7);
+    verify(hotSkuLeaseService, never()).confirmConsumed(any(), anyInt());
+  }
+
+  @Test
+  void testHeartbeatOnlyWhileHoldingCounters() {
+    //Given
+    manager.heartbeat();
+    manager.release(productId);
+
+    //When
+    manager.heartbeat();
+
+    //Then
+    verify(hotSkuLeaseService, times(1)).heartbeat();
+  }
+
+  @Test
+  void testReconcileDeadInstancesGoesOnAfterAFailure() {
+    //Given
+    when(hotSkuLeaseService.findInstancesWithHeartbeatBefore(any())).thenReturn(List.of("dead-1", "dead-2"));
+    when(hotSkuLeaseService.reconcile(eq("dead-1"), any())).thenThrow(new IllegalStateException("deadlock"));
+
+    //When
+    manager.reconcileDeadInstances();
+
+    //Then
+    verify(hotSkuLeaseService).reconcile(eq("dead-2"), any());
+  }
+}
@@ -0,0 +1,158 @@
+/*
+ * Copyright © 2025
+ * @Author = TJTechy (Tajudeen Busari)
+ * @Version = 1.0
+ * This file is part of the inventory-service module of the Ecommerce Microservices project.
+ */
+package com.tjtechy.inventory_service.service.impl;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HotSkuStockCounterTest {
+
+  @Test
+  void testReserveNeverExceedsLease() throws Exception {
+    //Given
+    var counter = new HotSkuStockCounter(UUID.randomUUID(), 8);
+    counter.addLease(1000);
+    var threads = 16;
+    var attemptsPerThread = 200;
+    var reserved = new AtomicInteger();
+    var start = new CountDownLatch(1);
+
+    //When: 3200 attempts compete for 1000 units
+    try (var executor = Executors.newFixedThreadPool(threads)) {
+      var tasks = new ArrayList<Callable<Void>>();
+      for (int t = 0; t < threads; t++) {
+        tasks.add(() -> {
+          start.await();
+          for (int i = 0; i < attemptsPerThread; i++) {
+            if (counter.tryReserve(1) || counter.tryReserveAcrossStripes(1)) {
+              reserved.incrementAndGet();
+            }
+          }
+          return null;
+        });
+      }
+      var futures = tasks.stream().map(executor::submit).toList();
+      start.countDown();
+      for (var future : futures) {
+        future.get();
+      }
+    }
+
+    //Then
+    assertEquals(1000, reserved.get());
+    assertEquals(0, counter.remainingUnits());
+    assertEquals(1000, counter.takeUnconfirmed());
+    assertEquals(0, counter.takeUnconfirmed());
+  }
+
+  @Test
+  void testReserveAcrossStripesWhenNoSingleStripeHoldsEnough() {
+    //Given: 10 units spread over 4 stripes, no stripe holds more than 3
+    var counter = new HotSkuStockCounter(UUID.randomUUID(), 4);
+    counter.addLease(10);
+
+    //When
+    var fastPath = counter.tryReserve(8);
+    var slowPath = counter.tryReserveAcrossStripes(8);
+
+    //Then
+    assertFalse(fastPath);
+    assertTrue(slowPath);
+    assertEquals(2, counter.remainingUnits());
+    assertFalse(counter.tryReserveAcrossStripes(3));
+    assertEquals(2, counter.remainingUnits());
+  }
+
+  @Test
+  void testCloseSettlesLeasedUnits() {
+    //Given
+    var counter = new HotSkuStockCounter(UUID.randomUUID(), 4);
+    counter.addLease(100);
+    counter.tryReserve(10);
+    assertEquals(10, counter.takeUnconfirmed());
+    counter.tryReserve(5);
+
+    //When
+    var settlement = counter.close();
+
+    //Then: leased = flushed + unconfirmed + unused
+    assertEquals(5, settlement.unconfirmed());
+    assertEquals(85, settlement.unused());
+    assertFalse(counter.tryReserve(1));
+    assertFalse(counter.addLease(10));
+  }
+
+  @Test
+  void testRestoreUnconfirmedAfterFailedFlush() {
+    //Given
+    var counter = new HotSkuStockCounter(UUID.randomUUID(), 2);
+    counter.addLease(20);
+    counter.tryReserve(4);
+    var unconfirmed = counter.takeUnconfirmed();
+
+    //When
+    counter.restoreUnconfirmed(unconfirmed);
+
+    //Then
+    assertEquals(4, counter.takeUnconfirmed());
+  }
+
+  @Test
+  void testUnreserveBeforeAFlushIsNotConsumed() {
+    //Given
+    var counter = new HotSkuStockCounter(UUID.randomUUID(), 4);
+    counter.addLease(10);
+    assertTrue(counter.tryReserveAcrossStripes(3));
+
+    //When
+    assertTrue(counter.unreserve(3));
+
+    //Then
+    assertEquals(10, counter.remainingUnits());
+    assertEquals(0, counter.takeUnconfirmed());
+  }
+
+  @Test
+  void testUnreserveAfterAFlushTakesTheUnitsBack() {
+    //Given
+    var counter = new HotSkuStockCounter(UUID.randomUUID(), 4);
+    counter.addLease(10);
+    assertTrue(counter.tryReserveAcrossStripes(3));
+    assertEquals(3, counter.takeUnconfirmed());
+
+    //When
+    assertTrue(counter.unreserve(3));
+
+    //Then: the next flush takes them out of the reserved quantity again
+    assertEquals(-3, counter.takeUnconfirmed());
+    var settlement = counter.close();
+    assertEquals(0, settlement.unconfirmed());
+    assertEquals(10, settlement.unused());
+  }
+
+  @Test
+  void testUnreserveOnAClosedCounterIsRefused() {
+    //Given
+    var counter = new HotSkuStockCounter(UUID.randomUUID(), 4);
+    counter.addLease(10);
+    assertTrue(counter.tryReserveAcrossStripes(3));
+    var settlement = counter.close();
+    assertEquals(3, settlement.unconfirmed());
+
+    //When / Then: the settlement counted the units as consumed, the caller returns them to the row
+    assertFalse(counter.unreserve(3));
+    assertEquals(0, counter.remainingUnits());
+  }
+}
@@ -7,11 +7,15 @@
 package com.tjtechy.inventory_service.service.impl;
 
 import com.github.javafaker.Faker;
+import com.tjtechy.DeductInventoryRequestDto;
 import com.tjtechy.Inventory;
+import com.tjtechy.RestoreInventoryDto;
 import com.tjtechy.businessException.InsufficientStockQuantityException;
+import com.tjtechy.export.ExportFormat;
 import com.tjtechy.inventory_service.repository.InventoryRepository;
 import com.tjtechy.modelNotFoundException.InventoryNotFoundException;
 import com.tjtechy.modelNotFoundException.ProductNotFoundException;
+import jakarta.persistence.EntityManager;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -21,7 +25,12 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import reactor.test.StepVerifier;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
 import java.util.*;
+import java.util.stream.Stream;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.BDDMockito.given;
 import static org.mockito.Mockito.*;
@@ -32,6 +41,12 @@ class InventoryServiceImplTest {
   @Mock
   private InventoryRepository inventoryRepository;
 
+  @Mock
+  private HotSkuReservationManager hotSkuReservationManager;
+
+  @Mock
+  private EntityManager entityManager;
+
   @InjectMocks
   private InventoryServiceImpl inventoryService;
 
@@ -284,23 +299,16 @@ class InventoryServiceImplTest {
     var inventory = inventoryList.getFirst();
     var productId = inventory.getProductId();
     var quantity = 5;
-    inventory.setAvailableStock(15); //set a value greater than quantity
-    inventory.setReservedQuantity(1); //set the initial reserved quantity
-    var availableStock = inventory.getAvailableStock();
-    var reservedQuantity = inventory.getReservedQuantity();
-    var newAvailableStock = availableStock - quantity;
-    var newReservedQuantity = reservedQuantity + quantity;
-
-    when(inventoryRepository.findByProductId(productId)).thenReturn(Optional.of(inventory));
-    when(inventoryRepository.save(inventory)).thenReturn(inventory);
+    when(inventoryRepository.deductStock(productId, quantity)).thenReturn(1);
 
     //When
     inventoryService.deductInventory(productId, quantity);
     //Then
-    assertEquals(newAvailableStock, inventory.getAvailableStock());
-    assertEquals(newReservedQuantity, inventory.getReservedQuantity());
-    verify(inventoryRepository, times(1)).findByProductId(productId);
-    verify(inventoryRepository, times(1)).save(inventory);
+    verify(inventoryRepository, times(1)).deductStock(productId, quantity);
+    //the existence check is only done on the failure path and the entity is never loaded or saved
+    verify(inventoryRepository, never()).existsByProductId(productId);
+    verify(inventoryRepository, never()).findByProductId(productId);
+    verify(inventoryRepository, never()).save(any(Inventory.class));
   }
 
   @Test
@@ -309,6 +317,8 @@ class InventoryServiceImplTest {
     var inventory = inventoryList.getFirst();
     var productId = inventory.getProductId();
     var quantity = 5;
+    when(inventoryRepository.deductStock(productId, quantity)).thenReturn(0);
+    when(inventoryRepository.existsByProductId(productId)).thenReturn(false);
 
     //When
     var exception = assertThrows(ProductNotFoundException.class, () -> inventoryService.deductInventory(productId, quantity));
@@ -322,9 +332,8 @@ class InventoryServiceImplTest {
     var inventory = inventoryList.getFirst();
     var productId = inventory.getProductId();
     var quantity = 20; //greater than available stock
-    inventory.setAvailableStock(15); //set a value less than quantity
-
-    when(inventoryRepository.findByProductId(productId)).thenReturn(Optional.of(inventory));
+    when(inventoryRepository.deductStock(productId, quantity)).thenReturn(0);
+    when(inventoryRepository.existsByProductId(productId)).thenReturn(true);
 
     //When
     var exception = assertThrows(InsufficientStockQuantityException.class, () -> inventoryService.deductInventory(productId, quantity));
@@ -332,34 +341,74 @@ class InventoryServiceImplTest {
     assertEquals("Insufficient stock quantity for product with id: " + productId, exception.getMessage());
   }
 
+  @Test
+  void testDeductInventoryWithInvalidQuantity() {
+    //Given
+    var productId = inventoryList.getFirst().getProductId();
+
+    //When
+    var exception = assertThrows(IllegalArgumentException.class, () -> inventoryService.deductInventory(productId, -1));
+    //Then
+    assertEquals("Quantity must be greater than 0", exception.getMessage());
+    verifyNoInteractions(inventoryRepository);
+  }
+
+  @Test
+  void testDeductInventoryServedFromHotSkuCounter() {
+    //Given
+    var productId = inventoryList.getFirst().getProductId();
+    var quantity = 2;
+    given(hotSkuReservationManager.tryReserve(productId, quantity)).willReturn(true);
+
+    //When
+    inventoryService.deductInventory(productId, quantity);
+
+    //Then
+    verify(hotSkuReservationManager, times(1)).tryReserve(productId, quantity);
+    verify(inventoryRepository, never()).deductStock(any(UUID.class), anyInt());
+  }
+
+  @Test
+  void testUpdateInventoryReleasesHotSkuCounter() {
+    //Given
+    var inventory = inventoryList.getFirst();
+    var update = new Inventory();
+    update.setAvailableStock(50);
+    update.setReservedQuantity(5);
+    given(inventoryRepository.findById(inventory.getInventoryId())).willReturn(Optional.of(inventory));
+    given(inventoryRepository.save(inventory)).willReturn(inventory);
+
+    //When
+    inventoryService.updateInventory(inventory.getInventoryId(), update);
+
+    //Then
+    var inOrder = inOrder(hotSkuReservationManager, inventoryRepository);
+    inOrder.verify(hotSkuReservationManager).release(inventory.getProductId());
+    inOrder.verify(inventoryRepository).save(inventory);
+  }
+
   @Test
   void testDeductInventoryReactiveSuccess() {
     //Given
     var inventory = inventoryList.getFirst();
     var productId = inventory.getProductId();
     var quantity = 5;
-    inventory.setAvailableStock(15); //set a value greater than quantity
-    inventory.setReservedQuantity(1); //set the initial reserved quantity
 
     /*IMPORTANT NOTE:
-     * In your unit test, both findByProductId and save should return
-     * plain Java objects (Optional<Inventory> and Inventory), not Monos
-     * because in the implementation class, we are wrapping synchronous
-     * repository calls inside Mono.fromCallable(), which means we are turning
+     * In your unit test, the repository should return plain Java values, not Monos
+     * because in the implementation class, we are wrapping the synchronous
+     * repository call inside Mono.fromRunnable(), which means we are turning
      * plain java method (non-reactive) into a reactive stream.
      */
-    when(inventoryRepository.findByProductId(productId)).thenReturn(Optional.of(inventory));
-    when(inventoryRepository.save(any(Inventory.class))).thenAnswer(invocation -> invocation.getArgument(0));
+    when(inventoryRepository.deductStock(productId, quantity)).thenReturn(1);
     //When
     StepVerifier
             .create(inventoryService.deductInventoryReactive(productId, quantity))
             .verifyComplete();
 
     //Then
-    assertEquals(15 - quantity, inventory.getAvailableStock());
-    assertEquals(1 + quantity, inventory.getReservedQuantity());
-    verify(inventoryRepository, times(1)).findByProductId(productId);
-    verify(inventoryRepository, times(1)).save(inventory);
+    verify(inventoryRepository, times(1)).deductStock(productId, quantity);
+    verify(inventoryRepository, never()).save(any(Inventory.class));
   }
 
   @Test
@@ -368,7 +417,8 @@ class InventoryServiceImplTest {
     var inventory = inventoryList.getFirst();
     var productId = inventory.getProductId();
     var quantity = 5;
-    when(inventoryRepository.findByProductId(productId)).thenReturn(Optional.empty());
+    when(inventoryRepository.deductStock(productId, quantity)).thenReturn(0);
+    when(inventoryRepository.existsByProductId(productId)).thenReturn(false);
 
     //When
     StepVerifier
@@ -378,7 +428,7 @@ class InventoryServiceImplTest {
             .verify();
 
     //Then
-    verify(inventoryRepository, times(1)).findByProductId(productId);
+    verify(inventoryRepository, times(1)).deductStock(productId, quantity);
   }
 
   @Test
@@ -387,9 +437,8 @@ class InventoryServiceImplTest {
     var inventory = inventoryList.getFirst();
     var productId = inventory.getProductId();
     var quantity = 20; //greater than available stock
-    inventory.setAvailableStock(15); //set a value less than quantity
-
-    when(inventoryRepository.findByProductId(productId)).thenReturn(Optional.of(inventory));
+    when(inventoryRepository.deductStock(productId, quantity)).thenReturn(0);
+    when(inventoryRepository.existsByProductId(productId)).thenReturn(true);
 
     //When
     StepVerifier
@@ -399,7 +448,289 @@ class InventoryServiceImplTest {
             .verify();
 
     //Then
-    verify(inventoryRepository, times(1)).findByProductId(productId);
+    verify(inventoryRepository, times(1)).deductStock(productId, quantity);
     verify(inventoryRepository, never()).save(inventory);
   }
-}
\ No newline at end of file
+
+  @Test
+  void testRestoreInventoryStockSuccess() {
+    //Given
+    var productId = inventoryList.getFirst().getProductId();
+    when(inventoryRepository.restoreStock(productId, 3)).thenReturn(1);
+
+    //When
+    inventoryService.restoreInventoryStock(productId, 3);
+    //Then
+    verify(inventoryRepository, times(1)).restoreStock(productId, 3);
+    verify(inventoryRepository, never()).save(any(Inventory.class));
+  }
+
+  @Test
+  void testRestoreInventoryStockNotFound() {
+    //Given
+    var productId = inventoryList.getFirst().getProductId();
+    when(inventoryRepository.restoreStock(productId, 3)).thenReturn(0);
+
+    //When
+    var exception = assertThrows(ProductNotFoundException.class, () -> inventoryService.restoreInventoryStock(productId, 3));
+    //Then
+    assertEquals("Product not found with id: " + productId, exception.getMessage());
+  }
+
+  @Test
+  void testDeductInventoryBatchSuccess() {
+    //Given
+    var first = inventoryList.get(0);
+    var second = inventoryList.get(1);
+    first.setAvailableStock(10);
+    first.setReservedQuantity(1);
+    second.setAvailableStock(20);
+    second.setReservedQuantity(1);
+    var items = List.of(
+            new DeductInventoryRequestDto(first.getProductId(), 3),
+            new DeductInventoryRequestDto(second.getProductId(), 5),
+            new DeductInventoryRequestDto(first.getProductId(), 2) //duplicate line for the same product
+    );
+    when(inventoryRepository.deductStockBatch(any(), any())).thenReturn(2);
+
+    //When
+    inventoryService.deductInventoryBatch(items);
+
+    //Then: one UPDATE for both products, with the duplicate lines merged
+    verify(inventoryRepository, times(1)).deductStockBatch(
+            aryEq(new UUID[]{first.getProductId(), second.getProductId()}), aryEq(new Integer[]{5, 5}));
+    verify(inventoryRepository, never()).findAllByProductIdIn(anyCollection());
+    verify(inventoryRepository, never()).saveAll(anyCollection());
+    verify(inventoryRepository, never()).findByProductId(any(UUID.class));
+  }
+
+  @Test
+  void testDeductInventoryBatchWithInsufficientStockDeductsNothing() {
+    //Given
+    var first = inventoryList.get(0);
+    var second = inventoryList.get(1);
+    first.setAvailableStock(10);
+    second.setAvailableStock(2);
+    var items = List.of(
+            new DeductInventoryRequestDto(first.getProductId(), 3),
+            new DeductInventoryRequestDto(second.getProductId(), 5)
+    );
+    when(inventoryRepository.deductStockBatch(any(), any())).thenReturn(0);
+    when(inventoryRepository.findAllByProductIdIn(anyCollection())).thenReturn(List.of(first, second));
+
+    //When
+    var exception = assertThrows(InsufficientStockQuantityException.class, () -> inventoryService.deductInventoryBatch(items));
+
+    //Then
+    assertEquals("Insufficient stock quantity for products with ids: [" + second.getProductId() + "]", exception.getMessage());
+    verify(inventoryRepository, never()).saveAll(anyCollection());
+  }
+
+  @Test
+  void testDeductInventoryBatchReportsEveryProductWhenTheStockCameBackSince() {
+    //Given: the batch was short when the UPDATE ran, stock came back before the rows were read
+    var first = inventoryList.get(0);
+    first.setAvailableStock(10);
+    var items = List.of(new DeductInventoryRequestDto(first.getProductId(), 3));
+    when(inventoryRepository.deductStockBatch(any(), any())).thenReturn(0);
+    when(inventoryRepository.findAllByProductIdIn(anyCollection())).thenReturn(List.of(first));
+
+    //When
+    var exception = assertThrows(InsufficientStockQuantityException.class, () -> inventoryService.deductInventoryBatch(items));
+
+    //Then
+    assertEquals("Insufficient stock quantity for products with ids: [" + first.getProductId() + "]", exception.getMessage());
+  }
+
+  @Test
+  void testDeductInventoryBatchWhenProductNotFound() {
+    //Given
+    var first = inventoryList.get(0);
+    var missingProductId = UUID.randomUUID();
+    first.setAvailableStock(10);
+    var items = List.of(
+            new DeductInventoryRequestDto(first.getProductId(), 3),
+            new DeductInventoryRequestDto(missingProductId, 1)
+    );
+    when(inventoryRepository.deductStockBatch(any(), any())).thenReturn(0);
+    when(inventoryRepository.findAllByProductIdIn(anyCollection())).thenReturn(List.of(first));
+
+    //When
+    var exception = assertThrows(ProductNotFoundException.class, () -> inventoryService.deductInventoryBatch(items));
+
+    //Then
+    assertEquals("Product not found with ids: [" + missingProductId + "]", exception.getMessage());
+    verify(inventoryRepository, never()).saveAll(anyCollection());
+  }
+
+  @Test
+  void testDeductInventoryBatchServesHotProductsFromMemory() {
+    //Given: the hot product has no stock left in its row, its units are leased to the counter
+    var hot = inventoryList.get(0);
+    var cold = inventoryList.get(1);
+    hot.setAvailableStock(0);
+    cold.setAvailableStock(20);
+    cold.setReservedQuantity(1);
+    var items = List.of(
+            new DeductInventoryRequestDto(hot.getProductId(), 4),
+            new DeductInventoryRequestDto(cold.getProductId(), 5)
+    );
+    var reservation = new HotSkuReservationManager.Reservation(hot.getProductId(), 4,
+            new HotSkuStockCounter(hot.getProductId(), 1));
+    given(hotSkuReservationManager.tryReserveCancellable(hot.getProductId(), 4)).willReturn(reservation);
+    given(hotSkuReservationManager.tryReserveCancellable(cold.getProductId(), 5)).willReturn(null);
+    when(inventoryRepository.deductStockBatch(aryEq(new UUID[]{cold.getProductId()}), aryEq(new Integer[]{5})))
+            .thenReturn(1);
+
+    //When
+    inventoryService.deductInventoryBatch(items);
+
+    //Then: only the cold row is updated
+    verify(inventoryRepository, times(1)).deductStockBatch(any(), any());
+    verify(hotSkuReservationManager, never()).cancel(any());
+  }
+
+  @Test
+  void testDeductInventoryBatchCancelsMemoryReservationsWhenAColdProductIsShort() {
+    //Given
+    var hot = inventoryList.get(0);
+    var cold = inventoryList.get(1);
+    cold.setAvailableStock(2);
+    var items = List.of(
+            new DeductInventoryRequestDto(hot.getProductId(), 4),
+            new DeductInventoryRequestDto(cold.getProductId(), 5)
+    );
+    var reservation = new HotSkuReservationManager.Reservation(hot.getProductId(), 4,
+            new HotSkuStockCounter(hot.getProductId(), 1));
+    given(hotSkuReservationManager.tryReserveCancellable(hot.getProductId(), 4)).willReturn(reservation);
+    when(inventoryRepository.deductStockBatch(aryEq(new UUID[]{cold.getProductId()}), aryEq(new Integer[]{5})))
+            .thenReturn(0);
+    when(inventoryRepository.findAllByProductIdIn(anyCollection())).thenReturn(List.of(cold));
+
+    //When
+    var exception = assertThrows(InsufficientStockQuantityException.class, () -> inventoryService.deductInventoryBatch(items));
+
+    //Then
+    assertEquals("Insufficient stock quantity for products with ids: [" + cold.getProductId() + "]", exception.getMessage());
+    verify(hotSkuReservationManager, times(1)).cancel(reservation);
+    verify(inventoryRepository, never()).saveAll(anyCollection());
+  }
+
+  @Test
+  void testDeductInventoryBatchAllHotSkipsTheDatabase() {
+    //Given
+    var hot = inventoryList.get(0);
+    var items = List.of(new DeductInventoryRequestDto(hot.getProductId(), 4));
+    given(hotSkuReservationManager.tryReserveCancellable(hot.getProductId(), 4))
+            .willReturn(new HotSkuReservationManager.Reservation(hot.getProductId(), 4, new HotSkuStockCounter(hot.getProductId(), 1)));
+
+    //When
+    inventoryService.deductInventoryBatch(items);
+
+    //Then
+    verifyNoInteractions(inventoryRepository);
+  }
+
+  @Test
+  void testDeductInventoryBatchWithEmptyItems() {
+    //When
+    var exception = assertThrows(IllegalArgumentException.class, () -> inventoryService.deductInventoryBatch(List.of()));
+    //Then
+    assertEquals("At least one item is required", exception.getMessage());
+    verifyNoInteractions(inventoryRepository);
+  }
+
+  @Test
+  void testRestoreInventoryBatchSuccess() {
+    //Given
+    var first = inventoryList.get(0);
+    var second = inventoryList.get(1);
+    first.setAvailableStock(5);
+    first.setReservedQuantity(6);
+    second.setAvailableStock(15);
+    second.setReservedQuantity(6);
+    var items = List.of(
+            new RestoreInventoryDto(first.getProductId(), 3),
+            new RestoreInventoryDto(second.getProductId(), 5),
+            new RestoreInventoryDto(first.getProductId(), 2) //duplicate line for the same product
+    );
+    when(inventoryRepository.restoreStockBatch(any(), any())).thenReturn(2);
+
+    //When
+    inventoryService.restoreInventoryBatch(items);
+
+    //Then
+    verify(inventoryRepository, times(1)).restoreStockBatch(
+            aryEq(new UUID[]{first.getProductId(), second.getProductId()}), aryEq(new Integer[]{5, 5}));
+    verify(inventoryRepository, never()).findAllByProductIdIn(anyCollection());
+    verify(inventoryRepository, never()).saveAll(anyCollection());
+    verify(inventoryRepository, never()).restoreStock(any(UUID.class), anyInt());
+  }
+
+  @Test
+  void testRestoreInventoryBatchWhenProductNotFoundRestoresNothing() {
+    //Given
+    var first = inventoryList.get(0);
+    var missingProductId = UUID.randomUUID();
+    first.setAvailableStock(10);
+    var items = List.of(
+            new RestoreInventoryDto(first.getProductId(), 3),
+            new RestoreInventoryDto(missingProductId, 1)
+    );
+    when(inventoryRepository.restoreStockBatch(any(), any())).thenReturn(0);
+    when(inventoryRepository.findAllByProductIdIn(anyCollection())).thenReturn(List.of(first));
+
+    //When
+    var exception = assertThrows(ProductNotFoundException.class, () -> inventoryService.restoreInventoryBatch(items));
+
+    //Then
+    assertEquals("Product not found with ids: [" + missingProductId + "]", exception.getMessage());
+    verify(inventoryRepository, never()).saveAll(anyCollection());
+  }
+
+  @Test
+  void testExportInventoriesAsNdjson() throws Exception {
+    //Given
+    var inventories = inventoryList.subList(0, 2);
+    inventories.getFirst().setUpdatedAt(LocalDate.of(2025, 1, 15));
+    given(inventoryRepository.streamAll()).willReturn(inventories.stream());
+    var output = new ByteArrayOutputStream();
+
+    //When
+    var count = inventoryService.exportInventories(null, ExportFormat.NDJSON, output);
+
+    //Then
+    assertEquals(2, count);
+    var lines = output.toString(StandardCharsets.UTF_8).split("\n");
+    assertEquals(2, lines.length);
+    assertTrue(lines[0].startsWith("{\"inventoryId\":" + inventories.getFirst().getInventoryId() + ","));
+    assertTrue(lines[0].contains("\"productId\":\"" + inventories.getFirst().getProductId() + "\""));
+    assertTrue(lines[0].endsWith("\"updatedAt\":\"2025-01-15\"}"));
+    assertTrue(lines[1].endsWith("\"updatedAt\":null}"));
+    //every exported row is detached, so the persistence context does not grow with the export
+    verify(entityManager, times(2)).detach(any(Inventory.class));
+    verify(inventoryRepository, never()).streamUpdatedSince(any());
+  }
+
+  @Test
+  void testExportInventoriesAsCsvSinceDate() throws Exception {
+    //Given
+    var since = LocalDate.of(2025, 1, 1);
+    var inventory = inventoryList.getFirst();
+    inventory.setUpdatedAt(LocalDate.of(2025, 1, 15));
+    given(inventoryRepository.streamUpdatedSince(since)).willReturn(Stream.of(inventory));
+    var output = new ByteArrayOutputStream();
+
+    //When
+    var count = inventoryService.exportInventories(since, ExportFormat.CSV, output);
+
+    //Then
+    assertEquals(1, count);
+    var lines = output.toString(StandardCharsets.UTF_8).split("\r\n");
+    assertEquals("inventoryId,productId,availableStock,reservedQuantity,updatedAt", lines[0]);
+    assertEquals(inventory.getInventoryId() + "," + inventory.getProductId() + "," + inventory.getAvailableStock()
+            + "," + inventory.getReservedQuantity() + ",2025-01-15", lines[1]);
+    verify(entityManager).detach(inventory);
+    verify(inventoryRepository, never()).streamAll();
+  }
+}
@@ -8,6 +8,8 @@ package com.tjtechy.notification_service;
 
 import com.tjtechy.RedisCacheConfig;
 
+import com.tjtechy.actuator.VirtualThreadMonitor;
+
 import org.springframework.beans.factory.annotation.Qualifier;
 
 import org.springframework.boot.ApplicationRunner;
@@ -24,7 +26,8 @@ import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandl
 @SpringBootApplication(scanBasePackages = {"com.tjtechy.notification_service", "com.tjtechy.security_webmvc"}) // This is to scan the security-webmvc package for the JwtEncoder bean and other security-related beans
 @EnableDiscoveryClient
 @EnableCaching
-@Import(RedisCacheConfig.class)
+@Import({RedisCacheConfig.class,
+		VirtualThreadMonitor.class}) // carrier metrics and pinning detection when spring.threads.virtual.enabled=true
 @EnableScheduling
 
 public class NotificationServiceApplication {
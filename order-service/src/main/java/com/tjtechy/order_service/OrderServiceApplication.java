@@ -12,10 +12,12 @@ import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.cloud.client.discovery.EnableDiscoveryClient;
 import org.springframework.context.annotation.Import;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @EnableCaching
 @SpringBootApplication(scanBasePackages = "com.tjtechy") //	This is to scan the common-utils package for the ProductDto class and RedisCacheConfig class
 @EnableDiscoveryClient
+@EnableScheduling //runs the order outbox relay
 @Import(RedisCacheConfig.class)
 
 public class OrderServiceApplication {
@@ -0,0 +1,40 @@
+/*
+ * Copyright © 2025
+ * @Author = TJTechy (Tajudeen Busari)
+ * @Version = 1.0
+ * This file is part of the order-service module of the EcommerceMicroservices project.
+ */
+
+package com.tjtechy.order_service.config;
+
+import com.tjtechy.order_service.idempotency.FailoverIdempotencyStore;
+import com.tjtechy.order_service.idempotency.IdempotencyStore;
+import com.tjtechy.order_service.idempotency.InMemoryIdempotencyStore;
+import com.tjtechy.order_service.idempotency.RedisIdempotencyStore;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+
+/**
+ * Chooses where Idempotency-Keys are stored.
+ * With Redis enabled (spring.redis.enabled, the same switch as the Redis cache) keys are shared by all instances
+ * and the in-process store only takes over while Redis is unreachable.
+ * With Redis disabled, e.g. in tests, only the in-process store is used.
+ */
+@Configuration
+public class IdempotencyConfig {
+
+  @Bean
+  public IdempotencyStore idempotencyStore(IdempotencyProperties properties,
+                                           ObjectProvider<ReactiveStringRedisTemplate> redisTemplate,
+                                           @Value("${spring.redis.enabled:true}") boolean redisEnabled) {
+    var local = new InMemoryIdempotencyStore(properties.getMaxLocalEntries(), properties.getTtl());
+    var template = redisTemplate.getIfAvailable();
+    if (!redisEnabled || template == null) {
+      return local;
+    }
+    return new FailoverIdempotencyStore(new RedisIdempotencyStore(template), local, properties.getRedisRetryAfter());
+  }
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright © 2025
+ * @Author = TJTechy (Tajudeen Busari)
+ * @Version = 1.0
+ * This file is part of the order-service module of the EcommerceMicroservices project.
+ */
+
+package com.tjtechy.order_service.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * Settings for the Idempotency-Key support of the order creation endpoints.
+ * <p>
+ *   A key and the response of its first successful request are kept for {@code ttl}, so a retry within that
+ *   window gets the stored response instead of placing a second order.
+ *   Redis is used when it is enabled, the in-process store holds at most {@code maxLocalEntries} keys.
+ * </p>
+ * Example:
+ * <pre>
+ * order:
+ *   idempotency:
+ *     ttl: 24h
+ *     in-progress-ttl: 60s
+ * </pre>
+ */
+@Configuration
+@ConfigurationProperties(prefix = "order.idempotency")
+public class IdempotencyProperties {
+
+  /** How long a completed response is replayed for its key. */
+  private Duration ttl = Duration.ofHours(24);
+
+  /** How long a key stays locked by a request that has not completed, covers a crashed instance. */
+  private Duration inProgressTtl = Duration.ofSeconds(60);
+
+  /** How long a duplicate waits for a request running on another instance before getting 409. */
+  private Duration waitTimeout = Duration.ofSeconds(30);
+
+  /** Maximum number of keys in the in-process store. */
+  private long maxLocalEntries = 10_000;
+
+  /** How long Redis is skipped after it failed, before it is tried again. */
+  private Duration redisRetryAfter = Duration.ofSeconds(30);
+
+  public Duration getTtl() {
+    return ttl;
+  }
+  public void setTtl(Duration ttl) {
+    this.ttl = ttl;
+  }
+
+  public Duration getInProgressTtl() {
+    return inProgressTtl;
+  }
+  public void setInProgressTtl(Duration inProgressTtl) {
+    this.inProgressTtl = inProgressTtl;
+  }
+
+  public Duration getWaitTimeout() {
+    return waitTimeout;
+  }
+  public void setWaitTimeout(Duration waitTimeout) {
+    this.waitTimeout = waitTimeout;
+  }
+
+  public long getMaxLocalEntries() {
+    return maxLocalEntries;
+  }
+  public void setMaxLocalEntries(long maxLocalEntries) {
+    this.maxLocalEntries = maxLocalEntries;
+  }
+
+  public Duration getRedisRetryAfter() {
+    return redisRetryAfter;
+  }
+  public void setRedisRetryAfter(Duration redisRetryAfter) {
+    this.redisRetryAfter = redisRetryAfter;
+  }
+}
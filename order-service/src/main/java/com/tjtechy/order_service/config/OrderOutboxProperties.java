@@ -0,0 +1,93 @@
+/*
+ * Copyright © 2025
+ * @Author = TJTechy (Tajudeen Busari)
+ * @Version = 1.0
+ * This file is part of the order-service module of the EcommerceMicroservices project.
+ */
+
+package com.tjtechy.order_service.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * Settings of the order event outbox and of the Kafka producer the relay publishes with.
+ * <p>
+ *   Order events are stored in the "order_outbox" table in the transaction of the order change,
+ *   and the relay publishes them every {@code relayInterval}, at most {@code batchSize} rows per round trip.
+ *   The producer waits up to {@code lingerMs} to fill batches of up to {@code batchSizeBytes}.
+ * </p>
+ * Example:
+ * <pre>
+ * order:
+ *   outbox:
+ *     relay-interval: 100ms
+ *     batch-size: 500
+ * </pre>
+ */
+@Configuration
+@ConfigurationProperties(prefix = "order.outbox")
+public class OrderOutboxProperties {
+
+  /** Whether this instance runs the relay. Events are written to the outbox either way. */
+  private boolean relayEnabled = true;
+
+  /** Pause between two relay runs when the outbox was drained. */
+  private Duration relayInterval = Duration.ofMillis(100);
+
+  /** Maximum number of events locked and published in one batch. */
+  private int batchSize = 500;
+
+  /** How long the relay waits for Kafka to acknowledge a batch before retrying it later. */
+  private Duration sendTimeout = Duration.ofSeconds(30);
+
+  /** Producer linger.ms: how long a record may wait for more records to share its batch. */
+  private int lingerMs = 20;
+
+  /** Producer batch.size in bytes, per partition. */
+  private int batchSizeBytes = 64 * 1024;
+
+  public boolean isRelayEnabled() {
+    return relayEnabled;
+  }
+  public void setRelayEnabled(boolean relayEnabled) {
+    this.relayEnabled = relayEnabled;
+  }
+
+  public Duration getRelayInterval() {
+    return relayInterval;
+  }
+  public void setRelayInterval(Duration relayInterval) {
+    this.relayInterval = relayInterval;
+  }
+
+  public int getBatchSize() {
+    return batchSize;
+  }
+  public void setBatchSize(int batchSize) {
+    this.batchSize = batchSize;
+  }
+
+  public Duration getSendTimeout() {
+    return sendTimeout;
+  }
+  public void setSendTimeout(Duration sendTimeout) {
+    this.sendTimeout = sendTimeout;
+  }
+
+  public int getLingerMs() {
+    return lingerMs;
+  }
+  public void setLingerMs(int lingerMs) {
+    this.lingerMs = lingerMs;
+  }
+
+  public int getBatchSizeBytes() {
+    return batchSizeBytes;
+  }
+  public void setBatchSizeBytes(int batchSizeBytes) {
+    this.batchSizeBytes = batchSizeBytes;
+  }
+}
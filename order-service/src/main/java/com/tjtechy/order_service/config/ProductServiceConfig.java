@@ -15,6 +15,12 @@ public class  ProductServiceConfig {
   @Value("${api.endpoint.base-url}")
   private String baseUrl;
 
+  /**
+   * Maximum number of product batch reads in flight for one order, so a large order cannot flood product-service.
+   */
+  @Value("${product-service.lookup-concurrency:8}")
+  private int lookupConcurrency;
+
   public String getBaseUrl() {
     return baseUrl;
   }
@@ -22,4 +28,12 @@ public class  ProductServiceConfig {
   public void setBaseUrl(String baseUrl) {
     this.baseUrl = baseUrl;
   }
+
+  public int getLookupConcurrency() {
+    return lookupConcurrency;
+  }
+
+  public void setLookupConcurrency(int lookupConcurrency) {
+    this.lookupConcurrency = lookupConcurrency;
+  }
 }
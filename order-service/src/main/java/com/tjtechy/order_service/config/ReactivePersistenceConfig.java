@@ -0,0 +1,68 @@
+/*
+ * Copyright © 2025
+ * @Author = TJTechy (Tajudeen Busari)
+ * @Version = 1.0
+ * This file is part of the order-service module of the EcommerceMicroservices project.
+ */
+package com.tjtechy.order_service.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.r2dbc.spi.ConnectionFactory;
+import jakarta.persistence.EntityManagerFactory;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.jdbc.autoconfigure.DataSourceProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.r2dbc.connection.R2dbcTransactionManager;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.ReactiveTransactionManager;
+import org.springframework.transaction.reactive.TransactionalOperator;
+
+/**
+ * Lets JPA (blocking endpoints) and R2DBC (reactive endpoints) share the order database.
+ * <p>
+ *   Spring Boot backs off from some of its defaults as soon as both stacks are on the classpath:
+ *   <ul>
+ *     <li>the JDBC DataSource is not auto-configured when an R2DBC ConnectionFactory exists,
+ *     so it is declared here from the usual spring.datasource.* properties;</li>
+ *     <li>the JPA transaction manager is not auto-configured when another transaction manager exists,
+ *     so both are declared here. The JPA one is primary, which keeps every existing @Transactional
+ *     method on JPA. Reactive code uses the {@link TransactionalOperator} explicitly.</li>
+ *   </ul>
+ * </p>
+ */
+@Configuration
+public class ReactivePersistenceConfig {
+
+  @Bean
+  @Primary
+  @ConfigurationProperties("spring.datasource")
+  public DataSourceProperties dataSourceProperties() {
+    return new DataSourceProperties();
+  }
+
+  @Bean
+  @Primary
+  @ConfigurationProperties("spring.datasource.hikari")
+  public HikariDataSource dataSource(DataSourceProperties dataSourceProperties) {
+    return dataSourceProperties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+  }
+
+  @Bean
+  @Primary
+  public PlatformTransactionManager transactionManager(EntityManagerFactory entityManagerFactory) {
+    return new JpaTransactionManager(entityManagerFactory);
+  }
+
+  @Bean
+  public ReactiveTransactionManager reactiveTransactionManager(ConnectionFactory connectionFactory) {
+    return new R2dbcTransactionManager(connectionFactory);
+  }
+
+  @Bean
+  public TransactionalOperator transactionalOperator(ReactiveTransactionManager reactiveTransactionManager) {
+    return TransactionalOperator.create(reactiveTransactionManager);
+  }
+}
@@ -7,19 +7,30 @@
 package com.tjtechy.order_service.controller;
 
 import com.tjtechy.actuator.Meter;
+import com.tjtechy.export.ExportFormat;
 import com.tjtechy.order_service.entity.Order;
 import com.tjtechy.order_service.entity.dto.CreateOrderDto;
+import com.tjtechy.order_service.entity.dto.OrderPageDto;
+import com.tjtechy.order_service.entity.dto.OrderSearchCriteria;
 import com.tjtechy.order_service.entity.dto.UpdateOrderDto;
+import com.tjtechy.order_service.idempotency.IdempotencyService;
 import com.tjtechy.order_service.mapper.OrderMapper;
 import com.tjtechy.order_service.service.OrderService;
 import com.tjtechy.Result;
 import com.tjtechy.StatusCode;
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.web.bind.annotation.*;
 import reactor.core.publisher.Mono;
 
+import java.io.IOException;
+import java.time.LocalDate;
 import java.util.List;
 
 @RestController
@@ -27,9 +38,20 @@ import java.util.List;
 public class OrderController {
   private final OrderService orderService;
   private final Meter meterRegistry;
-  public OrderController(OrderService orderService, Meter meterRegistry) {
+  private final IdempotencyService idempotencyService;
+
+  /** Page size of the order listings when none is requested, and its upper bound (the batch size of the order items). */
+  static final int DEFAULT_PAGE_SIZE = 50;
+  static final int MAX_PAGE_SIZE = 100;
+
+  private static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+  private static final String IDEMPOTENCY_KEY_DESCRIPTION = "Optional client generated key (e.g. a UUID). " +
+          "A retry with the same key and body returns the response of the first request instead of placing a second order.";
+
+  public OrderController(OrderService orderService, Meter meterRegistry, IdempotencyService idempotencyService) {
     this.orderService = orderService;
     this.meterRegistry = meterRegistry;
+    this.idempotencyService = idempotencyService;
   }
 
   /*
@@ -78,18 +100,21 @@ public class OrderController {
   responses = {@ApiResponse(responseCode = "200", description = "Order created successfully")
   })
   @PostMapping("/reactive")
-  public Mono<Result> processOrderReactively(@Valid @RequestBody CreateOrderDto createOrderDto) {
+  public Mono<Result> processOrderReactively(@Valid @RequestBody CreateOrderDto createOrderDto,
+                                             @Parameter(description = IDEMPOTENCY_KEY_DESCRIPTION)
+                                             @RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey) {
     //map from createOrderDto to Order
     var order = OrderMapper.mapFromCreateOrderDtoToOrder(createOrderDto);
 
-    //call orderService.createOrder
-    return orderService.processOrderReactively(order)
-            .map(createdOrder -> {
-              //map from Order to OrderDto
-              var orderDto = OrderMapper.mapFromOrderToOrderDto(createdOrder);
+    //call orderService.createOrder, at most once per idempotency key
+    return idempotencyService.execute("order:reactive", idempotencyKey, createOrderDto, () ->
+            orderService.processOrderReactively(order)
+                    .map(createdOrder -> {
+                      //map from Order to OrderDto
+                      var orderDto = OrderMapper.mapFromOrderToOrderDto(createdOrder);
 
-              return new Result("Order created successfully", true, orderDto, StatusCode.SUCCESS);
-            });
+                      return new Result("Order created successfully", true, orderDto, StatusCode.SUCCESS);
+                    }));
   }
 
   /**
@@ -107,7 +132,9 @@ public class OrderController {
           @ApiResponse(responseCode = "200", description = "Order created successfully by calling required external services")
   })
   @PostMapping("/reactive/externalized")
-  public Mono<Result> processOrderReactivelyByCallingExternalizedServices(@Valid @RequestBody CreateOrderDto createOrderDto) {
+  public Mono<Result> processOrderReactivelyByCallingExternalizedServices(@Valid @RequestBody CreateOrderDto createOrderDto,
+                                                                         @Parameter(description = IDEMPOTENCY_KEY_DESCRIPTION)
+                                                                         @RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey) {
     //extract productIds from createOrderDto
     createOrderDto.getOrderItems().forEach(orderItem -> {
       var productId = orderItem.getProductId().toString();
@@ -118,14 +145,15 @@ public class OrderController {
     //map from createOrderDto to Order
     var order = OrderMapper.mapFromCreateOrderDtoToOrder(createOrderDto);
 
-    //call orderService.processOrderReactivelyByCallingExternalizedServices
-    return orderService.processOrderReactivelyByCallingExternalizedServices(order)
-            .map(createdOrder -> {
-              //map from Order to OrderDto
-              var orderDto = OrderMapper.mapFromOrderToOrderDto(createdOrder);
+    //call orderService.processOrderReactivelyByCallingExternalizedServices, at most once per idempotency key
+    return idempotencyService.execute("order:reactive:externalized", idempotencyKey, createOrderDto, () ->
+            orderService.processOrderReactivelyByCallingExternalizedServices(order)
+                    .map(createdOrder -> {
+                      //map from Order to OrderDto
+                      var orderDto = OrderMapper.mapFromOrderToOrderDto(createdOrder);
 
-              return new Result("Order created successfully by calling required external services", true, orderDto, StatusCode.SUCCESS);
-            });
+                      return new Result("Order created successfully by calling required external services", true, orderDto, StatusCode.SUCCESS);
+                    }));
   }
 
   /**
@@ -168,33 +196,73 @@ public class OrderController {
    * This is the method to get all orders
    */
   @Operation(summary = "Get all orders",
-          description = "This endpoint retrieves all orders in the system.",
+          description = "This endpoint retrieves the orders in the system, newest first, one page at a time. " +
+                  "The orders can be filtered by status, customer email and order date range; " +
+                  "each page carries the cursor of the next one, null on the last page.",
   responses = {
           @ApiResponse(responseCode = "200", description = "Orders retrieved successfully")
   })
   @GetMapping
-  public Result getAllOrders() {
+  public Result getAllOrders(@RequestParam(required = false) String orderStatus,
+                             @RequestParam(required = false) String customerEmail,
+                             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fromDate,
+                             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate toDate,
+                             @RequestParam(defaultValue = "" + DEFAULT_PAGE_SIZE) int limit,
+                             @RequestParam(required = false) String cursor) {
 
-    var orderDtoList = orderService.getAllOrders();
+    var criteria = new OrderSearchCriteria(orderStatus, null, customerEmail, fromDate, toDate);
+    var orderPageDto = searchOrders(criteria, limit, cursor);
 
-    return new Result("Orders retrieved successfully", true, orderDtoList, StatusCode.SUCCESS);
+    return new Result("Orders retrieved successfully", true, orderPageDto, StatusCode.SUCCESS);
+  }
+
+  /**
+   * This is the method to export orders with their items, for reporting and data pipelines.
+   * The orders are written to the response while they are read from the database,
+   * so the export runs in constant memory whatever the number of orders.
+   */
+  @Operation(summary = "Export orders",
+          description = "This endpoint streams all orders with their items, or those placed since a date, " +
+                  "as NDJSON (one order per line) or CSV (the items of an order as a JSON array).",
+  responses = {
+          @ApiResponse(responseCode = "200", description = "Orders exported successfully")
+  })
+  @GetMapping("/export")
+  public void exportOrders(@RequestParam(defaultValue = "NDJSON") ExportFormat format,
+                           @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate since,
+                           HttpServletResponse response) throws IOException {
+    response.setContentType(format.getMediaType());
+    response.setCharacterEncoding("UTF-8");
+    response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"orders." + format.getFileExtension() + "\"");
+    try {
+      orderService.exportOrders(since, format, response.getOutputStream());
+    } catch (RuntimeException e) {
+      //nothing sent yet: drop the export headers so the error is written as a regular Result
+      if (!response.isCommitted()) {
+        response.reset();
+      }
+      throw e;
+    }
   }
 
   /**
    * This is the method to get orders by customer email
    */
   @Operation(summary = "Get orders by customer email",
-          description = "This endpoint retrieves all orders associated with a specific customer email.",
+          description = "This endpoint retrieves the orders associated with a specific customer email, newest first, one page at a time.",
   responses = {
           @ApiResponse(responseCode = "200", description = "Orders by email retrieved successfully")
   })
   @GetMapping("/customer")
-  public Result getOrdersByCustomerEmail(@RequestParam String customerEmail) {
-
-    var orderDtos = orderService.getOrdersByCustomerEmail(customerEmail);
-
+  public Result getOrdersByCustomerEmail(@RequestParam String customerEmail,
+                                         @RequestParam(defaultValue = "" + DEFAULT_PAGE_SIZE) int limit,
+                                         @RequestParam(required = false) String cursor) {
+    if (customerEmail.isBlank()) {
+      throw new IllegalArgumentException("Customer email is required");
+    }
+    var orderPageDto = searchOrders(OrderSearchCriteria.byCustomerEmail(customerEmail), limit, cursor);
 
-    return new Result("Orders by email retrieved successfully", true, orderDtos, StatusCode.SUCCESS);
+    return new Result("Orders by email retrieved successfully", true, orderPageDto, StatusCode.SUCCESS);
   }
 
   /**
@@ -217,16 +285,17 @@ public class OrderController {
    * This is the method to get all orders without canceled ones
    */
   @Operation(summary = "Get all orders without canceled ones",
-          description = "This endpoint retrieves all orders excluding those that are canceled.",
+          description = "This endpoint retrieves the orders excluding those that are canceled, newest first, one page at a time.",
   responses = {
           @ApiResponse(responseCode = "200", description = "Orders retrieved successfully without canceled ones")
   })
   @GetMapping("/without-canceled")
-  public Result getAllOrdersWithoutCanceledOnes() {
+  public Result getAllOrdersWithoutCanceledOnes(@RequestParam(defaultValue = "" + DEFAULT_PAGE_SIZE) int limit,
+                                                @RequestParam(required = false) String cursor) {
 
-    var orderDtos = orderService.getAllOrdersWithoutCancelledOnes();
+    var orderPageDto = searchOrders(OrderSearchCriteria.excludingOrderStatus("CANCELLED"), limit, cursor);
 
-    return new Result("Orders retrieved successfully", true, orderDtos, StatusCode.SUCCESS);
+    return new Result("Orders retrieved successfully", true, orderPageDto, StatusCode.SUCCESS);
   }
 
   /**
@@ -265,14 +334,19 @@ public class OrderController {
    * This is the method to get orders by status
    */
   @Operation(summary = "Get orders by status",
-          description = "This endpoint retrieves all orders with a specific status.",
+          description = "This endpoint retrieves the orders with a specific status, newest first, one page at a time.",
   responses = {
           @ApiResponse(responseCode = "200", description = "Orders by status retrieved successfully")
   })
   @GetMapping("/status")
-  public Result getOrdersByStatus(@RequestParam String orderStatus) {
-    var orderDtos = orderService.getOrdersByStatus(orderStatus);
-    return new Result("Orders by status retrieved successfully", true, orderDtos, StatusCode.SUCCESS);
+  public Result getOrdersByStatus(@RequestParam String orderStatus,
+                                  @RequestParam(defaultValue = "" + DEFAULT_PAGE_SIZE) int limit,
+                                  @RequestParam(required = false) String cursor) {
+    if (orderStatus.isBlank()) {
+      throw new IllegalArgumentException("Order status is required");
+    }
+    var orderPageDto = searchOrders(OrderSearchCriteria.byOrderStatus(orderStatus), limit, cursor);
+    return new Result("Orders by status retrieved successfully", true, orderPageDto, StatusCode.SUCCESS);
   }
 
   /**
@@ -371,4 +445,18 @@ public class OrderController {
     orderService.forcedDeleteOrder(orderId);
     return new Result("Order forced deleted successfully", true, null, StatusCode.SUCCESS);
   }
+
+  /**
+   * Reads a page of orders, starting after the cursor of the previous page.
+   */
+  private OrderPageDto searchOrders(OrderSearchCriteria criteria, int limit, String cursor) {
+    if (limit < 1 || limit > MAX_PAGE_SIZE) {
+      throw new IllegalArgumentException("The limit must be between 1 and " + MAX_PAGE_SIZE);
+    }
+    var position = cursor == null ? ScrollPosition.keyset() : OrderCursor.decode(cursor);
+    var page = orderService.searchOrders(criteria, position, limit);
+    var orders = page.getContent();
+    var nextCursor = page.hasNext() ? OrderCursor.encode(orders.getLast().orderId()) : null;
+    return new OrderPageDto(orders, nextCursor);
+  }
 }
@@ -0,0 +1,43 @@
+/*
+ * Copyright © 2025
+ * @Author = TJTechy (Tajudeen Busari)
+ * @Version = 1.0
+ * This file is part of the order-service module of the Ecommerce Microservices project.
+ */
+package com.tjtechy.order_service.controller;
+
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.ScrollPosition;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Map;
+
+/**
+ * Opaque cursor of the order listings: the id of the last order of a page, base64url encoded.
+ * Orders are listed newest first, so the next page holds the orders of lower ids,
+ * whatever was placed or deleted in between.
+ */
+final class OrderCursor {
+
+  private OrderCursor() {
+  }
+
+  static String encode(Long lastOrderId) {
+    return Base64.getUrlEncoder().withoutPadding()
+            .encodeToString(String.valueOf(lastOrderId).getBytes(StandardCharsets.UTF_8));
+  }
+
+  /**
+   * @throws IllegalArgumentException when the cursor is malformed
+   */
+  static KeysetScrollPosition decode(String cursor) {
+    try {
+      var lastOrderId = Long.valueOf(new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8));
+      return ScrollPosition.forward(Map.of("orderId", lastOrderId));
+    } catch (IllegalArgumentException e) {
+      //also the NumberFormatException of a tampered id
+      throw new IllegalArgumentException("Invalid cursor", e);
+    }
+  }
+}
@@ -9,6 +9,7 @@ package com.tjtechy.order_service.entity;
 import com.fasterxml.jackson.annotation.JsonFormat;
 import com.fasterxml.jackson.annotation.JsonManagedReference;
 import jakarta.persistence.*;
+import org.hibernate.annotations.BatchSize;
 import jakarta.validation.constraints.Pattern;
 import jakarta.validation.constraints.Size;
 
@@ -26,12 +27,17 @@ import java.util.List;
  * The one side of the relationship is Order, and the many side of the relationship is OrderItem.
  */
 @Entity
-@Table(name = "orders")
+//keyset pagination of the order listings, newest first: each index serves a filter with the order id as sort key
+@Table(name = "orders", indexes = {
+        @Index(name = "idx_orders_customer_email", columnList = "customerEmail, orderId"),
+        @Index(name = "idx_orders_status", columnList = "orderStatus, orderId"),
+        @Index(name = "idx_orders_date", columnList = "orderDate, orderId")
+})
 public class Order implements Serializable {
 
 
     @Id
-    @GeneratedValue(strategy = GenerationType.AUTO)
+    @GeneratedValue(strategy = GenerationType.IDENTITY) //identity column, so rows inserted through R2DBC get an id too
     private Long orderId;
 
     @Column(nullable = false)
@@ -83,7 +89,10 @@ public class Order implements Serializable {
      * the relationship between Order and OrderItem to prevent infinite recursion.
      */
     //@OneToMany(cascade = CascadeType.ALL, fetch = FetchType.LAZY, mappedBy = "order")
-    @OneToMany(cascade = CascadeType.ALL, fetch = FetchType.EAGER, mappedBy = "order", orphanRemoval = true)
+    //lazy: the listings read summaries and never touch the items, a full order is loaded with them in
+    //one query through the entity graphs of OrderRepository
+    @OneToMany(cascade = CascadeType.ALL, fetch = FetchType.LAZY, mappedBy = "order", orphanRemoval = true)
+    @BatchSize(size = 100) //items read from orders loaded without the graph come in one query per 100 orders, not per order
     @JsonManagedReference //Manages the relationship between Order and OrderItem to prevent infinite recursion
     private List<OrderItem> orderItems = new ArrayList<>();
 
@@ -17,11 +17,12 @@ import java.util.UUID;
  * This class establishes the relationship between the Order and Product entities.
  */
 @Entity
-@Table(name = "order_items")
+//the items of an order are read by order id, which PostgreSQL does not index for the foreign key
+@Table(name = "order_items", indexes = @Index(name = "idx_order_items_order_id", columnList = "order_id"))
 public class OrderItem implements Serializable {
 
   @Id
-  @GeneratedValue(strategy = GenerationType.AUTO)
+  @GeneratedValue(strategy = GenerationType.IDENTITY) //identity column, so rows inserted through R2DBC get an id too
   private Long orderItemId;
 
   @Column(nullable = false)
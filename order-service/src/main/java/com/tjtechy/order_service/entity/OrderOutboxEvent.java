@@ -0,0 +1,98 @@
+/*
+ * Copyright © 2025
+ * @Author = TJTechy (Tajudeen Busari)
+ * @Version = 1.0
+ * This file is part of the order-service module of the Ecommerce Microservices project.
+ */
+package com.tjtechy.order_service.entity;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * An order event waiting to be published to Kafka (transactional outbox).
+ * <p>
+ *   The row is written in the same transaction as the order change it describes, so an event exists
+ *   if and only if the change was committed. {@code OrderOutboxRelay} publishes the rows in id order
+ *   and deletes them once Kafka acknowledged them.
+ * </p>
+ */
+@Entity
+@Table(name = "order_outbox")
+public class OrderOutboxEvent {
+
+  @Id
+  @GeneratedValue(strategy = GenerationType.IDENTITY) //identity column, so rows inserted through R2DBC get an id too
+  private Long id;
+
+  /** The order the event is about, used as the Kafka record key so events of one order stay in order. */
+  @Column(nullable = false)
+  private Long aggregateId;
+
+  @Column(nullable = false)
+  private String topic;
+
+  /** Fully qualified class name of the event, used to rebuild it from the payload. */
+  @Column(nullable = false)
+  private String eventType;
+
+  @Column(nullable = false, columnDefinition = "TEXT")
+  private String payload;
+
+  @Column(nullable = false)
+  private LocalDateTime createdAt;
+
+  public OrderOutboxEvent() {
+  }
+
+  public OrderOutboxEvent(Long aggregateId, String topic, String eventType, String payload) {
+    this.aggregateId = aggregateId;
+    this.topic = topic;
+    this.eventType = eventType;
+    this.payload = payload;
+    this.createdAt = LocalDateTime.now();
+  }
+
+  public Long getId() {
+    return id;
+  }
+  public void setId(Long id) {
+    this.id = id;
+  }
+
+  public Long getAggregateId() {
+    return aggregateId;
+  }
+  public void setAggregateId(Long aggregateId) {
+    this.aggregateId = aggregateId;
+  }
+
+  public String getTopic() {
+    return topic;
+  }
+  public void setTopic(String topic) {
+    this.topic = topic;
+  }
+
+  public String getEventType() {
+    return eventType;
+  }
+  public void setEventType(String eventType) {
+    this.eventType = eventType;
+  }
+
+  public String getPayload() {
+    return payload;
+  }
+  public void setPayload(String payload) {
+    this.payload = payload;
+  }
+
+  public LocalDateTime getCreatedAt() {
+    return createdAt;
+  }
+  public void setCreatedAt(LocalDateTime createdAt) {
+    this.createdAt = createdAt;
+  }
+}
@@ -0,0 +1,22 @@
+/*
+ * Copyright © 2025
+ * @Author = TJTechy (Tajudeen Busari)
+ * @Version = 1.0
+ * This file is part of the order-service module of the Ecommerce Microservices project.
+ */
+package com.tjtechy.order_service.entity.dto;
+
+import java.util.List;
+
+/**
+ * A page of an order listing, newest orders first.
+ *
+ * @param orders the summaries of the orders of the page
+ * @param nextCursor the cursor of the next page, null on the last page
+ */
+public record OrderPageDto(
+        List<OrderSummaryDto> orders,
+        String nextCursor
+) {
+
+}
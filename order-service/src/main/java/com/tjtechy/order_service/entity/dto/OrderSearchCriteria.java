@@ -0,0 +1,39 @@
+/*
+ * Copyright © 2025
+ * @Author = TJTechy (Tajudeen Busari)
+ * @Version = 1.0
+ * This file is part of the order-service module of the Ecommerce Microservices project.
+ */
+package com.tjtechy.order_service.entity.dto;
+
+import java.time.LocalDate;
+
+/**
+ * Filters of the paginated order search, each one optional (null for no filter).
+ *
+ * @param orderStatus the status of the orders, e.g. PLACED
+ * @param excludedOrderStatus a status the orders must not have, e.g. CANCELLED
+ * @param customerEmail the email of the customer who placed the orders
+ * @param fromDate the first order date, inclusive
+ * @param toDate the last order date, inclusive
+ */
+public record OrderSearchCriteria(
+        String orderStatus,
+        String excludedOrderStatus,
+        String customerEmail,
+        LocalDate fromDate,
+        LocalDate toDate
+) {
+
+  public static OrderSearchCriteria byCustomerEmail(String customerEmail) {
+    return new OrderSearchCriteria(null, null, customerEmail, null, null);
+  }
+
+  public static OrderSearchCriteria byOrderStatus(String orderStatus) {
+    return new OrderSearchCriteria(orderStatus, null, null, null, null);
+  }
+
+  public static OrderSearchCriteria excludingOrderStatus(String excludedOrderStatus) {
+    return new OrderSearchCriteria(null, excludedOrderStatus, null, null, null);
+  }
+}
@@ -0,0 +1,36 @@
+/*
+ * Copyright © 2025
+ * @Author = TJTechy (Tajudeen Busari)
+ * @Version = 1.0
+ * This file is part of the order-service module of the Ecommerce Microservices project.
+ */
+package com.tjtechy.order_service.entity.dto;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * An order as shown in the order listings: its columns without the items,
+ * selected as is by the listing queries so the items are never loaded for a page.
+ * The full order is read through the order id.
+ *
+ * @param orderId the order id
+ * @param customerName the customer name
+ * @param customerEmail the customer email
+ * @param totalAmount the total amount of the order
+ * @param orderDate the date the order was placed
+ * @param orderStatus the order status (e.g. PLACED, SHIPPED, DELIVERED, CANCELED)
+ */
+public record OrderSummaryDto(
+        Long orderId,
+        String customerName,
+        String customerEmail,
+        BigDecimal totalAmount,
+        @JsonFormat(pattern = "yyyy-MM-dd")
+        LocalDate orderDate,
+        String orderStatus
+) {
+
+}
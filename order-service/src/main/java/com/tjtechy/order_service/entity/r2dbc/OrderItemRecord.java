@@ -0,0 +1,92 @@
+/*
+ * Copyright © 2025
+ * @Author = TJTechy (Tajudeen Busari)
+ * @Version = 1.0
+ * This file is part of the order-service module of the Ecommerce Microservices project.
+ */
+package com.tjtechy.order_service.entity.r2dbc;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.relational.core.mapping.Column;
+import org.springframework.data.relational.core.mapping.Table;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+/**
+ * R2DBC view of a row of the "order_items" table.
+ * R2DBC has no relationships, so the order is referenced by its id only.
+ */
+@Table("order_items")
+public class OrderItemRecord {
+
+  @Id
+  @Column("order_item_id")
+  private Long orderItemId;
+
+  @Column("order_id")
+  private Long orderId;
+
+  @Column("product_id")
+  private UUID productId;
+
+  @Column("product_name")
+  private String productName;
+
+  @Column("product_price")
+  private BigDecimal productPrice;
+
+  @Column("product_quantity")
+  private Integer productQuantity;
+
+  public OrderItemRecord() {
+  }
+
+  public Long getOrderItemId() {
+    return orderItemId;
+  }
+
+  public void setOrderItemId(Long orderItemId) {
+    this.orderItemId = orderItemId;
+  }
+
+  public Long getOrderId() {
+    return orderId;
+  }
+
+  public void setOrderId(Long orderId) {
+    this.orderId = orderId;
+  }
+
+  public UUID getProductId() {
+    return productId;
+  }
+
+  public void setProductId(UUID productId) {
+    this.productId = productId;
+  }
+
+  public String getProductName() {
+    return productName;
+  }
+
+  public void setProductName(String productName) {
+    this.productName = productName;
+  }
+
+  public BigDecimal getProductPrice() {
+    return productPrice;
+  }
+
+  public void setProductPrice(BigDecimal productPrice) {
+    this.productPrice = productPrice;
+  }
+
+  public Integer getProductQuantity() {
+    return productQuantity;
+  }
+
+  public void setProductQuantity(Integer productQuantity) {
+    this.productQuantity = productQuantity;
+  }
+}
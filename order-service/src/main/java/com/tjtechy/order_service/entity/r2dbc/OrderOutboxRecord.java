@@ -0,0 +1,91 @@
+/*
+ * Copyright © 2025
+ * @Author = TJTechy (Tajudeen Busari)
+ * @Version = 1.0
+ * This file is part of the order-service module of the Ecommerce Microservices project.
+ */
+package com.tjtechy.order_service.entity.r2dbc;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.relational.core.mapping.Column;
+import org.springframework.data.relational.core.mapping.Table;
+
+import java.time.LocalDateTime;
+
+/**
+ * R2DBC view of a row of the "order_outbox" table, written by the reactive order endpoints
+ * in the same transaction as the order.
+ */
+@Table("order_outbox")
+public class OrderOutboxRecord {
+
+  @Id
+  @Column("id")
+  private Long id;
+
+  @Column("aggregate_id")
+  private Long aggregateId;
+
+  @Column("topic")
+  private String topic;
+
+  @Column("event_type")
+  private String eventType;
+
+  @Column("payload")
+  private String payload;
+
+  @Column("created_at")
+  private LocalDateTime createdAt;
+
+  public OrderOutboxRecord() {
+  }
+
+  public Long getId() {
+    return id;
+  }
+
+  public void setId(Long id) {
+    this.id = id;
+  }
+
+  public Long getAggregateId() {
+    return aggregateId;
+  }
+
+  public void setAggregateId(Long aggregateId) {
+    this.aggregateId = aggregateId;
+  }
+
+  public String getTopic() {
+    return topic;
+  }
+
+  public void setTopic(String topic) {
+    this.topic = topic;
+  }
+
+  public String getEventType() {
+    return eventType;
+  }
+
+  public void setEventType(String eventType) {
+    this.eventType = eventType;
+  }
+
+  public String getPayload() {
+    return payload;
+  }
+
+  public void setPayload(String payload) {
+    this.payload = payload;
+  }
+
+  public LocalDateTime getCreatedAt() {
+    return createdAt;
+  }
+
+  public void setCreatedAt(LocalDateTime createdAt) {
+    this.createdAt = createdAt;
+  }
+}
@@ -0,0 +1,119 @@
+/*
+ * Copyright © 2025
+ * @Author = TJTechy (Tajudeen Busari)
+ * @Version = 1.0
+ * This file is part of the order-service module of the Ecommerce Microservices project.
+ */
+package com.tjtechy.order_service.entity.r2dbc;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.relational.core.mapping.Column;
+import org.springframework.data.relational.core.mapping.Table;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * R2DBC view of a row of the "orders" table, used by the reactive order endpoints.
+ * <p>
+ *   The {@link com.tjtechy.order_service.entity.Order} JPA entity stays the domain object of the service;
+ *   this class only carries the columns so that orders can be written without blocking a thread.
+ *   Like the user entity of the user-service, it has no JPA annotations: no @Entity, no @GeneratedValue
+ *   and no lifecycle callbacks. The id is generated by the identity column of the table.
+ * </p>
+ */
+@Table("orders")
+public class OrderRecord {
+
+  @Id
+  @Column("order_id")
+  private Long orderId;
+
+  @Column("customer_name")
+  private String customerName;
+
+  @Column("customer_email")
+  private String customerEmail;
+
+  @Column("customer_phone")
+  private String customerPhone;
+
+  @Column("shipping_address")
+  private String shippingAddress;
+
+  @Column("total_amount")
+  private BigDecimal totalAmount;
+
+  @Column("order_date")
+  private LocalDate orderDate;
+
+  @Column("order_status")
+  private String orderStatus;
+
+  public OrderRecord() {
+  }
+
+  public Long getOrderId() {
+    return orderId;
+  }
+
+  public void setOrderId(Long orderId) {
+    this.orderId = orderId;
+  }
+
+  public String getCustomerName() {
+    return customerName;
+  }
+
+  public void setCustomerName(String customerName) {
+    this.customerName = customerName;
+  }
+
+  public String getCustomerEmail() {
+    return customerEmail;
+  }
+
+  public void setCustomerEmail(String customerEmail) {
+    this.customerEmail = customerEmail;
+  }
+
+  public String getCustomerPhone() {
+    return customerPhone;
+  }
+
+  public void setCustomerPhone(String customerPhone) {
+    this.customerPhone = customerPhone;
+  }
+
+  public String getShippingAddress() {
+    return shippingAddress;
+  }
+
+  public void setShippingAddress(String shippingAddress) {
+    this.shippingAddress = shippingAddress;
+  }
+
+  public BigDecimal getTotalAmount() {
+    return totalAmount;
+  }
+
+  public void setTotalAmount(BigDecimal totalAmount) {
+    this.totalAmount = totalAmount;
+  }
+
+  public LocalDate getOrderDate() {
+    return orderDate;
+  }
+
+  public void setOrderDate(LocalDate orderDate) {
+    this.orderDate = orderDate;
+  }
+
+  public String getOrderStatus() {
+    return orderStatus;
+  }
+
+  public void setOrderStatus(String orderStatus) {
+    this.orderStatus = orderStatus;
+  }
+}
@@ -10,7 +10,10 @@ package com.tjtechy.order_service.exception;
 import com.tjtechy.businessException.InsufficientStockQuantityException;
 import com.tjtechy.Result;
 import com.tjtechy.StatusCode;
+import com.tjtechy.businessException.IdempotencyKeyReusedException;
+import com.tjtechy.businessException.IdempotentRequestInProgressException;
 import com.tjtechy.businessException.OrderAlreadyCancelledException;
+import com.tjtechy.businessException.RemoteServiceUnavailableException;
 import com.tjtechy.modelNotFoundException.OrderNotFoundException;
 import com.tjtechy.modelNotFoundException.ProductNotFoundException;
 import org.springframework.http.HttpStatus;
@@ -20,6 +23,7 @@ import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.method.annotation.MethodArgumentTypeMismatchException;
 
 import java.util.HashMap;
 import java.util.List;
@@ -75,6 +79,16 @@ public class ExceptionHandlingAdvice {
     return new Result(e.getMessage(), false, StatusCode.BAD_REQUEST);
   }
 
+  /**
+   * Handles exceptions of type {@link MethodArgumentTypeMismatchException}, thrown for request parameters
+   * that cannot be converted, e.g. a malformed date of the order search.
+   */
+  @ExceptionHandler(MethodArgumentTypeMismatchException.class)
+  @ResponseStatus(HttpStatus.BAD_REQUEST)
+  public Result handleMethodArgumentTypeMismatchException(MethodArgumentTypeMismatchException e) {
+    return new Result("Invalid value of the " + e.getName() + " parameter", false, StatusCode.BAD_REQUEST);
+  }
+
 
   /**
    * Handles exceptions of type {@link MethodArgumentNotValidException}.
@@ -126,6 +140,35 @@ public class ExceptionHandlingAdvice {
     return new Result(e.getMessage(), false, StatusCode.CONFLICT);
   }
 
+  /**
+   * Handles exceptions of type {@link IdempotencyKeyReusedException}.
+   * An Idempotency-Key was sent again with a different request body, the request is rejected with HTTP 422.
+   */
+  @ExceptionHandler(IdempotencyKeyReusedException.class)
+  @ResponseStatus(HttpStatus.UNPROCESSABLE_CONTENT)
+  public Result handleIdempotencyKeyReusedException(IdempotencyKeyReusedException e) {
+    return new Result(e.getMessage(), false, StatusCode.UNPROCESSABLE_ENTITY);
+  }
+
+  /**
+   * Handles exceptions of type {@link IdempotentRequestInProgressException}.
+   * The first request with the same Idempotency-Key is still running on another instance, HTTP 409 tells the client to retry later.
+   */
+  @ExceptionHandler(IdempotentRequestInProgressException.class)
+  @ResponseStatus(HttpStatus.CONFLICT)
+  public Result handleIdempotentRequestInProgressException(IdempotentRequestInProgressException e) {
+    return new Result(e.getMessage(), false, StatusCode.CONFLICT);
+  }
+
+  /**
+   * Handles exceptions of type {@link RemoteServiceUnavailableException}.
+   * A service this one depends on is refused by its circuit breaker or bulkhead, or missed its deadline: HTTP 503.
+   */
+  @ExceptionHandler(RemoteServiceUnavailableException.class)
+  @ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+  public Result handleRemoteServiceUnavailableException(RemoteServiceUnavailableException e) {
+    return new Result(e.getMessage(), false, StatusCode.SERVICE_UNAVAILABLE);
+  }
 
   /**
    * Handles all other exceptions that are not explicitly handled by other methods.
@@ -0,0 +1,75 @@
+/*
+ * Copyright © 2025
+ * @Author = TJTechy (Tajudeen Busari)
+ * @Version = 1.0
+ * This file is part of the order-service module of the EcommerceMicroservices project.
+ */
+
+package com.tjtechy.order_service.idempotency;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.function.Function;
+
+/**
+ * {@link IdempotencyStore} that uses the primary store (Redis) and switches to the fallback (in-process)
+ * store when the primary fails. The primary is skipped for {@code retryAfter} before it is tried again,
+ * so an outage does not add a connection timeout to every order.
+ */
+public class FailoverIdempotencyStore implements IdempotencyStore {
+
+  private static final Logger logger = LoggerFactory.getLogger(FailoverIdempotencyStore.class);
+
+  private final IdempotencyStore primary;
+
+  private final IdempotencyStore fallback;
+
+  private final long retryAfterNanos;
+
+  private volatile long primaryDownUntilNanos = System.nanoTime();
+
+  public FailoverIdempotencyStore(IdempotencyStore primary, IdempotencyStore fallback, Duration retryAfter) {
+    this.primary = primary;
+    this.fallback = fallback;
+    this.retryAfterNanos = retryAfter.toNanos();
+  }
+
+  @Override
+  public Mono<Boolean> tryStart(String key, String requestHash, Duration inProgressTtl) {
+    return withFailover(store -> store.tryStart(key, requestHash, inProgressTtl));
+  }
+
+  @Override
+  public Mono<IdempotencyRecord> find(String key) {
+    return withFailover(store -> store.find(key));
+  }
+
+  @Override
+  public Mono<Void> complete(String key, IdempotencyRecord record, Duration ttl) {
+    return withFailover(store -> store.complete(key, record, ttl));
+  }
+
+  @Override
+  public Mono<Void> release(String key) {
+    return withFailover(store -> store.release(key));
+  }
+
+  private <T> Mono<T> withFailover(Function<IdempotencyStore, Mono<T>> operation) {
+    return Mono.defer(() -> {
+      if (System.nanoTime() - primaryDownUntilNanos < 0) {
+        return operation.apply(fallback);
+      }
+      return operation.apply(primary)
+              .onErrorResume(DataAccessException.class, e -> {
+                primaryDownUntilNanos = System.nanoTime() + retryAfterNanos;
+                logger.warn("Idempotency store unavailable, using the in-process store for {} ms: {}",
+                        retryAfterNanos / 1_000_000, e.getMessage());
+                return operation.apply(fallback);
+              });
+    });
+  }
+}
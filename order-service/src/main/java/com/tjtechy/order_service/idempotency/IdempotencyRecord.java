@@ -0,0 +1,29 @@
+/*
+ * Copyright © 2025
+ * @Author = TJTechy (Tajudeen Busari)
+ * @Version = 1.0
+ * This file is part of the order-service module of the EcommerceMicroservices project.
+ */
+
+package com.tjtechy.order_service.idempotency;
+
+/**
+ * What is stored for an Idempotency-Key.
+ * @param requestHash SHA-256 of the request body the key was first used with
+ * @param completed false while the first request is still running
+ * @param response the serialized response of the first request, null until it completed
+ */
+public record IdempotencyRecord(
+        String requestHash,
+        boolean completed,
+        String response
+) {
+
+  public static IdempotencyRecord inProgress(String requestHash) {
+    return new IdempotencyRecord(requestHash, false, null);
+  }
+
+  public static IdempotencyRecord completed(String requestHash, String response) {
+    return new IdempotencyRecord(requestHash, true, response);
+  }
+}
@@ -0,0 +1,141 @@
+/*
+ * Copyright © 2025
+ * @Author = TJTechy (Tajudeen Busari)
+ * @Version = 1.0
+ * This file is part of the order-service module of the EcommerceMicroservices project.
+ */
+
+package com.tjtechy.order_service.idempotency;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.tjtechy.Result;
+import com.tjtechy.businessException.IdempotencyKeyReusedException;
+import com.tjtechy.businessException.IdempotentRequestInProgressException;
+import com.tjtechy.order_service.config.IdempotencyProperties;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Runs a request at most once per Idempotency-Key.
+ * <p>
+ *   The first request with a key claims it in the {@link IdempotencyStore}, runs, and stores its response.
+ *   A retry with the same key and body gets the stored response back without running again.
+ *   Concurrent duplicates on this instance subscribe to the execution that is already running;
+ *   duplicates on other instances poll the store until the first request completed.
+ *   A request that fails releases its key, so it can be retried.
+ * </p>
+ * Requests without a key run as before.
+ */
+@Service
+public class IdempotencyService {
+
+  private static final int MAX_KEY_LENGTH = 255;
+
+  private static final Duration POLL_INTERVAL = Duration.ofMillis(100);
+
+  private final IdempotencyStore store;
+
+  private final IdempotencyProperties properties;
+
+  private final ObjectMapper objectMapper = new ObjectMapper()
+          .registerModule(new JavaTimeModule())
+          .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+  private final Map<String, InFlight> inFlight = new ConcurrentHashMap<>();
+
+  public IdempotencyService(IdempotencyStore store, IdempotencyProperties properties) {
+    this.store = store;
+    this.properties = properties;
+  }
+
+  /**
+   * @param scope separates the keys of different endpoints, e.g. "order:reactive"
+   * @param idempotencyKey the Idempotency-Key header, may be null
+   * @param request the request body, used to detect a key reused for a different request
+   * @param action the actual request processing
+   */
+  public Mono<Result> execute(String scope, String idempotencyKey, Object request, Supplier<Mono<Result>> action) {
+    if (idempotencyKey == null || idempotencyKey.isBlank()) {
+      return Mono.defer(action);
+    }
+    if (idempotencyKey.length() > MAX_KEY_LENGTH) {
+      return Mono.error(new IllegalArgumentException("Idempotency-Key must not be longer than " + MAX_KEY_LENGTH + " characters"));
+    }
+    return Mono.defer(() -> {
+      var key = scope + ":" + idempotencyKey;
+      var requestHash = hash(request);
+      var current = inFlight.computeIfAbsent(key, k -> new InFlight(requestHash,
+              claimOrReplay(k, idempotencyKey, requestHash, action, System.nanoTime() + properties.getWaitTimeout().toNanos())
+                      //only this execution can be mapped to the key until it terminates, so removing by key is safe
+                      .doFinally(signal -> inFlight.remove(k))
+                      .cache()));
+      if (!current.requestHash().equals(requestHash)) {
+        return Mono.error(new IdempotencyKeyReusedException(idempotencyKey));
+      }
+      return current.result();
+    });
+  }
+
+  private Mono<Result> claimOrReplay(String key, String idempotencyKey, String requestHash,
+                                     Supplier<Mono<Result>> action, long deadlineNanos) {
+    return store.tryStart(key, requestHash, properties.getInProgressTtl())
+            .flatMap(claimed -> claimed
+                    ? runAndStore(key, requestHash, action)
+                    : awaitCompletion(key, idempotencyKey, requestHash, action, deadlineNanos));
+  }
+
+  private Mono<Result> runAndStore(String key, String requestHash, Supplier<Mono<Result>> action) {
+    return Mono.defer(action)
+            .flatMap(result -> Mono.fromCallable(() -> objectMapper.writeValueAsString(result))
+                    .flatMap(response -> store.complete(key, IdempotencyRecord.completed(requestHash, response), properties.getTtl()))
+                    .thenReturn(result))
+            .onErrorResume(e -> store.release(key)
+                    .onErrorResume(releaseError -> Mono.empty())
+                    .then(Mono.error(e)));
+  }
+
+  private Mono<Result> awaitCompletion(String key, String idempotencyKey, String requestHash,
+                                       Supplier<Mono<Result>> action, long deadlineNanos) {
+    return store.find(key)
+            .flatMap(record -> {
+              if (!record.requestHash().equals(requestHash)) {
+                return Mono.<Result>error(new IdempotencyKeyReusedException(idempotencyKey));
+              }
+              if (record.completed()) {
+                return Mono.fromCallable(() -> objectMapper.readValue(record.response(), Result.class));
+              }
+              if (System.nanoTime() - deadlineNanos > 0) {
+                return Mono.<Result>error(new IdempotentRequestInProgressException(idempotencyKey));
+              }
+              return Mono.delay(POLL_INTERVAL)
+                      .then(Mono.defer(() -> awaitCompletion(key, idempotencyKey, requestHash, action, deadlineNanos)));
+            })
+            //the first request failed and released the key (or it expired) in the meantime: try to claim it again
+            .switchIfEmpty(Mono.defer(() -> System.nanoTime() - deadlineNanos > 0
+                    ? Mono.error(new IdempotentRequestInProgressException(idempotencyKey))
+                    : claimOrReplay(key, idempotencyKey, requestHash, action, deadlineNanos)));
+  }
+
+  private String hash(Object request) {
+    try {
+      var digest = MessageDigest.getInstance("SHA-256").digest(objectMapper.writeValueAsBytes(request));
+      return HexFormat.of().formatHex(digest);
+    } catch (JsonProcessingException | NoSuchAlgorithmException e) {
+      throw new IllegalStateException("Could not hash the request for its idempotency key", e);
+    }
+  }
+
+  private record InFlight(String requestHash, Mono<Result> result) {
+  }
+}
@@ -0,0 +1,39 @@
+/*
+ * Copyright © 2025
+ * @Author = TJTechy (Tajudeen Busari)
+ * @Version = 1.0
+ * This file is part of the order-service module of the EcommerceMicroservices project.
+ */
+
+package com.tjtechy.order_service.idempotency;
+
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+
+/**
+ * Bounded, TTL-evicted storage of Idempotency-Keys and the responses of their first request.
+ */
+public interface IdempotencyStore {
+
+  /**
+   * Claims the key for a new request.
+   * @return true when the key was free, false when another request holds it or already completed with it
+   */
+  Mono<Boolean> tryStart(String key, String requestHash, Duration inProgressTtl);
+
+  /**
+   * @return the record of the key, empty when the key is unknown or expired
+   */
+  Mono<IdempotencyRecord> find(String key);
+
+  /**
+   * Stores the response of the request that claimed the key, replacing its in-progress record.
+   */
+  Mono<Void> complete(String key, IdempotencyRecord record, Duration ttl);
+
+  /**
+   * Frees the key after its request failed, so the client can retry it.
+   */
+  Mono<Void> release(String key);
+}
@@ -0,0 +1,74 @@
+/*
+ * Copyright © 2025
+ * @Author = TJTechy (Tajudeen Busari)
+ * @Version = 1.0
+ * This file is part of the order-service module of the EcommerceMicroservices project.
+ */
+
+package com.tjtechy.order_service.idempotency;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+
+/**
+ * In-process {@link IdempotencyStore}, used when Redis is disabled or unreachable.
+ * <p>
+ *   Keys are only deduplicated within this instance. The Guava cache bounds the number of keys and drops
+ *   them after the longest TTL; shorter TTLs (in-progress records) are checked on read.
+ * </p>
+ */
+public class InMemoryIdempotencyStore implements IdempotencyStore {
+
+  private final Cache<String, Entry> cache;
+
+  public InMemoryIdempotencyStore(long maxEntries, Duration maxTtl) {
+    this.cache = CacheBuilder.newBuilder()
+            .maximumSize(maxEntries)
+            .expireAfterWrite(maxTtl)
+            .build();
+  }
+
+  @Override
+  public Mono<Boolean> tryStart(String key, String requestHash, Duration inProgressTtl) {
+    return Mono.fromSupplier(() -> {
+      var claim = new Entry(IdempotencyRecord.inProgress(requestHash), expiresAt(inProgressTtl));
+      var existing = cache.asMap().putIfAbsent(key, claim);
+      if (existing == null) {
+        return true;
+      }
+      //an expired entry still sitting in the cache does not hold the key
+      return existing.isExpired() && cache.asMap().replace(key, existing, claim);
+    });
+  }
+
+  @Override
+  public Mono<IdempotencyRecord> find(String key) {
+    return Mono.fromSupplier(() -> {
+      var entry = cache.getIfPresent(key);
+      return entry == null || entry.isExpired() ? null : entry.record();
+    });
+  }
+
+  @Override
+  public Mono<Void> complete(String key, IdempotencyRecord record, Duration ttl) {
+    return Mono.fromRunnable(() -> cache.put(key, new Entry(record, expiresAt(ttl))));
+  }
+
+  @Override
+  public Mono<Void> release(String key) {
+    return Mono.fromRunnable(() -> cache.invalidate(key));
+  }
+
+  private static long expiresAt(Duration ttl) {
+    return System.nanoTime() + ttl.toNanos();
+  }
+
+  private record Entry(IdempotencyRecord record, long expiresAtNanos) {
+    boolean isExpired() {
+      return System.nanoTime() - expiresAtNanos > 0;
+    }
+  }
+}
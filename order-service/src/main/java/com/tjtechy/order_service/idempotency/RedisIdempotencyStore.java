@@ -0,0 +1,60 @@
+/*
+ * Copyright © 2025
+ * @Author = TJTechy (Tajudeen Busari)
+ * @Version = 1.0
+ * This file is part of the order-service module of the EcommerceMicroservices project.
+ */
+
+package com.tjtechy.order_service.idempotency;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+
+/**
+ * {@link IdempotencyStore} backed by Redis, shared by all order-service instances.
+ * The key is claimed with SET NX and every record carries its own expiry, so Redis evicts keys on its own.
+ */
+public class RedisIdempotencyStore implements IdempotencyStore {
+
+  private static final String KEY_PREFIX = "idempotency:";
+
+  private final ReactiveStringRedisTemplate redisTemplate;
+
+  private final ObjectMapper objectMapper = new ObjectMapper();
+
+  public RedisIdempotencyStore(ReactiveStringRedisTemplate redisTemplate) {
+    this.redisTemplate = redisTemplate;
+  }
+
+  @Override
+  public Mono<Boolean> tryStart(String key, String requestHash, Duration inProgressTtl) {
+    return Mono.fromCallable(() -> write(IdempotencyRecord.inProgress(requestHash)))
+            .flatMap(value -> redisTemplate.opsForValue().setIfAbsent(KEY_PREFIX + key, value, inProgressTtl));
+  }
+
+  @Override
+  public Mono<IdempotencyRecord> find(String key) {
+    return redisTemplate.opsForValue().get(KEY_PREFIX + key)
+            .flatMap(value -> Mono.fromCallable(() -> objectMapper.readValue(value, IdempotencyRecord.class)));
+  }
+
+  @Override
+  public Mono<Void> complete(String key, IdempotencyRecord record, Duration ttl) {
+    return Mono.fromCallable(() -> write(record))
+            .flatMap(value -> redisTemplate.opsForValue().set(KEY_PREFIX + key, value, ttl))
+            .then();
+  }
+
+  @Override
+  public Mono<Void> release(String key) {
+    return redisTemplate.delete(KEY_PREFIX + key).then();
+  }
+
+  private String write(IdempotencyRecord record) throws JsonProcessingException {
+    return objectMapper.writeValueAsString(record);
+  }
+}
@@ -6,21 +6,46 @@
  */
 package com.tjtechy.order_service.kafka;
 
+import com.tjtechy.order_service.config.OrderOutboxProperties;
 import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.kafka.core.DefaultKafkaProducerFactory;
 import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.serializer.JacksonJsonSerializer;
 
+import java.util.HashMap;
 import java.util.Map;
 
+/**
+ * Producer used by {@link OrderOutboxRelay}.
+ * <p>
+ *   The relay hands a whole batch to the producer at once, so records wait up to linger.ms to share a request
+ *   instead of being flushed one by one. The producer is idempotent (acks=all, at most 5 requests in flight),
+ *   so its retries neither duplicate nor reorder the records of a partition.
+ * </p>
+ */
 @Configuration
 public class KafkaTemplateConfig {
 
   @Bean
-  public KafkaTemplate<String, Object> kafkaTemplate() {
-    return new KafkaTemplate<>(new DefaultKafkaProducerFactory<>(Map.of(
-            ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, "localhost:9092"
-    )));
+  public KafkaTemplate<String, Object> kafkaTemplate(
+          @Value("${spring.kafka.bootstrap-servers:localhost:9092}") String bootstrapServers,
+          OrderOutboxProperties orderOutboxProperties) {
+    Map<String, Object> configs = new HashMap<>();
+    configs.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+    configs.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+    configs.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, JacksonJsonSerializer.class);
+    configs.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, true);
+    configs.put(ProducerConfig.ACKS_CONFIG, "all");
+    configs.put(ProducerConfig.MAX_IN_FLIGHT_REQUESTS_PER_CONNECTION, 5);
+    configs.put(ProducerConfig.LINGER_MS_CONFIG, orderOutboxProperties.getLingerMs());
+    configs.put(ProducerConfig.BATCH_SIZE_CONFIG, orderOutboxProperties.getBatchSizeBytes());
+    configs.put(ProducerConfig.COMPRESSION_TYPE_CONFIG, "lz4");
+    //fail fast when the broker is unreachable, the events stay in the outbox and are retried on the next run
+    configs.put(ProducerConfig.MAX_BLOCK_MS_CONFIG, 10_000);
+    return new KafkaTemplate<>(new DefaultKafkaProducerFactory<>(configs));
   }
 }
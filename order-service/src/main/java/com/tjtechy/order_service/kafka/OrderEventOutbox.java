@@ -0,0 +1,89 @@
+/*
+ * Copyright © 2025
+ * @Author = TJTechy (Tajudeen Busari)
+ * @Version = 1.0
+ * This file is part of order-service module of the Ecommerce Microservices project.
+ */
+
+package com.tjtechy.order_service.kafka;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.tjtechy.events.orderEvent.OrderCancelledEvent;
+import com.tjtechy.events.orderEvent.OrderDeletedEvent;
+import com.tjtechy.events.orderEvent.OrderPlacedEvent;
+import com.tjtechy.events.orderEvent.OrderUpdatedEvent;
+import com.tjtechy.order_service.config.KafkaTopicsProperties;
+import com.tjtechy.order_service.entity.OrderOutboxEvent;
+import com.tjtechy.order_service.repository.OrderOutboxRepository;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Records order events in the "order_outbox" table instead of sending them to Kafka from the request.
+ * <p>
+ *   The event row is written in the transaction of the order change, so an event is published if and only if
+ *   the change was committed, and the request never waits on the broker. {@link OrderOutboxRelay} publishes the rows.
+ *   <ul>
+ *     <li>the blocking endpoints call the append methods inside their JPA transaction;</li>
+ *     <li>the reactive endpoints pass the entry built by the newXxxEntry methods to
+ *     {@link com.tjtechy.order_service.repository.ReactiveOrderStore}, which saves it in its R2DBC transaction.</li>
+ *   </ul>
+ * </p>
+ */
+@Component
+public class OrderEventOutbox {
+
+  private final OrderOutboxRepository orderOutboxRepository;
+  private final KafkaTopicsProperties kafkaTopicsProperties;
+
+  private final ObjectMapper objectMapper = new ObjectMapper()
+          .registerModule(new JavaTimeModule())
+          .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+  public OrderEventOutbox(OrderOutboxRepository orderOutboxRepository, KafkaTopicsProperties kafkaTopicsProperties) {
+    this.orderOutboxRepository = orderOutboxRepository;
+    this.kafkaTopicsProperties = kafkaTopicsProperties;
+  }
+
+  /**
+   * Builds the outbox entry of an OrderPlacedEvent, to be saved with the new order.
+   */
+  public OrderOutboxEvent newOrderPlacedEntry(OrderPlacedEvent event) {
+    return newEntry(event.orderId(), kafkaTopicsProperties.getOrderPlaced(), event);
+  }
+
+  /**
+   * Builds the outbox entry of an OrderUpdatedEvent, to be saved with the updated order.
+   */
+  public OrderOutboxEvent newOrderUpdatedEntry(OrderUpdatedEvent event) {
+    return newEntry(event.orderId(), kafkaTopicsProperties.getOrderUpdated(), event);
+  }
+
+  /**
+   * Appends an OrderCancelledEvent to the outbox, in the transaction that cancels the order.
+   */
+  @Transactional(propagation = Propagation.MANDATORY)
+  public void appendOrderCancelledEvent(OrderCancelledEvent event) {
+    orderOutboxRepository.save(newEntry(event.orderId(), kafkaTopicsProperties.getOrderCancelled(), event));
+  }
+
+  /**
+   * Appends an OrderDeletedEvent to the outbox, in the transaction that deletes the order.
+   */
+  @Transactional(propagation = Propagation.MANDATORY)
+  public void appendOrderDeletedEvent(OrderDeletedEvent event) {
+    orderOutboxRepository.save(newEntry(event.orderId(), kafkaTopicsProperties.getOrderDeleted(), event));
+  }
+
+  private OrderOutboxEvent newEntry(Long orderId, String topic, Object event) {
+    try {
+      return new OrderOutboxEvent(orderId, topic, event.getClass().getName(), objectMapper.writeValueAsString(event));
+    } catch (JsonProcessingException e) {
+      throw new IllegalStateException("Could not serialize " + event.getClass().getSimpleName() + " for the outbox", e);
+    }
+  }
+}
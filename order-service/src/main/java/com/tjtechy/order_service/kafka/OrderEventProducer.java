@@ -15,8 +15,11 @@ import com.tjtechy.order_service.config.KafkaTopicsProperties;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
 import org.springframework.stereotype.Service;
 
+import java.util.concurrent.CompletableFuture;
+
 @Service
 public class OrderEventProducer {
   private static final Logger logger = LoggerFactory.getLogger(OrderEventProducer.class);
@@ -31,80 +34,58 @@ public class OrderEventProducer {
 
 
   /**
-   * Asynchronous event sending to avoid blocking the main thread
+   * Sends an event keyed by its order id, so all events of an order land on the same partition in order.
+   * The send is asynchronous: the record is batched by the producer (linger.ms) and the future completes
+   * when Kafka acknowledged it. Used by {@link OrderOutboxRelay}.
    */
-  private <T> void sendOrderEvent(String topic, T event){
-    kafkaTemplate.send(topic, event)
+  public CompletableFuture<SendResult<String, Object>> publish(String topic, String key, Object event) {
+    return kafkaTemplate.send(topic, key, event)
             .whenComplete((result, ex) -> {
-              if(ex != null){
+              if (ex != null) {
                 logger.error("Error sending {} to topic {}: {}", event.getClass().getSimpleName(), topic, ex.getMessage(), ex);
-              } else {
-                logger.info(" {} sent to topic {} partition {} offset {}",
+              } else if (logger.isDebugEnabled()) {
+                logger.debug("{} sent to topic {} partition {} offset {}",
                         event.getClass().getSimpleName(),
                         topic,
                         result.getRecordMetadata().partition(),
                         result.getRecordMetadata().offset());
               }
             });
-    //ensure the record is flushed immediately
-    kafkaTemplate.flush();
-  }
-
-  /**
-   * Synchronously send to ensure order of events are maintained
-   */
-  private <T> void sendOrderEventSyncChronous(String topic, T event){
-    try{
-      var result = kafkaTemplate.send(topic, event).get(); //blocks until send is complete
-      kafkaTemplate.flush(); //ensures record is immediately sent
-      logger.info("{} successfully sent to topic {} partition {} offset {} ",
-              event.getClass().getSimpleName(),
-              topic,
-              result.getRecordMetadata().partition(),
-              result.getRecordMetadata().offset());
-    }
-    catch(Exception e){
-      logger.error("Failed to send {} to topic {} : {}",
-              event.getClass().getSimpleName(),
-              topic,
-              e.getMessage(),
-              e);
-    }
   }
 
   /**
    * Sends OrderPlacedEvent to the appropriate Kafka topic
    * @param event
-   * Order placement logic is an asynchronous operation, so we can use async send
+   * The order service writes this event to the outbox, see {@link OrderEventOutbox}
    */
   public void sendOrderPlacedEvent(OrderPlacedEvent event){
-    sendOrderEvent(kafkaTopicsProperties.getOrderPlaced(), event);
+    publish(kafkaTopicsProperties.getOrderPlaced(), String.valueOf(event.orderId()), event);
   }
 
   /**
    * Sends OrderCancelledEvent to the appropriate Kafka topic
    * @param event
-   * Cancellation logic is a synchronous operation, so we use sync send
+   * The order service writes this event to the outbox, see {@link OrderEventOutbox}
    */
   public void sendOrderCancelledEvent(OrderCancelledEvent event){
-    sendOrderEventSyncChronous(kafkaTopicsProperties.getOrderCancelled(), event);
+    publish(kafkaTopicsProperties.getOrderCancelled(), String.valueOf(event.orderId()), event);
   }
 
   /**
    * Sends OrderDeletedEvent to the appropriate Kafka topic
    * @param event
-   * Deletion logic is a synchronous operation, so we use sync send
+   * The order service writes this event to the outbox, see {@link OrderEventOutbox}
    */
   public void sendOrderDeletedEvent(OrderDeletedEvent event){
-    sendOrderEventSyncChronous(kafkaTopicsProperties.getOrderDeleted(), event);
+    publish(kafkaTopicsProperties.getOrderDeleted(), String.valueOf(event.orderId()), event);
   }
 
   /**
    * Sends OrderUpdatedEvent to the appropriate Kafka topic
    * @param event
-   * Update logic is an asynchronous operation, so we can use async send
+   * The order service writes this event to the outbox, see {@link OrderEventOutbox}
    */
   public void sendOrderUpdatedEvent(OrderUpdatedEvent event) {
-    sendOrderEvent(kafkaTopicsProperties.getOrderUpdated(), event);
+    publish(kafkaTopicsProperties.getOrderUpdated(), String.valueOf(event.orderId()), event);
   }
 }
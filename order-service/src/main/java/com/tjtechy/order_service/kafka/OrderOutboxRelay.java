@@ -0,0 +1,165 @@
+/*
+ * Copyright © 2025
+ * @Author = TJTechy (Tajudeen Busari)
+ * @Version = 1.0
+ * This file is part of order-service module of the Ecommerce Microservices project.
+ */
+
+package com.tjtechy.order_service.kafka;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.tjtechy.order_service.config.OrderOutboxProperties;
+import com.tjtechy.order_service.entity.OrderOutboxEvent;
+import com.tjtechy.order_service.repository.OrderOutboxRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Publishes the order events of the "order_outbox" table to Kafka in the background.
+ * <p>
+ *   Each run locks the oldest {@code batchSize} rows (FOR UPDATE SKIP LOCKED, so several instances can relay),
+ *   hands all of them to the producer without waiting in between, so linger.ms groups them into a few requests,
+ *   then waits for the acknowledgements once and deletes the rows Kafka acknowledged.
+ *   A row that could not be published stays in the table and is retried on the next run, so delivery is at least once;
+ *   the producer is idempotent, so its own retries do not duplicate records.
+ * </p>
+ * Metrics:
+ * <ul>
+ *   <li>orders.outbox.lag: age of the oldest event not published yet.</li>
+ *   <li>orders.outbox.pending: number of events not published yet.</li>
+ *   <li>orders.outbox.published / orders.outbox.publish.failures: events published / failed.</li>
+ * </ul>
+ */
+@Component
+@ConditionalOnProperty(name = "order.outbox.relay-enabled", havingValue = "true", matchIfMissing = true)
+public class OrderOutboxRelay {
+  private static final Logger logger = LoggerFactory.getLogger(OrderOutboxRelay.class);
+
+  private final OrderOutboxRepository orderOutboxRepository;
+  private final OrderEventProducer orderEventProducer;
+  private final OrderOutboxProperties orderOutboxProperties;
+  private final TransactionTemplate transactionTemplate;
+
+  private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+
+  private final AtomicLong lagMillis = new AtomicLong();
+  private final AtomicLong pending = new AtomicLong();
+  private final Counter publishedCounter;
+  private final Counter failureCounter;
+
+  public OrderOutboxRelay(OrderOutboxRepository orderOutboxRepository,
+                          OrderEventProducer orderEventProducer,
+                          OrderOutboxProperties orderOutboxProperties,
+                          PlatformTransactionManager transactionManager,
+                          MeterRegistry meterRegistry) {
+    this.orderOutboxRepository = orderOutboxRepository;
+    this.orderEventProducer = orderEventProducer;
+    this.orderOutboxProperties = orderOutboxProperties;
+    this.transactionTemplate = new TransactionTemplate(transactionManager);
+
+    TimeGauge.builder("orders.outbox.lag", lagMillis, TimeUnit.MILLISECONDS, AtomicLong::get)
+            .description("Age of the oldest order event waiting in the outbox")
+            .register(meterRegistry);
+    Gauge.builder("orders.outbox.pending", pending, AtomicLong::get)
+            .description("Order events waiting in the outbox")
+            .register(meterRegistry);
+    this.publishedCounter = Counter.builder("orders.outbox.published")
+            .description("Order events published from the outbox")
+            .register(meterRegistry);
+    this.failureCounter = Counter.builder("orders.outbox.publish.failures")
+            .description("Order events that could not be published and were left in the outbox")
+            .register(meterRegistry);
+  }
+
+  /**
+   * Drains the outbox batch by batch, then waits relay-interval before the next run.
+   */
+  @Scheduled(fixedDelayString = "${order.outbox.relay-interval:100ms}")
+  public void relay() {
+    try {
+      int published;
+      do {
+        published = transactionTemplate.execute(status -> publishNextBatch());
+      } while (published == orderOutboxProperties.getBatchSize());
+    } catch (RuntimeException e) {
+      logger.error("Order outbox relay failed: {}", e.getMessage(), e);
+    } finally {
+      refreshLag();
+    }
+  }
+
+  /**
+   * @return the number of events published, less than the batch size when the outbox was drained or a send failed
+   */
+  private int publishNextBatch() {
+    List<OrderOutboxEvent> batch = orderOutboxRepository.lockNextBatch(orderOutboxProperties.getBatchSize());
+    if (batch.isEmpty()) {
+      return 0;
+    }
+    var sends = new ArrayList<CompletableFuture<?>>(batch.size());
+    for (var outboxEvent : batch) {
+      sends.add(publish(outboxEvent));
+    }
+
+    var deadline = System.nanoTime() + orderOutboxProperties.getSendTimeout().toNanos();
+    var published = new ArrayList<OrderOutboxEvent>(batch.size());
+    for (int i = 0; i < batch.size(); i++) {
+      var outboxEvent = batch.get(i);
+      try {
+        sends.get(i).get(Math.max(deadline - System.nanoTime(), 0), TimeUnit.NANOSECONDS);
+        published.add(outboxEvent);
+      } catch (ExecutionException | TimeoutException e) {
+        logger.warn("Could not publish {} {} of order {} to topic {}, will retry: {}",
+                outboxEvent.getEventType(), outboxEvent.getId(), outboxEvent.getAggregateId(),
+                outboxEvent.getTopic(), e.getMessage());
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        break;
+      }
+    }
+
+    orderOutboxRepository.deleteAllInBatch(published);
+    publishedCounter.increment(published.size());
+    failureCounter.increment(batch.size() - published.size());
+    return published.size();
+  }
+
+  private CompletableFuture<?> publish(OrderOutboxEvent outboxEvent) {
+    try {
+      var event = objectMapper.readValue(outboxEvent.getPayload(), Class.forName(outboxEvent.getEventType()));
+      return orderEventProducer.publish(outboxEvent.getTopic(), String.valueOf(outboxEvent.getAggregateId()), event);
+    } catch (Exception e) {
+      return CompletableFuture.failedFuture(e);
+    }
+  }
+
+  private void refreshLag() {
+    try {
+      LocalDateTime oldest = orderOutboxRepository.findOldestCreatedAt();
+      lagMillis.set(oldest == null ? 0 : Math.max(Duration.between(oldest, LocalDateTime.now()).toMillis(), 0));
+      pending.set(orderOutboxRepository.count());
+    } catch (RuntimeException e) {
+      logger.warn("Could not read the order outbox lag: {}", e.getMessage());
+    }
+  }
+}
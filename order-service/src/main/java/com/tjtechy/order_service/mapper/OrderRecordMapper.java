@@ -0,0 +1,81 @@
+/*
+ * Copyright © 2025
+ * @Author = TJTechy (Tajudeen Busari)
+ * @Version = 1.0
+ * This file is part of the order-service module of the Ecommerce Microservices project.
+ */
+package com.tjtechy.order_service.mapper;
+
+import com.tjtechy.order_service.entity.Order;
+import com.tjtechy.order_service.entity.OrderItem;
+import com.tjtechy.order_service.entity.OrderOutboxEvent;
+import com.tjtechy.order_service.entity.r2dbc.OrderItemRecord;
+import com.tjtechy.order_service.entity.r2dbc.OrderOutboxRecord;
+import com.tjtechy.order_service.entity.r2dbc.OrderRecord;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Maps between the Order/OrderItem domain objects and the rows written by the reactive (R2DBC) repositories.
+ */
+public class OrderRecordMapper {
+
+  public static OrderRecord mapFromOrderToOrderRecord(Order order) {
+    var orderRecord = new OrderRecord();
+    orderRecord.setOrderId(order.getOrderId());
+    orderRecord.setCustomerName(order.getCustomerName());
+    orderRecord.setCustomerEmail(order.getCustomerEmail());
+    orderRecord.setCustomerPhone(order.getCustomerPhone());
+    orderRecord.setShippingAddress(order.getShippingAddress());
+    orderRecord.setTotalAmount(order.getTotalAmount());
+    orderRecord.setOrderDate(order.getOrderDate());
+    orderRecord.setOrderStatus(order.getOrderStatus());
+    return orderRecord;
+  }
+
+  public static OrderItemRecord mapFromOrderItemToOrderItemRecord(OrderItem orderItem, Long orderId) {
+    var orderItemRecord = new OrderItemRecord();
+    orderItemRecord.setOrderItemId(orderItem.getOrderItemId());
+    orderItemRecord.setOrderId(orderId);
+    orderItemRecord.setProductId(orderItem.getProductId());
+    orderItemRecord.setProductName(orderItem.getProductName());
+    orderItemRecord.setProductPrice(orderItem.getProductPrice());
+    orderItemRecord.setProductQuantity(orderItem.getProductQuantity());
+    return orderItemRecord;
+  }
+
+  public static OrderItem mapFromOrderItemRecordToOrderItem(OrderItemRecord orderItemRecord) {
+    return new OrderItem(orderItemRecord.getOrderItemId(),
+            orderItemRecord.getProductId(),
+            orderItemRecord.getProductName(),
+            orderItemRecord.getProductPrice(),
+            orderItemRecord.getProductQuantity());
+  }
+
+  public static Order mapFromOrderRecordToOrder(OrderRecord orderRecord, List<OrderItemRecord> orderItemRecords) {
+    var order = new Order();
+    order.setOrderId(orderRecord.getOrderId());
+    order.setCustomerName(orderRecord.getCustomerName());
+    order.setCustomerEmail(orderRecord.getCustomerEmail());
+    order.setCustomerPhone(orderRecord.getCustomerPhone());
+    order.setShippingAddress(orderRecord.getShippingAddress());
+    order.setTotalAmount(orderRecord.getTotalAmount());
+    order.setOrderDate(orderRecord.getOrderDate());
+    order.setOrderStatus(orderRecord.getOrderStatus());
+    order.addOrderItems(new ArrayList<>(orderItemRecords.stream()
+            .map(OrderRecordMapper::mapFromOrderItemRecordToOrderItem)
+            .toList())); //sets the back reference of each item
+    return order;
+  }
+
+  public static OrderOutboxRecord mapFromOrderOutboxEventToOrderOutboxRecord(OrderOutboxEvent outboxEvent) {
+    var outboxRecord = new OrderOutboxRecord();
+    outboxRecord.setAggregateId(outboxEvent.getAggregateId());
+    outboxRecord.setTopic(outboxEvent.getTopic());
+    outboxRecord.setEventType(outboxEvent.getEventType());
+    outboxRecord.setPayload(outboxEvent.getPayload());
+    outboxRecord.setCreatedAt(outboxEvent.getCreatedAt());
+    return outboxRecord;
+  }
+}
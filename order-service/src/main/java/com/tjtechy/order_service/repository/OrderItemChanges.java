@@ -0,0 +1,85 @@
+/*
+ * Copyright © 2025
+ * @Author = TJTechy (Tajudeen Busari)
+ * @Version = 1.0
+ * This file is part of the order-service module of the EcommerceMicroservices project.
+ */
+package com.tjtechy.order_service.repository;
+
+import com.tjtechy.order_service.entity.OrderItem;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * The difference between the stored items of an order and the items it is updated with,
+ * which {@link ReactiveOrderStore} writes with one statement per kind of change instead of replacing every row.
+ *
+ * @param added the new lines, to insert
+ * @param changed the kept lines whose name, price or quantity changed, to update in place
+ * @param removedOrderItemIds the ids of the stored lines that are no longer in the order, to delete
+ */
+public record OrderItemChanges(
+        List<OrderItem> added,
+        List<OrderItem> changed,
+        List<Long> removedOrderItemIds
+) {
+
+  /**
+   * Matches each new item with a stored item of the same product, which it takes the id of;
+   * the new items left without a match are added and the stored items left without a match are removed.
+   * An id sent with a new item is ignored, only the stored ids are trusted.
+   *
+   * @param storedItems the items of the order as stored, with their ids
+   * @param newItems the items the order is updated with; their ids are set by this method
+   */
+  public static OrderItemChanges between(List<OrderItem> storedItems, List<OrderItem> newItems) {
+    //the stored lines of each product not matched yet, in stored order
+    var unmatchedItems = new LinkedHashMap<UUID, Deque<OrderItem>>();
+    storedItems.forEach(storedItem -> unmatchedItems
+            .computeIfAbsent(storedItem.getProductId(), productId -> new ArrayDeque<>())
+            .add(storedItem));
+    var added = new ArrayList<OrderItem>();
+    var changed = new ArrayList<OrderItem>();
+    for (var newItem : newItems) {
+      var storedItemsOfProduct = unmatchedItems.get(newItem.getProductId());
+      var storedItem = storedItemsOfProduct != null ? storedItemsOfProduct.poll() : null;
+      if (storedItem == null) {
+        newItem.setOrderItemId(null);
+        added.add(newItem);
+        continue;
+      }
+      newItem.setOrderItemId(storedItem.getOrderItemId());
+      if (!Objects.equals(storedItem.getProductQuantity(), newItem.getProductQuantity())
+              || !Objects.equals(storedItem.getProductName(), newItem.getProductName())
+              || !samePrice(storedItem, newItem)) {
+        changed.add(newItem);
+      }
+    }
+    var removedOrderItemIds = unmatchedItems.values().stream()
+            .flatMap(Deque::stream)
+            .map(OrderItem::getOrderItemId)
+            .toList();
+    return new OrderItemChanges(List.copyOf(added), List.copyOf(changed), removedOrderItemIds);
+  }
+
+  /**
+   * @return true when nothing has to be written for the items
+   */
+  public boolean isEmpty() {
+    return added.isEmpty() && changed.isEmpty() && removedOrderItemIds.isEmpty();
+  }
+
+  //10.0 and 10.00 are the same price, BigDecimal.equals would tell them apart
+  private static boolean samePrice(OrderItem storedItem, OrderItem newItem) {
+    if (storedItem.getProductPrice() == null || newItem.getProductPrice() == null) {
+      return storedItem.getProductPrice() == newItem.getProductPrice();
+    }
+    return storedItem.getProductPrice().compareTo(newItem.getProductPrice()) == 0;
+  }
+}
@@ -0,0 +1,39 @@
+/*
+ * Copyright © 2025
+ * @Author = TJTechy (Tajudeen Busari)
+ * @Version = 1.0
+ * This file is part of the order-service module of the EcommerceMicroservices project.
+ */
+package com.tjtechy.order_service.repository;
+
+import com.tjtechy.order_service.entity.OrderOutboxEvent;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Blocking access to the "order_outbox" table, used by the blocking order endpoints to append events
+ * and by {@link com.tjtechy.order_service.kafka.OrderOutboxRelay} to publish them.
+ */
+@Repository
+public interface OrderOutboxRepository extends JpaRepository<OrderOutboxEvent, Long> {
+
+  /**
+   * Locks the oldest pending events.
+   * SKIP LOCKED lets several order-service instances relay at the same time without publishing a row twice:
+   * rows locked by another instance are skipped instead of waited for.
+   * Must be called inside a transaction, the lock is held until it ends.
+   */
+  @Query(value = "SELECT * FROM order_outbox ORDER BY id LIMIT :batchSize FOR UPDATE SKIP LOCKED", nativeQuery = true)
+  List<OrderOutboxEvent> lockNextBatch(@Param("batchSize") int batchSize);
+
+  /**
+   * Creation time of the oldest event not published yet, null when the outbox is empty.
+   */
+  @Query("SELECT MIN(e.createdAt) FROM OrderOutboxEvent e")
+  LocalDateTime findOldestCreatedAt();
+}
@@ -7,64 +7,76 @@
 package com.tjtechy.order_service.repository;
 
 import com.tjtechy.order_service.entity.Order;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
-import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
-import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDate;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
-//TODO: Convert this interface to a reactive repository
 /**
- * public interface OrderRepository extends ReactiveCrudRepository<Order, Long> {
- *     Flux<Order> findByCustomerEmail(String customerEmail);
- *     Flux<Order> findByOrderStatusNot(String orderStatus);
- *     Flux<Order> findByOrderStatusIgnoreCase(String orderStatus);
- * }
- * This aligns with the reactive programming paradigm and ensures better scalability and performance.
- *  * However, if migrating is not feasible in the short term,
- *  * wrapping blocking calls (Option 2) is a temporary workaround
- *  * Switch from Spring Data JPA to Spring Data R2DBC by updating your pom.xml
- *  Check the README.md file for the dependencies to add to your pom.xml
+ * Blocking JPA repository used by the non-reactive order endpoints.
+ * The reactive endpoints read and write orders through {@link ReactiveOrderRepository} and
+ * {@link ReactiveOrderItemRepository} (R2DBC), see {@link ReactiveOrderStore}.
  */
-
 @Repository
-public interface OrderRepository extends JpaRepository<Order, Long> {
+public interface OrderRepository extends JpaRepository<Order, Long>, JpaSpecificationExecutor<Order> {
+
+  /**
+   * Rows fetched per database round trip by the export streams.
+   */
+  int EXPORT_FETCH_SIZE = 500;
 
   /**
-   * Retrieve all orders by customer email
+   * Finds an order with its items, fetched in the same query (the items are lazy otherwise).
    */
-  List<Order>findByCustomerEmail(String customerEmail);
+  @Override
+  @EntityGraph(attributePaths = "orderItems")
+  Optional<Order> findById(Long orderId);
 
   /**
-   * Retrieve all orders except those with status "CANCELLED"
-   * The naming convention of the method is important
-   * because Spring Data JPA will automatically generate the query
-   * based on the method name.
-   * StatusNot is a keyword that tells Spring Data JPA to exclude
-   * orders with the specified status.
+   * Finds orders with their items, fetched in the same query.
+   */
+  @Override
+  @EntityGraph(attributePaths = "orderItems")
+  List<Order> findAllById(Iterable<Long> orderIds);
+
+  /*
+   * The order listings (all orders, by customer email, by status, without the cancelled ones) are keyset
+   * paginated through JpaSpecificationExecutor#findBy with the filters of OrderSpecifications,
+   * instead of returning every matching order; see the indexes of Order.
+   * They select OrderSummaryDto projections, without the items.
    */
-  List<Order>findByOrderStatusNot(String orderStatus);
 
   /**
-   * Retrieve all orders by status
-   * Ignore case ensures that the query is case-insensitive
+   * Streams all the orders with their items in order id order for the exports, reading them from a database
+   * cursor EXPORT_FETCH_SIZE rows at a time instead of loading every order.
+   * The items are fetched in the same query; the rows of an order are adjacent thanks to the ordering,
+   * so each order is emitted once, complete.
+   * Must be called inside a transaction, and the stream closed.
    */
-  List<Order> findByOrderStatusIgnoreCase(String orderStatus);
+  @QueryHints({
+          @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + EXPORT_FETCH_SIZE),
+          @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+  })
+  @Query("select o from Order o left join fetch o.orderItems order by o.orderId")
+  Stream<Order> streamAllWithItems();
 
   /**
-   * Delete an orderItem by id
-   * @param orderItemId
-   * This method is used to delete order items by id when order is
-   * updated. It is annotated with @Modifying and @Transactional
-   * @Transactional because it involves database operations and
-   * @Modifying because it modifies the database by deleting an order item.
-   * So, when update is done, the old order items are deleted and new ones are added.
+   * Like {@link #streamAllWithItems()}, for the orders placed on or after the given date.
    */
-  @Transactional
-  @Modifying
-  @Query("DELETE FROM OrderItem oi WHERE oi.orderItemId = :orderItemId")
-  void deleteOrderItemById(@Param("orderItemId")Long orderItemId);
+  @QueryHints({
+          @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + EXPORT_FETCH_SIZE),
+          @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+  })
+  @Query("select o from Order o left join fetch o.orderItems where o.orderDate >= :since order by o.orderId")
+  Stream<Order> streamPlacedSinceWithItems(@Param("since") LocalDate since);
 }
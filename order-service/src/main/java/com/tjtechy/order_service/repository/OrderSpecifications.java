@@ -0,0 +1,51 @@
+/*
+ * Copyright © 2025
+ * @Author = TJTechy (Tajudeen Busari)
+ * @Version = 1.0
+ * This file is part of the order-service module of the Ecommerce Microservices project.
+ */
+package com.tjtechy.order_service.repository;
+
+import com.tjtechy.order_service.entity.Order;
+import com.tjtechy.order_service.entity.dto.OrderSearchCriteria;
+import jakarta.persistence.criteria.Predicate;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.ArrayList;
+
+/**
+ * Query conditions of the order search, combined with the keyset condition of its cursor by
+ * {@link OrderRepository#findBy(Specification, java.util.function.Function)}.
+ * Statuses are compared as stored (upper case), so that the status indexes of the orders table are used.
+ */
+public final class OrderSpecifications {
+
+  private OrderSpecifications() {
+  }
+
+  /**
+   * @param criteria the filters to apply, the null ones are left out
+   * @return the orders matching every filter
+   */
+  public static Specification<Order> matching(OrderSearchCriteria criteria) {
+    return (root, query, criteriaBuilder) -> {
+      var predicates = new ArrayList<Predicate>();
+      if (criteria.orderStatus() != null) {
+        predicates.add(criteriaBuilder.equal(root.get("orderStatus"), criteria.orderStatus()));
+      }
+      if (criteria.excludedOrderStatus() != null) {
+        predicates.add(criteriaBuilder.notEqual(root.get("orderStatus"), criteria.excludedOrderStatus()));
+      }
+      if (criteria.customerEmail() != null) {
+        predicates.add(criteriaBuilder.equal(root.get("customerEmail"), criteria.customerEmail()));
+      }
+      if (criteria.fromDate() != null) {
+        predicates.add(criteriaBuilder.greaterThanOrEqualTo(root.get("orderDate"), criteria.fromDate()));
+      }
+      if (criteria.toDate() != null) {
+        predicates.add(criteriaBuilder.lessThanOrEqualTo(root.get("orderDate"), criteria.toDate()));
+      }
+      return criteriaBuilder.and(predicates.toArray(Predicate[]::new));
+    };
+  }
+}
@@ -0,0 +1,31 @@
+/*
+ * Copyright © 2025
+ * @Author = TJTechy (Tajudeen Busari)
+ * @Version = 1.0
+ * This file is part of the order-service module of the EcommerceMicroservices project.
+ */
+package com.tjtechy.order_service.repository;
+
+import com.tjtechy.order_service.entity.r2dbc.OrderItemRecord;
+import org.springframework.data.r2dbc.repository.Modifying;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.r2dbc.repository.R2dbcRepository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Collection;
+
+/**
+ * Non-blocking access to the "order_items" table for the reactive order endpoints.
+ */
+public interface ReactiveOrderItemRepository extends R2dbcRepository<OrderItemRecord, Long> {
+
+  Flux<OrderItemRecord> findByOrderId(Long orderId);
+
+  /**
+   * Deletes the given items of an order in one statement, used when an order update removes lines.
+   */
+  @Modifying
+  @Query("DELETE FROM order_items WHERE order_id = :orderId AND order_item_id IN (:orderItemIds)")
+  Mono<Integer> deleteByOrderIdAndOrderItemIdIn(Long orderId, Collection<Long> orderItemIds);
+}
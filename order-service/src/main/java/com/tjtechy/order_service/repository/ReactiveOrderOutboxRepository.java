@@ -0,0 +1,17 @@
+/*
+ * Copyright © 2025
+ * @Author = TJTechy (Tajudeen Busari)
+ * @Version = 1.0
+ * This file is part of the order-service module of the EcommerceMicroservices project.
+ */
+package com.tjtechy.order_service.repository;
+
+import com.tjtechy.order_service.entity.r2dbc.OrderOutboxRecord;
+import org.springframework.data.r2dbc.repository.R2dbcRepository;
+
+/**
+ * Writes outbox rows from the reactive order endpoints, inside the R2DBC transaction of {@link ReactiveOrderStore}.
+ * The rows are read and deleted by the relay through {@link OrderOutboxRepository}.
+ */
+public interface ReactiveOrderOutboxRepository extends R2dbcRepository<OrderOutboxRecord, Long> {
+}
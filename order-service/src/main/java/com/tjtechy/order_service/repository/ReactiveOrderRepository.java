@@ -0,0 +1,18 @@
+/*
+ * Copyright © 2025
+ * @Author = TJTechy (Tajudeen Busari)
+ * @Version = 1.0
+ * This file is part of the order-service module of the EcommerceMicroservices project.
+ */
+package com.tjtechy.order_service.repository;
+
+import com.tjtechy.order_service.entity.r2dbc.OrderRecord;
+import org.springframework.data.r2dbc.repository.R2dbcRepository;
+
+/**
+ * This R2DBC repository internally extends ReactiveCrudRepository, which provides non-blocking CRUD operations
+ * on the "orders" table for the reactive order endpoints.
+ * The blocking endpoints keep using {@link OrderRepository}.
+ */
+public interface ReactiveOrderRepository extends R2dbcRepository<OrderRecord, Long> {
+}
@@ -0,0 +1,202 @@
+/*
+ * Copyright © 2025
+ * @Author = TJTechy (Tajudeen Busari)
+ * @Version = 1.0
+ * This file is part of the order-service module of the EcommerceMicroservices project.
+ */
+package com.tjtechy.order_service.repository;
+
+import com.tjtechy.order_service.entity.Order;
+import com.tjtechy.order_service.entity.OrderItem;
+import com.tjtechy.order_service.entity.OrderOutboxEvent;
+import com.tjtechy.order_service.mapper.OrderRecordMapper;
+import io.r2dbc.spi.Result;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Non-blocking persistence of an {@link Order} together with its {@link OrderItem}s.
+ * <p>
+ *   R2DBC repositories work on one table at a time, so this class writes the order row and its item rows
+ *   and wraps them in a reactive transaction ({@link TransactionalOperator}): either the order and all
+ *   its items are stored, or nothing is. The database connection is only held while the statements run,
+ *   never while the caller waits on the product or inventory service.
+ *   The item rows are written with batched statements, so storing an order costs the same number of
+ *   round trips whatever its number of lines.
+ *   The outbox entry of the order event can be saved in the same transaction, see
+ *   {@link com.tjtechy.order_service.kafka.OrderEventOutbox}.
+ * </p>
+ */
+@Component
+public class ReactiveOrderStore {
+
+  private static final String INSERT_ORDER_ITEM = "INSERT INTO order_items "
+          + "(order_id, product_id, product_name, product_price, product_quantity) VALUES ($1, $2, $3, $4, $5)";
+
+  private static final String UPDATE_ORDER_ITEM = "UPDATE order_items "
+          + "SET product_name = $1, product_price = $2, product_quantity = $3 WHERE order_item_id = $4 AND order_id = $5";
+
+  private final ReactiveOrderRepository reactiveOrderRepository;
+  private final ReactiveOrderItemRepository reactiveOrderItemRepository;
+  private final ReactiveOrderOutboxRepository reactiveOrderOutboxRepository;
+  private final TransactionalOperator transactionalOperator;
+  private final DatabaseClient databaseClient; //batched item statements, which the repositories do not offer
+
+  public ReactiveOrderStore(ReactiveOrderRepository reactiveOrderRepository,
+                            ReactiveOrderItemRepository reactiveOrderItemRepository,
+                            ReactiveOrderOutboxRepository reactiveOrderOutboxRepository,
+                            TransactionalOperator transactionalOperator,
+                            DatabaseClient databaseClient) {
+    this.reactiveOrderRepository = reactiveOrderRepository;
+    this.reactiveOrderItemRepository = reactiveOrderItemRepository;
+    this.reactiveOrderOutboxRepository = reactiveOrderOutboxRepository;
+    this.transactionalOperator = transactionalOperator;
+    this.databaseClient = databaseClient;
+  }
+
+  /**
+   * Loads an order and its items.
+   * @return the order, or an empty Mono if it does not exist
+   */
+  public Mono<Order> findById(Long orderId) {
+    return reactiveOrderRepository.findById(orderId)
+            .zipWith(reactiveOrderItemRepository.findByOrderId(orderId).collectList(),
+                    OrderRecordMapper::mapFromOrderRecordToOrder);
+  }
+
+  /**
+   * Inserts a new order and its items in one transaction.
+   * The order date is set to today, and the generated ids are set on the given order and items.
+   */
+  public Mono<Order> insert(Order order) {
+    return insertOrder(order).as(transactionalOperator::transactional);
+  }
+
+  /**
+   * Inserts a new order, its items and the outbox entry of its event in one transaction.
+   * @param outboxEvent builds the outbox entry from the saved order, once its id is known
+   */
+  public Mono<Order> insert(Order order, Function<Order, OrderOutboxEvent> outboxEvent) {
+    return insertOrder(order)
+            .flatMap(savedOrder -> saveOutboxEvent(savedOrder, outboxEvent))
+            .as(transactionalOperator::transactional);
+  }
+
+  /**
+   * Updates an existing order and applies the changes of its items in one transaction:
+   * one DELETE for the removed lines, one batched UPDATE for the changed ones and one batched INSERT
+   * for the new ones, whatever the number of lines. The lines that did not change are not written.
+   * @param itemChanges the difference between the stored items and {@code order.getOrderItems()}
+   */
+  public Mono<Order> update(Order order, OrderItemChanges itemChanges) {
+    return updateOrder(order, itemChanges).as(transactionalOperator::transactional);
+  }
+
+  /**
+   * Updates an existing order, applies the changes of its items and saves the outbox entry of its event
+   * in one transaction.
+   * @param outboxEvent builds the outbox entry from the updated order
+   */
+  public Mono<Order> update(Order order, OrderItemChanges itemChanges, Function<Order, OrderOutboxEvent> outboxEvent) {
+    return updateOrder(order, itemChanges)
+            .flatMap(updatedOrder -> saveOutboxEvent(updatedOrder, outboxEvent))
+            .as(transactionalOperator::transactional);
+  }
+
+  private Mono<Order> insertOrder(Order order) {
+    order.setOrderDate(LocalDate.now());
+    return reactiveOrderRepository.save(OrderRecordMapper.mapFromOrderToOrderRecord(order))
+            .flatMap(savedOrderRecord -> {
+              order.setOrderId(savedOrderRecord.getOrderId());
+              return insertOrderItems(order, order.getOrderItems());
+            })
+            .thenReturn(order);
+  }
+
+  private Mono<Order> updateOrder(Order order, OrderItemChanges itemChanges) {
+    var orderId = order.getOrderId();
+    var removedItems = itemChanges.removedOrderItemIds().isEmpty()
+            ? Mono.<Integer>empty()
+            : reactiveOrderItemRepository.deleteByOrderIdAndOrderItemIdIn(orderId, itemChanges.removedOrderItemIds());
+    return reactiveOrderRepository.save(OrderRecordMapper.mapFromOrderToOrderRecord(order))
+            .then(removedItems)
+            .then(updateOrderItems(orderId, itemChanges.changed()))
+            .then(insertOrderItems(order, itemChanges.added()))
+            .then(Mono.fromSupplier(() -> {
+              order.getOrderItems().forEach(orderItem -> orderItem.setOrder(order));
+              return order;
+            }));
+  }
+
+  private Mono<Order> saveOutboxEvent(Order order, Function<Order, OrderOutboxEvent> outboxEvent) {
+    return Mono.fromSupplier(() -> OrderRecordMapper.mapFromOrderOutboxEventToOrderOutboxRecord(outboxEvent.apply(order)))
+            .flatMap(reactiveOrderOutboxRepository::save)
+            .thenReturn(order);
+  }
+
+  /**
+   * Inserts the items with a single batched statement (one binding per item, sent together),
+   * and sets the generated ids on them.
+   */
+  private Mono<Void> insertOrderItems(Order order, List<OrderItem> orderItems) {
+    if (orderItems.isEmpty()) {
+      return Mono.empty();
+    }
+    return databaseClient.inConnectionMany(connection -> {
+              var statement = connection.createStatement(INSERT_ORDER_ITEM).returnGeneratedValues("order_item_id");
+              for (var index = 0; index < orderItems.size(); index++) {
+                if (index > 0) {
+                  statement.add(); //the bindings of the previous item are complete
+                }
+                var orderItemRecord = OrderRecordMapper.mapFromOrderItemToOrderItemRecord(orderItems.get(index), order.getOrderId());
+                statement.bind(0, orderItemRecord.getOrderId())
+                        .bind(1, orderItemRecord.getProductId())
+                        .bind(2, orderItemRecord.getProductName())
+                        .bind(3, orderItemRecord.getProductPrice())
+                        .bind(4, orderItemRecord.getProductQuantity());
+              }
+              //one result per binding, in binding order
+              return Flux.from(statement.execute())
+                      .concatMap(result -> result.map((row, metadata) -> row.get("order_item_id", Long.class)));
+            })
+            .index()
+            .doOnNext(indexedId -> {
+              var orderItem = orderItems.get(indexedId.getT1().intValue());
+              orderItem.setOrderItemId(indexedId.getT2());
+              orderItem.setOrder(order);
+            })
+            .then();
+  }
+
+  /**
+   * Updates the name, price and quantity of the items in place with a single batched statement.
+   */
+  private Mono<Void> updateOrderItems(Long orderId, List<OrderItem> orderItems) {
+    if (orderItems.isEmpty()) {
+      return Mono.empty();
+    }
+    return databaseClient.inConnectionMany(connection -> {
+              var statement = connection.createStatement(UPDATE_ORDER_ITEM);
+              for (var index = 0; index < orderItems.size(); index++) {
+                if (index > 0) {
+                  statement.add();
+                }
+                var orderItemRecord = OrderRecordMapper.mapFromOrderItemToOrderItemRecord(orderItems.get(index), orderId);
+                statement.bind(0, orderItemRecord.getProductName())
+                        .bind(1, orderItemRecord.getProductPrice())
+                        .bind(2, orderItemRecord.getProductQuantity())
+                        .bind(3, orderItemRecord.getOrderItemId())
+                        .bind(4, orderItemRecord.getOrderId());
+              }
+              return Flux.from(statement.execute()).concatMap(Result::getRowsUpdated);
+            })
+            .then();
+  }
+}
@@ -6,10 +6,18 @@
  */
 package com.tjtechy.order_service.service;
 
+import com.tjtechy.export.ExportFormat;
 import com.tjtechy.order_service.entity.Order;
 import com.tjtechy.order_service.entity.dto.OrderDto;
+import com.tjtechy.order_service.entity.dto.OrderSearchCriteria;
+import com.tjtechy.order_service.entity.dto.OrderSummaryDto;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Window;
 import reactor.core.publisher.Mono;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDate;
 import java.util.List;
 
 public interface OrderService {
@@ -17,25 +25,27 @@ public interface OrderService {
   Mono<Order> processOrderReactively(Order order);
   Mono<Order> processOrderReactivelyByCallingExternalizedServices(Order order);
   Order getOrderById(Long orderId);
-  List<OrderDto> getAllOrders();
-  List<OrderDto> getAllOrdersWithoutCancelledOnes();
 
   /**
-   * Get all orders by customer email and status
-   * A customer can have multiple orders, placed at different times.
-   * Returning a list of orders provides more flexibility for
-   * future enhancements. You might want to show customer's order history
-   * You might need to filter or paginate the results based on additional
-   * criteria (e.g., date range, status etc.)
-   *  Handling Edge Cases
-   * If no orders exist for the specified customerEmail, an empty list ([]) can be
-   * returned instead of throwing an exception or returning null.
-   * This avoids unnecessary complexity in error handling.
-   * If only one order exists for the customer, the list will simply contain a single element.
+   * Search orders, newest first, one page at a time.
+   * A customer's order history or an admin listing grows without bound, so the orders are never
+   * returned all at once: each page starts after the last order of the previous one (keyset pagination).
+   * If no order matches, an empty page is returned instead of throwing an exception.
+   * Only the summary columns are selected; the items are read through {@link #getOrderDtoById(Long)}.
+   *
+   * @param criteria the filters: status, excluded status, customer email and order date range
+   * @param position where the page starts, {@link ScrollPosition#keyset()} for the first page
+   * @param limit the maximum number of orders of the page
    */
-  List<OrderDto>  getOrdersByCustomerEmail(String customerEmail);
+  Window<OrderSummaryDto> searchOrders(OrderSearchCriteria criteria, ScrollPosition position, int limit);
 
-  List<OrderDto> getOrdersByStatus(String orderStatus);
+  /**
+   * Writes the orders with their items to the output stream as they are read from the database, oldest first.
+   *
+   * @param since when not null, only the orders placed on or after this date (incremental pull)
+   * @return the number of exported orders
+   */
+  long exportOrders(LocalDate since, ExportFormat format, OutputStream outputStream) throws IOException;
 
   Order updateOrderStatus(Long orderId, String orderStatus);
 
@@ -7,48 +7,72 @@
 package com.tjtechy.order_service.service.impl;
 
 import com.tjtechy.DeductInventoryRequestDto;
+import com.tjtechy.RestoreInventoryDto;
 import com.tjtechy.businessException.InsufficientStockQuantityException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import com.tjtechy.businessException.OrderAlreadyCancelledException;
+import com.tjtechy.client.ClientResilience;
 import com.tjtechy.client.InventoryServiceClient;
 import com.tjtechy.client.ProductServiceClient;
+import com.tjtechy.export.ExportColumn;
+import com.tjtechy.export.ExportFormat;
+import com.tjtechy.export.RowExporter;
 import com.tjtechy.events.orderEvent.*;
 import com.tjtechy.modelNotFoundException.OrderNotFoundException;
 import com.tjtechy.order_service.config.InventoryServiceConfig;
 import com.tjtechy.order_service.config.ProductServiceConfig;
 import com.tjtechy.order_service.entity.Order;
+import com.tjtechy.order_service.entity.OrderItem;
 import com.tjtechy.order_service.entity.dto.OrderDto;
+import com.tjtechy.order_service.entity.dto.OrderSearchCriteria;
+import com.tjtechy.order_service.entity.dto.OrderSummaryDto;
 
-import com.tjtechy.order_service.kafka.OrderEventProducer;
+import com.tjtechy.order_service.kafka.OrderEventOutbox;
 import com.tjtechy.order_service.mapper.OrderMapper;
+import com.tjtechy.order_service.repository.OrderItemChanges;
 import com.tjtechy.order_service.repository.OrderRepository;
+import com.tjtechy.order_service.repository.OrderSpecifications;
+import com.tjtechy.order_service.repository.ReactiveOrderStore;
 import com.tjtechy.order_service.service.OrderService;
 import com.tjtechy.Result;
 
 import com.tjtechy.ProductDto;
+import jakarta.persistence.EntityManager;
 import jakarta.transaction.Transactional;
 import com.tjtechy.modelNotFoundException.ProductNotFoundException;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.CachePut;
 import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import org.springframework.http.MediaType;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.web.reactive.function.client.WebClient;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.core.scheduler.Schedulers;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.math.BigDecimal;
 
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 @Service
@@ -56,34 +80,67 @@ public class OrderServiceImpl implements OrderService {
 
   private final OrderRepository orderRepository;
 
+  private final ReactiveOrderStore reactiveOrderStore; //non-blocking persistence for the reactive endpoints
+
   private final WebClient.Builder webClientBuilder;
 
   private final ProductServiceConfig productServiceConfig;
 
   private final InventoryServiceConfig inventoryServiceConfig;
 
-  private final OrderEventProducer orderEventProducer; //newly added for Kafka event publishing
+  private final OrderEventOutbox orderEventOutbox; //order events are written to the outbox and published by OrderOutboxRelay
 
   private static final Logger logger = LoggerFactory.getLogger(OrderServiceImpl.class);
 
+  /** Maximum number of ids per GET /product/batch call, the limit of product-service. */
+  private static final int PRODUCT_BATCH_SIZE = 200;
+
   private final ProductServiceClient productServiceClient; //newly added for externalized service calls
   private final InventoryServiceClient inventoryServiceClient; //newly added for externalized service calls
 
+  private final ClientResilience clientResilience; //circuit breakers, timeouts and bulkheads of the direct WebClient calls
+
+  private final CacheManager cacheManager; //the "orderDto" entries of changed orders are evicted through it
+
+  /** Order of the order listings: newest first, by id, which is also the keyset of their cursor. */
+  private static final Sort NEWEST_ORDERS_FIRST = Sort.by(Sort.Order.desc("orderId"));
+
+  private final EntityManager entityManager; //detaches the exported orders
+
+  private static final RowExporter<Order> ORDER_EXPORTER = new RowExporter<>(List.of(
+          new ExportColumn<>("orderId", Order::getOrderId),
+          new ExportColumn<>("customerName", Order::getCustomerName),
+          new ExportColumn<>("customerEmail", Order::getCustomerEmail),
+          new ExportColumn<>("customerPhone", Order::getCustomerPhone),
+          new ExportColumn<>("shippingAddress", Order::getShippingAddress),
+          new ExportColumn<>("totalAmount", Order::getTotalAmount),
+          new ExportColumn<>("orderDate", Order::getOrderDate),
+          new ExportColumn<>("orderStatus", Order::getOrderStatus),
+          new ExportColumn<>("orderItems", OrderServiceImpl::exportedOrderItems)));
+
 
   public OrderServiceImpl(OrderRepository orderRepository,
+                          ReactiveOrderStore reactiveOrderStore,
                           WebClient.Builder webClientBuilder,
                           ProductServiceConfig productServiceConfig,
                           InventoryServiceConfig inventoryServiceConfig,
-                          OrderEventProducer orderEventProducer,
+                          OrderEventOutbox orderEventOutbox,
                           ProductServiceClient productServiceClient,
-                          InventoryServiceClient inventoryServiceClient) {
+                          InventoryServiceClient inventoryServiceClient,
+                          ClientResilience clientResilience,
+                          CacheManager cacheManager,
+                          EntityManager entityManager) {
     this.orderRepository = orderRepository;
+    this.reactiveOrderStore = reactiveOrderStore;
     this.webClientBuilder = webClientBuilder;
     this.productServiceConfig = productServiceConfig;
     this.inventoryServiceConfig = inventoryServiceConfig;
-    this.orderEventProducer = orderEventProducer;
+    this.orderEventOutbox = orderEventOutbox;
     this.productServiceClient = productServiceClient;
     this.inventoryServiceClient = inventoryServiceClient;
+    this.clientResilience = clientResilience;
+    this.cacheManager = cacheManager;
+    this.entityManager = entityManager;
   }
 
   /*NOTE:Currently this method is not being used in the application
@@ -188,12 +245,11 @@ public class OrderServiceImpl implements OrderService {
 //  }
 
   /**
-   * Use Transactional context to ensure that the operation is atomic
    * The method is implemented using reactive programming to create order,
-   * avoid blocking and returns a Mono
+   * avoid blocking and returns a Mono.
+   * The order and its items are inserted through R2DBC in one reactive transaction (see {@link ReactiveOrderStore}).
    */
   @Override
-  @Transactional
   public Mono<Order> processOrderReactively(Order order) {
 
     return Flux.fromIterable(order.getOrderItems())
@@ -208,6 +264,7 @@ public class OrderServiceImpl implements OrderService {
                       //.uri(productServiceConfig.getBaseUrl() + "/" + productId)
                       .retrieve()
                       .bodyToMono(Result.class)
+                      .transform(clientResilience.guard("product-service", "get-product"))
                       .map(productResponse -> {
                         if (productResponse.getData() == null) {
                           throw new ProductNotFoundException(productId);
@@ -240,6 +297,7 @@ public class OrderServiceImpl implements OrderService {
                                 .bodyValue(deductInventoryRequestDto)
                                 .retrieve()
                                 .bodyToMono(Result.class)
+                                .transform(clientResilience.guard("inventory-service", "deduct-inventory"))
                                 .flatMap(inventoryResponse -> {
                                   if (!inventoryResponse.isFlag()) {
                                     return Mono.error(new IllegalArgumentException("Failed to deduct inventory"));
@@ -267,83 +325,51 @@ public class OrderServiceImpl implements OrderService {
             .then(Mono.defer(()-> {
 
               order.setOrderStatus("PLACED");
-              return Mono.fromCallable(() -> orderRepository.save(order));
+              return reactiveOrderStore.insert(order);
             }));
   }
 
   /**
-   * Use Transactional context to ensure that the operation is atomic
    * The method is implemented using reactive programming to create order,
    * avoid blocking and returns a Mono
    * This method is used to create an order by calling externalized services like
    * Get Product and Deduct Inventory in the common-utils module.
    * The order service is the client of the product and inventory services.
+   * The order and its items are inserted through R2DBC in one reactive transaction (see {@link ReactiveOrderStore}),
+   * so no servlet or event-loop thread waits on the database.
    */
   @Override
-  @Transactional
   public Mono<Order> processOrderReactivelyByCallingExternalizedServices(Order order) {
 
-    return Flux.fromIterable(order.getOrderItems())
-            .flatMap(orderItem -> {
-              var productId = orderItem.getProductId();
-              var quantity = orderItem.getProductQuantity();
-
-              //a. call product service to get product details
-              return productServiceClient.getProductById(productId) //Using ProductServiceClient to call product service
-                      .flatMap(productDto -> {
-                        if (productDto == null) {
-                          return Mono.error(new ProductNotFoundException(productId));
-                        }
-                        //b. check if product quantity is available
-                        //changed to availableStock
-                        if (productDto.availableStock() < quantity) {
-                          return Mono.error(new InsufficientStockQuantityException(productId));
-                        }
-                        //Call inventory service to deduct stock
-                        //first check if inventory is not available for this product?
-                        //no need for this since for product to exist, inventory must have been created
-                        return inventoryServiceClient.deductInventory(productId, quantity)
-
-                                .then(Mono.defer(() -> {
-
-                                  //c update order item with validated product details
-                                  orderItem.setProductName(productDto.productName());
-                                  orderItem.setProductPrice(productDto.productPrice());
-                                  orderItem.setOrder(order);
-                                  //d. calculate the subtotal for the order item
-                                  var itemTotal = productDto.productPrice().multiply(BigDecimal.valueOf(quantity));
-                                  logger.info("Product Price is: {}", productDto.productPrice());
-                                  logger.info("Product Quantity is: {}", productDto.productQuantity());
-                                  return Mono.just(itemTotal);
-                                }));
-                      });
-
-            })
-            .reduce(BigDecimal.ZERO, BigDecimal::add)
-            .doOnNext(order::setTotalAmount)
-            .then(Mono.defer(() -> {
-              order.setOrderStatus("PLACED");
-
-              return Mono.fromCallable(() -> orderRepository.save(order))
-                      .flatMap(savedOrder -> {
-                        // Publish order placed event to Kafka topic for the three channels: email, push notification and sms
-                        OrderPlacedEvent event = new OrderPlacedEvent(savedOrder.getOrderId(),
-                                savedOrder.getCustomerEmail(),
-                                "dummyToken",
-                                savedOrder.getCustomerPhone(),
-                                LocalDate.now(),
-                                ActionBy.ADMIN,
-                                Reason.ADMIN_ACTION
-                                );
-                        try {
-                          orderEventProducer.sendOrderPlacedEvent(event);
-                        } catch (Exception e){
-                          //log kafka error but still return the saved order
-                          logger.error("Failed to send order placed event for orderId: {} to Kafka", savedOrder.getOrderId(), e);
-                        }
-                        return Mono.just(savedOrder);
+    //a. b. c. fetch each distinct product once, check the stock and update the order items with the product details
+    return validateOrderItems(order.getOrderItems(), order, Map.of())
+            .flatMap(validatedOrderItems -> {
+              //Call inventory service once to deduct stock for all the items (all-or-nothing)
+              //no need to check if inventory exists, for product to exist, inventory must have been created
+              var deductInventoryRequests = toDeductInventoryRequests(quantitiesByProductId(validatedOrderItems));
+              return inventoryServiceClient.deductInventoryBatch(deductInventoryRequests)
+                      //d. calculate the total only after the deduction succeeded
+                      .then(Mono.fromCallable(() -> calculateTotalAmount(validatedOrderItems)))
+                      .flatMap(totalAmount -> {
+                        order.setTotalAmount(totalAmount);
+                        order.setOrderStatus("PLACED");
+
+                        // Order placed event for the three channels: email, push notification and sms,
+                        // stored in the outbox in the same transaction as the order and published to Kafka by the relay
+                        return reactiveOrderStore.insert(order, savedOrder -> orderEventOutbox.newOrderPlacedEntry(
+                                        new OrderPlacedEvent(savedOrder.getOrderId(),
+                                                savedOrder.getCustomerEmail(),
+                                                "dummyToken",
+                                                savedOrder.getCustomerPhone(),
+                                                LocalDate.now(),
+                                                ActionBy.ADMIN,
+                                                Reason.ADMIN_ACTION
+                                        )))
+                                //the insert failed: the stock deducted above is released, the error goes on
+                                .onErrorResume(ex -> restoreInventory(toRestoreInventoryRequests(deductInventoryRequests))
+                                        .then(Mono.error(ex)));
                       });
-            }));
+            });
   }
 
   /**
@@ -362,54 +388,65 @@ public class OrderServiceImpl implements OrderService {
   }
 
   /**
-   * Retrieve all orders
+   * Search orders by keyset: the page is read right after the id of the last order of the previous page,
+   * which the indexes on the orders table seek to directly, however deep the page.
+   * One more row than the limit is read to tell whether a next page exists, so no count query is run,
+   * and only the summary columns are selected: the items of the orders are not read at all.
+   * Pages are not cached, the combinations of filters and positions are too many to be reused.
    */
   @Override
-  @Cacheable(value = "orders")
-
-  //DONE: The return type has been changed to OrderDto
-  public List<OrderDto> getAllOrders() {
-
-    var foundOrders = orderRepository.findAll();
-    //Convert Orders to OrderDtos and return
-    return  OrderMapper.mapFromOrdersToOrderDtos(foundOrders);
-  }
-
-  @Override
-  @Cacheable(value = "ordersWithoutTheCancelledOnes")
-  public List<OrderDto> getAllOrdersWithoutCancelledOnes() {
-
-    var foundOrders = orderRepository.findByOrderStatusNot("CANCELLED");
-    //Convert Orders to OrderDtos and return
-    return  OrderMapper.mapFromOrdersToOrderDtos(foundOrders);
+  public Window<OrderSummaryDto> searchOrders(OrderSearchCriteria criteria, ScrollPosition position, int limit) {
+    var validCriteria = new OrderSearchCriteria(
+            validOrderStatusOrNull(criteria.orderStatus()),
+            validOrderStatusOrNull(criteria.excludedOrderStatus()),
+            criteria.customerEmail(),
+            criteria.fromDate(),
+            criteria.toDate());
+    if (validCriteria.fromDate() != null && validCriteria.toDate() != null
+            && validCriteria.fromDate().isAfter(validCriteria.toDate())) {
+      throw new IllegalArgumentException("The from date must not be after the to date");
+    }
+    return orderRepository.findBy(OrderSpecifications.matching(validCriteria),
+            query -> query.as(OrderSummaryDto.class).sortBy(NEWEST_ORDERS_FIRST).limit(limit).scroll(position));
   }
 
-  /**The method findOrderByEmail is a custom method created in the
-   * OrderRepository interface
-   * This method Retrieves all orders by customer email
+  /**
+   * Streams the orders and their items straight from a database cursor, in order id order.
+   * Each order is detached once written (its items with it), so memory use does not grow with the number of orders.
+   * Not cached: an export reads the current data.
    */
   @Override
-  @Cacheable(value = "orders", key = "#customerEmail")
-  //DONE: The return type has been changed to OrderDto
-  public List<OrderDto> getOrdersByCustomerEmail(String customerEmail) {
-    if (customerEmail == null || customerEmail.isEmpty()) {
-      throw new IllegalArgumentException("Customer email is required");
+  @Transactional
+  public long exportOrders(LocalDate since, ExportFormat format, OutputStream outputStream) throws IOException {
+    try (var orders = since == null
+            ? orderRepository.streamAllWithItems()
+            : orderRepository.streamPlacedSinceWithItems(since)) {
+      var count = ORDER_EXPORTER.export(orders, format, outputStream, entityManager::detach);
+      logger.info("exported {} orders as {} (since: {})", count, format, since);
+      return count;
     }
-    var orders = orderRepository.findByCustomerEmail(customerEmail);
-    //Convert Orders to OrderDtos and return
-    return OrderMapper.mapFromOrdersToOrderDtos(orders);
+  }
 
-    //TODO: Implement pagination and filtering
+  //the items of an exported order, without the back reference to the order
+  private static List<Map<String, Object>> exportedOrderItems(Order order) {
+    return order.getOrderItems().stream()
+            .map(orderItem -> {
+              Map<String, Object> exportedItem = new LinkedHashMap<>();
+              exportedItem.put("productId", orderItem.getProductId());
+              exportedItem.put("productName", orderItem.getProductName());
+              exportedItem.put("productPrice", orderItem.getProductPrice());
+              exportedItem.put("productQuantity", orderItem.getProductQuantity());
+              return exportedItem;
+            })
+            .toList();
   }
 
   //TODO: IMPLEMENT GET CUSTOMER BY PHONE NUMBER
 
-  @Override
-  @Cacheable(value = "orders", key = "#orderStatus")
-  //DONE: The return type has been changed to OrderDto
-  public List<OrderDto> getOrdersByStatus(String orderStatus) {
+  //trimmed and upper case as stored, null when no status is given
+  private static String validOrderStatusOrNull(String orderStatus) {
     if (orderStatus == null || orderStatus.isBlank()) {
-      throw new IllegalArgumentException("Order status is required");
+      return null;
     }
 
     //trim and convert to uppercase
@@ -421,14 +458,8 @@ public class OrderServiceImpl implements OrderService {
     //Validate order status against allowed statuses
     if(!orderToBeValidated.isOrderStatusValid(orderStatus)){
       throw new IllegalArgumentException("Invalid order status: " + orderStatus);
-
     }
-    var foundOrders = orderRepository.findByOrderStatusIgnoreCase(orderStatus);
-
-    //Convert Orders to OrderDtos and return
-    return OrderMapper.mapFromOrdersToOrderDtos(foundOrders);
-
-    //TODO: Implement pagination and filtering
+    return orderStatus;
   }
 
 
@@ -495,7 +526,9 @@ public class OrderServiceImpl implements OrderService {
               });
     }
     foundOrder.setOrderStatus(orderStatus.trim().toUpperCase());
-    return orderRepository.save(foundOrder);
+    var savedOrder = orderRepository.save(foundOrder);
+    evictOrderDtos(List.of(orderId));
+    return savedOrder;
   }
 
   /**
@@ -510,7 +543,7 @@ public class OrderServiceImpl implements OrderService {
   public Mono<Order> updateOrder(Long orderId, Order updateOrder) {
 
     //1. Find the existing order
-    return Mono.justOrEmpty(orderRepository.findById(orderId)) //convert Optional to Mono
+    return reactiveOrderStore.findById(orderId)
             .switchIfEmpty(Mono.error(new OrderNotFoundException(orderId)))
             .flatMap(existingOrder -> {
 //              System.out.println("Updating Order: " + existingOrder);
@@ -522,11 +555,8 @@ public class OrderServiceImpl implements OrderService {
               existingOrder.setCustomerEmail(updateOrder.getCustomerEmail());
               existingOrder.setShippingAddress(updateOrder.getShippingAddress());
 
-              //delete old order items entities from the database
-              var oldOrderItems = new ArrayList<>(existingOrder.getOrderItems());
-              existingOrder.getOrderItems().clear();
-              //delete old order items
-              oldOrderItems.forEach(orderItem -> orderRepository.deleteOrderItemById(orderItem.getOrderItemId()));
+              //the stored items, which the validated ones are diffed against when the order is saved
+              var storedOrderItems = List.copyOf(existingOrder.getOrderItems());
 
               //validate and update order items
               return Flux.fromIterable(updateOrder.getOrderItems())
@@ -541,6 +571,7 @@ public class OrderServiceImpl implements OrderService {
                                 //.uri(productServiceConfig.getBaseUrl() + "/" + productId)
                                 .retrieve()
                                 .bodyToMono(Result.class)
+                                .transform(clientResilience.guard("product-service", "get-product"))
                                 .map(result -> {
                                   if(result.getData() == null){
                                     throw new ProductNotFoundException(productId);
@@ -598,9 +629,11 @@ public class OrderServiceImpl implements OrderService {
                         //4. Set order status to "PLACED"
                         existingOrder.setOrderStatus("PLACED");
                       })
-                      .then(Mono.just(existingOrder));
-            }).flatMap(existingOrder -> Mono.fromCallable(() -> orderRepository.save(existingOrder))
-                    .subscribeOn(Schedulers.boundedElastic())); //Wrap blocking call in a reactive context
+                      //order row and changed items are written in one reactive transaction
+                      .flatMap(validatedOrderItems -> reactiveOrderStore.update(existingOrder,
+                              OrderItemChanges.between(storedOrderItems, validatedOrderItems)));
+            })
+            .flatMap(this::evictOrderDto);
 
   }
 
@@ -611,146 +644,81 @@ public class OrderServiceImpl implements OrderService {
    * The method is implemented to call externalized services like
    * Get Product, Deduct Inventory and restock inventory in the common-utils module.
    * The order service is the client of the product and inventory services.
+   * The order is read and written through R2DBC. The new items are diffed against the stored ones
+   * ({@link OrderItemChanges}): a line of an unchanged product keeps its row and is updated in place,
+   * only the removed lines are deleted, and the order row and item changes are written in one reactive
+   * transaction with a constant number of statements. Inventory moves by the net change of each product,
+   * with at most one deduction call before the write and one restoration call after it.
    */
   @Override
   @CachePut(value = "order", key = "#orderId")
-  @Transactional
   public Mono<Order> updateOrderByCallingExternalizedServices(Long orderId, Order updateOrder) {
 
     //1. Find the existing order
-    return Mono.justOrEmpty(orderRepository.findById(orderId))
+    return reactiveOrderStore.findById(orderId)
             .switchIfEmpty(Mono.error(new OrderNotFoundException(orderId)))
             .flatMap(existingOrder -> {
-              System.out.println("Updating Order: " + existingOrder);
+              logger.info("Updating order: {}", existingOrder.getOrderId());
 
               /*
-               * //skip inventory restoration for order if //existingOrder Status is CANCELLED, SHIPPED or DELIVERED
+               * //the stock of the stored items is still reserved unless the order is CANCELLED, SHIPPED or DELIVERED
                * //“Restore inventory only if the current order status is not CANCELLED, SHIPPED, or DELIVERED.”
                */
-
-              boolean shouldRestoreInventory = Stream.of("CANCELLED", "SHIPPED", "DELIVERED")
+              boolean holdsReservation = Stream.of("CANCELLED", "SHIPPED", "DELIVERED")
                       .noneMatch(status -> status.equalsIgnoreCase(existingOrder.getOrderStatus()));
-
-              Mono<Void> inventoryRestorationMono;
-              if (shouldRestoreInventory) {
-                //Note: Restore inventory for old items by calling inventory service
-                inventoryRestorationMono = Flux.fromIterable(existingOrder.getOrderItems())
-                        .flatMap(oldItem ->
-                                inventoryServiceClient.restoreInventory(
-                                        oldItem.getProductId(),
-                                        oldItem.getProductQuantity()
-                                        )
-                                        .doOnError(ex ->
-                                                logger.error("Could not to restore inventory for product ID: {} with quantity: {}", oldItem.getProductId(), ex.getMessage())))
-                        .then();
-              } else {
-                //No restoration needed, just an empty Mono
+              var storedOrderItems = List.copyOf(existingOrder.getOrderItems());
+              Map<UUID, Integer> reservedQuantities = holdsReservation ? quantitiesByProductId(storedOrderItems) : Map.of();
+              if (!holdsReservation) {
                 logger.info("Skipping inventory restoration for order ID: {} with status: {}", existingOrder.getOrderId(), existingOrder.getOrderStatus());
-                inventoryRestorationMono = Mono.empty();
               }
-              return inventoryRestorationMono
-                      .then(Mono.defer(()-> {
-                                //update logic here, update basic detail
-                                existingOrder.setCustomerName(updateOrder.getCustomerName());
-                                existingOrder.setCustomerEmail(updateOrder.getCustomerEmail());
-                                existingOrder.setShippingAddress(updateOrder.getShippingAddress());
-
-                                //delete old order items entities from the database
-                                var oldOrderItems = new ArrayList<>(existingOrder.getOrderItems());
-                                existingOrder.getOrderItems().clear();
-                                //delete old order items
-                                oldOrderItems
-                                        .forEach(orderItem ->
-                                                orderRepository.deleteOrderItemById(orderItem.getOrderItemId()));
-
-                                //validate and update order items
-                                return Flux.fromIterable(updateOrder.getOrderItems())
-                                        .flatMap(orderItem -> {
-                                          var productId = orderItem.getProductId();
-                                          var quantity = orderItem.getProductQuantity();
-
-                                          //Note: a. call product service to get product details
-                                          return productServiceClient.getProductById(productId)
-                                                  .flatMap(productDto -> {
-                                                    if(productDto == null){
-                                                      return Mono.error(new ProductNotFoundException(productId));
-                                                    }
-                                                    //b. check if product quantity is available
-//                                                    if (productDto.productQuantity() < quantity) {
-//                                                      return Mono.error(new InsufficientStockQuantityException(productId));
-//                                                    }
-                                                    //changed to availableStock
-                                                    if (productDto.availableStock() < quantity) {
-                                                      return Mono.error(new InsufficientStockQuantityException(productId));
-                                                    }
-
-                                                    //Call inventory service to deduct stock
-                                                    return inventoryServiceClient.deductInventory(productId, quantity)
-                                                            .then(Mono.fromCallable(() -> {
-                                                              // Enrich order item only after deduction
-                                                              //c update order item with validated product details
-                                                              orderItem.setProductName(productDto.productName());
-                                                              orderItem.setProductPrice(productDto.productPrice());
-                                                              orderItem.setOrder(existingOrder);
-                                                              //d. calculate the subtotal for the order item
-                                                              var itemTotal = productDto.productPrice().multiply(BigDecimal.valueOf(quantity));
-//                                                              System.out.println("Product Price: " + itemTotal);
-//                                                              System.out.println("Product Quantity: " + quantity);
-                                                              logger.info("THE_PRODUCT_PRICE: {}", itemTotal);
-                                                              logger.info("THE_PRODUCT_QUANTITY: {}", quantity);
-                                                              return orderItem;
-                                                            }));
-
-                                                  });
-                                        })
-                                        .collectList()
-                                        .doOnNext(validatedOrderItems -> {
-                                          if (validatedOrderItems.isEmpty()) {
-                                            throw new IllegalArgumentException("No valid order items to update");
-                                          }
-                                          //update order with validated order items
-                                          existingOrder.addOrderItems(validatedOrderItems);
-                                          //calculate total amount
-                                          var totalAmount = validatedOrderItems.stream()
-                                                  .map(item -> item
-                                                          .getProductPrice()
-                                                          .multiply(BigDecimal.valueOf(item.getProductQuantity())))
-                                                  .reduce(BigDecimal.ZERO, BigDecimal::add);
-                                          existingOrder.setTotalAmount(totalAmount);
-//                                          System.out.println("Final Total Amount: " + existingOrder.getTotalAmount());
-                                          logger.info("FINAL_TOTAL_AMOUNT: {}", existingOrder.getTotalAmount());
-
-                                          //4. Set order status to "PLACED"
-                                          existingOrder.setOrderStatus("PLACED");
-                                        })
-                                        .then(Mono.just(existingOrder));
-                              }));
 
+              //validate and update order items, each distinct product is fetched once
+              return validateOrderItems(updateOrder.getOrderItems(), existingOrder, reservedQuantities)
+                      .flatMap(validatedOrderItems -> {
+                        if (validatedOrderItems.isEmpty()) {
+                          return Mono.error(new IllegalArgumentException("No valid order items to update"));
+                        }
+                        //inventory only moves by the net change of each product: the lines kept as they were cost nothing
+                        var inventoryDeltas = inventoryDeltas(reservedQuantities, quantitiesByProductId(validatedOrderItems));
+                        var itemChanges = OrderItemChanges.between(storedOrderItems, validatedOrderItems);
+
+                        //update logic here, update basic detail
+                        existingOrder.setCustomerName(updateOrder.getCustomerName());
+                        existingOrder.setCustomerEmail(updateOrder.getCustomerEmail());
+                        existingOrder.setShippingAddress(updateOrder.getShippingAddress());
+                        existingOrder.addOrderItems(validatedOrderItems);
+                        existingOrder.setTotalAmount(calculateTotalAmount(validatedOrderItems));
+                        logger.info("FINAL_TOTAL_AMOUNT: {}", existingOrder.getTotalAmount());
+                        //4. Set order status to "PLACED"
+                        existingOrder.setOrderStatus("PLACED");
+
+                        //the increases are reserved in one call (all-or-nothing) before anything is written
+                        var deductInventoryRequests = toDeductInventoryRequests(inventoryDeltas);
+                        var inventoryDeduction = deductInventoryRequests.isEmpty()
+                                ? Mono.<Void>empty()
+                                : inventoryServiceClient.deductInventoryBatch(deductInventoryRequests);
+                        return inventoryDeduction
+                                //order updated event stored in the outbox in the same transaction as the update
+                                .then(Mono.defer(() -> reactiveOrderStore.update(existingOrder, itemChanges,
+                                        savedOrder -> orderEventOutbox.newOrderUpdatedEntry(new OrderUpdatedEvent(
+                                                savedOrder.getOrderId(),
+                                                //the three channels: email, push notification and sms
+                                                savedOrder.getCustomerEmail(),
+                                                "dummyToken",
+                                                savedOrder.getCustomerPhone(),
+                                                ActionBy.ADMIN,
+                                                Reason.ADMIN_ACTION,
+                                                LocalDate.now()
+                                        )))
+                                        //the write failed: the increases reserved above are released, the error goes on
+                                        .onErrorResume(ex -> restoreInventory(toRestoreInventoryRequests(deductInventoryRequests))
+                                                .then(Mono.error(ex)))))
+                                //the decreases are released in one call once the order no longer holds them
+                                .flatMap(savedOrder -> restoreInventory(toRestoreInventoryRequests(inventoryDeltas))
+                                        .thenReturn(savedOrder));
+                      });
             })
-            .flatMap(existingOrder -> Mono.fromCallable(() ->
-                            orderRepository.save(existingOrder))
-                    .subscribeOn(Schedulers.boundedElastic())
-                    //publish order updated event to Kafka topic on successful save
-                    .doOnSuccess(savedOrder ->{
-                      assert savedOrder != null;
-                      OrderUpdatedEvent event = new OrderUpdatedEvent(
-                              savedOrder.getOrderId(),
-                              //the three channels: email, push notification and sms
-                              savedOrder.getCustomerEmail(),
-                              "dummyToken",
-                              savedOrder.getCustomerPhone(),
-                              ActionBy.ADMIN,
-                              Reason.ADMIN_ACTION,
-                              LocalDate.now()
-                      );
-                      try {
-                        orderEventProducer.sendOrderUpdatedEvent(event);
-                      } catch (Exception e){
-                        //log kafka error but still return the saved order
-                        logger.error("Failed to send order updated event for orderId: {} to Kafka", savedOrder.getOrderId(), e);
-                      }
-                    })
-            ); //Wrap blocking call in a reactive context
+            .flatMap(this::evictOrderDto);
   }
 
   /**
@@ -804,9 +772,9 @@ public class OrderServiceImpl implements OrderService {
 
     //Delete the order(OrderItems will be deleted automatically due to CascadeType.ALL in Order class)
     orderRepository.delete(foundOrder);
-    //DONE: Publish order deleted event to Kafka topic if needed
-    //TODO: UPDATE THE UNIT TEST AND INTEGRATION TESTS
-    //Publish order deleted event to Kafka topic
+    //evicted once the transaction commits
+    evictOrderDtos(List.of(orderId));
+    //Order deleted event, stored in the outbox in this transaction and published to Kafka by the relay
     var event = new OrderDeletedEvent(foundOrder.getOrderId(),
             foundOrder.getCustomerEmail(),
             "dummyToken",
@@ -814,11 +782,7 @@ public class OrderServiceImpl implements OrderService {
             Reason.ADMIN_ACTION,
             ActionBy.ADMIN,
             LocalDate.now());
-    try {
-      orderEventProducer.sendOrderDeletedEvent(event);
-    } catch (Exception e) {
-      logger.error("Failed to send order deleted event for orderId: {} to Kafka", foundOrder.getOrderId(), e);
-    }
+    orderEventOutbox.appendOrderDeletedEvent(event);
   }
 
   /**
@@ -877,6 +841,7 @@ public class OrderServiceImpl implements OrderService {
         throw new IllegalArgumentException("Cannot delete orders that are already SHIPPED or DELIVERED");
       }
       orderRepository.deleteAll(orders);
+      evictOrderDtos(foundOrders);
       //todo: publish bulk order deleted event to Kafka if needed
       logger.info("*******Deleted {} orders successfully*******", orders.size());
       } else if (!missingOrderIds.isEmpty()) {
@@ -923,7 +888,7 @@ public class OrderServiceImpl implements OrderService {
     });
     //soft delete the order
     foundOrder.setOrderStatus("CANCELLED");
-    //publish order canceled event to Kafka topic
+    //order canceled event, stored in the outbox in this transaction and published to Kafka by the relay
     OrderCancelledEvent event = new OrderCancelledEvent(foundOrder.getOrderId(),
             foundOrder.getCustomerEmail(),
             "dummyToken",
@@ -931,17 +896,15 @@ public class OrderServiceImpl implements OrderService {
             LocalDate.now(),
             ActionBy.ADMIN,
             Reason.ADMIN_ACTION);
-    try {
-      orderEventProducer.sendOrderCancelledEvent(event);
-    } catch (Exception e){
-      logger.error("Order cancellation event sending failed for orderId: {} to Kafka", foundOrder.getOrderId(), e);
-    }
     orderRepository.save(foundOrder);
+    orderEventOutbox.appendOrderCancelledEvent(event);
+    //evicted once the transaction commits
+    evictOrderDtos(List.of(orderId));
 
   }
 
   @Override
-  @CacheEvict(value = "orders", allEntries = true)
+  @CacheEvict(value = {"order", "orderDto"}, allEntries = true)
   public void clearAllCache() {
     //clear all cache entries
     logger.info("*******Clearing all Order cache entries*******");
@@ -975,5 +938,156 @@ public class OrderServiceImpl implements OrderService {
     //order can be deleted regardless of its status
     //Delete the order(OrderItems will be deleted automatically due to CascadeType.ALL in Order class)
     orderRepository.delete(foundOrder);
+    evictOrderDtos(List.of(orderId));
+  }
+
+  /**
+   * The orders changed or were deleted: their cached dtos are evicted, once the transaction commits
+   * when there is one, so that a read made in between does not cache the data of the open transaction again.
+   */
+  private void evictOrderDtos(Collection<Long> orderIds) {
+    var orderDtoCache = cacheManager.getCache("orderDto");
+    if (orderDtoCache == null || orderIds.isEmpty()) {
+      return;
+    }
+    var orderIdsToEvict = List.copyOf(orderIds);
+    if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+      orderIdsToEvict.forEach(orderDtoCache::evict);
+      return;
+    }
+    TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+      @Override
+      public void afterCommit() {
+        orderIdsToEvict.forEach(orderDtoCache::evict);
+      }
+    });
+  }
+
+  //same as above once a reactive write completed; the Redis calls block, so they run off the event loop
+  private Mono<Order> evictOrderDto(Order savedOrder) {
+    return Mono.fromRunnable(() -> evictOrderDtos(List.of(savedOrder.getOrderId())))
+            .subscribeOn(Schedulers.boundedElastic())
+            .thenReturn(savedOrder);
+  }
+
+  /**
+   * Builds one inventory deduction request per order item, so that the items of an order
+   * can be reserved with a single call to the inventory service.
+   */
+  private List<DeductInventoryRequestDto> toDeductInventoryRequests(List<OrderItem> orderItems) {
+    return orderItems.stream()
+            .map(orderItem -> new DeductInventoryRequestDto(orderItem.getProductId(), orderItem.getProductQuantity()))
+            .toList();
+  }
+
+  /**
+   * Sums the quantities of the given order items per product, in the order the products first appear.
+   */
+  private static Map<UUID, Integer> quantitiesByProductId(List<OrderItem> orderItems) {
+    return orderItems.stream()
+            .collect(Collectors.toMap(OrderItem::getProductId, OrderItem::getProductQuantity, Integer::sum, LinkedHashMap::new));
+  }
+
+  /**
+   * The change of the reserved quantity of each product: positive to deduct, negative to restore.
+   * The products whose quantity did not change are left out.
+   */
+  private static Map<UUID, Integer> inventoryDeltas(Map<UUID, Integer> reservedQuantities, Map<UUID, Integer> newQuantities) {
+    var deltas = new LinkedHashMap<UUID, Integer>();
+    newQuantities.forEach((productId, quantity) -> deltas.put(productId, quantity - reservedQuantities.getOrDefault(productId, 0)));
+    reservedQuantities.forEach((productId, quantity) -> deltas.putIfAbsent(productId, -quantity));
+    deltas.values().removeIf(delta -> delta == 0);
+    return deltas;
+  }
+
+  private static List<DeductInventoryRequestDto> toDeductInventoryRequests(Map<UUID, Integer> inventoryDeltas) {
+    return inventoryDeltas.entrySet().stream()
+            .filter(delta -> delta.getValue() > 0)
+            .map(delta -> new DeductInventoryRequestDto(delta.getKey(), delta.getValue()))
+            .toList();
+  }
+
+  private static List<RestoreInventoryDto> toRestoreInventoryRequests(Map<UUID, Integer> inventoryDeltas) {
+    return inventoryDeltas.entrySet().stream()
+            .filter(delta -> delta.getValue() < 0)
+            .map(delta -> new RestoreInventoryDto(delta.getKey(), -delta.getValue()))
+            .toList();
+  }
+
+  private static List<RestoreInventoryDto> toRestoreInventoryRequests(List<DeductInventoryRequestDto> deductInventoryRequests) {
+    return deductInventoryRequests.stream()
+            .map(deduction -> new RestoreInventoryDto(deduction.productId(), deduction.quantity()))
+            .toList();
+  }
+
+  /**
+   * Releases the stock an updated order no longer holds, or the stock reserved for an order or an update that could
+   * not be saved. A failure is logged for the stock to be reconciled instead of replacing the outcome of the write.
+   */
+  private Mono<Void> restoreInventory(List<RestoreInventoryDto> restoreInventoryRequests) {
+    if (restoreInventoryRequests.isEmpty()) {
+      return Mono.empty();
+    }
+    return inventoryServiceClient.restoreInventoryBatch(restoreInventoryRequests)
+            .onErrorResume(ex -> {
+              logger.error("Could not restore inventory {}: {}", restoreInventoryRequests, ex.getMessage());
+              return Mono.empty();
+            });
+  }
+
+  /**
+   * Validates the order items against product-service and fills in their product name and price.
+   * A product that appears on several lines is fetched once, and its stock is checked against
+   * the quantity of all those lines together, less the quantity the order already holds.
+   * @param reservedQuantities the quantity of each product already reserved for the order, empty for a new order
+   * @return a new list with the validated order items, in the order of the given items
+   */
+  private Mono<List<OrderItem>> validateOrderItems(List<OrderItem> orderItems, Order order, Map<UUID, Integer> reservedQuantities) {
+    return lookupProducts(orderItems)
+            .map(products -> {
+              quantitiesByProductId(orderItems)
+                      .forEach((productId, quantity) -> {
+                        //changed to availableStock
+                        if (products.get(productId).availableStock() < quantity - reservedQuantities.getOrDefault(productId, 0)) {
+                          throw new InsufficientStockQuantityException(productId);
+                        }
+                      });
+              var validatedOrderItems = new ArrayList<OrderItem>(orderItems.size());
+              for (var orderItem : orderItems) {
+                var productDto = products.get(orderItem.getProductId());
+                orderItem.setProductName(productDto.productName());
+                orderItem.setProductPrice(productDto.productPrice());
+                orderItem.setOrder(order);
+                validatedOrderItems.add(orderItem);
+              }
+              return validatedOrderItems;
+            });
+  }
+
+  /**
+   * Fetches the products of the given order items from product-service, each distinct product once.
+   * The ids are sent in batch reads of at most {@value #PRODUCT_BATCH_SIZE}, so an order costs a single call
+   * unless it is very large; then at most product-service.lookup-concurrency batches are in flight.
+   */
+  private Mono<Map<UUID, ProductDto>> lookupProducts(List<OrderItem> orderItems) {
+    return Flux.fromStream(orderItems.stream().map(OrderItem::getProductId).distinct())
+            .buffer(PRODUCT_BATCH_SIZE)
+            .flatMap(productServiceClient::getProductsByIds, productServiceConfig.getLookupConcurrency())
+            .flatMap(productBatch -> {
+              if (!productBatch.missingProductIds().isEmpty()) {
+                return Flux.<ProductDto>error(new ProductNotFoundException(productBatch.missingProductIds().getFirst()));
+              }
+              return Flux.fromIterable(productBatch.products());
+            })
+            .collectMap(ProductDto::productId);
+  }
+
+  /**
+   * Sums price * quantity over the given order items.
+   */
+  private BigDecimal calculateTotalAmount(List<OrderItem> orderItems) {
+    return orderItems.stream()
+            .map(orderItem -> orderItem.getProductPrice().multiply(BigDecimal.valueOf(orderItem.getProductQuantity())))
+            .reduce(BigDecimal.ZERO, BigDecimal::add);
   }
 }
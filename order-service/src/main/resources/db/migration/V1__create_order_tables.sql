@@ -0,0 +1,31 @@
+--------Orders and their items, read and written by JPA (Order, OrderItem) and R2DBC (OrderRecord, OrderItemRecord)--------
+--databases created by ddl-auto before the migrations already have both tables: V2 switches their ids to identity
+CREATE TABLE IF NOT EXISTS orders (
+
+    order_id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    customer_name VARCHAR(255) NOT NULL,
+    customer_email VARCHAR(255) NOT NULL,
+    customer_phone VARCHAR(15),
+    shipping_address VARCHAR(255) NOT NULL,
+    total_amount NUMERIC(38, 2) NOT NULL,
+    order_date DATE NOT NULL,
+    order_status VARCHAR(255) NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS order_items (
+
+    order_item_id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    product_id UUID NOT NULL,
+    product_name VARCHAR(255) NOT NULL,
+    product_price NUMERIC(38, 2) NOT NULL,
+    product_quantity INTEGER NOT NULL,
+    order_id BIGINT NOT NULL,
+    CONSTRAINT fk_order_items_order_id FOREIGN KEY (order_id) REFERENCES orders (order_id)
+);
+
+---keyset pagination of the order listings, newest first: each index serves a filter with the order id as sort key---
+CREATE INDEX IF NOT EXISTS idx_orders_customer_email ON orders (customer_email, order_id);
+CREATE INDEX IF NOT EXISTS idx_orders_status ON orders (order_status, order_id);
+CREATE INDEX IF NOT EXISTS idx_orders_date ON orders (order_date, order_id);
+---the items of an order are read by order id, which PostgreSQL does not index for the foreign key---
+CREATE INDEX IF NOT EXISTS idx_order_items_order_id ON order_items (order_id);
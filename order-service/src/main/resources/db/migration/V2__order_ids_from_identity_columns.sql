@@ -0,0 +1,28 @@
+--------Order ids from identity columns, so rows inserted through R2DBC get an id too--------
+--tables created by ddl-auto took their ids from the orders_seq and order_items_seq sequences of Hibernate:
+--their id columns become identity columns that continue after the highest id.
+--Instances of the previous version still take ids from the old sequences, so they must be stopped before
+--the first instance of this version runs the migration; the old sequences are dropped.
+DO $$
+BEGIN
+    IF EXISTS (SELECT 1 FROM information_schema.columns
+               WHERE table_schema = current_schema() AND table_name = 'orders'
+                 AND column_name = 'order_id' AND is_identity = 'NO') THEN
+        RAISE NOTICE 'Switching orders.order_id to an identity column';
+        ALTER TABLE orders ALTER COLUMN order_id ADD GENERATED BY DEFAULT AS IDENTITY;
+        PERFORM setval(pg_get_serial_sequence('orders', 'order_id'),
+                       COALESCE((SELECT MAX(order_id) FROM orders), 0) + 1, false);
+    END IF;
+
+    IF EXISTS (SELECT 1 FROM information_schema.columns
+               WHERE table_schema = current_schema() AND table_name = 'order_items'
+                 AND column_name = 'order_item_id' AND is_identity = 'NO') THEN
+        RAISE NOTICE 'Switching order_items.order_item_id to an identity column';
+        ALTER TABLE order_items ALTER COLUMN order_item_id ADD GENERATED BY DEFAULT AS IDENTITY;
+        PERFORM setval(pg_get_serial_sequence('order_items', 'order_item_id'),
+                       COALESCE((SELECT MAX(order_item_id) FROM order_items), 0) + 1, false);
+    END IF;
+END $$;
+
+DROP SEQUENCE IF EXISTS orders_seq;
+DROP SEQUENCE IF EXISTS order_items_seq;
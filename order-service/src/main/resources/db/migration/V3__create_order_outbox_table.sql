@@ -0,0 +1,11 @@
+--------Outbox of the order events: written in the transaction of the order, published to Kafka by OrderOutboxRelay--------
+--the relay locks the oldest rows by id (FOR UPDATE SKIP LOCKED) and deletes them once Kafka acknowledged them
+CREATE TABLE IF NOT EXISTS order_outbox (
+
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    aggregate_id BIGINT NOT NULL,
+    topic VARCHAR(255) NOT NULL,
+    event_type VARCHAR(255) NOT NULL,
+    payload TEXT NOT NULL,
+    created_at TIMESTAMP(6) NOT NULL
+);
@@ -22,6 +22,7 @@ import org.springframework.test.context.TestPropertySource;
 				"spring.datasource.driver-class-name=org.testcontainers.jdbc.ContainerDatabaseDriver",
 				"spring.datasource.username=testuser",
 				"spring.datasource.password=testpassword",
+				"spring.r2dbc.url=r2dbc:tc:postgresql:///orderdb?TC_IMAGE_TAG=15.0",
 				"redis.enabled=false", //disable redis
 				"spring.profiles.active=test",
 				"spring.kafka.bootstrap-servers=localhost:0", // Use an invalid port to prevent actual connections
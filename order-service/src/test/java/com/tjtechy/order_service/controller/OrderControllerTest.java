@@ -9,14 +9,21 @@ package com.tjtechy.order_service.controller;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.tjtechy.RedisCacheConfig;
+import com.tjtechy.StatusCode;
 import com.tjtechy.actuator.Meter;
+import com.tjtechy.export.ExportFormat;
 import com.tjtechy.order_service.entity.Order;
 import com.tjtechy.order_service.entity.OrderItem;
 import com.tjtechy.order_service.entity.dto.CreateOrderDto;
 import com.tjtechy.order_service.entity.dto.OrderDto;
 import com.tjtechy.order_service.entity.dto.OrderItemDto;
+import com.tjtechy.order_service.entity.dto.OrderSearchCriteria;
+import com.tjtechy.order_service.entity.dto.OrderSummaryDto;
 import com.tjtechy.order_service.entity.dto.UpdateOrderDto;
+import com.tjtechy.order_service.config.IdempotencyConfig;
+import com.tjtechy.order_service.config.IdempotencyProperties;
 import com.tjtechy.order_service.exception.ExceptionHandlingAdvice;
+import com.tjtechy.order_service.idempotency.IdempotencyService;
 import com.tjtechy.order_service.mapper.OrderMapper;
 import com.tjtechy.order_service.service.OrderService;
 import org.junit.jupiter.api.AfterEach;
@@ -30,6 +37,8 @@ import org.springframework.boot.webmvc.test.autoconfigure.WebMvcTest;
 import org.springframework.cloud.config.client.ConfigServerBootstrapper;
 import org.springframework.cloud.netflix.eureka.EurekaClientAutoConfiguration;
 import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Window;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.http.MediaType;
 
@@ -42,16 +51,21 @@ import org.springframework.test.web.servlet.client.MockMvcWebTestClient;
 import org.springframework.web.context.WebApplicationContext;
 import reactor.core.publisher.Mono;
 
+import java.io.OutputStream;
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 import static org.mockito.Mockito.*;
 
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -82,7 +96,8 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
  * Speed up your tests and avoid irrelevant bean creation errors
  */
 @ContextConfiguration(classes = {OrderController.class})
-@Import({TestSecurityConfig.class, ExceptionHandlingAdvice.class}) // Import the TestSecurityConfig class to override security configuration
+@Import({TestSecurityConfig.class, ExceptionHandlingAdvice.class, // Import the TestSecurityConfig class to override security configuration
+        IdempotencyService.class, IdempotencyConfig.class, IdempotencyProperties.class}) // real idempotency handling with the in-process store (redis is disabled)
 class OrderControllerTest {
 
   /**
@@ -279,6 +294,94 @@ class OrderControllerTest {
     verify(orderService).processOrderReactively(any(Order.class));
   }
 
+  /**
+   * A retry with the same Idempotency-Key gets the response of the first request
+   * and the order is only placed once.
+   */
+  @Test
+  void createOrderWithSameIdempotencyKeyIsProcessedOnce() throws Exception {
+    //Given
+    List<OrderItemDto> orderItemDtos = List.of(new OrderItemDto(UUID.randomUUID(), "PRODUCT1", 10));
+    CreateOrderDto createOrderDto = new CreateOrderDto(
+            "customer1 name", "customer1@email.com", "+1234567890", "customer1 address", orderItemDtos);
+    var json = objectMapper.writeValueAsString(createOrderDto);
+
+    var savedOrder = new Order();
+    savedOrder.setOrderId(1L);
+    savedOrder.setCustomerName("customer1 name");
+    savedOrder.setOrderStatus("PLACED");
+    savedOrder.setShippingAddress("customer1 address");
+    savedOrder.setOrderDate(LocalDate.now());
+    savedOrder.setTotalAmount(BigDecimal.TEN);
+    savedOrder.setCustomerEmail("customer1@email.com");
+    savedOrder.setOrderItems(new ArrayList<>());
+
+    when(orderService.processOrderReactivelyByCallingExternalizedServices(any(Order.class)))
+            .thenReturn(Mono.just(savedOrder));
+    var idempotencyKey = UUID.randomUUID().toString();
+
+    //When and Then: the first request and its retry return the same order
+    for (int attempt = 0; attempt < 2; attempt++) {
+      webTestClient.post()
+              .uri(baseUrl + "/order/reactive/externalized")
+              .header("Idempotency-Key", idempotencyKey)
+              .contentType(MediaType.APPLICATION_JSON)
+              .bodyValue(json)
+              .exchange()
+              .expectStatus().isOk()
+              .expectBody()
+              .jsonPath("$.flag").isEqualTo(true)
+              .jsonPath("$.data.orderId").isEqualTo(1)
+              .jsonPath("$.data.customerName").isEqualTo("customer1 name");
+    }
+    verify(orderService, times(1)).processOrderReactivelyByCallingExternalizedServices(any(Order.class));
+  }
+
+  /**
+   * Reusing an Idempotency-Key for a different order is rejected with 422.
+   */
+  @Test
+  void createOrderWithIdempotencyKeyReusedForDifferentRequest() throws Exception {
+    //Given
+    var firstOrder = new CreateOrderDto(
+            "customer1 name", "customer1@email.com", "+1234567890", "customer1 address",
+            List.of(new OrderItemDto(UUID.randomUUID(), "PRODUCT1", 10)));
+    var secondOrder = new CreateOrderDto(
+            "customer1 name", "customer1@email.com", "+1234567890", "customer1 address",
+            List.of(new OrderItemDto(UUID.randomUUID(), "PRODUCT2", 5)));
+
+    var savedOrder = new Order();
+    savedOrder.setOrderId(1L);
+    savedOrder.setCustomerName("customer1 name");
+    savedOrder.setOrderStatus("PLACED");
+    savedOrder.setOrderDate(LocalDate.now());
+    savedOrder.setTotalAmount(BigDecimal.TEN);
+    savedOrder.setOrderItems(new ArrayList<>());
+    when(orderService.processOrderReactively(any(Order.class))).thenReturn(Mono.just(savedOrder));
+    var idempotencyKey = UUID.randomUUID().toString();
+
+    webTestClient.post()
+            .uri(baseUrl + "/order/reactive")
+            .header("Idempotency-Key", idempotencyKey)
+            .contentType(MediaType.APPLICATION_JSON)
+            .bodyValue(objectMapper.writeValueAsString(firstOrder))
+            .exchange()
+            .expectStatus().isOk();
+
+    //When and Then
+    webTestClient.post()
+            .uri(baseUrl + "/order/reactive")
+            .header("Idempotency-Key", idempotencyKey)
+            .contentType(MediaType.APPLICATION_JSON)
+            .bodyValue(objectMapper.writeValueAsString(secondOrder))
+            .exchange()
+            .expectStatus().isEqualTo(422)
+            .expectBody()
+            .jsonPath("$.flag").isEqualTo(false)
+            .jsonPath("$.code").isEqualTo(StatusCode.UNPROCESSABLE_ENTITY);
+    verify(orderService, times(1)).processOrderReactively(any(Order.class));
+  }
+
   @Test
   void getOrderDtoByIdSuccess() throws Exception {
     //Given
@@ -330,21 +433,23 @@ class OrderControllerTest {
 
     orderDtos.add(orderDto2);
     // Mock the service method
-    when(orderService.getAllOrders()).thenReturn(orderDtos);
+    when(orderService.searchOrders(new OrderSearchCriteria(null, null, null, null, null), ScrollPosition.keyset(),
+            50)).thenReturn(Window.from(summariesOf(orderDtos), ScrollPosition::offset, false));
     // Perform the GET request
     mockMvc.perform(get(baseUrl + "/order")
                     .contentType(MediaType.APPLICATION_JSON))
             .andExpect(status().isOk())
             .andExpect(jsonPath("$.message").value("Orders retrieved successfully"))
             .andExpect(jsonPath("$.flag").value(true))
-            .andExpect(jsonPath("$.data[0].orderId").value(orderDto1.getOrderId()))
-            .andExpect(jsonPath("$.data[0].customerName").value(orderDto1.getCustomerName()))
-            .andExpect(jsonPath("$.data[0].customerEmail").value(orderDto1.getCustomerEmail()))
-            .andExpect(jsonPath("$.data[0].shippingAddress").value(orderDto1.getShippingAddress()))
-            .andExpect(jsonPath("$.data[1].orderId").value(orderDto2.getOrderId()))
-            .andExpect(jsonPath("$.data[1].customerName").value(orderDto2.getCustomerName()))
-            .andExpect(jsonPath("$.data[1].customerEmail").value(orderDto2.getCustomerEmail()))
-            .andExpect(jsonPath("$.data[1].shippingAddress").value(orderDto2.getShippingAddress()));
+            .andExpect(jsonPath("$.data.nextCursor").doesNotExist())
+            .andExpect(jsonPath("$.data.orders[0].orderId").value(orderDto1.getOrderId()))
+            .andExpect(jsonPath("$.data.orders[0].customerName").value(orderDto1.getCustomerName()))
+            .andExpect(jsonPath("$.data.orders[0].customerEmail").value(orderDto1.getCustomerEmail()))
+            .andExpect(jsonPath("$.data.orders[0].orderStatus").value(orderDto1.getOrderStatus()))
+            .andExpect(jsonPath("$.data.orders[1].orderId").value(orderDto2.getOrderId()))
+            .andExpect(jsonPath("$.data.orders[1].customerName").value(orderDto2.getCustomerName()))
+            .andExpect(jsonPath("$.data.orders[1].customerEmail").value(orderDto2.getCustomerEmail()))
+            .andExpect(jsonPath("$.data.orders[1].orderStatus").value(orderDto2.getOrderStatus()));
   }
 
   @Test
@@ -393,7 +498,8 @@ class OrderControllerTest {
                      orderDto.getCustomerEmail()
                              .equals("customer1@email.com"))
               .toList();
-    when(orderService.getOrdersByCustomerEmail("customer1@email.com")).thenReturn(expectedOrderDtos);
+    when(orderService.searchOrders(OrderSearchCriteria.byCustomerEmail("customer1@email.com"), ScrollPosition.keyset(), 50))
+            .thenReturn(Window.from(summariesOf(expectedOrderDtos), ScrollPosition::offset, false));
     // Perform the GET request
     mockMvc.perform(get(baseUrl + "/order/customer")
             .param("customerEmail", "customer1@email.com")
@@ -401,17 +507,105 @@ class OrderControllerTest {
             .andExpect(status().isOk())
             .andExpect(jsonPath("$.message").value("Orders by email retrieved successfully"))
     .andExpect(jsonPath("$.flag").value(true))
-            .andExpect(jsonPath("$.data[0].orderId").value(orderDto1.getOrderId()))
-            .andExpect(jsonPath("$.data[0].customerName").value(orderDto1.getCustomerName()))
-            .andExpect(jsonPath("$.data[0].customerEmail").value(orderDto1.getCustomerEmail()))
-            .andExpect(jsonPath("$.data[0].shippingAddress").value(orderDto1.getShippingAddress()))
-            .andExpect(jsonPath("$.data[1].orderId").value(orderDto3.getOrderId()))
-            .andExpect(jsonPath("$.data[1].customerName").value(orderDto3.getCustomerName()))
-            .andExpect(jsonPath("$.data[1].customerEmail").value(orderDto3.getCustomerEmail()))
-            .andExpect(jsonPath("$.data[1].shippingAddress").value(orderDto3.getShippingAddress()));
+            .andExpect(jsonPath("$.data.orders[0].orderId").value(orderDto1.getOrderId()))
+            .andExpect(jsonPath("$.data.orders[0].customerName").value(orderDto1.getCustomerName()))
+            .andExpect(jsonPath("$.data.orders[0].customerEmail").value(orderDto1.getCustomerEmail()))
+            .andExpect(jsonPath("$.data.orders[0].orderStatus").value(orderDto1.getOrderStatus()))
+            .andExpect(jsonPath("$.data.orders[1].orderId").value(orderDto3.getOrderId()))
+            .andExpect(jsonPath("$.data.orders[1].customerName").value(orderDto3.getCustomerName()))
+            .andExpect(jsonPath("$.data.orders[1].customerEmail").value(orderDto3.getCustomerEmail()))
+            .andExpect(jsonPath("$.data.orders[1].orderStatus").value(orderDto3.getOrderStatus()));
 
   }
 
+  @Test
+  void getAllOrdersPageWithFiltersAndCursor() throws Exception {
+    // Given: a first page of one order, then the page after its id
+    OrderDto orderDto1 = new OrderDto();
+    orderDto1.setOrderId(12L);
+    orderDto1.setCustomerName("customer1 name");
+    orderDto1.setCustomerEmail("customer1@email.com");
+    orderDto1.setOrderStatus("PLACED");
+    OrderDto orderDto2 = new OrderDto();
+    orderDto2.setOrderId(7L);
+    orderDto2.setCustomerName("customer1 name");
+    orderDto2.setCustomerEmail("customer1@email.com");
+    orderDto2.setOrderStatus("PLACED");
+    var criteria = new OrderSearchCriteria("PLACED", null, "customer1@email.com",
+            LocalDate.of(2025, 1, 1), LocalDate.of(2025, 6, 30));
+    when(orderService.searchOrders(criteria, ScrollPosition.keyset(), 1))
+            .thenReturn(Window.from(summariesOf(List.of(orderDto1)), ScrollPosition::offset, true));
+    when(orderService.searchOrders(criteria, ScrollPosition.forward(Map.of("orderId", 12L)), 1))
+            .thenReturn(Window.from(summariesOf(List.of(orderDto2)), ScrollPosition::offset, false));
+
+    // When and then: the first page carries the cursor of the second one
+    var response = mockMvc.perform(get(baseUrl + "/order")
+                    .param("orderStatus", "PLACED")
+                    .param("customerEmail", "customer1@email.com")
+                    .param("fromDate", "2025-01-01")
+                    .param("toDate", "2025-06-30")
+                    .param("limit", "1"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.data.orders[0].orderId").value(12))
+            .andExpect(jsonPath("$.data.nextCursor").isNotEmpty())
+            .andReturn().getResponse().getContentAsString();
+    var nextCursor = objectMapper.readTree(response).at("/data/nextCursor").asText();
+
+    mockMvc.perform(get(baseUrl + "/order")
+                    .param("orderStatus", "PLACED")
+                    .param("customerEmail", "customer1@email.com")
+                    .param("fromDate", "2025-01-01")
+                    .param("toDate", "2025-06-30")
+                    .param("limit", "1")
+                    .param("cursor", nextCursor))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.data.orders[0].orderId").value(7))
+            .andExpect(jsonPath("$.data.nextCursor").doesNotExist());
+  }
+
+  @Test
+  void getAllOrdersInvalidPageParameters() throws Exception {
+    mockMvc.perform(get(baseUrl + "/order").param("limit", String.valueOf(OrderController.MAX_PAGE_SIZE + 1)))
+            .andExpect(status().isBadRequest())
+            .andExpect(jsonPath("$.flag").value(false));
+    mockMvc.perform(get(baseUrl + "/order").param("cursor", "not a cursor"))
+            .andExpect(status().isBadRequest())
+            .andExpect(jsonPath("$.message").value("Invalid cursor"));
+    mockMvc.perform(get(baseUrl + "/order").param("fromDate", "01/01/2025"))
+            .andExpect(status().isBadRequest())
+            .andExpect(jsonPath("$.message").value("Invalid value of the fromDate parameter"));
+    verify(orderService, never()).searchOrders(any(), any(), anyInt());
+  }
+
+  @Test
+  void exportOrdersSuccess() throws Exception {
+    // Given
+    var csv = "orderId,orderStatus\r\n1,PLACED\r\n";
+    when(orderService.exportOrders(isNull(), eq(ExportFormat.CSV), any(OutputStream.class)))
+            .thenAnswer(invocation -> {
+              invocation.getArgument(2, OutputStream.class).write(csv.getBytes(StandardCharsets.UTF_8));
+              return 1L;
+            });
+
+    // When and Then
+    mockMvc.perform(get(baseUrl + "/order/export").param("format", "CSV"))
+            .andExpect(status().isOk())
+            .andExpect(content().contentTypeCompatibleWith("text/csv"))
+            .andExpect(header().string("Content-Disposition", "attachment; filename=\"orders.csv\""))
+            .andExpect(content().string(csv));
+  }
+
+  @Test
+  void exportOrdersInvalidParameters() throws Exception {
+    mockMvc.perform(get(baseUrl + "/order/export").param("format", "XLSX"))
+            .andExpect(status().isBadRequest())
+            .andExpect(jsonPath("$.message").value("Invalid value of the format parameter"));
+    mockMvc.perform(get(baseUrl + "/order/export").param("since", "yesterday"))
+            .andExpect(status().isBadRequest())
+            .andExpect(jsonPath("$.message").value("Invalid value of the since parameter"));
+    verify(orderService, never()).exportOrders(any(), any(), any());
+  }
+
   @Test
   void deleteOrderSuccess() throws Exception {
     // Given
@@ -474,9 +668,11 @@ class OrderControllerTest {
     orderDtos.add(orderDto2);
 
     // Mock the service method
-    when(orderService.getAllOrdersWithoutCancelledOnes()).thenReturn(orderDtos.stream()
-            .filter(order -> !order.getOrderStatus().equals("CANCELLED"))
-            .toList());
+    when(orderService.searchOrders(OrderSearchCriteria.excludingOrderStatus("CANCELLED"), ScrollPosition.keyset(), 50))
+            .thenReturn(Window.from(orderDtos.stream()
+                    .filter(order -> !order.getOrderStatus().equals("CANCELLED"))
+                    .map(OrderControllerTest::summaryOf)
+                    .toList(), ScrollPosition::offset, false));
 
     // Perform the GET request
     mockMvc.perform(get(baseUrl + "/order/without-canceled")
@@ -484,11 +680,11 @@ class OrderControllerTest {
             .andExpect(status().isOk())
             .andExpect(jsonPath("$.message").value("Orders retrieved successfully"))
             .andExpect(jsonPath("$.flag").value(true))
-            .andExpect(jsonPath("$.data[0].orderId").value(orderDto1.getOrderId()))
-            .andExpect(jsonPath("$.data[0].customerName").value(orderDto1.getCustomerName()))
-            .andExpect(jsonPath("$.data[0].customerEmail").value(orderDto1.getCustomerEmail()))
-            .andExpect(jsonPath("$.data[0].orderStatus").value(orderDto1.getOrderStatus()))
-            .andExpect(jsonPath("$.data[0].shippingAddress").value(orderDto1.getShippingAddress()));
+            .andExpect(jsonPath("$.data.nextCursor").doesNotExist())
+            .andExpect(jsonPath("$.data.orders[0].orderId").value(orderDto1.getOrderId()))
+            .andExpect(jsonPath("$.data.orders[0].customerName").value(orderDto1.getCustomerName()))
+            .andExpect(jsonPath("$.data.orders[0].customerEmail").value(orderDto1.getCustomerEmail()))
+            .andExpect(jsonPath("$.data.orders[0].orderStatus").value(orderDto1.getOrderStatus()));
   }
 
   @Test
@@ -534,9 +730,11 @@ class OrderControllerTest {
     orderDtos.add(orderDto2);
 
     // Mock the service method
-    when(orderService.getOrdersByStatus("CANCELLED")).thenReturn(orderDtos.stream()
-            .filter(order -> order.getOrderStatus().equals("CANCELLED"))
-            .toList());
+    when(orderService.searchOrders(OrderSearchCriteria.byOrderStatus("CANCELLED"), ScrollPosition.keyset(), 50))
+            .thenReturn(Window.from(orderDtos.stream()
+                    .filter(order -> order.getOrderStatus().equals("CANCELLED"))
+                    .map(OrderControllerTest::summaryOf)
+                    .toList(), ScrollPosition::offset, false));
     // Perform the GET request
     mockMvc.perform(get(baseUrl + "/order/status")
                     .param("orderStatus", "CANCELLED")
@@ -544,10 +742,11 @@ class OrderControllerTest {
             .andExpect(status().isOk())
             .andExpect(jsonPath("$.message").value("Orders by status retrieved successfully"))
             .andExpect(jsonPath("$.flag").value(true))
-            .andExpect(jsonPath("$.data[0].orderId").value(orderDto2.getOrderId()))
-            .andExpect(jsonPath("$.data[0].customerName").value(orderDto2.getCustomerName()))
-            .andExpect(jsonPath("$.data[0].customerEmail").value(orderDto2.getCustomerEmail()))
-            .andExpect(jsonPath("$.data[0].shippingAddress").value(orderDto2.getShippingAddress()));
+            .andExpect(jsonPath("$.data.nextCursor").doesNotExist())
+            .andExpect(jsonPath("$.data.orders[0].orderId").value(orderDto2.getOrderId()))
+            .andExpect(jsonPath("$.data.orders[0].customerName").value(orderDto2.getCustomerName()))
+            .andExpect(jsonPath("$.data.orders[0].customerEmail").value(orderDto2.getCustomerEmail()))
+            .andExpect(jsonPath("$.data.orders[0].orderStatus").value(orderDto2.getOrderStatus()));
   }
 
   @Test
@@ -649,4 +848,13 @@ class OrderControllerTest {
   @Test
   void clearCache() {
   }
-}
\ No newline at end of file
+
+  private static OrderSummaryDto summaryOf(OrderDto orderDto) {
+    return new OrderSummaryDto(orderDto.getOrderId(), orderDto.getCustomerName(), orderDto.getCustomerEmail(),
+            orderDto.getTotalAmount(), orderDto.getOrderDate(), orderDto.getOrderStatus());
+  }
+
+  private static List<OrderSummaryDto> summariesOf(List<OrderDto> orderDtos) {
+    return orderDtos.stream().map(OrderControllerTest::summaryOf).toList();
+  }
+}
@@ -17,12 +17,15 @@ import com.tjtechy.*;
 import com.tjtechy.order_service.entity.dto.CreateOrderDto;
 import com.tjtechy.order_service.entity.dto.OrderItemDto;
 import com.tjtechy.order_service.entity.dto.UpdateOrderDto;
+import com.tjtechy.events.orderEvent.OrderPlacedEvent;
 import com.tjtechy.order_service.kafka.OrderEventProducer;
+import com.tjtechy.order_service.repository.OrderOutboxRepository;
 import com.tjtechy.test_helper.config.TestConfiguration;
 import com.tjtechy.test_helper.security.TestJwtGenerator;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
 import org.junit.jupiter.api.*;
 import org.mockito.ArgumentMatchers;
-import org.mockito.Mockito;
 import org.springframework.beans.factory.annotation.Autowired;
 
 import org.springframework.beans.factory.annotation.Value;
@@ -62,7 +65,6 @@ import static com.github.tomakehurst.wiremock.client.WireMock.*;
 import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
 import static org.junit.jupiter.api.Assertions.assertInstanceOf;
 import static org.mockito.Mockito.doNothing;
-import static org.mockito.Mockito.times;
 import static wiremock.com.google.common.base.Preconditions.checkState;
 
 @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
@@ -100,6 +102,12 @@ public class OrderServiceControllerIntegrationTest {
   @MockitoBean
   private OrderEventProducer orderEventProducer; //mock the Kafka producer to avoid sending messages to Kafka during tests
 
+  @Autowired
+  private OrderOutboxRepository orderOutboxRepository;
+
+  @Autowired
+  private EntityManagerFactory entityManagerFactory; //its statistics count the statements of a request
+
   @LocalServerPort
   private int port;
 
@@ -152,6 +160,11 @@ public class OrderServiceControllerIntegrationTest {
     registry.add("spring.datasource.username", postgreSQLContainer::getUsername);
     registry.add("spring.datasource.password", postgreSQLContainer::getPassword);
     registry.add("spring.datasource.driver-class-name", postgreSQLContainer::getDriverClassName);
+    //R2DBC, same container for the reactive order endpoints
+    registry.add("spring.r2dbc.url", () -> "r2dbc:postgresql://" + postgreSQLContainer.getHost() + ":"
+            + postgreSQLContainer.getMappedPort(5432) + "/" + postgreSQLContainer.getDatabaseName());
+    registry.add("spring.r2dbc.username", postgreSQLContainer::getUsername);
+    registry.add("spring.r2dbc.password", postgreSQLContainer::getPassword);
     //WIREMOCK
     registry.add("product-service.base-url", () -> {
       checkState(wireMockServer.isRunning(), "WireMock server is not running");
@@ -206,8 +219,8 @@ public class OrderServiceControllerIntegrationTest {
             LocalDate.now(),
             BigDecimal.valueOf(100.00)
     );
-    var getProductResponse = new Result("Get One Success", true, productDto, StatusCode.SUCCESS);
-    wireMockServer.stubFor(WireMock.get(urlEqualTo("/api/v1/product/" + productDto.productId()))
+    var getProductResponse = new Result("Get Batch Success", true, new ProductBatchDto(List.of(productDto), List.of()), StatusCode.SUCCESS);
+    wireMockServer.stubFor(WireMock.get(urlEqualTo("/api/v1/product/batch?ids=" + productDto.productId()))
             .willReturn(aResponse()
                     .withStatus(200)
                     .withHeader("Content-Type", "application/json")
@@ -217,7 +230,7 @@ public class OrderServiceControllerIntegrationTest {
                             .writeValueAsString(getProductResponse))));
     //Mock the inventory-service deduct response
     var deductInventoryResponse = new Result("Inventory deducted successfully", true, null, StatusCode.SUCCESS);
-    wireMockServer.stubFor(WireMock.patch(urlEqualTo("/api/v1/inventory/internal/deduct-inventory-reactive"))
+    wireMockServer.stubFor(WireMock.patch(urlEqualTo("/api/v1/inventory/internal/deduct-inventory-batch"))
             .willReturn(aResponse()
                     .withStatus(200)
                     .withHeader("Content-Type", "application/json")
@@ -266,8 +279,8 @@ public class OrderServiceControllerIntegrationTest {
         LocalDate.now(),
         BigDecimal.valueOf(100.00)
     );
-    var getProductResponse = new Result("Get One Success", true, productDto, StatusCode.SUCCESS);
-    wireMockServer.stubFor(WireMock.get(urlEqualTo("/api/v1/product/" + productDto.productId()))
+    var getProductResponse = new Result("Get Batch Success", true, new ProductBatchDto(List.of(productDto), List.of()), StatusCode.SUCCESS);
+    wireMockServer.stubFor(WireMock.get(urlEqualTo("/api/v1/product/batch?ids=" + productDto.productId()))
         .willReturn(aResponse()
             .withStatus(200)
             .withHeader("Content-Type", "application/json")
@@ -278,7 +291,7 @@ public class OrderServiceControllerIntegrationTest {
 
     //Mock the inventory-service deduct response
     var deductInventoryResponse = new Result("Inventory deducted successfully", true, null, StatusCode.SUCCESS);
-    wireMockServer.stubFor(WireMock.patch(urlEqualTo("/api/v1/inventory/internal/deduct-inventory-reactive"))
+    wireMockServer.stubFor(WireMock.patch(urlEqualTo("/api/v1/inventory/internal/deduct-inventory-batch"))
         .willReturn(aResponse()
             .withStatus(200)
             .withHeader("Content-Type", "application/json")
@@ -323,13 +336,18 @@ public class OrderServiceControllerIntegrationTest {
     assertThat(createdOrder).isNotNull();
 
     //verify the get product call and deduct inventory call
-    wireMockServer.verify(1, WireMock.getRequestedFor(urlEqualTo("/api/v1/product/" + productDto.productId())));
-    wireMockServer.verify(1, WireMock.patchRequestedFor(urlEqualTo("/api/v1/inventory/internal/deduct-inventory-reactive"))
-            .withRequestBody(matchingJsonPath("$.productId", equalTo(productDto.productId().toString())))
-            .withRequestBody(matchingJsonPath("$.quantity", equalTo("10"))));
-
-    //verify event producer was invoked
-    Mockito.verify(orderEventProducer, times(1)).sendOrderPlacedEvent(ArgumentMatchers.any());
+    wireMockServer.verify(1, WireMock.getRequestedFor(urlEqualTo("/api/v1/product/batch?ids=" + productDto.productId())));
+    wireMockServer.verify(1, WireMock.patchRequestedFor(urlEqualTo("/api/v1/inventory/internal/deduct-inventory-batch"))
+            .withRequestBody(matchingJsonPath("$.items[0].productId", equalTo(productDto.productId().toString())))
+            .withRequestBody(matchingJsonPath("$.items[0].quantity", equalTo("10"))));
+
+    //verify the order placed event was written to the outbox with the order (the relay is disabled in tests)
+    var orderId = ((Number) createdOrder.get("orderId")).longValue();
+    var outboxEvents = orderOutboxRepository.findAll().stream()
+            .filter(outboxEvent -> outboxEvent.getAggregateId().equals(orderId))
+            .toList();
+    assertThat(outboxEvents.size()).isEqualTo(1);
+    assertThat(outboxEvents.getFirst().getEventType()).isEqualTo(OrderPlacedEvent.class.getName());
 
   }
 
@@ -433,8 +451,8 @@ public class OrderServiceControllerIntegrationTest {
     Map<String, Object> createdOrder2 = createOrderReactively(createOrderDto2);
     Long orderId2 = Long.parseLong(createdOrder2.get("orderId").toString());
 
-    // Now, test the get all orders endpoint
-  String url = "http://localhost:" + port + baseUrl + "/order";
+    // Now, test the get all orders endpoint: newest first, one order per page
+  String url = "http://localhost:" + port + baseUrl + "/order?limit=1";
   var response = webTestClient.get()
           .uri(url)
           .header("Authorization", "Bearer " + adminToken)
@@ -444,6 +462,80 @@ public class OrderServiceControllerIntegrationTest {
           .returnResult()
           .getResponseBody();
   assertThat(response).isNotNull();
+  @SuppressWarnings("unchecked")
+  var page = (Map<String, Object>) response.getData();
+  @SuppressWarnings("unchecked")
+  var pageOrders = (List<Map<String, Object>>) page.get("orders");
+  assertThat(pageOrders.size()).isEqualTo(1);
+  assertThat(Long.parseLong(pageOrders.getFirst().get("orderId").toString())).isEqualTo(orderId2);
+  assertThat(page.get("nextCursor")).isNotNull();
+
+  // the next page starts after the newest order
+  var nextPageResponse = webTestClient.get()
+          .uri(url + "&cursor=" + page.get("nextCursor"))
+          .header("Authorization", "Bearer " + adminToken)
+          .exchange()
+          .expectStatus().isOk()
+          .expectBody(Result.class)
+          .returnResult()
+          .getResponseBody();
+  assertThat(nextPageResponse).isNotNull();
+  @SuppressWarnings("unchecked")
+  var nextPageOrders = (List<Map<String, Object>>) ((Map<String, Object>) nextPageResponse.getData()).get("orders");
+  assertThat(Long.parseLong(nextPageOrders.getFirst().get("orderId").toString())).isEqualTo(orderId1);
+  }
+
+  @Test
+  @DisplayName("Test order reads run one statement whatever the number of orders and items - Success")
+  @DirtiesContext(methodMode = DirtiesContext.MethodMode.BEFORE_METHOD)
+  public void testOrderReadsRunOneStatementSuccess() throws Exception {
+    var orderItemDto1 = new OrderItemDto();
+    //THE productId MUST BE FROM THE PRIVATE METHOD TO CREATE ORDER REACTIVELY
+    orderItemDto1.setProductId( UUID.fromString("123e4567-e89b-12d3-a456-426614174000"));
+    orderItemDto1.setProductName( "Product 1");
+    orderItemDto1.setQuantity(1);
+
+    Long lastOrderId = null;
+    for (var i = 0; i < 5; i++) {
+      var createOrderDto = new CreateOrderDto();
+      createOrderDto.setCustomerName("Test Customer " + i);
+      createOrderDto.setCustomerEmail("test" + i + System.currentTimeMillis() + "@test.com");
+      createOrderDto.setShippingAddress("123 Test Street, Test City, TC 12345");
+      createOrderDto.setOrderItems(List.of(orderItemDto1));
+      lastOrderId = Long.parseLong(createOrderReactively(createOrderDto).get("orderId").toString());
+    }
+    //hibernate.generate_statistics is on in the test profile
+    var statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+    // a page of orders is a single query of the summary columns, the items are not read (no N+1)
+    statistics.clear();
+    var pageResponse = webTestClient.get()
+            .uri("http://localhost:" + port + baseUrl + "/order?limit=10")
+            .header("Authorization", "Bearer " + adminToken)
+            .exchange()
+            .expectStatus().isOk()
+            .expectBody(Result.class)
+            .returnResult()
+            .getResponseBody();
+    assertThat(pageResponse).isNotNull();
+    @SuppressWarnings("unchecked")
+    var pageOrders = (List<Map<String, Object>>) ((Map<String, Object>) pageResponse.getData()).get("orders");
+    assertThat(pageOrders.size()).isEqualTo(5);
+    assertThat(pageOrders.getFirst().containsKey("orderItems")).isFalse();
+    assertThat(statistics.getPrepareStatementCount()).isEqualTo(1L);
+    assertThat(statistics.getCollectionFetchCount()).isEqualTo(0L);
+
+    // a full order is loaded with its items in the same query (cache is disabled in this test)
+    statistics.clear();
+    webTestClient.get()
+            .uri("http://localhost:" + port + baseUrl + "/order/orderDto/" + lastOrderId)
+            .header("Authorization", "Bearer " + adminToken)
+            .exchange()
+            .expectStatus().isOk()
+            .expectBody()
+            .jsonPath("$.data.orderItems.length()").isEqualTo(1);
+    assertThat(statistics.getPrepareStatementCount()).isEqualTo(1L);
+    assertThat(statistics.getCollectionFetchCount()).isEqualTo(0L);
   }
 
   @Test
@@ -632,7 +724,7 @@ public class OrderServiceControllerIntegrationTest {
 
     //stub restore inventory response
     var restoreInventoryResponse = new Result("Inventory restored successfully", true, null, StatusCode.SUCCESS);
-    wireMockServer.stubFor(WireMock.post(urlEqualTo("/api/v1/inventory/internal/restore-inventory"))
+    wireMockServer.stubFor(WireMock.post(urlEqualTo("/api/v1/inventory/internal/restore-inventory-batch"))
             .willReturn(aResponse()
                     .withStatus(200)
                     .withHeader("Content-Type", "application/json")
@@ -650,8 +742,8 @@ public class OrderServiceControllerIntegrationTest {
             LocalDate.now(),
             BigDecimal.valueOf(100.00)
     );
-    var getProductResponse = new Result("Get One Success", true, productDto, StatusCode.SUCCESS);
-    wireMockServer.stubFor(WireMock.get(urlEqualTo("/api/v1/product/" + productDto.productId()))
+    var getProductResponse = new Result("Get Batch Success", true, new ProductBatchDto(List.of(productDto), List.of()), StatusCode.SUCCESS);
+    wireMockServer.stubFor(WireMock.get(urlEqualTo("/api/v1/product/batch?ids=" + productDto.productId()))
             .willReturn(aResponse()
                     .withStatus(200)
                     .withHeader("Content-Type", "application/json")
@@ -662,7 +754,7 @@ public class OrderServiceControllerIntegrationTest {
 
     //stub deduct inventory response
     var deductInventoryResponse = new Result("Inventory deducted successfully", true, null, StatusCode.SUCCESS);
-    wireMockServer.stubFor(WireMock.patch(urlEqualTo("/api/v1/inventory/internal/deduct-inventory-reactive"))
+    wireMockServer.stubFor(WireMock.patch(urlEqualTo("/api/v1/inventory/internal/deduct-inventory-batch"))
             .willReturn(aResponse()
                     .withStatus(200)
                     .withHeader("Content-Type", "application/json")
@@ -715,16 +807,18 @@ public class OrderServiceControllerIntegrationTest {
     assert response != null;
     assertThat(response.getMessage()).isEqualTo("Order updated successfully by calling required external services");
 
-    //verify the restore inventory, get product call and deduct inventory call
-    wireMockServer.verify(1, postRequestedFor(urlEqualTo("/api/v1/inventory/internal/restore-inventory"))
-            .withRequestBody(matchingJsonPath("$.productId", equalTo(productDto.productId().toString())))
-                    .withRequestBody(matchingJsonPath("$.quantity", equalTo("10"))));
+    //the quantity went from 10 to 5: only the 5 released units are restored, in one call, and nothing is deducted
+    wireMockServer.verify(1, postRequestedFor(urlEqualTo("/api/v1/inventory/internal/restore-inventory-batch"))
+            .withRequestBody(matchingJsonPath("$.items[0].productId", equalTo(productDto.productId().toString())))
+            .withRequestBody(matchingJsonPath("$.items[0].quantity", equalTo("5"))));
+    wireMockServer.verify(0, postRequestedFor(urlEqualTo("/api/v1/inventory/internal/restore-inventory")));
     //the get product call should be called twice, once for the initial order creation and once for the update
-    wireMockServer.verify(2, WireMock.getRequestedFor(urlEqualTo("/api/v1/product/" + productDto.productId())));
+    wireMockServer.verify(2, WireMock.getRequestedFor(urlEqualTo("/api/v1/product/batch?ids=" + productDto.productId())));
 
-    wireMockServer.verify(1, WireMock.patchRequestedFor(urlEqualTo("/api/v1/inventory/internal/deduct-inventory-reactive"))
-            .withRequestBody(matchingJsonPath("$.productId", equalTo(productDto.productId().toString())))
-            .withRequestBody(matchingJsonPath("$.quantity", equalTo("5"))));
+    //the only deduction is the one of the order creation
+    wireMockServer.verify(1, WireMock.patchRequestedFor(urlEqualTo("/api/v1/inventory/internal/deduct-inventory-batch")));
+    wireMockServer.verify(0, WireMock.patchRequestedFor(urlEqualTo("/api/v1/inventory/internal/deduct-inventory-batch"))
+            .withRequestBody(matchingJsonPath("$.items[0].quantity", equalTo("5"))));
   }
 
   @Test
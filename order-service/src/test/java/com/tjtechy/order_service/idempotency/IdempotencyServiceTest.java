@@ -0,0 +1,108 @@
+/*
+ * Copyright © 2025
+ * @Author = TJTechy (Tajudeen Busari)
+ * @Version = 1.0
+ * This file is part of the order-service module of the EcommerceMicroservices project.
+ */
+package com.tjtechy.order_service.idempotency;
+
+import com.tjtechy.Result;
+import com.tjtechy.StatusCode;
+import com.tjtechy.businessException.IdempotencyKeyReusedException;
+import com.tjtechy.order_service.config.IdempotencyProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class IdempotencyServiceTest {
+
+  private IdempotencyService idempotencyService;
+
+  private AtomicInteger executions;
+
+  @BeforeEach
+  void setUp() {
+    var properties = new IdempotencyProperties();
+    idempotencyService = new IdempotencyService(
+            new InMemoryIdempotencyStore(properties.getMaxLocalEntries(), properties.getTtl()), properties);
+    executions = new AtomicInteger();
+  }
+
+  @Test
+  void concurrentDuplicatesShareTheFirstExecution() {
+    //Given: the first execution does not complete until the sink emits
+    Sinks.One<Result> sink = Sinks.one();
+    var first = idempotencyService.execute("order:test", "key-1", Map.of("item", 1), () -> {
+      executions.incrementAndGet();
+      return sink.asMono();
+    });
+    var duplicate = idempotencyService.execute("order:test", "key-1", Map.of("item", 1), () -> {
+      executions.incrementAndGet();
+      return Mono.just(new Result("duplicate", true, StatusCode.SUCCESS));
+    });
+
+    //When: both subscribe while the first is in flight
+    var firstResult = first.toFuture();
+    var duplicateResult = duplicate.toFuture();
+    sink.tryEmitValue(new Result("placed", true, StatusCode.SUCCESS));
+
+    //Then
+    assertEquals("placed", firstResult.join().getMessage());
+    assertEquals("placed", duplicateResult.join().getMessage());
+    assertEquals(1, executions.get());
+  }
+
+  @Test
+  void retryAfterCompletionReplaysStoredResponse() {
+    var request = Map.of("item", 1);
+    StepVerifier.create(idempotencyService.execute("order:test", "key-2", request, () -> {
+              executions.incrementAndGet();
+              return Mono.just(new Result("placed", true, StatusCode.SUCCESS));
+            }))
+            .expectNextMatches(result -> result.getMessage().equals("placed"))
+            .verifyComplete();
+
+    StepVerifier.create(idempotencyService.execute("order:test", "key-2", request, () -> {
+              executions.incrementAndGet();
+              return Mono.just(new Result("placed again", true, StatusCode.SUCCESS));
+            }))
+            .expectNextMatches(result -> result.getMessage().equals("placed"))
+            .verifyComplete();
+    assertEquals(1, executions.get());
+  }
+
+  @Test
+  void failedExecutionReleasesTheKey() {
+    var request = Map.of("item", 1);
+    StepVerifier.create(idempotencyService.execute("order:test", "key-3", request,
+                    () -> Mono.error(new IllegalStateException("inventory unavailable"))))
+            .expectError(IllegalStateException.class)
+            .verify(Duration.ofSeconds(5));
+
+    StepVerifier.create(idempotencyService.execute("order:test", "key-3", request,
+                    () -> Mono.just(new Result("placed", true, StatusCode.SUCCESS))))
+            .expectNextMatches(result -> result.getMessage().equals("placed"))
+            .verifyComplete();
+  }
+
+  @Test
+  void keyReusedWithDifferentRequestIsRejected() {
+    StepVerifier.create(idempotencyService.execute("order:test", "key-4", Map.of("item", 1),
+                    () -> Mono.just(new Result("placed", true, StatusCode.SUCCESS))))
+            .expectNextCount(1)
+            .verifyComplete();
+
+    StepVerifier.create(idempotencyService.execute("order:test", "key-4", Map.of("item", 2),
+                    () -> Mono.just(new Result("placed", true, StatusCode.SUCCESS))))
+            .expectError(IdempotencyKeyReusedException.class)
+            .verify(Duration.ofSeconds(5));
+  }
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright © 2025
+ * @Author = TJTechy (Tajudeen Busari)
+ * @Version = 1.0
+ * This file is part of the order-service module of the EcommerceMicroservices project.
+ */
+package com.tjtechy.order_service.kafka;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.tjtechy.events.orderEvent.ActionBy;
+import com.tjtechy.events.orderEvent.OrderPlacedEvent;
+import com.tjtechy.events.orderEvent.Reason;
+import com.tjtechy.order_service.config.OrderOutboxProperties;
+import com.tjtechy.order_service.entity.OrderOutboxEvent;
+import com.tjtechy.order_service.repository.OrderOutboxRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class OrderOutboxRelayTest {
+
+  @Mock
+  private OrderOutboxRepository orderOutboxRepository;
+
+  @Mock
+  private OrderEventProducer orderEventProducer;
+
+  @Mock
+  private PlatformTransactionManager transactionManager;
+
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+  private final ObjectMapper objectMapper = new ObjectMapper()
+          .registerModule(new JavaTimeModule())
+          .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+  private OrderOutboxRelay orderOutboxRelay;
+
+  @BeforeEach
+  void setUp() {
+    orderOutboxRelay = new OrderOutboxRelay(orderOutboxRepository, orderEventProducer,
+            new OrderOutboxProperties(), transactionManager, meterRegistry);
+  }
+
+  @Test
+  void relayDeletesOnlyTheEventsKafkaAcknowledged() throws Exception {
+    //Given: two pending events, Kafka acknowledges the first one only
+    var placed = outboxEvent(1L, 10L);
+    var failed = outboxEvent(2L, 11L);
+    given(orderOutboxRepository.lockNextBatch(anyInt())).willReturn(List.of(placed, failed));
+    given(orderEventProducer.publish(eq("order-placed-topic"), eq("10"), any(OrderPlacedEvent.class)))
+            .willReturn(CompletableFuture.completedFuture(null));
+    given(orderEventProducer.publish(eq("order-placed-topic"), eq("11"), any(OrderPlacedEvent.class)))
+            .willReturn(CompletableFuture.failedFuture(new IllegalStateException("broker unavailable")));
+    given(orderOutboxRepository.findOldestCreatedAt()).willReturn(failed.getCreatedAt());
+    given(orderOutboxRepository.count()).willReturn(1L);
+
+    //When
+    orderOutboxRelay.relay();
+
+    //Then: the failed event stays in the outbox for the next run
+    verify(orderOutboxRepository).deleteAllInBatch(List.of(placed));
+    assertEquals(1.0, meterRegistry.get("orders.outbox.published").counter().count());
+    assertEquals(1.0, meterRegistry.get("orders.outbox.publish.failures").counter().count());
+    assertEquals(1.0, meterRegistry.get("orders.outbox.pending").gauge().value());
+  }
+
+  private OrderOutboxEvent outboxEvent(Long id, Long orderId) throws Exception {
+    var event = new OrderPlacedEvent(orderId, "test@test.com", "dummyToken", "1234567890",
+            LocalDate.now(), ActionBy.ADMIN, Reason.ADMIN_ACTION);
+    var outboxEvent = new OrderOutboxEvent(orderId, "order-placed-topic", OrderPlacedEvent.class.getName(),
+            objectMapper.writeValueAsString(event));
+    outboxEvent.setId(id);
+    outboxEvent.setCreatedAt(LocalDateTime.now().minusSeconds(5));
+    return outboxEvent;
+  }
+}
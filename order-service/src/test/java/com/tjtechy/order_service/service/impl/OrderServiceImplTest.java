@@ -9,23 +9,38 @@ package com.tjtechy.order_service.service.impl;
 import com.tjtechy.*;
 import com.tjtechy.businessException.InsufficientStockQuantityException;
 import com.tjtechy.businessException.OrderAlreadyCancelledException;
+import com.tjtechy.client.ClientResilience;
+import com.tjtechy.client.ClientResilienceProperties;
 import com.tjtechy.client.InventoryServiceClient;
 import com.tjtechy.client.ProductServiceClient;
 import com.tjtechy.events.orderEvent.OrderCancelledEvent;
+import com.tjtechy.export.ExportFormat;
 import com.tjtechy.modelNotFoundException.OrderNotFoundException;
+import com.tjtechy.modelNotFoundException.ProductNotFoundException;
 import com.tjtechy.order_service.config.InventoryServiceConfig;
 import com.tjtechy.order_service.config.ProductServiceConfig;
 import com.tjtechy.order_service.entity.Order;
 import com.tjtechy.order_service.entity.OrderItem;
-import com.tjtechy.order_service.kafka.OrderEventProducer;
+import com.tjtechy.order_service.entity.OrderOutboxEvent;
+import com.tjtechy.order_service.entity.dto.OrderDto;
+import com.tjtechy.order_service.entity.dto.OrderSearchCriteria;
+import com.tjtechy.order_service.entity.dto.OrderSummaryDto;
+import com.tjtechy.order_service.kafka.OrderEventOutbox;
 import com.tjtechy.order_service.mapper.OrderMapper;
+import com.tjtechy.order_service.repository.OrderItemChanges;
 import com.tjtechy.order_service.repository.OrderRepository;
+import com.tjtechy.order_service.repository.ReactiveOrderStore;
+import jakarta.persistence.EntityManager;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentMatchers;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.invocation.InvocationOnMock;
 
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.mockito.junit.jupiter.MockitoSettings;
@@ -33,15 +48,24 @@ import org.mockito.quality.Strictness;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Window;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.http.MediaType;
 import org.springframework.web.reactive.function.client.WebClient;
 import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
 
+import java.io.ByteArrayOutputStream;
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
 
 import java.time.LocalDate;
 import java.util.*;
+import java.util.function.Function;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.BDDMockito.given;
@@ -61,6 +85,9 @@ class OrderServiceImplTest {
   @Mock
   private OrderRepository orderRepository;
 
+  @Mock
+  private ReactiveOrderStore reactiveOrderStore;
+
   @Mock
   private WebClient.Builder webClientBuilder;
 
@@ -76,8 +103,18 @@ class OrderServiceImplTest {
   @Mock
   private InventoryServiceClient inventoryServiceClient;
 
+  //a real one, the direct WebClient calls go through it
+  @Spy
+  private ClientResilience clientResilience = new ClientResilience(new ClientResilienceProperties(), new SimpleMeterRegistry());
+
+  @Mock
+  private OrderEventOutbox orderEventOutbox;
+
+  @Mock
+  private CacheManager cacheManager;
+
   @Mock
-  private OrderEventProducer orderEventProducer;
+  private EntityManager entityManager;
 
   private static final Logger logger = LoggerFactory.getLogger(OrderServiceImplTest.class);
 
@@ -92,6 +129,9 @@ class OrderServiceImplTest {
   @BeforeEach
   void setUp() {
 
+    //product lookups in flight per order (product-service.lookup-concurrency)
+    given(productServiceConfig.getLookupConcurrency()).willReturn(8);
+
     // Create a list of order items
     List<OrderItem> orderItem1 = Arrays.asList(
             new OrderItem(1L, UUID.randomUUID(), "PRODUCT1", new BigDecimal("100.00"), 10),
@@ -249,7 +289,7 @@ class OrderServiceImplTest {
       return webClient;
     });
 
-    given(orderRepository.save(any(Order.class))).willAnswer(invocation -> invocation.getArgument(0));
+    given(reactiveOrderStore.insert(any(Order.class))).willAnswer(invocation -> Mono.just(invocation.getArgument(0)));
 
     // When
     Mono<Order> result = orderService.processOrderReactively(order);
@@ -288,18 +328,20 @@ class OrderServiceImplTest {
     Result inventoryDeductResult = new Result("Inventory deducted successfully", true,
             new InventoryDto(1L, productId, 1,10), StatusCode.SUCCESS);
 
-    when(productServiceClient.getProductById(productId)).thenReturn(Mono.just(productDto));
-    when(inventoryServiceClient.deductInventory(productId, 2)).thenReturn(Mono.empty());
+    when(productServiceClient.getProductsByIds(List.of(productId))).thenReturn(Mono.just(new ProductBatchDto(List.of(productDto), List.of())));
+    when(inventoryServiceClient.deductInventoryBatch(List.of(new DeductInventoryRequestDto(productId, 2)))).thenReturn(Mono.empty());
 
 
     when(productServiceConfig.getBaseUrl()).thenReturn("/api/v1");
     when(inventoryServiceConfig.getBaseUrl()).thenReturn("/api/v1");
 
-    when(orderRepository.save(any(Order.class))).thenAnswer(invocation -> {
+    when(reactiveOrderStore.insert(any(Order.class), any())).thenAnswer(invocation -> {
               Order savedOrder = invocation.getArgument(0);
               savedOrder.setOrderId(1L);// Simulate setting the ID after saving
               savedOrder.setCustomerEmail("some email");// Simulate setting the email after saving
-              return savedOrder;
+              Function<Order, OrderOutboxEvent> outboxEvent = invocation.getArgument(1);
+              outboxEvent.apply(savedOrder);// Simulate saving the outbox entry in the same transaction
+              return Mono.just(savedOrder);
             });
 
     // When
@@ -314,9 +356,9 @@ class OrderServiceImplTest {
               assertEquals(new BigDecimal("20.00"), savedOrder.getTotalAmount());
               assertEquals("PLACED", savedOrder.getOrderStatus());
 
-              //verify kafka event was sent with correct values
-              verify(orderEventProducer, times(1))
-                      .sendOrderPlacedEvent(argThat(event ->
+              //verify the order placed event was written to the outbox with correct values
+              verify(orderEventOutbox, times(1))
+                      .newOrderPlacedEntry(argThat(event ->
                               event.orderId().equals(savedOrder.getOrderId()) &&
                       event.customerEmail().equals(savedOrder.getCustomerEmail())
                       ));
@@ -324,6 +366,64 @@ class OrderServiceImplTest {
             .verifyComplete();
   }
 
+  @Test
+  void testCreateOrderReactivelyByCallingExternalServicesReleasesTheDeductedStockWhenTheStoreFails() {
+    //given: 2 of product 1 and 3 of product 2
+    UUID productId1 = UUID.randomUUID();
+    UUID productId2 = UUID.randomUUID();
+    Order order = new Order();
+    order.setOrderItems(List.of(
+            new OrderItem(null, productId1, null, null, 2),
+            new OrderItem(null, productId2, null, null, 3)
+    ));
+    when(productServiceClient.getProductsByIds(List.of(productId1, productId2))).thenReturn(Mono.just(new ProductBatchDto(List.of(
+            new ProductDto(productId1, "PRODUCT1", "CATEGORY", "DESCRIPTION", 10, 10,
+                    LocalDate.now().plusYears(1), LocalDate.now(), new BigDecimal("10.00")),
+            new ProductDto(productId2, "PRODUCT2", "CATEGORY", "DESCRIPTION", 10, 10,
+                    LocalDate.now().plusYears(1), LocalDate.now(), new BigDecimal("20.00"))), List.of())));
+    when(inventoryServiceClient.deductInventoryBatch(anyList())).thenReturn(Mono.empty());
+    when(inventoryServiceClient.restoreInventoryBatch(anyList())).thenReturn(Mono.empty());
+    //the insert of the order (or of its outbox entry) fails
+    var storeFailure = new DataAccessResourceFailureException("connection lost");
+    when(reactiveOrderStore.insert(any(Order.class), any())).thenReturn(Mono.error(storeFailure));
+
+    //when
+    Mono<Order> result = orderService.processOrderReactivelyByCallingExternalizedServices(order);
+
+    //then: the order fails with the store error, and the stock deducted for it is released
+    StepVerifier.create(result)
+            .expectErrorSatisfies(error -> assertSame(storeFailure, error))
+            .verify();
+    var deducted = List.of(new DeductInventoryRequestDto(productId1, 2), new DeductInventoryRequestDto(productId2, 3));
+    verify(inventoryServiceClient).deductInventoryBatch(argThat(requests -> new HashSet<>(requests).equals(new HashSet<>(deducted))));
+    verify(inventoryServiceClient).restoreInventoryBatch(argThat(requests -> new HashSet<>(requests).equals(Set.of(
+            new RestoreInventoryDto(productId1, 2),
+            new RestoreInventoryDto(productId2, 3)))));
+    verifyNoMoreInteractions(inventoryServiceClient);
+  }
+
+  @Test
+  void testCreateOrderReactivelyByCallingExternalServicesKeepsTheStoreErrorWhenTheReleaseFails() {
+    //given
+    UUID productId = UUID.randomUUID();
+    Order order = new Order();
+    order.setOrderItems(List.of(new OrderItem(null, productId, null, null, 2)));
+    when(productServiceClient.getProductsByIds(List.of(productId))).thenReturn(Mono.just(new ProductBatchDto(List.of(
+            new ProductDto(productId, "PRODUCT1", "CATEGORY", "DESCRIPTION", 10, 10,
+                    LocalDate.now().plusYears(1), LocalDate.now(), new BigDecimal("10.00"))), List.of())));
+    when(inventoryServiceClient.deductInventoryBatch(anyList())).thenReturn(Mono.empty());
+    when(inventoryServiceClient.restoreInventoryBatch(anyList()))
+            .thenReturn(Mono.error(new IllegalStateException("inventory-service unavailable")));
+    var storeFailure = new DataAccessResourceFailureException("connection lost");
+    when(reactiveOrderStore.insert(any(Order.class), any())).thenReturn(Mono.error(storeFailure));
+
+    //when, then: the failed release is logged, the caller gets the store error
+    StepVerifier.create(orderService.processOrderReactivelyByCallingExternalizedServices(order))
+            .expectErrorSatisfies(error -> assertSame(storeFailure, error))
+            .verify();
+    verify(inventoryServiceClient).restoreInventoryBatch(List.of(new RestoreInventoryDto(productId, 2)));
+  }
+
   @Test
   void testCreateOrderReactivelyByCallingExternalizedServicesWithInsufficientQuantity() {
     // Given
@@ -344,7 +444,7 @@ class OrderServiceImplTest {
     );
 
     // Mock the product service to return the product with insufficient stock
-    when(productServiceClient.getProductById(productId)).thenReturn(Mono.just(productDto));
+    when(productServiceClient.getProductsByIds(List.of(productId))).thenReturn(Mono.just(new ProductBatchDto(List.of(productDto), List.of())));
     //inventory should not be called since the product has insufficient stock
 
     Mono<Order> result = orderService.processOrderReactivelyByCallingExternalizedServices(order);
@@ -355,6 +455,50 @@ class OrderServiceImplTest {
   }
 
 
+  @Test
+  void testCreateOrderReactivelyByCallingExternalServicesFetchesDuplicateProductOnce() {
+    // Given: the same product on two lines, 6 + 5 units requested with 10 in stock
+    UUID productId = UUID.fromString("123e4567-e89b-12d3-a456-426614174000");
+    Order order = new Order();
+    order.setOrderItems(List.of(
+            new OrderItem(1L, productId, null, null, 6),
+            new OrderItem(2L, productId, null, null, 5)
+    ));
+    ProductDto productDto = new ProductDto(
+            productId, "PRODUCT1", "CATEGORY", "DESCRIPTION", 10, 10,
+            LocalDate.now().plusYears(1), LocalDate.now(), new BigDecimal("10.00")
+    );
+    when(productServiceClient.getProductsByIds(List.of(productId))).thenReturn(Mono.just(new ProductBatchDto(List.of(productDto), List.of())));
+
+    // When
+    Mono<Order> result = orderService.processOrderReactivelyByCallingExternalizedServices(order);
+
+    // Then: the stock is checked against both lines together, with a single product lookup
+    StepVerifier.create(result)
+            .expectError(InsufficientStockQuantityException.class)
+            .verify();
+    verify(productServiceClient, times(1)).getProductsByIds(List.of(productId));
+    verifyNoInteractions(inventoryServiceClient);
+  }
+
+
+  @Test
+  void testCreateOrderReactivelyByCallingExternalServicesProductNotFound() {
+    // Given: product-service reports the product as missing from the batch read
+    UUID productId = UUID.fromString("123e4567-e89b-12d3-a456-426614174000");
+    Order order = new Order();
+    order.setOrderItems(List.of(new OrderItem(1L, productId, null, null, 1)));
+    when(productServiceClient.getProductsByIds(List.of(productId)))
+            .thenReturn(Mono.just(new ProductBatchDto(List.of(), List.of(productId))));
+
+    // When and Then
+    StepVerifier.create(orderService.processOrderReactivelyByCallingExternalizedServices(order))
+            .expectError(ProductNotFoundException.class)
+            .verify();
+    verifyNoInteractions(inventoryServiceClient);
+  }
+
+
   @Test
   void getOrderByIdSuccess() {
     //Given
@@ -388,89 +532,95 @@ class OrderServiceImplTest {
   }
 
   @Test
-  void getAllOrdersSuccess() {
-    //Given
-    given(orderRepository.findAll()).willReturn(orderList);
-
-    //convert order list to orderDto list
-    var orderDtos = OrderMapper.mapFromOrdersToOrderDtos(orderList);
+  void searchOrdersSuccess() {
+    //Given: a page of the summaries of the first 3 orders, with a next page
+    var summaries = orderList.subList(0, 3).stream()
+            .map(order -> new OrderSummaryDto(order.getOrderId(), order.getCustomerName(), order.getCustomerEmail(),
+                    order.getTotalAmount(), order.getOrderDate(), order.getOrderStatus()))
+            .toList();
+    given(orderRepository.findBy(ArgumentMatchers.<Specification<Order>>any(), any()))
+            .willReturn(Window.from(summaries, ScrollPosition::offset, true));
 
     //When
-    orderDtos = orderService.getAllOrders();
+    var orderSummaries = orderService.searchOrders(new OrderSearchCriteria(" placed ", null, "order1@email.com",
+            LocalDate.of(2025, 1, 1), LocalDate.of(2025, 12, 31)), ScrollPosition.keyset(), 3);
 
     //Then
-    assertNotNull(orderDtos);
-    assertEquals(5, orderDtos.size());
-    assertEquals("order 1 customer", orderDtos.get(0).getCustomerName());
-    assertEquals("order 2 customer", orderDtos.get(1).getCustomerName());
-    assertEquals("order 3 customer", orderDtos.get(2).getCustomerName());
+    assertNotNull(orderSummaries);
+    assertEquals(3, orderSummaries.size());
+    assertTrue(orderSummaries.hasNext());
+    assertEquals("order 1 customer", orderSummaries.getContent().get(0).customerName());
+    assertEquals("order 2 customer", orderSummaries.getContent().get(1).customerName());
+    assertEquals("order 3 customer", orderSummaries.getContent().get(2).customerName());
   }
 
   @Test
-  void getAllOrdersWithoutCancelledOnesSuccess() {
+  void searchOrdersEmptyPage() {
     //Given
-    //filter out canceled orders
-    List<Order> expectedOrders = orderList.stream()
-                    .filter(order -> !order.getOrderStatus().equals("CANCELLED"))
-                    .toList();
-    given(orderRepository.findByOrderStatusNot("CANCELLED")).willReturn(expectedOrders);
-
-    //convert order list to orderDto list
-    var orderDtosWithoutCancelledOnes = OrderMapper.mapFromOrdersToOrderDtos(expectedOrders);
+    given(orderRepository.findBy(ArgumentMatchers.<Specification<Order>>any(), any()))
+            .willReturn(Window.from(List.of(), ScrollPosition::offset, false));
 
     //When
-    orderDtosWithoutCancelledOnes = orderService.getAllOrdersWithoutCancelledOnes();
+    var orderSummaries = orderService.searchOrders(OrderSearchCriteria.byCustomerEmail("nobody@email.com"),
+            ScrollPosition.keyset(), 50);
 
     //Then
-    assertNotNull(orderDtosWithoutCancelledOnes);
-    assertEquals(4, orderDtosWithoutCancelledOnes.size());
-    assertEquals("order 1 customer", orderDtosWithoutCancelledOnes.get(0).getCustomerName());
-    assertEquals("order 2 customer", orderDtosWithoutCancelledOnes.get(1).getCustomerName());
-    assertEquals("order 3 customer", orderDtosWithoutCancelledOnes.get(2).getCustomerName());
+    assertTrue(orderSummaries.isEmpty());
+    assertFalse(orderSummaries.hasNext());
   }
 
   @Test
-  void getOrdersByCustomerEmailSuccess() {
-    //Given
-    List<Order> expectedOrders = orderList.stream()
-            .filter(order -> order.getCustomerEmail().equals("order1@email.com"))
-                    .toList();
-    given(orderRepository.findByCustomerEmail("order1@email.com")).willReturn(expectedOrders);
+  void searchOrdersInvalidCriteria() {
+    //an unknown status and a date range ending before it starts are rejected before any query
+    assertThrows(IllegalArgumentException.class, () -> orderService.searchOrders(
+            OrderSearchCriteria.byOrderStatus("LOST"), ScrollPosition.keyset(), 50));
+    assertThrows(IllegalArgumentException.class, () -> orderService.searchOrders(
+            new OrderSearchCriteria(null, null, null, LocalDate.of(2025, 2, 1), LocalDate.of(2025, 1, 1)),
+            ScrollPosition.keyset(), 50));
+    verify(orderRepository, never()).findBy(ArgumentMatchers.<Specification<Order>>any(), any());
+  }
 
-    //convert order list to orderDto list
-    var orderDtos = OrderMapper.mapFromOrdersToOrderDtos(expectedOrders);
+  @Test
+  void exportOrdersSinceDateAsNdjson() throws Exception {
+    //Given
+    var since = LocalDate.of(2025, 10, 1);
+    given(orderRepository.streamPlacedSinceWithItems(since)).willReturn(orderList.stream().limit(2));
+    var output = new ByteArrayOutputStream();
 
     //When
-    orderDtos = orderService.getOrdersByCustomerEmail("order1@email.com");
-
-    //Then
-    assertNotNull(orderDtos);
-    assertEquals(2, orderDtos.size());
-    assertEquals("order 1 customer", orderDtos.get(0).getCustomerName());
-    assertEquals("order 5 customer", orderDtos.get(1).getCustomerName());
-
+    var count = orderService.exportOrders(since, ExportFormat.NDJSON, output);
+
+    //Then: one line per order, its items nested in it
+    assertEquals(2, count);
+    var lines = output.toString(StandardCharsets.UTF_8).split("\n");
+    assertEquals(2, lines.length);
+    assertTrue(lines[0].startsWith("{\"orderId\":1,\"customerName\":\"order 1 customer\""));
+    assertTrue(lines[0].contains("\"orderDate\":\"2025-10-10\",\"orderStatus\":\"PLACED\""));
+    var firstItem = orderList.get(0).getOrderItems().get(0);
+    assertTrue(lines[0].contains("\"orderItems\":[{\"productId\":\"" + firstItem.getProductId()
+            + "\",\"productName\":\"PRODUCT1\",\"productPrice\":100.00,\"productQuantity\":10},"));
+    assertTrue(lines[1].startsWith("{\"orderId\":2,"));
+    verify(entityManager, times(2)).detach(any(Order.class));
+    verify(orderRepository, never()).streamAllWithItems();
   }
 
   @Test
-  void getOrdersByStatusSuccess() {
-    //Given
-    //PLACED orders
-    List<Order> expectedOrders = orderList.stream()
-            .filter(order -> order.getOrderStatus().equals("PLACED"))
-            .toList();
-    given(orderRepository.findByOrderStatusIgnoreCase("PLACED")).willReturn(expectedOrders);
-
-    //convert order list to orderDto list
-    var orderDtos = OrderMapper.mapFromOrdersToOrderDtos(expectedOrders);
+  void updateOrderStatusEvictsTheOrderDto() {
+    //Given: order 2 is SHIPPED and cached
+    var order = orderList.get(1);
+    var orderDtoCache = new ConcurrentMapCache("orderDto");
+    orderDtoCache.put(2L, OrderMapper.mapFromOrderToOrderDto(order));
+    orderDtoCache.put(3L, OrderMapper.mapFromOrderToOrderDto(orderList.get(2)));
+    given(cacheManager.getCache("orderDto")).willReturn(orderDtoCache);
+    given(orderRepository.findById(2L)).willReturn(Optional.of(order));
+    given(orderRepository.save(order)).willReturn(order);
 
     //When
-    orderDtos = orderService.getOrdersByStatus("PLACED");
+    orderService.updateOrderStatus(2L, "DELIVERED");
 
-    //Then
-    assertNotNull(orderDtos);
-    assertEquals(2, orderDtos.size());
-    assertEquals("order 1 customer", orderDtos.get(0).getCustomerName());
-    assertEquals("order 5 customer", orderDtos.get(1).getCustomerName());
+    //Then: only the changed order is evicted
+    assertNull(orderDtoCache.get(2L));
+    assertNotNull(orderDtoCache.get(3L));
   }
 
 
@@ -591,9 +741,9 @@ class OrderServiceImplTest {
 
 
     //mock repository behavior
-    when(orderRepository.findById(orderId)).thenReturn(Optional.of(exist));
-    given(orderRepository.save(any(Order.class))).willAnswer(invocation -> invocation.getArgument(0));
-    doNothing().when(orderRepository).deleteOrderItemById(anyLong());
+    when(reactiveOrderStore.findById(orderId)).thenReturn(Mono.just(exist));
+    given(reactiveOrderStore.update(any(Order.class), any(OrderItemChanges.class)))
+            .willAnswer(invocation -> Mono.just(invocation.getArgument(0)));
 
 
     //mock web client behavior
@@ -643,8 +793,12 @@ class OrderServiceImplTest {
     .verifyComplete();
 
     //verify repository methods were called
-    verify(orderRepository).findById(orderId);
-    verify(orderRepository).save(any(Order.class));
+    verify(reactiveOrderStore).findById(orderId);
+    //the new product is inserted and the line of the old one deleted, nothing else is written
+    verify(reactiveOrderStore).update(any(Order.class), argThat(itemChanges ->
+            itemChanges.added().size() == 1
+                    && itemChanges.changed().isEmpty()
+                    && itemChanges.removedOrderItemIds().equals(List.of(1L))));
   }
 
   /**
@@ -698,18 +852,14 @@ class OrderServiceImplTest {
     );
 
     //mocks
-    when(orderRepository.findById(orderId)).thenReturn(Optional.of(existingOrder));
-    when(inventoryServiceClient.restoreInventory(productId, 5)).thenReturn(Mono.empty());
-
-    doNothing().when(orderRepository).deleteOrderItemById(anyLong()); //orderItemId = 1L but we don't care about it here
-    when(productServiceClient.getProductById(productId)).thenReturn(Mono.just(productDto));
-    when(inventoryServiceClient.deductInventory(productId, 5)).thenReturn(Mono.empty());
+    when(reactiveOrderStore.findById(orderId)).thenReturn(Mono.just(existingOrder));
+    when(productServiceClient.getProductsByIds(List.of(productId))).thenReturn(Mono.just(new ProductBatchDto(List.of(productDto), List.of())));
     /*
      * This line of code means that the order will be saved with the updated order items.
-     * invocation -> invocation.getArgument(0): gets the first argument passed to the save method,
+     * invocation -> invocation.getArgument(0): gets the first argument passed to the update method,
      * that is returned as the updated order.
      */
-    when(orderRepository.save(any(Order.class))).thenAnswer(invocation -> invocation.getArgument(0));
+    when(reactiveOrderStore.update(any(Order.class), any(OrderItemChanges.class), any())).thenAnswer(OrderServiceImplTest::saveWithOutboxEvent);
 
 
     //when
@@ -738,13 +888,121 @@ class OrderServiceImplTest {
 
             })
             .verifyComplete();
-    //verify kafka event was sent
-    verify(orderEventProducer, times(1))
-            .sendOrderUpdatedEvent(argThat( event ->
+    //verify the order updated event was written to the outbox
+    verify(orderEventOutbox, times(1))
+            .newOrderUpdatedEntry(argThat( event ->
                     event.orderId().equals(orderId)
                             && event.customerEmail().equals(updateOrder.getCustomerEmail())
             ));
+    //the items did not change: no item row is written and the inventory is not called
+    verify(reactiveOrderStore).update(any(Order.class), argThat(OrderItemChanges::isEmpty), any());
+    verifyNoInteractions(inventoryServiceClient);
+  }
+
+  @Test
+  void testUpdateOrderByCallingExternalizedServicesAppliesOnlyTheChanges() {
+    //given: an order holding 5 of product 1 and 2 of product 2
+    UUID productId1 = UUID.randomUUID();
+    UUID productId2 = UUID.randomUUID();
+    UUID productId3 = UUID.randomUUID();
+    Order existingOrder = orderList.getFirst();
+    var orderId = existingOrder.getOrderId();
+    existingOrder.setOrderItems(new ArrayList<>(List.of(
+            new OrderItem(11L, productId1, "PRODUCT1", new BigDecimal("10.00"), 5),
+            new OrderItem(12L, productId2, "PRODUCT2", new BigDecimal("20.00"), 2)
+    )));
+
+    //updated to 3 of product 1, without product 2 and with 4 of product 3
+    Order updateOrder = new Order();
+    updateOrder.setCustomerName(existingOrder.getCustomerName());
+    updateOrder.setCustomerEmail(existingOrder.getCustomerEmail());
+    updateOrder.setShippingAddress(existingOrder.getShippingAddress());
+    updateOrder.setOrderItems(new ArrayList<>(List.of(
+            new OrderItem(null, productId1, null, null, 3),
+            new OrderItem(99L, productId3, null, null, 4) //an id sent by the client is not trusted
+    )));
+
+    when(reactiveOrderStore.findById(orderId)).thenReturn(Mono.just(existingOrder));
+    when(productServiceClient.getProductsByIds(List.of(productId1, productId3))).thenReturn(Mono.just(new ProductBatchDto(List.of(
+            new ProductDto(productId1, "PRODUCT1", "CATEGORY", "DESCRIPTION", 10, 10,
+                    LocalDate.now().plusYears(1), LocalDate.now(), new BigDecimal("10.00")),
+            new ProductDto(productId3, "PRODUCT3", "CATEGORY", "DESCRIPTION", 10, 10,
+                    LocalDate.now().plusYears(1), LocalDate.now(), new BigDecimal("5.00"))), List.of())));
+    when(inventoryServiceClient.deductInventoryBatch(anyList())).thenReturn(Mono.empty());
+    when(inventoryServiceClient.restoreInventoryBatch(anyList())).thenReturn(Mono.empty());
+    when(reactiveOrderStore.update(any(Order.class), any(OrderItemChanges.class), any())).thenAnswer(OrderServiceImplTest::saveWithOutboxEvent);
+
+    //when
+    Mono<Order> result = orderService.updateOrderByCallingExternalizedServices(orderId, updateOrder);
 
+    //then
+    StepVerifier.create(result)
+            .assertNext(updatedOrder -> {
+              assertEquals(2, updatedOrder.getOrderItems().size());
+              assertEquals(11L, updatedOrder.getOrderItems().get(0).getOrderItemId());
+              assertNull(updatedOrder.getOrderItems().get(1).getOrderItemId());
+              assertEquals(new BigDecimal("50.00"), updatedOrder.getTotalAmount()); //3 * 10.00 + 4 * 5.00
+            })
+            .verifyComplete();
+    //the line of product 1 is updated in place, product 3 is inserted and the line of product 2 deleted
+    verify(reactiveOrderStore).update(any(Order.class), argThat(itemChanges ->
+            itemChanges.changed().size() == 1 && itemChanges.changed().getFirst().getOrderItemId().equals(11L)
+                    && itemChanges.added().size() == 1 && itemChanges.added().getFirst().getProductId().equals(productId3)
+                    && itemChanges.removedOrderItemIds().equals(List.of(12L))), any());
+    //one call each way, for the net change of each product only
+    verify(inventoryServiceClient).deductInventoryBatch(List.of(new DeductInventoryRequestDto(productId3, 4)));
+    verify(inventoryServiceClient).restoreInventoryBatch(List.of(
+            new RestoreInventoryDto(productId1, 2),
+            new RestoreInventoryDto(productId2, 2)));
+    verify(inventoryServiceClient, never()).restoreInventory(any(UUID.class), anyInt());
+  }
+
+  @Test
+  void testUpdateOrderByCallingExternalizedServicesReleasesTheDeductedStockWhenTheStoreFails() {
+    //given: an order holding 5 of product 1 and 2 of product 2
+    UUID productId1 = UUID.randomUUID();
+    UUID productId2 = UUID.randomUUID();
+    UUID productId3 = UUID.randomUUID();
+    Order existingOrder = orderList.getFirst();
+    var orderId = existingOrder.getOrderId();
+    existingOrder.setOrderItems(new ArrayList<>(List.of(
+            new OrderItem(11L, productId1, "PRODUCT1", new BigDecimal("10.00"), 5),
+            new OrderItem(12L, productId2, "PRODUCT2", new BigDecimal("20.00"), 2)
+    )));
+
+    //updated to 3 of product 1, without product 2 and with 4 of product 3
+    Order updateOrder = new Order();
+    updateOrder.setCustomerName(existingOrder.getCustomerName());
+    updateOrder.setCustomerEmail(existingOrder.getCustomerEmail());
+    updateOrder.setShippingAddress(existingOrder.getShippingAddress());
+    updateOrder.setOrderItems(new ArrayList<>(List.of(
+            new OrderItem(null, productId1, null, null, 3),
+            new OrderItem(null, productId3, null, null, 4)
+    )));
+
+    when(reactiveOrderStore.findById(orderId)).thenReturn(Mono.just(existingOrder));
+    when(productServiceClient.getProductsByIds(List.of(productId1, productId3))).thenReturn(Mono.just(new ProductBatchDto(List.of(
+            new ProductDto(productId1, "PRODUCT1", "CATEGORY", "DESCRIPTION", 10, 10,
+                    LocalDate.now().plusYears(1), LocalDate.now(), new BigDecimal("10.00")),
+            new ProductDto(productId3, "PRODUCT3", "CATEGORY", "DESCRIPTION", 10, 10,
+                    LocalDate.now().plusYears(1), LocalDate.now(), new BigDecimal("5.00"))), List.of())));
+    when(inventoryServiceClient.deductInventoryBatch(anyList())).thenReturn(Mono.empty());
+    when(inventoryServiceClient.restoreInventoryBatch(anyList())).thenReturn(Mono.empty());
+    //the write of the order (or of its outbox entry) fails
+    var storeFailure = new DataAccessResourceFailureException("connection lost");
+    when(reactiveOrderStore.update(any(Order.class), any(OrderItemChanges.class), any())).thenReturn(Mono.error(storeFailure));
+
+    //when
+    Mono<Order> result = orderService.updateOrderByCallingExternalizedServices(orderId, updateOrder);
+
+    //then: the update fails with the store error
+    StepVerifier.create(result)
+            .expectErrorSatisfies(error -> assertSame(storeFailure, error))
+            .verify();
+    //the increase deducted before the write is released, the decreases were never applied so are not released
+    verify(inventoryServiceClient).deductInventoryBatch(List.of(new DeductInventoryRequestDto(productId3, 4)));
+    verify(inventoryServiceClient).restoreInventoryBatch(List.of(new RestoreInventoryDto(productId3, 4)));
+    verifyNoMoreInteractions(inventoryServiceClient);
   }
 
   @Test
@@ -785,11 +1043,10 @@ class OrderServiceImplTest {
     );
 
     //mocks
-    when(orderRepository.findById(orderId)).thenReturn(Optional.of(existingOrder));
-    when(productServiceClient.getProductById(productId)).thenReturn(Mono.just(productDto));
-    when(inventoryServiceClient.deductInventory(productId, 5)).thenReturn(Mono.empty());
-    doNothing().when(orderRepository).deleteOrderItemById(anyLong());
-    when(orderRepository.save(any(Order.class))).thenAnswer(invocation -> invocation.getArgument(0));
+    when(reactiveOrderStore.findById(orderId)).thenReturn(Mono.just(existingOrder));
+    when(productServiceClient.getProductsByIds(List.of(productId))).thenReturn(Mono.just(new ProductBatchDto(List.of(productDto), List.of())));
+    when(inventoryServiceClient.deductInventoryBatch(List.of(new DeductInventoryRequestDto(productId, 5)))).thenReturn(Mono.empty());
+    when(reactiveOrderStore.update(any(Order.class), any(OrderItemChanges.class), any())).thenAnswer(OrderServiceImplTest::saveWithOutboxEvent);
 
     //when
     Mono<Order> result = orderService.updateOrderByCallingExternalizedServices(orderId, updateOrder);
@@ -802,8 +1059,9 @@ class OrderServiceImplTest {
             }).verifyComplete();
     // Verify that restoreInventory is not called since order status is SHIPPED
     verify(inventoryServiceClient, never()).restoreInventory(any(UUID.class), anyInt());
-    // Verify that deductInventory is called
-    verify(inventoryServiceClient,times(1)).deductInventory(any(UUID.class), anyInt());
+    // Verify that the batch deduction is called once for all the new items
+    verify(inventoryServiceClient,times(1)).deductInventoryBatch(anyList());
+    verify(inventoryServiceClient, never()).restoreInventoryBatch(anyList());
   }
 
   @Test
@@ -818,7 +1076,6 @@ class OrderServiceImplTest {
 
     when(orderRepository.findById(orderId)).thenReturn(Optional.of(existingOrder));
     when(inventoryServiceClient.restoreInventory(productId, 5)).thenReturn(Mono.empty());
-    doNothing().when(orderRepository).deleteOrderItemById(anyLong());
 
     //When
     orderService.deleteOrder(orderId);
@@ -827,6 +1084,7 @@ class OrderServiceImplTest {
     verify(orderRepository, times(1)).findById(orderId);
     verify(orderRepository, times(1)).delete(existingOrder);
     verify(inventoryServiceClient, times(1)).restoreInventory(productId, 5);
+    verify(orderEventOutbox, times(1)).appendOrderDeletedEvent(argThat(event -> event.orderId().equals(orderId)));
   }
 
   @Test
@@ -936,7 +1194,7 @@ class OrderServiceImplTest {
     //NOTE: called 3 times because of the 3 order items in the order
     verify(inventoryServiceClient, times(3)).restoreInventory(any(UUID.class), anyInt());
     verify(orderRepository, times(1)).save(order);
-    verify(orderEventProducer, times(1)).sendOrderCancelledEvent(any(OrderCancelledEvent.class));
+    verify(orderEventOutbox, times(1)).appendOrderCancelledEvent(any(OrderCancelledEvent.class));
   }
 
   @Test
@@ -1016,4 +1274,15 @@ class OrderServiceImplTest {
     assertNotNull(orderDto);
     assertEquals("order 1 customer", orderDto.getCustomerName());
   }
-}
\ No newline at end of file
+
+  /**
+   * Answers ReactiveOrderStore.update(order, itemChanges, outboxEvent) like the real store:
+   * builds the outbox entry from the saved order and returns the order.
+   */
+  private static Mono<Order> saveWithOutboxEvent(InvocationOnMock invocation) {
+    Order savedOrder = invocation.getArgument(0);
+    Function<Order, OrderOutboxEvent> outboxEvent = invocation.getArgument(2);
+    outboxEvent.apply(savedOrder);
+    return Mono.just(savedOrder);
+  }
+}
@@ -6,17 +6,31 @@
  */
 package com.tjtechy.product_service.controller;
 
+import com.tjtechy.ProductBatchDto;
+import com.tjtechy.export.ExportFormat;
+import com.tjtechy.product_service.entity.Product;
 import com.tjtechy.product_service.entity.dto.CreateProductDto;
+import com.tjtechy.product_service.entity.dto.ProductFilter;
+import com.tjtechy.product_service.entity.dto.ProductPageDto;
+import com.tjtechy.product_service.entity.dto.ProductSort;
 import com.tjtechy.product_service.entity.dto.UpdateProductDto;
 import com.tjtechy.product_service.mapper.ProductMapper;
 import com.tjtechy.product_service.service.ProductService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.util.List;
 import java.util.UUID;
+import java.util.stream.Collectors;
 import com.tjtechy.Result;
 import com.tjtechy.StatusCode;
 
@@ -25,6 +39,13 @@ import com.tjtechy.StatusCode;
 @RequestMapping("${api.endpoint.base-url}/product")
 public class ProductController {
 
+  /** Upper bound of ids per batch read, keeps the URL and the IN (...) query small. */
+  static final int MAX_BATCH_SIZE = 200;
+
+  /** Page size of the product listing when none is requested, and its upper bound. */
+  static final int DEFAULT_PAGE_SIZE = 50;
+  static final int MAX_PAGE_SIZE = 200;
+
   private final ProductService productService;
 
   public ProductController(ProductService productService) {
@@ -33,14 +54,54 @@ public class ProductController {
   }
 
   /**
-   * Endpoint to get all products.
+   * Endpoint to get a page of products, filtered and sorted.
+   * The first page is requested without cursor; each page carries the cursor of the next one, null on the last page.
+   * @param category the exact product category, optional
+   * @param minPrice the lowest price, inclusive, optional
+   * @param maxPrice the highest price, inclusive, optional
+   * @param inStock true for the products with available stock, false for the ones without, optional
+   * @param sort the order of the products, by name by default
+   * @param limit the maximum number of products of the page, at most {@value #MAX_PAGE_SIZE}
+   * @param cursor the nextCursor of the previous page, issued for the same sort
+   * @return a Result object containing the products of the page and the cursor of the next page
+   */
+  @Operation(summary = "Get Products Page", description = "Retrieve a page of products, filtered and sorted, from the product service",
+  responses = {
+          @ApiResponse(responseCode = "200", description = "Get Page Success"),
+          @ApiResponse(responseCode = "400", description = "Invalid limit, price range or cursor"),
+  })
+  @GetMapping
+  public Result getProducts(@RequestParam(required = false) String category,
+                            @RequestParam(required = false) BigDecimal minPrice,
+                            @RequestParam(required = false) BigDecimal maxPrice,
+                            @RequestParam(required = false) Boolean inStock,
+                            @RequestParam(defaultValue = "NAME") ProductSort sort,
+                            @RequestParam(defaultValue = "" + DEFAULT_PAGE_SIZE) int limit,
+                            @RequestParam(required = false) String cursor){
+    if (limit < 1 || limit > MAX_PAGE_SIZE) {
+      throw new IllegalArgumentException("The limit must be between 1 and " + MAX_PAGE_SIZE);
+    }
+    if (minPrice != null && maxPrice != null && minPrice.compareTo(maxPrice) > 0) {
+      throw new IllegalArgumentException("The minimum price must not be greater than the maximum price");
+    }
+    var position = cursor == null ? ScrollPosition.keyset() : ProductCursor.decode(sort, cursor);
+    var page = productService.getProductPage(new ProductFilter(category, minPrice, maxPrice, inStock), sort, position, limit);
+    var products = page.getContent();
+    var nextCursor = page.hasNext() ? ProductCursor.encode(sort, products.getLast()) : null;
+    //map to dto
+    var productPageDto = new ProductPageDto(ProductMapper.mapFromProductListToProductDtoList(products), nextCursor);
+    return new Result("Get Page Success", true, productPageDto, StatusCode.SUCCESS);
+  }
+
+  /**
+   * Endpoint to get all products, unpaginated; prefer {@link #getProducts} for browsing.
    * @return a Result object containing a list of all products
    */
   @Operation(summary = "Get All Products", description = "Retrieve all products from the product service",
   responses = {
           @ApiResponse(responseCode = "200", description = "Get All Success"),
   })
-  @GetMapping
+  @GetMapping("/all")
   public Result getAllProducts(){
     var products = productService.getAllProducts();
     //map to dto
@@ -48,6 +109,59 @@ public class ProductController {
     return new Result("Get All Success", true, productDtos, StatusCode.SUCCESS);
   }
 
+  /**
+   * Endpoint to export all products as NDJSON (one product per line) or CSV, for bulk consumers.
+   * The products are written to the response while they are read from the database,
+   * so the export runs in constant memory whatever the size of the catalog.
+   * @param format the output format, NDJSON by default
+   * @param since when given, only the products updated on or after this date (yyyy-MM-dd) are exported
+   */
+  @Operation(summary = "Export Products", description = "Stream all products, or those updated since a date, as NDJSON or CSV",
+          responses = {
+          @ApiResponse(responseCode = "200", description = "Export Success"),
+          @ApiResponse(responseCode = "400", description = "Invalid format or date"),
+          })
+  @GetMapping("/export")
+  public void exportProducts(@RequestParam(defaultValue = "NDJSON") ExportFormat format,
+                             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate since,
+                             HttpServletResponse response) throws IOException {
+    response.setContentType(format.getMediaType());
+    response.setCharacterEncoding("UTF-8");
+    response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"products." + format.getFileExtension() + "\"");
+    try {
+      productService.exportProducts(since, format, response.getOutputStream());
+    } catch (RuntimeException e) {
+      //nothing sent yet: drop the export headers so the error is written as a regular Result
+      if (!response.isCommitted()) {
+        response.reset();
+      }
+      throw e;
+    }
+  }
+
+  /**
+   * Endpoint to get several products in one call.
+   * @param ids the UUIDs of the products to retrieve, at most {@value #MAX_BATCH_SIZE}
+   * @return a Result object containing the products found and the ids that do not exist
+   */
+  @Operation(summary = "Get Products By IDs", description = "Retrieve several products by their IDs in one call",
+          responses = {
+          @ApiResponse(responseCode = "200", description = "Get Batch Success"),
+          @ApiResponse(responseCode = "400", description = "Too many product IDs"),
+          })
+  @GetMapping("/batch")
+  public Result getProductsByIds(@RequestParam List<UUID> ids){
+    if (ids.size() > MAX_BATCH_SIZE) {
+      throw new IllegalArgumentException("At most " + MAX_BATCH_SIZE + " product ids can be requested at once");
+    }
+    var products = productService.getProductsByIds(ids);
+    var foundProductIds = products.stream().map(Product::getProductId).collect(Collectors.toSet());
+    var missingProductIds = ids.stream().distinct().filter(id -> !foundProductIds.contains(id)).toList();
+    //map to dto
+    var productBatchDto = new ProductBatchDto(ProductMapper.mapFromProductListToProductDtoList(products), missingProductIds);
+    return new Result("Get Batch Success", true, productBatchDto, StatusCode.SUCCESS);
+  }
+
   /**
    * Endpoint to get a product by its ID.
    * @param productId the UUID of the product to retrieve
@@ -0,0 +1,61 @@
+/*
+ *Copyright © 2025
+ * @Author = TJTechy (Tajudeen Busari)
+ * @Version = 1.0
+ * This file is part of the product-service module of the Ecommerce Microservices project.
+ */
+package com.tjtechy.product_service.controller;
+
+import com.tjtechy.product_service.entity.Product;
+import com.tjtechy.product_service.entity.dto.ProductSort;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.ScrollPosition;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.UUID;
+
+/**
+ * Opaque cursor of the product listing: the sort and the keys of the last product of a page
+ * (its sort property and its id), base64url encoded as {@code SORT:productId:value}.
+ * The next page starts right after those keys, whatever was inserted or deleted in between.
+ */
+final class ProductCursor {
+
+  private ProductCursor() {
+  }
+
+  static String encode(ProductSort sort, Product lastProduct) {
+    var value = sort == ProductSort.NAME
+            ? lastProduct.getProductName()
+            : lastProduct.getProductPrice().toPlainString();
+    var cursor = sort.name() + ":" + lastProduct.getProductId() + ":" + value;
+    return Base64.getUrlEncoder().withoutPadding().encodeToString(cursor.getBytes(StandardCharsets.UTF_8));
+  }
+
+  /**
+   * @throws IllegalArgumentException when the cursor is malformed or was issued for another sort
+   */
+  static KeysetScrollPosition decode(ProductSort sort, String cursor) {
+    String[] parts;
+    try {
+      parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split(":", 3);
+    } catch (IllegalArgumentException e) {
+      throw new IllegalArgumentException("Invalid cursor", e);
+    }
+    if (parts.length != 3 || !sort.name().equals(parts[0])) {
+      throw new IllegalArgumentException("Invalid cursor for a listing sorted by " + sort);
+    }
+    var keys = new LinkedHashMap<String, Object>();
+    try {
+      keys.put(sort.getSortProperty(), sort == ProductSort.NAME ? parts[2] : new BigDecimal(parts[2]));
+      keys.put("productId", UUID.fromString(parts[1]));
+    } catch (IllegalArgumentException e) {
+      //also the NumberFormatException of a tampered price
+      throw new IllegalArgumentException("Invalid cursor", e);
+    }
+    return ScrollPosition.forward(keys);
+  }
+}
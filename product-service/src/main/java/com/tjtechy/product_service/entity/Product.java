@@ -7,6 +7,7 @@
 package com.tjtechy.product_service.entity;
 
 import com.fasterxml.jackson.annotation.JsonFormat;
+import com.tjtechy.product_service.service.impl.ProductChangePublisher;
 import jakarta.persistence.Entity;
 import jakarta.persistence.*;
 import jakarta.persistence.Table;
@@ -18,7 +19,15 @@ import java.time.LocalDate;
 import java.util.UUID;
 
 @Entity
-@Table(name = "products")
+@EntityListeners(ProductChangePublisher.class) //announces the changes to the response cache of the api-gateway
+//keyset pagination of the listing (GET /product): each index serves a filter and sort combination,
+//the product name is already indexed by its unique constraint
+@Table(name = "products", indexes = {
+        @Index(name = "idx_products_category_price", columnList = "productCategory, productPrice, productId"),
+        @Index(name = "idx_products_category_name", columnList = "productCategory, productName, productId"),
+        @Index(name = "idx_products_price", columnList = "productPrice, productId"),
+        @Index(name = "idx_products_updated_at", columnList = "updatedAt, productId")
+})
 /*
  *int is a primitive type and cannot be null, so we use Integer.
  * Integer is an object wrapper for int and can be null.
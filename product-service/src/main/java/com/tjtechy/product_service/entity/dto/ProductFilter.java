@@ -0,0 +1,26 @@
+/*
+ *Copyright © 2025
+ * @Author = TJTechy (Tajudeen Busari)
+ * @Version = 1.0
+ * This file is part of the product-service module of the Ecommerce Microservices project.
+ */
+package com.tjtechy.product_service.entity.dto;
+
+import java.math.BigDecimal;
+
+/**
+ * Filters of the paginated product listing, each one optional (null for no filter).
+ *
+ * @param category the exact product category
+ * @param minPrice the lowest price, inclusive
+ * @param maxPrice the highest price, inclusive
+ * @param inStock true for the products with available stock, false for the ones without
+ */
+public record ProductFilter(
+        String category,
+        BigDecimal minPrice,
+        BigDecimal maxPrice,
+        Boolean inStock
+) {
+
+}
@@ -0,0 +1,24 @@
+/*
+ *Copyright © 2025
+ * @Author = TJTechy (Tajudeen Busari)
+ * @Version = 1.0
+ * This file is part of the product-service module of the Ecommerce Microservices project.
+ */
+package com.tjtechy.product_service.entity.dto;
+
+import com.tjtechy.ProductDto;
+
+import java.util.List;
+
+/**
+ * A page of the product listing (GET /product).
+ *
+ * @param products the products of the page, in the requested order
+ * @param nextCursor the cursor of the next page, null on the last page
+ */
+public record ProductPageDto(
+        List<ProductDto> products,
+        String nextCursor
+) {
+
+}
@@ -0,0 +1,40 @@
+/*
+ *Copyright © 2025
+ * @Author = TJTechy (Tajudeen Busari)
+ * @Version = 1.0
+ * This file is part of the product-service module of the Ecommerce Microservices project.
+ */
+package com.tjtechy.product_service.entity.dto;
+
+import org.springframework.data.domain.Sort;
+
+/**
+ * Sort orders of the paginated product listing (GET /product?sort=...).
+ * Each ends with the product id, so that the order is total and a keyset cursor never skips or repeats products.
+ */
+public enum ProductSort {
+
+  NAME("productName", Sort.by(Sort.Order.asc("productName"), Sort.Order.asc("productId"))),
+  PRICE_ASC("productPrice", Sort.by(Sort.Order.asc("productPrice"), Sort.Order.asc("productId"))),
+  PRICE_DESC("productPrice", Sort.by(Sort.Order.desc("productPrice"), Sort.Order.asc("productId")));
+
+  private final String sortProperty;
+
+  private final Sort sort;
+
+  ProductSort(String sortProperty, Sort sort) {
+    this.sortProperty = sortProperty;
+    this.sort = sort;
+  }
+
+  /**
+   * @return the product property sorted on before the id, the first key of the cursor
+   */
+  public String getSortProperty() {
+    return sortProperty;
+  }
+
+  public Sort getSort() {
+    return sort;
+  }
+}
@@ -9,6 +9,7 @@ package com.tjtechy.product_service.exception;
 
 import com.tjtechy.Result;
 import com.tjtechy.StatusCode;
+import com.tjtechy.businessException.RemoteServiceUnavailableException;
 import com.tjtechy.modelNotFoundException.ProductNotFoundException;
 import org.springframework.http.HttpStatus;
 import org.springframework.validation.FieldError;
@@ -17,6 +18,7 @@ import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.method.annotation.MethodArgumentTypeMismatchException;
 
 import java.util.HashMap;
 import java.util.List;
@@ -45,6 +47,32 @@ public class ExceptionHandlingAdvice {
   }
 
 
+  /**
+   * Handles {@link IllegalArgumentException}, thrown for request arguments that are out of range,
+   * e.g. too many ids in a batch read. It returns an HTTP 400 (Bad Request) status.
+   *
+   * @param e The exception instance describing the invalid argument.
+   * @return A {@link Result} object containing the error message, a failure flag, and a corresponding status code.
+   */
+  @ExceptionHandler(IllegalArgumentException.class)
+  @ResponseStatus(HttpStatus.BAD_REQUEST)
+  public Result handleIllegalArgumentException(IllegalArgumentException e) {
+    return new Result(e.getMessage(), false, StatusCode.BAD_REQUEST);
+  }
+
+  /**
+   * Handles {@link MethodArgumentTypeMismatchException}, thrown for request parameters that cannot be converted,
+   * e.g. an unknown sort of the product listing. It returns an HTTP 400 (Bad Request) status.
+   *
+   * @param e The exception instance describing the parameter.
+   * @return A {@link Result} object containing an error message, a failure flag, and a corresponding status code.
+   */
+  @ExceptionHandler(MethodArgumentTypeMismatchException.class)
+  @ResponseStatus(HttpStatus.BAD_REQUEST)
+  public Result handleMethodArgumentTypeMismatchException(MethodArgumentTypeMismatchException e) {
+    return new Result("Invalid value of the " + e.getName() + " parameter", false, StatusCode.BAD_REQUEST);
+  }
+
   /**
    * <p>Handles validation errors when request data fails validation constraints.
    * When @Valid annotation is used in the controller method request,
@@ -77,6 +105,16 @@ public class ExceptionHandlingAdvice {
     return new Result("Provided arguments are invalid, see data for details", false, map, StatusCode.BAD_REQUEST);
   }
 
+  /**
+   * Handles exceptions of type {@link RemoteServiceUnavailableException}.
+   * A service this one depends on is refused by its circuit breaker or bulkhead, or missed its deadline: HTTP 503.
+   */
+  @ExceptionHandler(RemoteServiceUnavailableException.class)
+  @ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+  public Result handleRemoteServiceUnavailableException(RemoteServiceUnavailableException e) {
+    return new Result(e.getMessage(), false, StatusCode.SERVICE_UNAVAILABLE);
+  }
+
   /**
    * Handles any unhandled exceptions that occur in the application.
    * <p>
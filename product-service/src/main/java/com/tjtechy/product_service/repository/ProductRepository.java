@@ -7,9 +7,55 @@
 package com.tjtechy.product_service.repository;
 
 import com.tjtechy.product_service.entity.Product;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDate;
+import java.util.List;
 import java.util.UUID;
+import java.util.stream.Stream;
 
-public interface ProductRepository extends JpaRepository<Product, UUID> {
+/**
+ * The paginated listing goes through {@link JpaSpecificationExecutor#findBy}: the filters of
+ * {@link ProductSpecifications}, scrolled by keyset (see the indexes of {@link Product}).
+ */
+public interface ProductRepository extends JpaRepository<Product, UUID>, JpaSpecificationExecutor<Product> {
+
+  /**
+   * Rows fetched per database round trip by the export streams.
+   */
+  int EXPORT_FETCH_SIZE = 500;
+
+  /**
+   * Ids of all products, the cached form of the product list (the products themselves are in the "product" cache).
+   */
+  @Query("select p.productId from Product p order by p.productId")
+  List<UUID> findAllProductIds();
+
+  /**
+   * Streams all the products in id order for the exports, reading them from a database cursor
+   * EXPORT_FETCH_SIZE rows at a time instead of loading the whole catalog.
+   * Must be called inside a transaction, and the stream closed.
+   */
+  @QueryHints({
+          @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + EXPORT_FETCH_SIZE),
+          @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+  })
+  @Query("select p from Product p order by p.productId")
+  Stream<Product> streamAll();
+
+  /**
+   * Like {@link #streamAll()}, for the products updated on or after the given date.
+   */
+  @QueryHints({
+          @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + EXPORT_FETCH_SIZE),
+          @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+  })
+  @Query("select p from Product p where p.updatedAt >= :since order by p.productId")
+  Stream<Product> streamUpdatedSince(@Param("since") LocalDate since);
 }
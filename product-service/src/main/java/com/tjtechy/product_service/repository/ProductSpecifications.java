@@ -0,0 +1,49 @@
+/*
+ *Copyright © 2025
+ * @Author = TJTechy (Tajudeen Busari)
+ * @Version = 1.0
+ * This file is part of the product-service module of the Ecommerce Microservices project.
+ */
+package com.tjtechy.product_service.repository;
+
+import com.tjtechy.product_service.entity.Product;
+import com.tjtechy.product_service.entity.dto.ProductFilter;
+import jakarta.persistence.criteria.Predicate;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.ArrayList;
+
+/**
+ * Query conditions of the product listing, combined with the keyset condition of its cursor by
+ * {@link ProductRepository#findBy(Specification, java.util.function.Function)}.
+ */
+public final class ProductSpecifications {
+
+  private ProductSpecifications() {
+  }
+
+  /**
+   * @param filter the filters to apply, the null ones are left out
+   * @return the products matching every filter
+   */
+  public static Specification<Product> matching(ProductFilter filter) {
+    return (root, query, criteriaBuilder) -> {
+      var predicates = new ArrayList<Predicate>();
+      if (filter.category() != null) {
+        predicates.add(criteriaBuilder.equal(root.get("productCategory"), filter.category()));
+      }
+      if (filter.minPrice() != null) {
+        predicates.add(criteriaBuilder.greaterThanOrEqualTo(root.get("productPrice"), filter.minPrice()));
+      }
+      if (filter.maxPrice() != null) {
+        predicates.add(criteriaBuilder.lessThanOrEqualTo(root.get("productPrice"), filter.maxPrice()));
+      }
+      if (filter.inStock() != null) {
+        predicates.add(filter.inStock()
+                ? criteriaBuilder.greaterThan(root.get("availableStock"), 0)
+                : criteriaBuilder.lessThanOrEqualTo(root.get("availableStock"), 0));
+      }
+      return criteriaBuilder.and(predicates.toArray(Predicate[]::new));
+    };
+  }
+}
@@ -6,16 +6,27 @@
  */
 package com.tjtechy.product_service.service;
 
+import com.tjtechy.export.ExportFormat;
 import com.tjtechy.product_service.entity.Product;
+import com.tjtechy.product_service.entity.dto.ProductFilter;
+import com.tjtechy.product_service.entity.dto.ProductSort;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Window;
 
-
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
 
 
 public interface ProductService {
   List<Product> getAllProducts();
+  Window<Product> getProductPage(ProductFilter filter, ProductSort sort, ScrollPosition position, int limit);
+  long exportProducts(LocalDate since, ExportFormat format, OutputStream outputStream) throws IOException;
   Product getProductById(UUID productId);
+  List<Product> getProductsByIds(Collection<UUID> productIds);
   Product saveProduct(Product product);
   Product saveProductWithInventory(Product product);
   Product saveProductWithInventoryUsingExternalizedService(Product product);
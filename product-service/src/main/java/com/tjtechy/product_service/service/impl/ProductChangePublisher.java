@@ -0,0 +1,75 @@
+/*
+ * Copyright © 2025
+ * @Author = TJTechy (Tajudeen Busari)
+ * @Version = 1.0
+ * This file is part of the product-service module of the Ecommerce Microservices project.
+ */
+package com.tjtechy.product_service.service.impl;
+
+import com.tjtechy.product_service.entity.Product;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Announces every product change on a Redis channel (app.product.change-channel), for the response cache of the
+ * api-gateway. The message is the id of the product.
+ * <p>
+ *   It is the entity listener of {@link Product}, so the saves and deletes of every service method are announced,
+ *   once their transaction has committed: the gateway must not reload the catalog before the change is visible.
+ *   A failed announcement is logged and does not fail the change; the gateway keeps its copy until its ttl.
+ * </p>
+ */
+@Component
+public class ProductChangePublisher {
+
+  private static final Logger logger = LoggerFactory.getLogger(ProductChangePublisher.class);
+
+  private final ObjectProvider<StringRedisTemplate> redisTemplate;
+
+  private final String channel;
+
+  public ProductChangePublisher(ObjectProvider<StringRedisTemplate> redisTemplate,
+                                @Value("${app.product.change-channel:product:changes}") String channel) {
+    this.redisTemplate = redisTemplate;
+    this.channel = channel;
+  }
+
+  @PostPersist
+  @PostUpdate
+  @PostRemove
+  void productChanged(Product product) {
+    var productId = String.valueOf(product.getProductId());
+    if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+      publish(productId);
+      return;
+    }
+    TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+      @Override
+      public void afterCommit() {
+        publish(productId);
+      }
+    });
+  }
+
+  private void publish(String productId) {
+    var template = redisTemplate.getIfAvailable();
+    if (template == null) {
+      return;
+    }
+    try {
+      template.convertAndSend(channel, productId);
+    } catch (RuntimeException e) {
+      logger.warn("Could not announce the change of product {}, the gateway serves its cached copy until it expires: {}",
+              productId, e.toString());
+    }
+  }
+}
@@ -7,23 +7,41 @@
 package com.tjtechy.product_service.service.impl;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.tjtechy.*;
+import com.tjtechy.cache.EntityListCache;
+import com.tjtechy.client.ClientResilience;
 import com.tjtechy.client.InventoryServiceClient;
+import com.tjtechy.export.ExportColumn;
+import com.tjtechy.export.ExportFormat;
+import com.tjtechy.export.RowExporter;
 import com.tjtechy.product_service.config.InventoryServiceConfig;
 import com.tjtechy.product_service.entity.Product;
+import com.tjtechy.product_service.entity.dto.ProductFilter;
+import com.tjtechy.product_service.entity.dto.ProductSort;
 import com.tjtechy.product_service.repository.ProductRepository;
+import com.tjtechy.product_service.repository.ProductSpecifications;
 import com.tjtechy.product_service.service.ProductService;
 import com.tjtechy.modelNotFoundException.ProductNotFoundException;
 
+import jakarta.persistence.EntityManager;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.CachePut;
 import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Window;
 import org.springframework.http.MediaType;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.reactive.function.client.WebClient;
 import reactor.core.publisher.Mono;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
 
@@ -38,20 +56,45 @@ public class ProductServiceImpl implements ProductService {
     private final InventoryServiceConfig inventoryServiceConfig;
     private final WebClient.Builder webClientBuilder;
     private final InventoryServiceClient inventoryServiceClient;
-
-  public ProductServiceImpl(ProductRepository productRepository, InventoryServiceConfig inventoryServiceConfig, WebClient.Builder webClientBuilder, InventoryServiceClient inventoryServiceClient) {
+    private final ClientResilience clientResilience; //circuit breakers, timeouts and bulkheads of the direct WebClient calls
+    //the product list is cached as product ids, the products are read from the "product" cache
+    private final EntityListCache<UUID, Product> productListCache;
+    private final EntityManager entityManager;
+
+    /** Key of the whole catalog in the "products" cache. */
+    private static final String ALL_PRODUCTS = "all";
+
+    private static final RowExporter<Product> PRODUCT_EXPORTER = new RowExporter<>(List.of(
+            new ExportColumn<>("productId", Product::getProductId),
+            new ExportColumn<>("productName", Product::getProductName),
+            new ExportColumn<>("productDescription", Product::getProductDescription),
+            new ExportColumn<>("productCategory", Product::getProductCategory),
+            new ExportColumn<>("productPrice", Product::getProductPrice),
+            new ExportColumn<>("productQuantity", Product::getProductQuantity),
+            new ExportColumn<>("availableStock", Product::getAvailableStock),
+            new ExportColumn<>("manufacturedDate", Product::getManufacturedDate),
+            new ExportColumn<>("expiryDate", Product::getExpiryDate),
+            new ExportColumn<>("updatedAt", Product::getUpdatedAt)));
+
+  public ProductServiceImpl(ProductRepository productRepository, InventoryServiceConfig inventoryServiceConfig, WebClient.Builder webClientBuilder, InventoryServiceClient inventoryServiceClient, ClientResilience clientResilience, CacheManager cacheManager, EntityManager entityManager) {
 
     this.productRepository = productRepository;
     this.inventoryServiceConfig = inventoryServiceConfig;
     this.webClientBuilder = webClientBuilder;
     this.inventoryServiceClient = inventoryServiceClient;
+    this.clientResilience = clientResilience;
+    this.productListCache = new EntityListCache<>(cacheManager, "products", "product",
+            Product::getProductId, UUID::fromString);
+    this.entityManager = entityManager;
   }
 
   /**
    * Retrieves all products from the database.
    * <p>
-   * This method is cached under the "products" cache name. If the cache contains data,
-   * it will return the cached results instead of querying the database.
+   * The list is cached under the "products" cache name as the ids of the products, and the products
+   * are read from the "product" cache, so a product updated through {@code @CachePut} is up to date in the list.
+   * Only the ids are read from the database when the list is not cached, and only the products not cached
+   * are loaded. The list is evicted when a product is created or deleted.
    * </p>
    * <p>
    * Logging is used to track the operation:
@@ -71,11 +114,11 @@ public class ProductServiceImpl implements ProductService {
    *
    * @return a list of all {@link Product} entities available in the database.
    */
-  @Cacheable(value = "products") //store in "products" cache
   @Override
     public List<Product> getAllProducts() {
-      logger.info("*******Fetching products from database*******");
-      var products = productRepository.findAll();
+      logger.info("*******Fetching products*******");
+      var products = productListCache.getList(ALL_PRODUCTS,
+              productRepository::findAllProductIds, productRepository::findAllById);
     /*
      * Log the number of products fetched
      * log.info is used and other log levels can be used.
@@ -85,12 +128,59 @@ public class ProductServiceImpl implements ProductService {
       return products;
     }
 
+  /**
+   * Retrieves a page of the products matching a filter, by keyset: the page starts right after the sort keys of
+   * the position (the last product of the previous page), which the indexes on the products table seek to
+   * directly, however deep the page. One more row than the limit is read to tell whether a next page exists,
+   * so no count query is run.
+   * <p>
+   * Pages are not cached: the combinations of filters, sorts and positions are too many to be reused.
+   * </p>
+   *
+   * @param filter the filters, the null ones are left out
+   * @param sort the order of the products
+   * @param position where the page starts, {@link ScrollPosition#keyset()} for the first page
+   * @param limit the maximum number of products of the page
+   * @return the products of the page, and whether a next page exists
+   */
+  @Override
+  public Window<Product> getProductPage(ProductFilter filter, ProductSort sort, ScrollPosition position, int limit) {
+    return productRepository.findBy(ProductSpecifications.matching(filter),
+            query -> query.sortBy(sort.getSort()).limit(limit).scroll(position));
+  }
+
+  /**
+   * Streams the products to the output stream, in product id order, straight from a database cursor.
+   * Each product is detached once written, so memory use does not grow with the size of the catalog.
+   * <p>
+   * Not cached: an export reads the current data.
+   * </p>
+   *
+   * @param since when not null, only the products updated on or after this date (incremental pull)
+   * @param format the output format
+   * @param outputStream where the export is written
+   * @return the number of exported products
+   */
+  @Override
+  @Transactional(readOnly = true)
+  public long exportProducts(LocalDate since, ExportFormat format, OutputStream outputStream) throws IOException {
+    try (var products = since == null
+            ? productRepository.streamAll()
+            : productRepository.streamUpdatedSince(since)) {
+      var count = PRODUCT_EXPORTER.export(products, format, outputStream, entityManager::detach);
+      logger.info("exported {} products as {} (since: {})", count, format, since);
+      return count;
+    }
+  }
+
 
     /**
      * Retrieves a product by its unique identifier.
      * <p>
      * This method is cached under the "product" cache name with the product ID as the key.
      * If the cache contains data, it will return the cached results instead of querying the database.
+     * Concurrent misses of a product are loaded once (sync), hot products are refreshed before they expire,
+     * and the last value is served for a while when the database fails (see the "product" cache policy).
      * </p>
      * <p>
      * If the product is not found in the database, a {@link ProductNotFoundException} is thrown.
@@ -100,7 +190,7 @@ public class ProductServiceImpl implements ProductService {
      * @return the {@link Product} entity with the specified ID.
      * @throws ProductNotFoundException if the product with the specified ID is not found in the database.
      */
-    @Cacheable(value = "product", key = "#productId") //store in "products" cache with key as id
+    @Cacheable(value = "product", key = "#productId", sync = true) //store in "products" cache with key as id
     @Override
     public Product getProductById(UUID productId) {
 
@@ -111,17 +201,40 @@ public class ProductServiceImpl implements ProductService {
         return foundProduct;
     }
 
+    /**
+     * Retrieves several products by their unique identifiers.
+     * <p>
+     * The products are read from the "product" cache (the one used by {@link #getProductById(UUID)}) first.
+     * Only the ids that are not cached are loaded, with a single {@code findAllById} query,
+     * and put in the cache.
+     * </p>
+     * <p>
+     * Ids that do not exist are left out of the result, they are not an error.
+     * Duplicate ids are read once.
+     * </p>
+     *
+     * @param productIds the unique identifiers of the products to retrieve.
+     * @return the {@link Product} entities found, in the order of the given ids.
+     */
+    @Override
+    public List<Product> getProductsByIds(Collection<UUID> productIds) {
+      return productListCache.getAll(productIds, productRepository::findAllById);
+    }
+
     /**
      * Saves a product to the database.
      * <p>
      * This method is cached under the "product" cache name with the product ID as the key.
-     * The cache is updated with the new product value.
+     * The cache is updated with the new product value, and the cached product list, which misses it, is evicted.
      * </p>
      *
      * @param product the {@link Product} entity to save.
      * @return the saved {@link Product} entity.
      */
-    @CachePut(value = "product", key = "#product.productId") //store in "products" cache with key as id
+    @Caching(
+            put = @CachePut(value = "product", key = "#product.productId"), //store in "products" cache with key as id
+            evict = @CacheEvict(value = "products", key = "'" + ALL_PRODUCTS + "'")
+    )
     @Override
     public Product saveProduct(Product product) {
       ensureProductQuantityAndAvailableStockAreInSync(product);
@@ -137,7 +250,7 @@ public class ProductServiceImpl implements ProductService {
      * This method is deprecated and should be replaced with
      * {@link #saveProductWithInventoryUsingExternalizedService(Product)}.
      * <p>
-     * At the moment, cache is not used for this method.
+     * The cached product list, which misses the new product, is evicted.
      * </p>
      *
      * @param product the {@link Product} entity to save.
@@ -151,6 +264,7 @@ public class ProductServiceImpl implements ProductService {
       ensureProductQuantityAndAvailableStockAreInSync(product);
       //2.save the product to the database
       var savedProduct = productRepository.save(product);
+      productListCache.evictLists(List.of(ALL_PRODUCTS));
 
       //3.Trigger async call to inventory service to create inventory
       String inventoryServiceUrl = "http://inventory-service" + inventoryServiceConfig.getBaseUrl() + "/inventory";
@@ -173,6 +287,7 @@ public class ProductServiceImpl implements ProductService {
               .bodyValue(createInventoryDto) //this should be CreateInventoryDto
               .retrieve()
               .bodyToMono(Result.class)
+              .transform(clientResilience.guard("inventory-service", "create-inventory"))
               //fire and forget-->non-blocking
               .subscribe(response -> {
                 if (response.isFlag()) {
@@ -196,7 +311,7 @@ public class ProductServiceImpl implements ProductService {
    * When a product is created, the available stock is set to 1 by default.
    * The other fields of the product are set to the values provided in the product object.
    * <p>
-   * At the moment, cache is not used for this method.
+   * The cached product list, which misses the new product, is evicted.
    * </p>
    *
    * @param product the {@link Product} entity to save.
@@ -211,6 +326,7 @@ public class ProductServiceImpl implements ProductService {
 
     //1.save the product to the database
     var savedProduct = productRepository.save(product);
+    productListCache.evictLists(List.of(ALL_PRODUCTS));
 
     //2.Trigger async call to inventory service to create inventory using the externalized inventory service
     //By default, when the product is created, the reserved quantity is set to 1.
@@ -282,8 +398,10 @@ public class ProductServiceImpl implements ProductService {
    * Then, it updates the inventory with the new available stock and reserved quantity.
    * By default, when the product is updated, the available stock is set to 1.
    * If the product with the specified ID is not found in the database, a 404 Not Found is thrown.
+   * The "product" cache is updated, so the cached product lists show the change.
    * @return updated product {@link Product} entity.
    */
+  @CachePut(value = "product", key = "#productId") //update cache with new value
   @Override
   public Product updateProductWithInventory(UUID productId, Product product) {
       var foundProduct = productRepository.findById(productId)
@@ -308,6 +426,7 @@ public class ProductServiceImpl implements ProductService {
               .uri(getInventoryUrl)
               .retrieve()
               .bodyToMono(Result.class)
+              .transform(clientResilience.guard("inventory-service", "get-inventory"))
               .flatMap(result -> {
                 if(result.isFlag() && result.getData() != null) {
                   //extract inventoryId from the response
@@ -330,7 +449,8 @@ public class ProductServiceImpl implements ProductService {
                           .contentType(MediaType.APPLICATION_JSON)
                           .bodyValue(updateInventoryDto) //this should be UpdateInventoryDto
                           .retrieve()
-                          .bodyToMono(Result.class);
+                          .bodyToMono(Result.class)
+                          .transform(clientResilience.guard("inventory-service", "update-inventory"));
                 } else {
                   // Handle the case where the inventory is not found
                   logger.warn("*******Inventory not found for productId: {}*******", productId);
@@ -352,6 +472,13 @@ public class ProductServiceImpl implements ProductService {
     return updatedProduct;
   }
 
+  /**
+   * Updates a product with the specified ID, then updates its inventory through the externalized
+   * inventory service client, asynchronously.
+   * The "product" cache is updated, so the cached product lists show the change.
+   * @return updated product {@link Product} entity.
+   */
+  @CachePut(value = "product", key = "#productId") //update cache with new value
   @Override
   public Product updateProductWithInventoryUsingExternalizedService(UUID productId, Product product) {
     var foundProduct = productRepository.findById(productId)
@@ -399,7 +526,7 @@ public class ProductServiceImpl implements ProductService {
      * Deletes a product with the specified ID.
      * <p>
      * This method is cached under the "product" cache name with the product ID as the key.
-     * The cache is updated to remove the product with the specified ID.
+     * The cache is updated to remove the product with the specified ID, and the cached product list is evicted.
      * </p>
      * <p>
      * If the product with the specified ID is not found in the database, a {@link ProductNotFoundException} is thrown.
@@ -408,7 +535,10 @@ public class ProductServiceImpl implements ProductService {
      * @param productId the unique identifier of the product to delete.
      * @throws ProductNotFoundException if the product with the specified ID is not found in the database.
      */
-    @CacheEvict(value = "product", key = "#productId") //delete cache with key as id
+    @Caching(evict = {
+            @CacheEvict(value = "product", key = "#productId"), //delete cache with key as id
+            @CacheEvict(value = "products", key = "'" + ALL_PRODUCTS + "'")
+    })
     @Override
     public void deleteProduct(UUID productId) {
       productRepository.findById(productId)
@@ -459,6 +589,7 @@ public class ProductServiceImpl implements ProductService {
     //delete only found ids
     if(!products.isEmpty()){
       productRepository.deleteAll(products);
+      evictDeletedProducts(foundProductIds);
     }
 
     //throw exception if there are missing ids
@@ -481,6 +612,7 @@ public class ProductServiceImpl implements ProductService {
             .uri(getInventoryUrl)
             .retrieve()
             .bodyToMono(Result.class)
+            .transform(clientResilience.guard("inventory-service", "get-inventory"))
             .flatMap(result -> {
               if(result.isFlag() && result.getData() != null) {
                 var objectMapper = new ObjectMapper();
@@ -494,7 +626,8 @@ public class ProductServiceImpl implements ProductService {
                         .delete()
                         .uri(deleteInventoryUrl)
                         .retrieve()
-                        .bodyToMono(Result.class);
+                        .bodyToMono(Result.class)
+                        .transform(clientResilience.guard("inventory-service", "delete-inventory"));
               } else {
                 // Handle the case where the inventory is not found
                 logger.warn("******Inventory not found for productId: {}*******", productId);
@@ -513,6 +646,7 @@ public class ProductServiceImpl implements ProductService {
             .doFinally(signal -> {
               // whatever happens, delete the product from the database
               productRepository.deleteById(productId);
+              evictDeletedProducts(List.of(productId));
               logger.info("*******Product {} deleted successfully *******", productId);
             })
             .subscribe();
@@ -545,6 +679,7 @@ public class ProductServiceImpl implements ProductService {
     .doFinally(signal -> {
               // whatever happens, delete the product from the database
               productRepository.deleteById(productId);
+              evictDeletedProducts(List.of(productId));
               logger.info("*******Product {} delete is successful *******", productId);
             })
             .subscribe();
@@ -583,6 +718,7 @@ public class ProductServiceImpl implements ProductService {
               .uri(getInventoryUrl)
               .retrieve()
               .bodyToMono(Result.class)
+              .transform(clientResilience.guard("inventory-service", "get-inventory"))
               .flatMap(result -> {
                 if(result.isFlag() && result.getData() != null) {
                   var objectMapper = new ObjectMapper();
@@ -596,7 +732,8 @@ public class ProductServiceImpl implements ProductService {
                           .delete()
                           .uri(deleteInventoryUrl)
                           .retrieve()
-                          .bodyToMono(Result.class);
+                          .bodyToMono(Result.class)
+                          .transform(clientResilience.guard("inventory-service", "delete-inventory"));
 
                 } else {
                   // Handle the case where the inventory is not found
@@ -616,6 +753,7 @@ public class ProductServiceImpl implements ProductService {
               .doFinally(signal -> {
                 // whatever happens, delete the product from the database
                 productRepository.deleteById(productId);
+                evictDeletedProducts(List.of(productId));
                 logger.info("******Product {} deleted successfully *******", productId);
               })
               .subscribe();
@@ -627,7 +765,6 @@ public class ProductServiceImpl implements ProductService {
    * @param productIds
    */
   @Override
-  //TODO: Delete from cache immediately after deleting products
   public void bulkDeleteProductsWithInventoriesUsingExternalizedService(List<UUID> productIds) {
     var products = productRepository.findAllById(productIds);
     //1. extract all found product ids and collect them into a list
@@ -664,12 +801,19 @@ public class ProductServiceImpl implements ProductService {
               .doFinally(signal -> {
                 // whatever happens, delete the products from the database
                 productRepository.deleteById(product.getProductId());
+                evictDeletedProducts(List.of(product.getProductId()));
                 logger.info("******Product {} delete successfully *******", product.getProductId());
               }).subscribe();
     }
 
   }
 
+  //the deleted products leave the product list, and the "product" cache, which the list is read from
+  private void evictDeletedProducts(List<UUID> productIds) {
+    productListCache.evictEntities(productIds);
+    productListCache.evictLists(List.of(ALL_PRODUCTS));
+  }
+
   ///method to ensure productQuantity and availableStock are in sync
   private void ensureProductQuantityAndAvailableStockAreInSync(Product product) {
     if (product.getProductQuantity() != null && product.getAvailableStock() == null) {
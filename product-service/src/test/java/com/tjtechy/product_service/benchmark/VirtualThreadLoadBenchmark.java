@@ -0,0 +1,163 @@
+/*
+ * Copyright © 2025
+ * @Author = TJTechy (Tajudeen Busari)
+ * @Version = 1.0
+ * This file is part of the product-service module of the Ecommerce Microservices project.
+ */
+package com.tjtechy.product_service.benchmark;
+
+import com.tjtechy.product_service.ProductServiceApplication;
+import com.tjtechy.product_service.entity.Product;
+import com.tjtechy.product_service.repository.ProductRepository;
+import com.tjtechy.test_helper.config.TestConfiguration;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.postgresql.PostgreSQLContainer;
+
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Load benchmark for GET /product/{id} at high concurrency, comparing the Tomcat platform thread pool
+ * with the virtual-thread execution mode (spring.threads.virtual.enabled=true) against a real PostgreSQL.
+ * <p>
+ *   It is not part of the regular build (the class name does not end with Test) and only runs when asked:
+ *   <pre>
+ *   mvn -pl product-service test -Dtest=VirtualThreadLoadBenchmark -Dbenchmark=true -Dsurefire.failIfNoSpecifiedTests=false
+ *   </pre>
+ *   The service is started once per mode on a random port and the same product is read by CONCURRENCY clients.
+ *   Both runs print p50/p99/max latency and throughput, and check that every request returned 200.
+ *   The cache is disabled so every request holds its worker thread for the duration of a JDBC call.
+ * </p>
+ */
+@Testcontainers
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class VirtualThreadLoadBenchmark {
+
+  private static final int CONCURRENCY = 1_000;
+  private static final int REQUESTS_PER_CLIENT = 20;
+  private static final int WARMUP_REQUESTS = 2_000;
+
+  @Container
+  public static final PostgreSQLContainer postgreSQLContainer = new PostgreSQLContainer("postgres:15.0")
+          .withDatabaseName("productdb")
+          .withUsername("postgres")
+          .withPassword("postgres");
+
+  @Test
+  void benchmarkPlatformThreads() throws Exception {
+    run("platform threads", false);
+  }
+
+  @Test
+  void benchmarkVirtualThreads() throws Exception {
+    run("virtual threads", true);
+  }
+
+  private void run(String label, boolean virtualThreads) throws Exception {
+    //1. start the service in the requested mode and seed a product
+    try (var context = new SpringApplicationBuilder(ProductServiceApplication.class, TestConfiguration.class)
+            .profiles("test")
+            .properties(
+                    "server.port=0",
+                    "spring.threads.virtual.enabled=" + virtualThreads,
+                    "spring.datasource.url=" + postgreSQLContainer.getJdbcUrl(),
+                    "spring.datasource.username=" + postgreSQLContainer.getUsername(),
+                    "spring.datasource.password=" + postgreSQLContainer.getPassword(),
+                    "spring.datasource.driver-class-name=" + postgreSQLContainer.getDriverClassName(),
+                    "spring.datasource.hikari.maximum-pool-size=50",
+                    "spring.jpa.show-sql=false",
+                    "spring.cloud.config.enabled=false",
+                    "spring.cloud.discovery.enabled=false",
+                    "spring.cloud.loadbalancer.enabled=false",
+                    "spring.cloud.service-registry.auto-registration.enabled=false",
+                    "eureka.client.enabled=false",
+                    "spring.redis.enabled=false",
+                    "spring.cache.type=none",
+                    "inventory-service.base-url=http://localhost:1/api/v1",
+                    "logging.level.org.springframework.security=WARN")
+            .run()) {
+
+      var product = new Product();
+      product.setProductName("benchmark-" + label);
+      product.setProductDescription("Product read by the virtual thread benchmark");
+      product.setProductPrice(BigDecimal.TEN);
+      product.setProductQuantity(1);
+      product.setProductCategory("benchmark");
+      product.setAvailableStock(1);
+      product.setExpiryDate(LocalDate.now().plusYears(1));
+      var productId = context.getBean(ProductRepository.class).save(product).getProductId();
+
+      var port = context.getEnvironment().getProperty("local.server.port");
+      var uri = URI.create("http://localhost:" + port + "/api/v1/product/" + productId);
+
+      //2. warm up, then read the same product from all clients at once
+      try (var httpClient = HttpClient.newBuilder().executor(Executors.newVirtualThreadPerTaskExecutor()).build()) {
+        var request = HttpRequest.newBuilder(uri).timeout(Duration.ofSeconds(30)).GET().build();
+        for (int i = 0; i < WARMUP_REQUESTS; i++) {
+          httpClient.send(request, HttpResponse.BodyHandlers.discarding());
+        }
+
+        var latencies = new long[CONCURRENCY * REQUESTS_PER_CLIENT];
+        var start = new CountDownLatch(1);
+        var tasks = new ArrayList<Callable<Integer>>();
+        for (int c = 0; c < CONCURRENCY; c++) {
+          var offset = c * REQUESTS_PER_CLIENT;
+          tasks.add(() -> {
+            start.await();
+            var failures = 0;
+            for (int i = 0; i < REQUESTS_PER_CLIENT; i++) {
+              var sentAt = System.nanoTime();
+              var response = httpClient.send(request, HttpResponse.BodyHandlers.discarding());
+              latencies[offset + i] = System.nanoTime() - sentAt;
+              if (response.statusCode() != 200) {
+                failures++;
+              }
+            }
+            return failures;
+          });
+        }
+
+        long elapsedNanos;
+        var failures = 0;
+        try (var clients = Executors.newVirtualThreadPerTaskExecutor()) {
+          var futures = tasks.stream().map(clients::submit).toList();
+          var startedAt = System.nanoTime();
+          start.countDown();
+          for (var future : futures) {
+            failures += future.get();
+          }
+          elapsedNanos = System.nanoTime() - startedAt;
+        }
+
+        //3. report
+        Arrays.sort(latencies);
+        System.out.printf("[%s] %d requests from %d clients in %d ms: %.0f req/s, p50=%.1f ms, p99=%.1f ms, max=%.1f ms%n",
+                label, latencies.length, CONCURRENCY, elapsedNanos / 1_000_000, latencies.length / (elapsedNanos / 1e9),
+                percentile(latencies, 0.50), percentile(latencies, 0.99), latencies[latencies.length - 1] / 1e6);
+
+        assertEquals(0, failures);
+      }
+    }
+  }
+
+  private static double percentile(long[] sortedNanos, double percentile) {
+    var index = (int) Math.ceil(percentile * sortedNanos.length) - 1;
+    return sortedNanos[Math.max(index, 0)] / 1e6;
+  }
+}
@@ -6,9 +6,12 @@
  */
 package com.tjtechy.product_service.controller;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tjtechy.export.ExportFormat;
 import com.tjtechy.modelNotFoundException.ProductNotFoundException;
 import com.tjtechy.product_service.entity.Product;
 import com.tjtechy.product_service.entity.dto.CreateProductDto;
+import com.tjtechy.product_service.entity.dto.ProductFilter;
+import com.tjtechy.product_service.entity.dto.ProductSort;
 import com.tjtechy.product_service.entity.dto.UpdateProductDto;
 import com.tjtechy.product_service.exception.ExceptionHandlingAdvice;
 import com.tjtechy.product_service.service.ProductService;
@@ -24,16 +27,21 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
 import org.springframework.boot.webmvc.test.autoconfigure.WebMvcTest;
 import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Window;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.TestPropertySource;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
 
+import java.io.OutputStream;
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 
@@ -42,8 +50,12 @@ import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.BDDMockito.given;
 import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @WebMvcTest(controllers = ProductController.class
 
@@ -116,18 +128,18 @@ class ProductControllerTest {
 
 
     /**
-     * Test for {@link ProductController#getAllProducts()} GET /api/v1/product success
+     * Test for {@link ProductController#getAllProducts()} GET /api/v1/product/all success
      * <p> Verifies that the getAllProducts method returns a List of products. </p>
      *
      */
     @Test
-    @DisplayName("Test for getAllProducts() GET /api/v1/product success")
+    @DisplayName("Test for getAllProducts() GET /api/v1/product/all success")
     void testGetAllProductsSuccess() throws Exception {
         //given
         given(productService.getAllProducts()).willReturn(productList);
 
         //when and then
-        mockMvc.perform(get(baseUrl + "/product")
+        mockMvc.perform(get(baseUrl + "/product/all")
                         .contentType(MediaType.APPLICATION_JSON)
                         .accept(MediaType.APPLICATION_JSON))
                 .andExpect(jsonPath("$.message").value("Get All Success"))
@@ -142,6 +154,116 @@ class ProductControllerTest {
                 .andExpect(jsonPath("$.data[0].expiryDate").isNotEmpty());
     }
 
+    /**
+     * Test for {@link ProductController#getProducts} GET /api/v1/product success
+     * <p> Verifies that a page carries the cursor of the next page, and that the cursor resumes after its last product. </p>
+     */
+    @Test
+    @DisplayName("Test for getProducts() GET /api/v1/product returns a page and the cursor of the next one")
+    void testGetProductsPageSuccess() throws Exception {
+        //given
+        var filter = new ProductFilter("Category 1", new BigDecimal("50"), null, true);
+        given(productService.getProductPage(eq(filter), eq(ProductSort.PRICE_ASC), eq(ScrollPosition.keyset()), eq(1)))
+                .willReturn(Window.from(productList.subList(0, 1), ScrollPosition::offset, true));
+
+        //when and then
+        var response = mockMvc.perform(get(baseUrl + "/product")
+                        .param("category", "Category 1")
+                        .param("minPrice", "50")
+                        .param("inStock", "true")
+                        .param("sort", "PRICE_ASC")
+                        .param("limit", "1")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.message").value("Get Page Success"))
+                .andExpect(jsonPath("$.data.products.length()").value(1))
+                .andExpect(jsonPath("$.data.products[0].productName").value("Product 1"))
+                .andExpect(jsonPath("$.data.nextCursor").isNotEmpty())
+                .andReturn().getResponse().getContentAsString();
+        var nextCursor = objectMapper.readTree(response).at("/data/nextCursor").asText();
+
+        //the cursor holds the price and the id of the last product of the page
+        var nextPosition = ScrollPosition.forward(Map.of(
+                "productPrice", new BigDecimal("100.0"), "productId", productList.get(0).getProductId()));
+        given(productService.getProductPage(eq(filter), eq(ProductSort.PRICE_ASC), eq(nextPosition), eq(1)))
+                .willReturn(Window.from(productList.subList(1, 2), ScrollPosition::offset, false));
+
+        mockMvc.perform(get(baseUrl + "/product")
+                        .param("category", "Category 1")
+                        .param("minPrice", "50")
+                        .param("inStock", "true")
+                        .param("sort", "PRICE_ASC")
+                        .param("limit", "1")
+                        .param("cursor", nextCursor)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.products[0].productName").value("Product 2"))
+                .andExpect(jsonPath("$.data.nextCursor").doesNotExist());
+    }
+
+    /**
+     * Test for {@link ProductController#getProducts} GET /api/v1/product with invalid parameters
+     * <p> Verifies that a limit out of range, a cursor issued for another sort and an unknown sort are rejected. </p>
+     */
+    @Test
+    @DisplayName("Test for getProducts() GET /api/v1/product rejects invalid parameters")
+    void testGetProductsPageInvalidParameters() throws Exception {
+        mockMvc.perform(get(baseUrl + "/product").param("limit", String.valueOf(ProductController.MAX_PAGE_SIZE + 1)))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.flag").value(false));
+
+        var nameCursor = ProductCursor.encode(ProductSort.NAME, productList.get(0));
+        mockMvc.perform(get(baseUrl + "/product").param("sort", "PRICE_DESC").param("cursor", nameCursor))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Invalid cursor for a listing sorted by PRICE_DESC"));
+
+        mockMvc.perform(get(baseUrl + "/product").param("sort", "POPULARITY"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Invalid value of the sort parameter"));
+    }
+
+    /**
+     * Test for {@link ProductController#exportProducts} GET /api/v1/product/export success
+     * <p> Verifies that the export written by the service is the response body, with the content type of the format. </p>
+     */
+    @Test
+    @DisplayName("Test for exportProducts() GET /api/v1/product/export success")
+    void testExportProductsSuccess() throws Exception {
+        //Given
+        var since = LocalDate.of(2025, 1, 1);
+        var ndjson = "{\"productId\":\"" + productList.get(0).getProductId() + "\"}\n";
+        given(productService.exportProducts(eq(since), eq(ExportFormat.NDJSON), any(OutputStream.class)))
+                .willAnswer(invocation -> {
+                    invocation.getArgument(2, OutputStream.class).write(ndjson.getBytes(StandardCharsets.UTF_8));
+                    return 1L;
+                });
+
+        //When and Then
+        mockMvc.perform(get(baseUrl + "/product/export").param("since", "2025-01-01"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith("application/x-ndjson"))
+                .andExpect(header().string("Content-Disposition", "attachment; filename=\"products.ndjson\""))
+                .andExpect(content().string(ndjson));
+    }
+
+    /**
+     * Test for {@link ProductController#exportProducts} GET /api/v1/product/export with invalid parameters
+     * <p> Verifies that an unknown format and a malformed date are rejected before anything is exported. </p>
+     */
+    @Test
+    @DisplayName("Test for exportProducts() GET /api/v1/product/export rejects invalid parameters")
+    void testExportProductsInvalidParameters() throws Exception {
+        mockMvc.perform(get(baseUrl + "/product/export").param("format", "XML"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Invalid value of the format parameter"));
+
+        mockMvc.perform(get(baseUrl + "/product/export").param("since", "01/01/2025"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Invalid value of the since parameter"));
+
+        verifyNoInteractions(productService);
+    }
+
     /**
      * Test for {@link ProductController#getProductById(UUID)} GET /api/v1/product/{productId} success
      * <p> Verifies that the getProductById method returns a product. </p>
@@ -168,6 +290,49 @@ class ProductControllerTest {
                 .andExpect(jsonPath("$.data.expiryDate").isNotEmpty());
     }
 
+    /**
+     * Test for {@link ProductController#getProductsByIds(List)} GET /api/v1/product/batch success
+     * <p> Verifies that the found products and the missing ids are returned. </p>
+     */
+    @Test
+    @DisplayName("Test for getProductsByIds() GET /api/v1/product/batch success")
+    void testGetProductsByIdsSuccess() throws Exception {
+        //given
+        var productId = productList.getFirst().getProductId();
+        var unknownProductId = UUID.randomUUID();
+        given(productService.getProductsByIds(List.of(productId, unknownProductId))).willReturn(List.of(productList.getFirst()));
+
+        //when and then
+        mockMvc.perform(get(baseUrl + "/product/batch")
+                        .param("ids", productId + "," + unknownProductId)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$.message").value("Get Batch Success"))
+                .andExpect(jsonPath("$.flag").value(true))
+                .andExpect(jsonPath("$.data.products.length()").value(1))
+                .andExpect(jsonPath("$.data.products[0].productName").value("Product 1"))
+                .andExpect(jsonPath("$.data.missingProductIds[0]").value(unknownProductId.toString()));
+    }
+
+    /**
+     * Test for {@link ProductController#getProductsByIds(List)} GET /api/v1/product/batch with too many ids
+     */
+    @Test
+    @DisplayName("Test for getProductsByIds() GET /api/v1/product/batch with too many ids")
+    void testGetProductsByIdsTooManyIds() throws Exception {
+        //given
+        var ids = new StringBuilder(UUID.randomUUID().toString());
+        for (int i = 0; i < ProductController.MAX_BATCH_SIZE; i++) {
+            ids.append(",").append(UUID.randomUUID());
+        }
+
+        //when and then
+        mockMvc.perform(get(baseUrl + "/product/batch")
+                        .param("ids", ids.toString())
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.flag").value(false));
+    }
+
     /**
      * Test for {@link ProductController#addProduct(CreateProductDto)} POST /api/v1/product success
      * <p> Verifies that the addProduct method returns a product. </p>
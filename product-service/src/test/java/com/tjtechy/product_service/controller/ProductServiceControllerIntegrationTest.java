@@ -53,6 +53,7 @@ import org.testcontainers.junit.jupiter.Testcontainers;
 
 import java.time.Duration;
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
@@ -742,7 +743,7 @@ public class ProductServiceControllerIntegrationTest {
     assertThat(savedProduct.get("productName")).isNotNull();
 
     // Now get all products
-    var url = "http://localhost:" + port + baseUrl + "/product";
+    var url = "http://localhost:" + port + baseUrl + "/product/all";
 
     var response = webTestClient.get()
             .uri(url)
@@ -762,4 +763,49 @@ public class ProductServiceControllerIntegrationTest {
     assertThat(products.stream().anyMatch(product -> product.get("productId").equals(savedProduct.get("productId")))).isTrue();
   }
 
+
+  @Test
+  @DirtiesContext(methodMode = DirtiesContext.MethodMode.BEFORE_METHOD)
+  @DisplayName("Test get products page filters and follows the cursor")
+  public void testGetProductsPageSuccess() throws Exception {
+    var firstProduct = createProductWithoutInventory();
+    Thread.sleep(5); //the helper names products after the current millisecond
+    var secondProduct = createProductWithoutInventory();
+
+    // The category filter matches the first product only
+    var categoryPage = getProductsPage("category=" + firstProduct.get("productCategory") + "&limit=1");
+    assertThat(((List<?>) categoryPage.get("products")).size()).isEqualTo(1);
+    assertThat(categoryPage.get("nextCursor")).isNull();
+
+    // Both products have the same price: the id breaks the tie, so following the cursors returns each product once
+    var seenProductIds = new ArrayList<Object>();
+    String cursor = null;
+    do {
+      var query = "minPrice=999.99&maxPrice=999.99&inStock=true&sort=PRICE_DESC&limit=1"
+              + (cursor == null ? "" : "&cursor=" + cursor);
+      var page = getProductsPage(query);
+      @SuppressWarnings("unchecked")
+      var products = (List<Map<String, Object>>) page.get("products");
+      products.forEach(product -> seenProductIds.add(product.get("productId")));
+      cursor = (String) page.get("nextCursor");
+    } while (cursor != null);
+
+    assertThat(seenProductIds.stream().distinct().count()).isEqualTo((long) seenProductIds.size());
+    assertThat(seenProductIds.containsAll(List.of(firstProduct.get("productId"), secondProduct.get("productId")))).isTrue();
+  }
+
+  @SuppressWarnings("unchecked")
+  private Map<String, Object> getProductsPage(String query) {
+    var response = webTestClient.get()
+            .uri("http://localhost:" + port + baseUrl + "/product?" + query)
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectBody(Result.class)
+            .returnResult()
+            .getResponseBody();
+    assert response != null;
+    return (Map<String, Object>) response.getData();
+  }
+
 }
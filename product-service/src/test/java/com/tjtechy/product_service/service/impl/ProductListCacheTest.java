@@ -0,0 +1,135 @@
+/*
+ * Copyright © 2025
+ * @Author = TJTechy (Tajudeen Busari)
+ * @Version = 1.0
+ * This file is part of the product-service module of the Ecommerce Microservices project.
+ */
+package com.tjtechy.product_service.service.impl;
+
+import com.tjtechy.client.ClientResilience;
+import com.tjtechy.client.ClientResilienceProperties;
+import com.tjtechy.client.InventoryServiceClient;
+import com.tjtechy.product_service.config.InventoryServiceConfig;
+import com.tjtechy.product_service.entity.Product;
+import com.tjtechy.product_service.repository.ProductRepository;
+import com.tjtechy.product_service.service.ProductService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.reset;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+/**
+ * The product list cache through the caching proxy of the service, so that the cache annotations apply:
+ * a cached list must show the updates made after it was cached.
+ */
+@SpringJUnitConfig
+class ProductListCacheTest {
+
+  @Configuration
+  @EnableCaching
+  static class CachingConfig {
+
+    @Bean
+    CacheManager cacheManager() {
+      return new ConcurrentMapCacheManager("product", "products");
+    }
+
+    @Bean
+    ProductRepository productRepository() {
+      return mock(ProductRepository.class);
+    }
+
+    @Bean
+    InventoryServiceClient inventoryServiceClient() {
+      return mock(InventoryServiceClient.class);
+    }
+
+    @Bean
+    ProductService productService(ProductRepository productRepository, InventoryServiceClient inventoryServiceClient,
+                                  CacheManager cacheManager) {
+      return new ProductServiceImpl(productRepository, mock(InventoryServiceConfig.class), mock(WebClient.Builder.class),
+              inventoryServiceClient, new ClientResilience(new ClientResilienceProperties(), new SimpleMeterRegistry()),
+              cacheManager, mock(EntityManager.class));
+    }
+  }
+
+  @Autowired
+  private ProductService productService;
+
+  @Autowired
+  private ProductRepository productRepository;
+
+  @Autowired
+  private InventoryServiceClient inventoryServiceClient;
+
+  @Autowired
+  private CacheManager cacheManager;
+
+  @BeforeEach
+  void setUp() {
+    reset(productRepository, inventoryServiceClient);
+    cacheManager.getCacheNames().forEach(name -> cacheManager.getCache(name).clear());
+  }
+
+  @Test
+  @DisplayName("The cached product list shows an update made with the inventory update")
+  void cachedListShowsTheUpdateWithInventory() {
+    //Given: the list is cached
+    var productId = UUID.randomUUID();
+    given(productRepository.findAllProductIds()).willReturn(List.of(productId));
+    given(productRepository.findAllById(List.of(productId))).willReturn(List.of(product(productId, "Product 1")));
+    assertEquals("Product 1", productService.getAllProducts().get(0).getProductName());
+
+    //a distinct instance, as a new persistence context would load it
+    given(productRepository.findById(productId)).willReturn(Optional.of(product(productId, "Product 1")));
+    given(productRepository.save(any(Product.class))).willAnswer(invocation -> invocation.getArgument(0));
+    given(inventoryServiceClient.getInventoryByProductId(productId)).willReturn(Mono.empty());
+
+    //When
+    productService.updateProductWithInventoryUsingExternalizedService(productId, product(productId, "Product 1 renamed"));
+    var products = productService.getAllProducts();
+
+    //Then: the list is still served from the cache, with the updated product
+    assertEquals(1, products.size());
+    assertEquals("Product 1 renamed", products.get(0).getProductName());
+    verify(productRepository, times(1)).findAllProductIds();
+    verify(productRepository, times(1)).findAllById(any());
+  }
+
+  private static Product product(UUID productId, String name) {
+    return new Product(productId,
+            name,
+            "product description",
+            new BigDecimal("100.0"),
+            100,
+            "Category 1",
+            10,
+            LocalDate.now(), //manufactured date
+            LocalDate.now().plusYears(5), //expiry date
+            LocalDate.now()); //updated date
+  }
+}
@@ -7,23 +7,33 @@
 package com.tjtechy.product_service.service.impl;
 
 import com.tjtechy.*;
+import com.tjtechy.client.ClientResilience;
+import com.tjtechy.client.ClientResilienceProperties;
 import com.tjtechy.client.InventoryServiceClient;
+import com.tjtechy.export.ExportFormat;
 import com.tjtechy.modelNotFoundException.ProductNotFoundException;
 import com.tjtechy.product_service.config.InventoryServiceConfig;
 import com.tjtechy.product_service.entity.Product;
 import com.tjtechy.product_service.repository.ProductRepository;
+import jakarta.persistence.EntityManager;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.*;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
 import org.springframework.web.reactive.function.client.WebClient;
 import reactor.core.publisher.Mono;
 import org.springframework.http.MediaType;
 
+import java.io.ByteArrayOutputStream;
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
 import java.util.*;
 
@@ -50,6 +60,16 @@ class ProductServiceImplTest {
   @Mock
   private InventoryServiceClient inventoryServiceClient;
 
+  //a real one, the direct WebClient calls go through it
+  @Spy
+  private ClientResilience clientResilience = new ClientResilience(new ClientResilienceProperties(), new SimpleMeterRegistry());
+
+  @Mock
+  private CacheManager cacheManager;
+
+  @Mock
+  private EntityManager entityManager;
+
   @InjectMocks
   private ProductServiceImpl productService;
 
@@ -91,7 +111,9 @@ class ProductServiceImplTest {
   @DisplayName("Test for getAllProducts method (GET /products)")
   void getAllProductsSuccess() {
     //Given
-    given(productRepository.findAll()).willReturn(products);
+    var productIds = products.stream().map(Product::getProductId).toList();
+    given(productRepository.findAllProductIds()).willReturn(productIds);
+    given(productRepository.findAllById(productIds)).willReturn(products);
 
     // When
     List<Product> products = productService.getAllProducts();
@@ -102,10 +124,57 @@ class ProductServiceImplTest {
     assertEquals("Product 1", products.get(0).getProductName());
     assertEquals("Product 2", products.get(1).getProductName());
 
-    verify(productRepository, times(1)).findAll();
+    verify(productRepository, times(1)).findAllProductIds();
+    verify(productRepository, never()).findAll();
     logger.info("*******Fetched {} products*******", products.size());
   }
 
+  @Test
+  @DisplayName("Test for getAllProducts method, the cached id list is resolved against the product cache")
+  void getAllProductsReadsCachedIdsThroughTheProductCache() {
+    // Given: the list is cached as ids, product 1 is cached (with its latest update), product 2 is not
+    var updatedProduct = products.get(0);
+    var storedProduct = products.get(1);
+    var listCache = new ConcurrentMapCache("products");
+    listCache.put("all", new ArrayList<>(List.of(
+            updatedProduct.getProductId().toString(), storedProduct.getProductId().toString())));
+    var productCache = new ConcurrentMapCache("product");
+    productCache.put(updatedProduct.getProductId(), updatedProduct);
+    given(cacheManager.getCache("products")).willReturn(listCache);
+    given(cacheManager.getCache("product")).willReturn(productCache);
+    given(productRepository.findAllById(List.of(storedProduct.getProductId()))).willReturn(List.of(storedProduct));
+
+    // When
+    var foundProducts = productService.getAllProducts();
+
+    // Then: the ids are not queried again, only the missing product is loaded
+    assertEquals(List.of(updatedProduct, storedProduct), foundProducts);
+    assertEquals(storedProduct, productCache.get(storedProduct.getProductId(), Product.class));
+    verify(productRepository, never()).findAllProductIds();
+    verify(productRepository, times(1)).findAllById(List.of(storedProduct.getProductId()));
+  }
+
+  @Test
+  @DisplayName("Test for bulkDeleteProducts method, the deleted products leave the product list")
+  void bulkDeleteProductsEvictsTheProductList() {
+    // Given
+    var productIds = products.stream().map(Product::getProductId).toList();
+    var listCache = new ConcurrentMapCache("products");
+    listCache.put("all", new ArrayList<>(productIds.stream().map(UUID::toString).toList()));
+    var productCache = new ConcurrentMapCache("product");
+    products.forEach(product -> productCache.put(product.getProductId(), product));
+    given(cacheManager.getCache("products")).willReturn(listCache);
+    given(cacheManager.getCache("product")).willReturn(productCache);
+    given(productRepository.findAllById(productIds)).willReturn(products);
+
+    // When
+    productService.bulkDeleteProducts(productIds);
+
+    // Then
+    assertNull(listCache.get("all"));
+    productIds.forEach(productId -> assertNull(productCache.get(productId)));
+  }
+
   @Test
   @DisplayName("Test for getProductById method")
   void getProductByIdSuccess() {
@@ -131,6 +200,29 @@ class ProductServiceImplTest {
     verify(productRepository, times(1)).findById(productId);
   }
 
+  @Test
+  @DisplayName("Test for getProductsByIds method, only cache misses are loaded from the database")
+  void getProductsByIdsLoadsOnlyCacheMisses() {
+    // Given: product 1 is cached, product 2 is not, and a third id does not exist
+    var cachedProduct = products.get(0);
+    var storedProduct = products.get(1);
+    var unknownProductId = UUID.randomUUID();
+    var cache = new ConcurrentMapCache("product");
+    cache.put(cachedProduct.getProductId(), cachedProduct);
+    given(cacheManager.getCache("product")).willReturn(cache);
+    given(productRepository.findAllById(List.of(storedProduct.getProductId(), unknownProductId)))
+            .willReturn(List.of(storedProduct));
+
+    // When
+    var foundProducts = productService.getProductsByIds(List.of(
+            storedProduct.getProductId(), cachedProduct.getProductId(), unknownProductId, storedProduct.getProductId()));
+
+    // Then: found products in request order, the loaded one is now cached
+    assertEquals(List.of(storedProduct, cachedProduct), foundProducts);
+    assertEquals(storedProduct, cache.get(storedProduct.getProductId(), Product.class));
+    verify(productRepository, times(1)).findAllById(List.of(storedProduct.getProductId(), unknownProductId));
+  }
+
   @Test
   @DisplayName("Test for getProductById method when product is not found.")
   void testGetProductByIdNotFound() {
@@ -780,4 +872,46 @@ class ProductServiceImplTest {
     verify(productRepository, never()).deleteById(productId);
   }
 
-}
\ No newline at end of file
+  @Test
+  @DisplayName("Test for exportProducts method as CSV (GET /product/export)")
+  void exportProductsAsCsvSuccess() throws Exception {
+    //Given
+    var product = products.get(0);
+    product.setProductName("Product 1, \"special\" edition");
+    given(productRepository.streamAll()).willReturn(products.stream());
+    var output = new ByteArrayOutputStream();
+
+    //When
+    var count = productService.exportProducts(null, ExportFormat.CSV, output);
+
+    //Then
+    assertEquals(2, count);
+    var lines = output.toString(StandardCharsets.UTF_8).split("\r\n");
+    assertEquals(3, lines.length);
+    assertEquals("productId,productName,productDescription,productCategory,productPrice,productQuantity,"
+            + "availableStock,manufacturedDate,expiryDate,updatedAt", lines[0]);
+    //a value with a comma or a quote is quoted, its quotes doubled
+    assertTrue(lines[1].startsWith(product.getProductId() + ",\"Product 1, \"\"special\"\" edition\",product 1 description,Category 1,100.0,"));
+    assertTrue(lines[2].startsWith(products.get(1).getProductId() + ",Product 2,"));
+    verify(entityManager, times(2)).detach(any(Product.class));
+  }
+
+  @Test
+  @DisplayName("Test for exportProducts method since a date (GET /product/export?since=)")
+  void exportProductsSinceDateSuccess() throws Exception {
+    //Given
+    var since = LocalDate.now().minusDays(1);
+    given(productRepository.streamUpdatedSince(since)).willReturn(products.stream().limit(1));
+    var output = new ByteArrayOutputStream();
+
+    //When
+    var count = productService.exportProducts(since, ExportFormat.NDJSON, output);
+
+    //Then
+    assertEquals(1, count);
+    var ndjson = output.toString(StandardCharsets.UTF_8);
+    assertTrue(ndjson.startsWith("{\"productId\":\"" + products.get(0).getProductId() + "\",\"productName\":\"Product 1\""));
+    assertTrue(ndjson.endsWith("\"updatedAt\":\"" + LocalDate.now() + "\"}\n"));
+    verify(productRepository, never()).streamAll();
+  }
+}
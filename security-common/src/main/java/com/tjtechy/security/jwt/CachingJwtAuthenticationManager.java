@@ -0,0 +1,55 @@
+/*
+ * Copyright © 2025
+ * @Author = TJTechy (Tajudeen Busari)
+ * @Version = 1.0
+ * This file is part of the security module of the Ecommerce Microservices project.
+ */
+package com.tjtechy.security.jwt;
+
+import org.springframework.core.convert.converter.Converter;
+import org.springframework.security.authentication.AbstractAuthenticationToken;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.server.resource.authentication.BearerTokenAuthenticationToken;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationProvider;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
+
+/**
+ * Bearer token authentication of the WebMVC services that verifies each token once:
+ * a token in the {@link VerifiedTokenCache} is authenticated from it, any other one is decoded and converted
+ * by a {@link JwtAuthenticationProvider} (same errors as without the cache) and cached.
+ */
+public class CachingJwtAuthenticationManager implements AuthenticationManager {
+
+  private final JwtAuthenticationProvider delegate;
+
+  private final VerifiedTokenCache cache;
+
+  public CachingJwtAuthenticationManager(JwtDecoder jwtDecoder,
+                                         Converter<Jwt, ? extends AbstractAuthenticationToken> jwtAuthenticationConverter,
+                                         VerifiedTokenCache cache) {
+    this.delegate = new JwtAuthenticationProvider(jwtDecoder);
+    this.delegate.setJwtAuthenticationConverter(jwtAuthenticationConverter);
+    this.cache = cache;
+  }
+
+  @Override
+  public Authentication authenticate(Authentication authentication) throws AuthenticationException {
+    if (!(authentication instanceof BearerTokenAuthenticationToken bearer)) {
+      return delegate.authenticate(authentication);
+    }
+    var cached = cache.get(bearer.getToken());
+    if (cached != null) {
+      cached.setDetails(bearer.getDetails());
+      return cached;
+    }
+    var authenticated = delegate.authenticate(bearer);
+    if (authenticated instanceof JwtAuthenticationToken jwtAuthentication) {
+      cache.put(bearer.getToken(), jwtAuthentication);
+    }
+    return authenticated;
+  }
+}
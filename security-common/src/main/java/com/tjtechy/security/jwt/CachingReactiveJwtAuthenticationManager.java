@@ -0,0 +1,57 @@
+/*
+ * Copyright © 2025
+ * @Author = TJTechy (Tajudeen Busari)
+ * @Version = 1.0
+ * This file is part of the security module of the Ecommerce Microservices project.
+ */
+package com.tjtechy.security.jwt;
+
+import org.springframework.core.convert.converter.Converter;
+import org.springframework.security.authentication.AbstractAuthenticationToken;
+import org.springframework.security.authentication.ReactiveAuthenticationManager;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.ReactiveJwtDecoder;
+import org.springframework.security.oauth2.server.resource.authentication.BearerTokenAuthenticationToken;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
+import org.springframework.security.oauth2.server.resource.authentication.JwtReactiveAuthenticationManager;
+import reactor.core.publisher.Mono;
+
+/**
+ * Reactive counterpart of {@link CachingJwtAuthenticationManager}, for the WebFlux gateway and services:
+ * a cached token is authenticated without subscribing to the decoder, any other one goes through a
+ * {@link JwtReactiveAuthenticationManager} and is cached once verified.
+ */
+public class CachingReactiveJwtAuthenticationManager implements ReactiveAuthenticationManager {
+
+  private final JwtReactiveAuthenticationManager delegate;
+
+  private final VerifiedTokenCache cache;
+
+  public CachingReactiveJwtAuthenticationManager(ReactiveJwtDecoder jwtDecoder,
+                                                 Converter<Jwt, ? extends Mono<? extends AbstractAuthenticationToken>> jwtAuthenticationConverter,
+                                                 VerifiedTokenCache cache) {
+    this.delegate = new JwtReactiveAuthenticationManager(jwtDecoder);
+    this.delegate.setJwtAuthenticationConverter(jwtAuthenticationConverter);
+    this.cache = cache;
+  }
+
+  @Override
+  public Mono<Authentication> authenticate(Authentication authentication) {
+    if (!(authentication instanceof BearerTokenAuthenticationToken bearer)) {
+      return delegate.authenticate(authentication);
+    }
+    return Mono.defer(() -> {
+      var cached = cache.get(bearer.getToken());
+      if (cached != null) {
+        return Mono.just(cached);
+      }
+      return delegate.authenticate(bearer)
+              .doOnNext(authenticated -> {
+                if (authenticated instanceof JwtAuthenticationToken jwtAuthentication) {
+                  cache.put(bearer.getToken(), jwtAuthentication);
+                }
+              });
+    });
+  }
+}
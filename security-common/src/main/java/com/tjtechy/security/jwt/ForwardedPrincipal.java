@@ -0,0 +1,35 @@
+/*
+ * Copyright © 2025
+ * @Author = TJTechy (Tajudeen Busari)
+ * @Version = 1.0
+ * This file is part of the security module of the Ecommerce Microservices project.
+ */
+package com.tjtechy.security.jwt;
+
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * What the services need of a verified token: who sent the request, with which authorities, and until when.
+ *
+ * @param name the principal name, the subject of the token
+ * @param authorities the authorities converted from the token, like ROLE_ADMIN
+ * @param expiresAt the expiry of the token
+ */
+public record ForwardedPrincipal(String name, List<String> authorities, Instant expiresAt) {
+
+  public static ForwardedPrincipal of(JwtAuthenticationToken authentication, Instant defaultExpiry) {
+    var expiresAt = authentication.getToken().getExpiresAt();
+    return new ForwardedPrincipal(authentication.getName(),
+            authentication.getAuthorities().stream().map(GrantedAuthority::getAuthority).toList(),
+            expiresAt != null ? expiresAt : defaultExpiry);
+  }
+
+  public List<GrantedAuthority> grantedAuthorities() {
+    return authorities.stream().<GrantedAuthority>map(SimpleGrantedAuthority::new).toList();
+  }
+}
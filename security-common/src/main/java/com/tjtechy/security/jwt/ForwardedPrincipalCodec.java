@@ -0,0 +1,104 @@
+/*
+ * Copyright © 2025
+ * @Author = TJTechy (Tajudeen Busari)
+ * @Version = 1.0
+ * This file is part of the security module of the Ecommerce Microservices project.
+ */
+package com.tjtechy.security.jwt;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Writes and reads the principal header the gateway forwards to the services once it verified a token.
+ * <p>
+ *   Layout: name.expiry.authorities.signature, with the name, the space separated authorities and the
+ *   signature in base64url and the expiry in epoch seconds. The signature is the HMAC-SHA256 of the first
+ *   three parts with the secret shared by the gateway and the services, so a header cannot be forged or
+ *   altered without the secret; checking it costs a hash instead of an RSA verification.
+ * </p>
+ * A header that is malformed, badly signed or expired reads as null, and the request falls back to its bearer token.
+ */
+public class ForwardedPrincipalCodec {
+
+  private static final String ALGORITHM = "HmacSHA256";
+
+  private static final int MIN_SECRET_BYTES = 32;
+
+  private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+
+  private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+  private final SecretKeySpec key;
+
+  public ForwardedPrincipalCodec(String secret) {
+    if (secret == null || secret.getBytes(StandardCharsets.UTF_8).length < MIN_SECRET_BYTES) {
+      throw new IllegalStateException("app.security.jwt.principal-header.secret must be at least "
+              + MIN_SECRET_BYTES + " bytes long when the principal header is enabled");
+    }
+    this.key = new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), ALGORITHM);
+  }
+
+  public String encode(ForwardedPrincipal principal) {
+    var payload = encode(principal.name()) + "." + principal.expiresAt().getEpochSecond() + "."
+            + encode(String.join(" ", principal.authorities()));
+    return payload + "." + ENCODER.encodeToString(sign(payload));
+  }
+
+  /**
+   * @return the principal of a valid header, null for a missing, malformed, forged or expired one
+   */
+  public ForwardedPrincipal decode(String header) {
+    if (header == null) {
+      return null;
+    }
+    var signatureStart = header.lastIndexOf('.');
+    var parts = header.split("\\.", -1);
+    if (signatureStart < 0 || parts.length != 4) {
+      return null;
+    }
+    try {
+      var payload = header.substring(0, signatureStart);
+      if (!MessageDigest.isEqual(sign(payload), DECODER.decode(parts[3]))) {
+        return null;
+      }
+      var expiresAt = Instant.ofEpochSecond(Long.parseLong(parts[1]));
+      if (!Instant.now().isBefore(expiresAt)) {
+        return null;
+      }
+      var authorities = decode(parts[2]);
+      return new ForwardedPrincipal(decode(parts[0]),
+              authorities.isEmpty() ? List.of() : Arrays.asList(authorities.split(" ")), expiresAt);
+    } catch (IllegalArgumentException e) {
+      //not base64url or not a number
+      return null;
+    }
+  }
+
+  private byte[] sign(String payload) {
+    try {
+      //a Mac is not thread safe, and creating one is cheap next to the RSA verification it replaces
+      var mac = Mac.getInstance(ALGORITHM);
+      mac.init(key);
+      return mac.doFinal(payload.getBytes(StandardCharsets.UTF_8));
+    } catch (GeneralSecurityException e) {
+      //every JVM ships HmacSHA256
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private static String encode(String value) {
+    return ENCODER.encodeToString(value.getBytes(StandardCharsets.UTF_8));
+  }
+
+  private static String decode(String value) {
+    return new String(DECODER.decode(value), StandardCharsets.UTF_8);
+  }
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright © 2025
+ * @Author = TJTechy (Tajudeen Busari)
+ * @Version = 1.0
+ * This file is part of the security module of the Ecommerce Microservices project.
+ */
+package com.tjtechy.security.jwt;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Settings of the verified-token cache and of the forwarded principal header, under app.security.jwt.
+ * Enabled by the SecurityConfiguration of security-webflux and security-webmvc, and by the api-gateway.
+ */
+@ConfigurationProperties(prefix = "app.security.jwt")
+public class TokenVerificationProperties {
+
+  //most tokens in use at once on one instance; the least used ones are verified again when it is full
+  private int cacheMaxEntries = 10_000;
+
+  //a token is cached until it expires, but no longer than this
+  private Duration cacheMaxTtl = Duration.ofMinutes(15);
+
+  private final PrincipalHeader principalHeader = new PrincipalHeader();
+
+  public int getCacheMaxEntries() {
+    return cacheMaxEntries;
+  }
+
+  public void setCacheMaxEntries(int cacheMaxEntries) {
+    this.cacheMaxEntries = cacheMaxEntries;
+  }
+
+  public Duration getCacheMaxTtl() {
+    return cacheMaxTtl;
+  }
+
+  public void setCacheMaxTtl(Duration cacheMaxTtl) {
+    this.cacheMaxTtl = cacheMaxTtl;
+  }
+
+  public PrincipalHeader getPrincipalHeader() {
+    return principalHeader;
+  }
+
+  /**
+   * The compact principal the gateway forwards once it verified the token, so that the services behind it
+   * do not verify the token again. Off by default; it must be enabled on the gateway and on the services
+   * with the same secret, and only on an internal network the clients cannot reach the services through.
+   */
+  public static class PrincipalHeader {
+
+    private boolean enabled = false;
+
+    private String name = "X-Verified-Principal";
+
+    //HMAC-SHA256 key shared by the gateway and the services, at least 32 bytes
+    private String secret;
+
+    public boolean isEnabled() {
+      return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+      this.enabled = enabled;
+    }
+
+    public String getName() {
+      return name;
+    }
+
+    public void setName(String name) {
+      this.name = name;
+    }
+
+    public String getSecret() {
+      return secret;
+    }
+
+    public void setSecret(String secret) {
+      this.secret = secret;
+    }
+  }
+}
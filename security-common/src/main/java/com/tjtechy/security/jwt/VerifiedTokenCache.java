@@ -0,0 +1,129 @@
+/*
+ * Copyright © 2025
+ * @Author = TJTechy (Tajudeen Busari)
+ * @Version = 1.0
+ * This file is part of the security module of the Ecommerce Microservices project.
+ */
+package com.tjtechy.security.jwt;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.Ticker;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Tokens whose signature and claims were already verified, with the authorities converted from them.
+ * <p>
+ *   Verifying a JWT means an RSA signature check and parsing its claims, on every request and again at
+ *   every service the request goes through. A token is the same string on each of its requests, so once
+ *   verified, its later requests only hash it and look it up here.
+ * </p>
+ * Entries are keyed by the SHA-256 of the token, expire with the token (or after {@code maxTtl}, whichever
+ * comes first) and the least used ones are dropped past {@code maxEntries}. A token that is not cached is
+ * simply verified again, so the cache never accepts a token the decoder would reject before its expiry.
+ */
+public class VerifiedTokenCache {
+
+  private final Cache<String, VerifiedToken> tokens;
+
+  private final Duration maxTtl;
+
+  public VerifiedTokenCache(int maxEntries, Duration maxTtl) {
+    this(maxEntries, maxTtl, Ticker.systemTicker());
+  }
+
+  //the ticker of the expiries, for tests
+  VerifiedTokenCache(int maxEntries, Duration maxTtl, Ticker ticker) {
+    this.maxTtl = maxTtl;
+    this.tokens = Caffeine.newBuilder()
+            .ticker(ticker)
+            .maximumSize(maxEntries)
+            .expireAfter(new Expiry<String, VerifiedToken>() {
+              @Override
+              public long expireAfterCreate(String key, VerifiedToken value, long currentTime) {
+                return timeToLive(value.jwt()).toNanos();
+              }
+
+              @Override
+              public long expireAfterUpdate(String key, VerifiedToken value, long currentTime, long currentDuration) {
+                return timeToLive(value.jwt()).toNanos();
+              }
+
+              @Override
+              public long expireAfterRead(String key, VerifiedToken value, long currentTime, long currentDuration) {
+                return currentDuration;
+              }
+            })
+            .build();
+  }
+
+  /**
+   * @param token the compact JWT sent by the client
+   * @return a new authentication for the token if it was verified and has not expired, null otherwise
+   */
+  public JwtAuthenticationToken get(String token) {
+    var verified = tokens.getIfPresent(hash(token));
+    //the token value is compared too, a hash collision must not authenticate another token
+    if (verified == null || !verified.jwt().getTokenValue().equals(token) || isExpired(verified.jwt())) {
+      return null;
+    }
+    //one authentication per request, the filters set its details
+    return new JwtAuthenticationToken(verified.jwt(), verified.authorities(), verified.name());
+  }
+
+  /**
+   * Caches a token once the decoder verified it and the converter built its authentication.
+   */
+  public void put(String token, JwtAuthenticationToken authentication) {
+    var jwt = authentication.getToken();
+    if (isExpired(jwt)) {
+      return;
+    }
+    tokens.put(hash(token), new VerifiedToken(jwt, List.copyOf(authentication.getAuthorities()), authentication.getName()));
+  }
+
+  public long size() {
+    return tokens.estimatedSize();
+  }
+
+  private Duration timeToLive(Jwt jwt) {
+    var expiresAt = jwt.getExpiresAt();
+    if (expiresAt == null) {
+      return maxTtl;
+    }
+    var untilExpiry = Duration.between(Instant.now(), expiresAt);
+    if (untilExpiry.isNegative()) {
+      return Duration.ZERO;
+    }
+    return untilExpiry.compareTo(maxTtl) < 0 ? untilExpiry : maxTtl;
+  }
+
+  private static boolean isExpired(Jwt jwt) {
+    return jwt.getExpiresAt() != null && !Instant.now().isBefore(jwt.getExpiresAt());
+  }
+
+  private static String hash(String token) {
+    try {
+      var digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.US_ASCII));
+      return Base64.getUrlEncoder().withoutPadding().encodeToString(digest);
+    } catch (NoSuchAlgorithmException e) {
+      //every JVM ships SHA-256
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private record VerifiedToken(Jwt jwt, Collection<GrantedAuthority> authorities, String name) {
+  }
+}
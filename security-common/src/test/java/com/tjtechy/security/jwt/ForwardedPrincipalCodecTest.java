@@ -0,0 +1,112 @@
+/*
+ * Copyright © 2025
+ * @Author = TJTechy (Tajudeen Busari)
+ * @Version = 1.0
+ * This file is part of the security module of the Ecommerce Microservices project.
+ */
+package com.tjtechy.security.jwt;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Base64;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ForwardedPrincipalCodecTest {
+
+  private static final String SECRET = "0123456789abcdef0123456789abcdef";
+
+  private final ForwardedPrincipalCodec codec = new ForwardedPrincipalCodec(SECRET);
+
+  @Test
+  void testDecodeReadsBackTheEncodedPrincipal() {
+    //Given
+    var principal = principal("john", List.of("ROLE_USER", "ROLE_ADMIN"), Duration.ofMinutes(5));
+
+    //When
+    var decoded = codec.decode(codec.encode(principal));
+
+    //Then
+    assertEquals(principal, decoded);
+  }
+
+  @Test
+  void testDecodeReadsBackAPrincipalWithoutAuthorities() {
+    var principal = principal("john", List.of(), Duration.ofMinutes(5));
+
+    assertEquals(principal, codec.decode(codec.encode(principal)));
+  }
+
+  @Test
+  void testDecodeRejectsAHeaderSignedWithAnotherSecret() {
+    //Given
+    var otherCodec = new ForwardedPrincipalCodec("another secret of at least 32 bytes");
+    var header = otherCodec.encode(principal("john", List.of("ROLE_USER"), Duration.ofMinutes(5)));
+
+    //When, Then
+    assertNull(codec.decode(header));
+  }
+
+  @Test
+  void testDecodeRejectsATamperedName() {
+    var parts = codec.encode(principal("john", List.of("ROLE_USER"), Duration.ofMinutes(5))).split("\\.");
+    parts[0] = base64("admin");
+
+    assertNull(codec.decode(String.join(".", parts)));
+  }
+
+  @Test
+  void testDecodeRejectsTamperedAuthorities() {
+    var parts = codec.encode(principal("john", List.of("ROLE_USER"), Duration.ofMinutes(5))).split("\\.");
+    parts[2] = base64("ROLE_USER ROLE_ADMIN");
+
+    assertNull(codec.decode(String.join(".", parts)));
+  }
+
+  @Test
+  void testDecodeRejectsAnExtendedExpiry() {
+    var parts = codec.encode(principal("john", List.of("ROLE_USER"), Duration.ofMinutes(5))).split("\\.");
+    parts[1] = Long.toString(Instant.now().plus(Duration.ofDays(365)).getEpochSecond());
+
+    assertNull(codec.decode(String.join(".", parts)));
+  }
+
+  @Test
+  void testDecodeRejectsAnExpiredHeader() {
+    var header = codec.encode(principal("john", List.of("ROLE_USER"), Duration.ofSeconds(-1)));
+
+    assertNull(codec.decode(header));
+  }
+
+  @Test
+  void testDecodeRejectsMalformedHeaders() {
+    assertNull(codec.decode(null));
+    assertNull(codec.decode(""));
+    assertNull(codec.decode("john"));
+    assertNull(codec.decode("a.b.c"));
+    assertNull(codec.decode("a.b.c.d.e"));
+    assertNull(codec.decode("!!.not-a-number.!!.!!"));
+  }
+
+  @Test
+  void testCodecRequiresASecretOfAtLeast32Bytes() {
+    assertThrows(IllegalStateException.class, () -> new ForwardedPrincipalCodec(null));
+    assertThrows(IllegalStateException.class, () -> new ForwardedPrincipalCodec("too short"));
+  }
+
+  private static ForwardedPrincipal principal(String name, List<String> authorities, Duration ttl) {
+    //the header keeps the expiry in seconds
+    return new ForwardedPrincipal(name, authorities, Instant.now().plus(ttl).truncatedTo(ChronoUnit.SECONDS));
+  }
+
+  private static String base64(String value) {
+    return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+  }
+}
@@ -0,0 +1,124 @@
+/*
+ * Copyright © 2025
+ * @Author = TJTechy (Tajudeen Busari)
+ * @Version = 1.0
+ * This file is part of the security module of the Ecommerce Microservices project.
+ */
+package com.tjtechy.security.jwt;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class VerifiedTokenCacheTest {
+
+  //the time of the cache expiries, moved by the tests
+  private final AtomicLong nanos = new AtomicLong();
+
+  @Test
+  void testGetReturnsTheCachedAuthentication() {
+    //Given
+    var cache = new VerifiedTokenCache(100, Duration.ofMinutes(15), nanos::get);
+    cache.put("token-1", authentication("token-1", Instant.now().plus(Duration.ofHours(1))));
+
+    //When
+    var first = cache.get("token-1");
+    var second = cache.get("token-1");
+
+    //Then
+    assertNotNull(first);
+    assertEquals("john", first.getName());
+    assertEquals(List.of(new SimpleGrantedAuthority("ROLE_USER")), List.copyOf(first.getAuthorities()));
+    //a new authentication per request
+    assertNotSame(first, second);
+    assertNull(cache.get("token-2"));
+  }
+
+  @Test
+  void testEntryExpiresWithTheTokenBeforeTheMaxTtl() {
+    //Given: the token expires in 2 minutes, the max TTL is 15 minutes
+    var cache = new VerifiedTokenCache(100, Duration.ofMinutes(15), nanos::get);
+    cache.put("token-1", authentication("token-1", Instant.now().plus(Duration.ofMinutes(2))));
+
+    //When
+    nanos.addAndGet(Duration.ofMinutes(1).toNanos());
+    var beforeExpiry = cache.get("token-1");
+    nanos.addAndGet(Duration.ofMinutes(2).toNanos());
+    var afterExpiry = cache.get("token-1");
+
+    //Then
+    assertNotNull(beforeExpiry);
+    assertNull(afterExpiry);
+  }
+
+  @Test
+  void testEntryExpiresAfterTheMaxTtlBeforeTheToken() {
+    //Given: the token expires in 1 hour, the max TTL is 15 minutes
+    var cache = new VerifiedTokenCache(100, Duration.ofMinutes(15), nanos::get);
+    cache.put("token-1", authentication("token-1", Instant.now().plus(Duration.ofHours(1))));
+
+    //When
+    nanos.addAndGet(Duration.ofMinutes(14).toNanos());
+    var beforeMaxTtl = cache.get("token-1");
+    nanos.addAndGet(Duration.ofMinutes(2).toNanos());
+    var afterMaxTtl = cache.get("token-1");
+
+    //Then
+    assertNotNull(beforeMaxTtl);
+    assertNull(afterMaxTtl);
+  }
+
+  @Test
+  void testReadsDoNotExtendTheEntry() {
+    var cache = new VerifiedTokenCache(100, Duration.ofMinutes(15), nanos::get);
+    cache.put("token-1", authentication("token-1", Instant.now().plus(Duration.ofHours(1))));
+
+    for (var minute = 0; minute < 16; minute++) {
+      cache.get("token-1");
+      nanos.addAndGet(Duration.ofMinutes(1).toNanos());
+    }
+
+    assertNull(cache.get("token-1"));
+  }
+
+  @Test
+  void testExpiredTokenIsNotCached() {
+    var cache = new VerifiedTokenCache(100, Duration.ofMinutes(15), nanos::get);
+
+    cache.put("token-1", authentication("token-1", Instant.now().minusSeconds(1)));
+
+    assertNull(cache.get("token-1"));
+    assertEquals(0, cache.size());
+  }
+
+  @Test
+  void testGetDoesNotAuthenticateAnotherTokenUnderTheSameHash() {
+    //Given: an entry whose token is not the one it is stored under, as a hash collision would leave it
+    var cache = new VerifiedTokenCache(100, Duration.ofMinutes(15), nanos::get);
+    cache.put("token-1", authentication("token-2", Instant.now().plus(Duration.ofHours(1))));
+
+    //When, Then
+    assertNull(cache.get("token-1"));
+  }
+
+  private static JwtAuthenticationToken authentication(String tokenValue, Instant expiresAt) {
+    var jwt = Jwt.withTokenValue(tokenValue)
+            .header("alg", "RS256")
+            .subject("john")
+            .issuedAt(expiresAt.minus(Duration.ofHours(2)))
+            .expiresAt(expiresAt)
+            .build();
+    return new JwtAuthenticationToken(jwt, List.of(new SimpleGrantedAuthority("ROLE_USER")), "john");
+  }
+}
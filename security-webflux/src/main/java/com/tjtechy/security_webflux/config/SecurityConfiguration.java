@@ -13,8 +13,12 @@ import com.nimbusds.jose.jwk.RSAKey;
 import com.nimbusds.jose.jwk.source.ImmutableJWKSet;
 import com.nimbusds.jose.jwk.source.JWKSource;
 import com.nimbusds.jose.proc.SecurityContext;
+import com.tjtechy.security.jwt.CachingReactiveJwtAuthenticationManager;
+import com.tjtechy.security.jwt.TokenVerificationProperties;
+import com.tjtechy.security.jwt.VerifiedTokenCache;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.core.convert.converter.Converter;
@@ -39,6 +43,7 @@ import java.security.interfaces.RSAPublicKey;
 
 @Configuration
 @EnableWebFluxSecurity
+@EnableConfigurationProperties(TokenVerificationProperties.class)
 @ConditionalOnProperty(name="app.security.enabled", havingValue = "true", matchIfMissing = true) //helps to disable security in tests or when not needed by setting app.security.enabled=false in application.properties
 public class SecurityConfiguration {
 
@@ -92,6 +97,16 @@ public class SecurityConfiguration {
             .build();
   }
 
+  /**
+   * Tokens already verified, with their authorities, so that the next requests of a token skip the
+   * signature check and the claim parsing. Sized and bounded by app.security.jwt.cache-*.
+   */
+  @Bean
+  public VerifiedTokenCache verifiedTokenCache(TokenVerificationProperties tokenVerificationProperties){
+    return new VerifiedTokenCache(tokenVerificationProperties.getCacheMaxEntries(),
+            tokenVerificationProperties.getCacheMaxTtl());
+  }
+
   /**
    * JWT Authentication Converter bean
    * This bean is used to extract authorities from the JWT token.
@@ -122,7 +137,7 @@ public class SecurityConfiguration {
    *
    */
   @Bean
-  public SecurityWebFilterChain securityFilterChain(ServerHttpSecurity http) {
+  public SecurityWebFilterChain securityFilterChain(ServerHttpSecurity http, VerifiedTokenCache verifiedTokenCache) {
     return http
             .authorizeExchange(exchanges -> exchanges
                     //user-service/auth-service endpoints security rules
@@ -158,7 +173,9 @@ public class SecurityConfiguration {
             //.oauth2ResourceServer(oauth2 -> oauth2.jwt(Customizer.withDefaults()))
             .oauth2ResourceServer(oauth2 -> oauth2
                     .jwt(jwt ->
-                            jwt.jwtAuthenticationConverter(jwtAuthenticationConverter()))) //configure the JWT authentication converter to extract authorities from the JWT token
+                            //verify each token once, its later requests are authenticated from the verified token cache
+                            jwt.authenticationManager(new CachingReactiveJwtAuthenticationManager(
+                                    jwtDecoder(), jwtAuthenticationConverter(), verifiedTokenCache)))) //the converter extracts the authorities from the JWT token
 
             //disable session management as we are using JWT (stateless JWT tokens)
             .securityContextRepository(NoOpServerSecurityContextRepository.getInstance())
@@ -0,0 +1,64 @@
+package com.tjtechy.security_webmvc.config;
+
+import com.tjtechy.security.jwt.ForwardedPrincipalCodec;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.oauth2.server.resource.web.BearerTokenResolver;
+import org.springframework.security.oauth2.server.resource.web.DefaultBearerTokenResolver;
+import org.springframework.security.web.authentication.preauth.PreAuthenticatedAuthenticationToken;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Authenticates the requests forwarded by the gateway from the principal header it signed once it verified
+ * the token, instead of verifying the token again. Runs before the bearer token authentication, which then
+ * skips the request (see {@link #bearerTokenResolver()}); a request without a valid header is authenticated
+ * from its bearer token as usual.
+ */
+public class PrincipalHeaderAuthenticationFilter extends OncePerRequestFilter {
+
+  private static final Logger logger = LoggerFactory.getLogger(PrincipalHeaderAuthenticationFilter.class);
+
+  private static final String AUTHENTICATED_ATTRIBUTE = PrincipalHeaderAuthenticationFilter.class.getName() + ".AUTHENTICATED";
+
+  private final String headerName;
+
+  private final ForwardedPrincipalCodec codec;
+
+  public PrincipalHeaderAuthenticationFilter(String headerName, ForwardedPrincipalCodec codec) {
+    this.headerName = headerName;
+    this.codec = codec;
+  }
+
+  @Override
+  protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+          throws ServletException, IOException {
+    var header = request.getHeader(headerName);
+    if (header != null) {
+      var principal = codec.decode(header);
+      if (principal != null) {
+        var context = SecurityContextHolder.getContextHolderStrategy().createEmptyContext();
+        context.setAuthentication(new PreAuthenticatedAuthenticationToken(principal.name(), null, principal.grantedAuthorities()));
+        SecurityContextHolder.getContextHolderStrategy().setContext(context);
+        request.setAttribute(AUTHENTICATED_ATTRIBUTE, Boolean.TRUE);
+      } else {
+        logger.debug("Ignoring an invalid or expired {} header, authenticating the bearer token instead", headerName);
+      }
+    }
+    filterChain.doFilter(request, response);
+  }
+
+  /**
+   * The default bearer token resolver, except for the requests this filter authenticated.
+   */
+  public static BearerTokenResolver bearerTokenResolver() {
+    var delegate = new DefaultBearerTokenResolver();
+    return request -> request.getAttribute(AUTHENTICATED_ATTRIBUTE) != null ? null : delegate.resolve(request);
+  }
+}
@@ -6,8 +6,13 @@ import com.nimbusds.jose.jwk.RSAKey;
 import com.nimbusds.jose.jwk.source.ImmutableJWKSet;
 import com.nimbusds.jose.jwk.source.JWKSource;
 import com.nimbusds.jose.proc.SecurityContext;
+import com.tjtechy.security.jwt.CachingJwtAuthenticationManager;
+import com.tjtechy.security.jwt.ForwardedPrincipalCodec;
+import com.tjtechy.security.jwt.TokenVerificationProperties;
+import com.tjtechy.security.jwt.VerifiedTokenCache;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.boot.security.autoconfigure.actuate.web.servlet.EndpointRequest;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -23,6 +28,9 @@ import org.springframework.security.oauth2.jwt.NimbusJwtDecoder;
 import org.springframework.security.oauth2.jwt.NimbusJwtEncoder;
 import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationConverter;
 import org.springframework.security.oauth2.server.resource.authentication.JwtGrantedAuthoritiesConverter;
+import org.springframework.security.oauth2.server.resource.web.BearerTokenResolver;
+import org.springframework.security.oauth2.server.resource.web.DefaultBearerTokenResolver;
+import org.springframework.security.oauth2.server.resource.web.authentication.BearerTokenAuthenticationFilter;
 import org.springframework.security.web.SecurityFilterChain;
 
 import java.security.KeyPair;
@@ -33,6 +41,7 @@ import java.security.interfaces.RSAPublicKey;
 
 @Configuration
 @EnableWebSecurity
+@EnableConfigurationProperties(TokenVerificationProperties.class)
 @ConditionalOnProperty(name = "app.security.enabled", havingValue = "true", matchIfMissing = true)
 public class SecurityConfiguration {
 
@@ -52,10 +61,34 @@ public class SecurityConfiguration {
     return jwtAuthenticationConverter;
   }
 
+  /**
+   * Tokens already verified, with their authorities, so that the next requests of a token skip the
+   * signature check and the claim parsing. Sized and bounded by app.security.jwt.cache-*.
+   */
   @Bean
-  public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
+  public VerifiedTokenCache verifiedTokenCache(TokenVerificationProperties tokenVerificationProperties){
+    return new VerifiedTokenCache(tokenVerificationProperties.getCacheMaxEntries(),
+            tokenVerificationProperties.getCacheMaxTtl());
+  }
+
+  /**
+   * The JwtDecoder is the one auto-configured from spring.security.oauth2.resourceserver.jwt (jwk-set-uri).
+   */
+  @Bean
+  public SecurityFilterChain securityFilterChain(HttpSecurity http, JwtDecoder jwtDecoder, VerifiedTokenCache verifiedTokenCache,
+                                                 TokenVerificationProperties tokenVerificationProperties) throws Exception {
+    var principalHeader = tokenVerificationProperties.getPrincipalHeader();
+    BearerTokenResolver bearerTokenResolver = principalHeader.isEnabled()
+            ? PrincipalHeaderAuthenticationFilter.bearerTokenResolver()
+            : new DefaultBearerTokenResolver();
+    if (principalHeader.isEnabled()) {
+      //trust the principal forwarded by the gateway, which already verified the token
+      http.addFilterBefore(new PrincipalHeaderAuthenticationFilter(principalHeader.getName(),
+              new ForwardedPrincipalCodec(principalHeader.getSecret())), BearerTokenAuthenticationFilter.class);
+    }
     return http
             .authorizeHttpRequests(authorizeHttpRequests -> authorizeHttpRequests
+                    .requestMatchers(HttpMethod.GET, this.baseUrl + "/product/export").hasAuthority("ROLE_ADMIN") //bulk export of the catalog, ADMIN only
                     .requestMatchers(HttpMethod.GET, this.baseUrl + "/product").permitAll() //allow unauthenticated access to GET /product endpoint
                     .requestMatchers(HttpMethod.GET, this.baseUrl + "/product/**").permitAll() //allow unauthenticated access to GET /product/{id} endpoint
 
@@ -94,9 +127,12 @@ public class SecurityConfiguration {
             .csrf(AbstractHttpConfigurer::disable) //disable to allow post, put, delete requests without csrf token
             .cors(Customizer.withDefaults())
             .httpBasic(AbstractHttpConfigurer::disable) //disable basic auth
-            .oauth2ResourceServer(oauth2 ->
-                    oauth2.jwt(jwt ->
-                            jwt.jwtAuthenticationConverter(customJwtAuthenticationConverter())))//configure the JWT authentication converter to extract authorities from the JWT token
+            .oauth2ResourceServer(oauth2 -> oauth2
+                    .bearerTokenResolver(bearerTokenResolver)
+                    .jwt(jwt ->
+                            //verify each token once, its later requests are authenticated from the verified token cache
+                            jwt.authenticationManager(new CachingJwtAuthenticationManager(
+                                    jwtDecoder, customJwtAuthenticationConverter(), verifiedTokenCache))))//the converter extracts the authorities from the JWT token
 
             //disable session management as we are using JWT (stateless JWT tokens)
             .sessionManagement(session ->
@@ -0,0 +1,141 @@
+/*
+ * Copyright © 2025
+ * @Author = TJTechy (Tajudeen Busari)
+ * @Version = 1.0
+ * This file is part of the system module of the Ecommerce Microservices project.
+ */
+
+package com.tjtechy.actuator;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordingStream;
+import jdk.management.VirtualThreadSchedulerMXBean;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Collectors;
+
+/**
+ * Metrics and pinning detection for services running with spring.threads.virtual.enabled=true.
+ * <p>
+ *   The carrier gauges come from the JDK {@link VirtualThreadSchedulerMXBean}:
+ *   <ul>
+ *     <li>jvm.threads.virtual.carrier.parallelism: target number of carrier threads.</li>
+ *     <li>jvm.threads.virtual.carrier.pool.size: carrier threads currently started.</li>
+ *     <li>jvm.threads.virtual.mounted: virtual threads currently running on a carrier.</li>
+ *     <li>jvm.threads.virtual.queued: virtual threads ready to run but waiting for a carrier.</li>
+ *   </ul>
+ *   Pinning is read from the jdk.VirtualThreadPinned JFR event. Every pin longer than
+ *   app.virtual-threads.pinned-threshold (20ms by default) is recorded in the jvm.threads.virtual.pinned timer
+ *   and logged at WARN with the top of its stack, so the driver or class holding the carrier can be found.
+ *   Failed virtual thread starts are counted in jvm.threads.virtual.submit.failed.
+ * </p>
+ * The meters are exposed through /actuator/metrics and /actuator/prometheus.
+ */
+@Component
+@ConditionalOnProperty(name = "spring.threads.virtual.enabled", havingValue = "true")
+public class VirtualThreadMonitor implements MeterBinder, DisposableBean {
+
+  private static final Logger logger = LoggerFactory.getLogger(VirtualThreadMonitor.class);
+
+  private static final int LOGGED_FRAMES = 12;
+
+  private final Duration pinnedThreshold;
+
+  private final List<Timer> pinnedTimers = new CopyOnWriteArrayList<>();
+
+  private final List<Counter> submitFailedCounters = new CopyOnWriteArrayList<>();
+
+  private RecordingStream recordingStream;
+
+  public VirtualThreadMonitor(@Value("${app.virtual-threads.pinned-threshold:20ms}") Duration pinnedThreshold) {
+    this.pinnedThreshold = pinnedThreshold;
+  }
+
+  @Override
+  public void bindTo(MeterRegistry registry) {
+    var scheduler = ManagementFactory.getPlatformMXBean(VirtualThreadSchedulerMXBean.class);
+    Gauge.builder("jvm.threads.virtual.carrier.parallelism", scheduler, VirtualThreadSchedulerMXBean::getParallelism)
+            .description("Target number of carrier threads of the virtual thread scheduler")
+            .register(registry);
+    Gauge.builder("jvm.threads.virtual.carrier.pool.size", scheduler, VirtualThreadSchedulerMXBean::getPoolSize)
+            .description("Number of carrier threads started by the virtual thread scheduler")
+            .register(registry);
+    Gauge.builder("jvm.threads.virtual.mounted", scheduler, VirtualThreadSchedulerMXBean::getMountedVirtualThreadCount)
+            .description("Virtual threads currently mounted on a carrier thread")
+            .register(registry);
+    Gauge.builder("jvm.threads.virtual.queued", scheduler, VirtualThreadSchedulerMXBean::getQueuedVirtualThreadCount)
+            .description("Virtual threads waiting for a carrier thread")
+            .register(registry);
+
+    pinnedTimers.add(Timer.builder("jvm.threads.virtual.pinned")
+            .description("Time virtual threads stayed pinned to their carrier thread")
+            .register(registry));
+    submitFailedCounters.add(Counter.builder("jvm.threads.virtual.submit.failed")
+            .description("Virtual threads that could not be started or unparked")
+            .register(registry));
+
+    startRecording();
+  }
+
+  @Override
+  public void destroy() {
+    if (recordingStream != null) {
+      recordingStream.close();
+    }
+  }
+
+  //one JFR stream per JVM, however many registries the meters are bound to
+  private void startRecording() {
+    if (recordingStream != null) {
+      return;
+    }
+    recordingStream = new RecordingStream();
+    recordingStream.enable("jdk.VirtualThreadPinned").withThreshold(pinnedThreshold).withStackTrace();
+    recordingStream.enable("jdk.VirtualThreadSubmitFailed");
+    recordingStream.onEvent("jdk.VirtualThreadPinned", this::onPinned);
+    recordingStream.onEvent("jdk.VirtualThreadSubmitFailed",
+            event -> submitFailedCounters.forEach(Counter::increment));
+    recordingStream.startAsync();
+    logger.info("Virtual thread monitor started, logging pins longer than {}", pinnedThreshold);
+  }
+
+  private void onPinned(RecordedEvent event) {
+    pinnedTimers.forEach(timer -> timer.record(event.getDuration()));
+    if (logger.isWarnEnabled()) {
+      logger.warn("Virtual thread {} pinned its carrier for {} ms at:\n{}",
+              event.getThread() != null ? event.getThread().getJavaName() : "?",
+              event.getDuration().toMillis(),
+              formatStackTrace(event));
+    }
+  }
+
+  private static String formatStackTrace(RecordedEvent event) {
+    if (event.getStackTrace() == null) {
+      return "\t<no stack trace>";
+    }
+    return event.getStackTrace().getFrames().stream()
+            .limit(LOGGED_FRAMES)
+            .map(VirtualThreadMonitor::formatFrame)
+            .collect(Collectors.joining("\n"));
+  }
+
+  private static String formatFrame(RecordedFrame frame) {
+    var method = frame.getMethod();
+    return "\tat " + method.getType().getName() + "." + method.getName() + ":" + frame.getLineNumber();
+  }
+}
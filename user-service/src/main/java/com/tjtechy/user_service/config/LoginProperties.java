@@ -0,0 +1,75 @@
+/*
+ * Copyright © 2025
+ * @Author = TJTechy (Tajudeen Busari)
+ * @Version = 1.0
+ * This file is part of the User Service module of the Ecommerce Microservices project.
+ */
+package com.tjtechy.user_service.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Limits of the password verification of the logins, and the proxies trusted to tell the client address, under app.login.
+ */
+@Component
+@ConfigurationProperties(prefix = "app.login")
+public class LoginProperties {
+  //threads hashing passwords, 0 for half of the processors so that the event loops keep the other half
+  private int hashingThreads = 0;
+
+  //logins waiting for a hashing thread, the next ones are refused with 429
+  private int queueCapacity = 64;
+
+  //logins of one username verified at once
+  private int maxConcurrentPerUsername = 2;
+
+  //logins of one client address verified at once
+  private int maxConcurrentPerClient = 8;
+
+  //addresses or CIDR ranges of the proxies (the api-gateway) whose X-Forwarded-For is trusted, none by default
+  private List<String> trustedProxies = new ArrayList<>();
+
+  public int getHashingThreads() {
+    return hashingThreads;
+  }
+
+  public void setHashingThreads(int hashingThreads) {
+    this.hashingThreads = hashingThreads;
+  }
+
+  public int getQueueCapacity() {
+    return queueCapacity;
+  }
+
+  public void setQueueCapacity(int queueCapacity) {
+    this.queueCapacity = queueCapacity;
+  }
+
+  public int getMaxConcurrentPerUsername() {
+    return maxConcurrentPerUsername;
+  }
+
+  public void setMaxConcurrentPerUsername(int maxConcurrentPerUsername) {
+    this.maxConcurrentPerUsername = maxConcurrentPerUsername;
+  }
+
+  public int getMaxConcurrentPerClient() {
+    return maxConcurrentPerClient;
+  }
+
+  public void setMaxConcurrentPerClient(int maxConcurrentPerClient) {
+    this.maxConcurrentPerClient = maxConcurrentPerClient;
+  }
+
+  public List<String> getTrustedProxies() {
+    return trustedProxies;
+  }
+
+  public void setTrustedProxies(List<String> trustedProxies) {
+    this.trustedProxies = trustedProxies;
+  }
+}
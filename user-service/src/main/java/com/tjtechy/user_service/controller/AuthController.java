@@ -11,6 +11,7 @@ import com.tjtechy.StatusCode;
 import com.tjtechy.user_service.service.impl.AuthService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.server.reactive.ServerHttpRequest;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
@@ -25,16 +26,21 @@ public class AuthController {
 
     private final AuthService authService;
 
-    public AuthController(AuthService authService) {
+    private final ClientAddressResolver clientAddressResolver;
+
+    public AuthController(AuthService authService, ClientAddressResolver clientAddressResolver) {
 
         this.authService = authService;
+        this.clientAddressResolver = clientAddressResolver;
     }
 
     @PostMapping("/login")
-    public Mono<Result> getLoginInfo(@RequestBody LoginRequestDto loginRequest) {
+    public Mono<Result> getLoginInfo(@RequestBody LoginRequestDto loginRequest, ServerHttpRequest request) {
         logger.debug("Authenticated user : '{}'", loginRequest.username());
-        return authService.createLoginInfo(loginRequest.username(), loginRequest.password())
+        return authService.createLoginInfo(loginRequest.username(), loginRequest.password(),
+                        clientAddressResolver.resolve(request))
                 .map(loginInfoMap ->
                         new Result("User Info and JSON Web Token", true, loginInfoMap, StatusCode.SUCCESS));
     }
-}
\ No newline at end of file
+
+}
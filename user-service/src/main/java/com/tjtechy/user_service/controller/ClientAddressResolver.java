@@ -0,0 +1,88 @@
+/*
+ * Copyright © 2025
+ * @Author = TJTechy (Tajudeen Busari)
+ * @Version = 1.0
+ * This file is part of the user-service module of the EcommerceMicroservices project.
+ */
+package com.tjtechy.user_service.controller;
+
+import com.tjtechy.user_service.config.LoginProperties;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.security.web.util.matcher.IpAddressMatcher;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The address of the client of a request, used to limit its concurrent logins.
+ * <p>
+ *   The entries of X-Forwarded-For are written by whoever sent them, so the header is only read when the request
+ *   comes from a trusted proxy (app.login.trusted-proxies), and then from the right: the client address is the last
+ *   entry that is not a trusted proxy, the one the first trusted proxy appended. The entries before it are ignored.
+ *   Any other request counts against its remote address.
+ * </p>
+ */
+@Component
+public class ClientAddressResolver {
+
+  private static final String X_FORWARDED_FOR = "X-Forwarded-For";
+
+  private final List<IpAddressMatcher> trustedProxies;
+
+  public ClientAddressResolver(LoginProperties loginProperties) {
+    this.trustedProxies = loginProperties.getTrustedProxies().stream()
+            .map(String::trim)
+            .filter(proxy -> !proxy.isEmpty())
+            .map(IpAddressMatcher::new)
+            .toList();
+  }
+
+  /**
+   * @return the address of the client, null when unknown
+   */
+  public String resolve(ServerHttpRequest request) {
+    var remoteAddress = request.getRemoteAddress();
+    if (remoteAddress == null || remoteAddress.getAddress() == null) {
+      return null;
+    }
+    var address = remoteAddress.getAddress().getHostAddress();
+    if (!isTrustedProxy(address)) {
+      return address;
+    }
+    var forwardedFor = forwardedFor(request);
+    for (var i = forwardedFor.size() - 1; i >= 0; i--) {
+      address = forwardedFor.get(i);
+      if (!isTrustedProxy(address)) {
+        return address;
+      }
+    }
+    //only trusted proxies on the way: the first one is the client
+    return address;
+  }
+
+  private boolean isTrustedProxy(String address) {
+    try {
+      return trustedProxies.stream().anyMatch(proxy -> proxy.matches(address));
+    } catch (IllegalArgumentException e) {
+      //not an IP address, it cannot be one of the proxies
+      return false;
+    }
+  }
+
+  //every entry of every X-Forwarded-For header, in order
+  private static List<String> forwardedFor(ServerHttpRequest request) {
+    var entries = new ArrayList<String>();
+    var headers = request.getHeaders().get(X_FORWARDED_FOR);
+    if (headers != null) {
+      for (var header : headers) {
+        for (var entry : header.split(",")) {
+          if (!entry.isBlank()) {
+            entries.add(entry.trim());
+          }
+        }
+      }
+    }
+    return entries;
+  }
+}
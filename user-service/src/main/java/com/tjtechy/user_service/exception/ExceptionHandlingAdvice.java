@@ -10,6 +10,7 @@ package com.tjtechy.user_service.exception;
 import com.tjtechy.Result;
 import com.tjtechy.StatusCode;
 import com.tjtechy.UsernameAlreadyExistsException;
+import com.tjtechy.businessException.TooManyLoginAttemptsException;
 import com.tjtechy.modelNotFoundException.UserNotFoundException;
 import org.springframework.http.HttpStatus;
 import org.springframework.security.authentication.BadCredentialsException;
@@ -52,6 +53,16 @@ public class ExceptionHandlingAdvice {
     return new Result("username or password is incorrect", false, ex.getMessage(), StatusCode.UNAUTHORIZED);
   }
 
+  /**
+   * Handles exceptions of type {@link TooManyLoginAttemptsException}.
+   * The login was refused before its password was checked, HTTP 429 tells the client to retry later.
+   */
+  @ExceptionHandler(TooManyLoginAttemptsException.class)
+  @ResponseStatus(HttpStatus.TOO_MANY_REQUESTS)
+  public Result handleTooManyLoginAttemptsException(TooManyLoginAttemptsException ex) {
+    return new Result(ex.getMessage(), false, StatusCode.TOO_MANY_REQUESTS);
+  }
+
   @ExceptionHandler(UsernameAlreadyExistsException.class)
   @ResponseStatus(HttpStatus.BAD_REQUEST)
   public Result handleUsernameAlreadyExistsException(Exception ex) {
@@ -10,6 +10,8 @@ package com.tjtechy.user_service.repository;
 
 
 import userutils.entity.User;
+import org.springframework.data.r2dbc.repository.Modifying;
+import org.springframework.data.r2dbc.repository.Query;
 import org.springframework.data.r2dbc.repository.R2dbcRepository;
 import reactor.core.publisher.Mono;
 
@@ -23,4 +25,9 @@ import java.util.UUID;
 public interface UserRepository extends R2dbcRepository<User, UUID> {
   // Custom query method to find a user by username
   Mono<User> findByUserName(String userName);
+
+  // Replaces the password hash only, when it is rehashed at the current cost on login
+  @Modifying
+  @Query("UPDATE users SET password = :password WHERE user_id = :userId")
+  Mono<Integer> updatePassword(UUID userId, String password);
 }
@@ -24,6 +24,10 @@ public interface UserService {
   //Mono<List<User>> getAllUsers();
   Flux<User> findAllUsers();
   Mono<User> updateUser(UUID id, User user);
+  /**
+   * Stores a new hash of the password of a user, the password itself does not change.
+   */
+  Mono<Void> updatePasswordHash(UUID id, String encodedPassword);
   Mono<Void> deleteUser(UUID id);
   Mono<Void> deleteAllUsersByIds(Iterable<UUID> ids);
   Flux<User> updateAllUsers(Flux<User> users);
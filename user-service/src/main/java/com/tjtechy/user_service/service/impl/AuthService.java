@@ -13,7 +13,6 @@ import org.slf4j.Logger;
 import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import userutils.dto.LoginResponseDto;
 import userutils.entity.User;
 import org.springframework.security.core.Authentication;
@@ -31,28 +30,31 @@ public class AuthService {
 
     private final UserService userService;
 
-    private final PasswordEncoder passwordEncoder;
+    //checks the passwords off the event loop, with a bounded queue and per username/client limits
+    private final PasswordVerifier passwordVerifier;
 
     private static final Logger logger = org.slf4j.LoggerFactory.getLogger(AuthService.class);
 
-    public AuthService(JwtProvider jwtProvider, UserService userService, PasswordEncoder passwordEncoder){
+    public AuthService(JwtProvider jwtProvider, UserService userService, PasswordVerifier passwordVerifier){
 
         this.jwtProvider= jwtProvider;
       this.userService = userService;
-      this.passwordEncoder = passwordEncoder;
+      this.passwordVerifier = passwordVerifier;
     }
 
     //Instead of the HashMap<String, Object> we used to return,
     // we can create a DTO class to hold the user info and token,
     // and return that DTO instead. This is more type safe and easier to maintain.
-    public Mono<LoginResponseDto> createLoginInfo(String username, String password) {
+    //clientAddress is the address of the client, used to limit its concurrent logins; null when unknown
+    public Mono<LoginResponseDto> createLoginInfo(String username, String password, String clientAddress) {
 
         return userService.findUserByUsername(username)
                 .switchIfEmpty(Mono.error(new UsernameNotFoundException("User not found with username: " + username)))
-                .flatMap(user -> authenticateAndGenerateToken(user, password));
+                .flatMap(user -> passwordVerifier.matches(username, clientAddress, password, user.getPassword())
+                        .flatMap(matches -> authenticateAndGenerateToken(user, password, matches)));
     }
 
-    private Mono<LoginResponseDto> authenticateAndGenerateToken(User user, String rawPassword) {
+    private Mono<LoginResponseDto> authenticateAndGenerateToken(User user, String rawPassword, boolean matches) {
 
         //for debugging why password does not match
         //TODO: Kindly remove this after debugging
@@ -62,7 +64,6 @@ public class AuthService {
         //logger.info("=======Stored password: {}========", user.getPassword());
         //logger.info("==========Expected configured password: '{}'",adminProp.getPassword());
 
-        boolean matches = passwordEncoder.matches(rawPassword, user.getPassword());
         logger.info("=====Password matches: {}==========", matches);
 
         //validate password
@@ -70,6 +71,12 @@ public class AuthService {
             return Mono.error(new BadCredentialsException("Invalid username or password"));
         }
 
+        //the hash was stored at a lower cost than the current one: store it again at the current cost,
+        //without making the client wait for it
+        if (passwordVerifier.needsRehash(user.getPassword())) {
+            rehashPassword(user, rawPassword);
+        }
+
         //create principal
         MyUserPrincipal principal = new MyUserPrincipal(user);
 
@@ -96,4 +103,13 @@ public class AuthService {
         return Mono.just(loginResponse);
     }
 
-}
\ No newline at end of file
+    private void rehashPassword(User user, String rawPassword) {
+        passwordVerifier.encode(rawPassword)
+                .flatMap(encodedPassword -> userService.updatePasswordHash(user.getUserId(), encodedPassword))
+                .subscribe(
+                        unused -> { },
+                        //the login succeeded anyway, the next one tries again
+                        error -> logger.warn("Could not rehash the password of user {}: {}", user.getUserName(), error.getMessage()));
+    }
+
+}
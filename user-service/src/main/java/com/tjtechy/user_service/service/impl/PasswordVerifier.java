@@ -0,0 +1,191 @@
+/*
+ * Copyright © 2025
+ * @Author = TJTechy (Tajudeen Busari)
+ * @Version = 1.0
+ * This file is part of the user-service module of the EcommerceMicroservices project.
+ */
+package com.tjtechy.user_service.service.impl;
+
+import com.tjtechy.businessException.TooManyLoginAttemptsException;
+import com.tjtechy.user_service.config.LoginProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Runs the BCrypt work of the logins off the event loop, on a small pool of its own.
+ * <p>
+ *   A BCrypt(12) check takes about 250ms of CPU; run on a Netty thread, a burst of logins would stall every
+ *   other request of the service. Here the checks wait in a bounded queue for a hashing thread, and a login
+ *   is refused with {@link TooManyLoginAttemptsException} (429) when the queue is full, or when too many
+ *   logins of the same username or client address are already being checked, instead of queueing without end.
+ * </p>
+ * Metrics: auth.password.hashing (time of a check or an encoding), auth.password.queue.wait,
+ * auth.password.queue.size, auth.password.active and auth.login.rejected by reason.
+ */
+@Component
+public class PasswordVerifier implements AutoCloseable {
+
+  private static final Logger logger = LoggerFactory.getLogger(PasswordVerifier.class);
+
+  private final PasswordEncoder passwordEncoder;
+
+  private final ThreadPoolExecutor executor;
+
+  private final Scheduler scheduler;
+
+  private final int maxConcurrentPerUsername;
+
+  private final int maxConcurrentPerClient;
+
+  //checks in progress (queued or running) per username and per client address, removed at zero
+  private final Map<String, Integer> inFlightByUsername = new ConcurrentHashMap<>();
+  private final Map<String, Integer> inFlightByClient = new ConcurrentHashMap<>();
+
+  private final Timer hashing;
+  private final Timer queueWait;
+  private final Counter rejectedByUsername;
+  private final Counter rejectedByClient;
+  private final Counter rejectedByQueue;
+
+  public PasswordVerifier(PasswordEncoder passwordEncoder, LoginProperties properties, MeterRegistry meterRegistry) {
+    this.passwordEncoder = passwordEncoder;
+    this.maxConcurrentPerUsername = properties.getMaxConcurrentPerUsername();
+    this.maxConcurrentPerClient = properties.getMaxConcurrentPerClient();
+    var threads = properties.getHashingThreads() > 0
+            ? properties.getHashingThreads()
+            : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+    var threadCount = new AtomicInteger();
+    //AbortPolicy: a full queue rejects the check right away
+    this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(properties.getQueueCapacity()),
+            runnable -> {
+              var thread = new Thread(runnable, "password-hashing-" + threadCount.incrementAndGet());
+              thread.setDaemon(true);
+              return thread;
+            });
+    this.scheduler = Schedulers.fromExecutorService(executor, "password-hashing");
+
+    this.hashing = Timer.builder("auth.password.hashing")
+            .description("Time of a password check or encoding on a hashing thread")
+            .register(meterRegistry);
+    this.queueWait = Timer.builder("auth.password.queue.wait")
+            .description("Time a password check waited for a hashing thread")
+            .register(meterRegistry);
+    Gauge.builder("auth.password.queue.size", executor, pool -> pool.getQueue().size())
+            .description("Password checks waiting for a hashing thread")
+            .register(meterRegistry);
+    Gauge.builder("auth.password.active", executor, ThreadPoolExecutor::getActiveCount)
+            .description("Hashing threads busy")
+            .register(meterRegistry);
+    this.rejectedByUsername = rejectedCounter(meterRegistry, "username");
+    this.rejectedByClient = rejectedCounter(meterRegistry, "client");
+    this.rejectedByQueue = rejectedCounter(meterRegistry, "queue_full");
+  }
+
+  /**
+   * @param username the username of the login, limited to a few checks at once
+   * @param clientAddress the address of the client, limited to a few checks at once; null when unknown
+   * @return whether the password matches the stored hash, checked on the hashing pool
+   */
+  public Mono<Boolean> matches(String username, String clientAddress, String rawPassword, String encodedPassword) {
+    return Mono.defer(() -> {
+      if (!tryAcquire(inFlightByUsername, username, maxConcurrentPerUsername)) {
+        rejectedByUsername.increment();
+        logger.warn("Refusing a login of {}: {} logins of this username already in progress", username, maxConcurrentPerUsername);
+        return Mono.error(new TooManyLoginAttemptsException());
+      }
+      if (clientAddress != null && !tryAcquire(inFlightByClient, clientAddress, maxConcurrentPerClient)) {
+        release(inFlightByUsername, username);
+        rejectedByClient.increment();
+        logger.warn("Refusing a login from {}: {} logins of this client already in progress", clientAddress, maxConcurrentPerClient);
+        return Mono.error(new TooManyLoginAttemptsException());
+      }
+      return onHashingPool(() -> passwordEncoder.matches(rawPassword, encodedPassword))
+              .doFinally(signal -> {
+                release(inFlightByUsername, username);
+                if (clientAddress != null) {
+                  release(inFlightByClient, clientAddress);
+                }
+              });
+    });
+  }
+
+  /**
+   * @return whether a hash was stored at an outdated cost (or algorithm) and should be replaced
+   */
+  public boolean needsRehash(String encodedPassword) {
+    return passwordEncoder.upgradeEncoding(encodedPassword);
+  }
+
+  /**
+   * @return the hash of the password at the current cost, encoded on the hashing pool
+   */
+  public Mono<String> encode(String rawPassword) {
+    return onHashingPool(() -> passwordEncoder.encode(rawPassword));
+  }
+
+  @Override
+  public void close() {
+    scheduler.dispose();
+    executor.shutdown();
+  }
+
+  private <T> Mono<T> onHashingPool(Supplier<T> work) {
+    return Mono.defer(() -> {
+      var queuedAt = System.nanoTime();
+      return Mono.fromCallable(() -> {
+                queueWait.record(System.nanoTime() - queuedAt, TimeUnit.NANOSECONDS);
+                return hashing.record(work);
+              })
+              .subscribeOn(scheduler)
+              .onErrorMap(RejectedExecutionException.class, e -> {
+                rejectedByQueue.increment();
+                logger.warn("Refusing a password check: {} checks already waiting for a hashing thread", executor.getQueue().size());
+                return new TooManyLoginAttemptsException();
+              });
+    });
+  }
+
+  private static boolean tryAcquire(Map<String, Integer> inFlight, String key, int limit) {
+    var acquired = new AtomicBoolean();
+    inFlight.compute(key, (k, count) -> {
+      var current = count == null ? 0 : count;
+      if (current >= limit) {
+        return count;
+      }
+      acquired.set(true);
+      return current + 1;
+    });
+    return acquired.get();
+  }
+
+  private static void release(Map<String, Integer> inFlight, String key) {
+    inFlight.computeIfPresent(key, (k, count) -> count > 1 ? count - 1 : null);
+  }
+
+  private static Counter rejectedCounter(MeterRegistry meterRegistry, String reason) {
+    return Counter.builder("auth.login.rejected")
+            .description("Logins refused before their password was checked, by reason")
+            .tag("reason", reason)
+            .register(meterRegistry);
+  }
+}
@@ -123,6 +123,14 @@ public class UserServiceImpl implements UserService, ReactiveUserDetailsService
   }
 
 
+  @Override
+  public Mono<Void> updatePasswordHash(UUID id, String encodedPassword) {
+    return userRepository.updatePassword(id, encodedPassword)
+            .doOnNext(updated -> logger.info("Rehashed the password of user with id: {}", id))
+            .then();
+  }
+
+
   @Override
   public Mono<Void> deleteUser(UUID id) {
     //first find the user by id else throw error
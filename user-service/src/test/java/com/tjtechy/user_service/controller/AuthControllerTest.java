@@ -8,6 +8,7 @@ package com.tjtechy.user_service.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.tjtechy.RedisCacheConfig;
+import com.tjtechy.businessException.TooManyLoginAttemptsException;
 import com.tjtechy.user_service.exception.ExceptionHandlingAdvice;
 import com.tjtechy.user_service.service.impl.AuthService;
 import org.junit.jupiter.api.AfterEach;
@@ -38,6 +39,7 @@ import userutils.entity.User;
 import java.util.UUID;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @WebFluxTest(controllers = AuthController.class)
@@ -71,6 +73,9 @@ class AuthControllerTest {
   @MockitoBean
   private AuthService authService;
 
+  @MockitoBean
+  private ClientAddressResolver clientAddressResolver;
+
   @MockitoBean
   private RedisConnectionFactory redisConnectionFactory;
 
@@ -92,7 +97,7 @@ class AuthControllerTest {
     );
 
     var json = objectMapper.writeValueAsString(loginRequest);
-    when(authService.createLoginInfo(any(String.class), any(String.class)))
+    when(authService.createLoginInfo(any(String.class), any(String.class), any()))
             .thenReturn(Mono.just(new LoginResponseDto(userDto, "testToken")));
 
     //when and then
@@ -119,7 +124,7 @@ class AuthControllerTest {
     //given
     var loginRequest = new LoginRequestDto("invalidUser", "invalidPassword");
     var json = objectMapper.writeValueAsString(loginRequest);
-    when(authService.createLoginInfo(any(String.class), any(String.class)))
+    when(authService.createLoginInfo(any(String.class), any(String.class), any()))
             .thenReturn(Mono.error(new UsernameNotFoundException("username not found with username: invalidUser")));
 
     //when and then
@@ -137,4 +142,26 @@ class AuthControllerTest {
     String responseString = new String(responseBody);
     System.out.println("Response Body: " + responseString);
   }
-}
\ No newline at end of file
+
+  @Test
+  void getLoginInfoTooManyAttempts() throws Exception {
+    //given
+    var loginRequest = new LoginRequestDto("testuser", "testpassword");
+    var json = objectMapper.writeValueAsString(loginRequest);
+    when(clientAddressResolver.resolve(any())).thenReturn("10.0.0.1");
+    when(authService.createLoginInfo(any(String.class), any(String.class), any()))
+            .thenReturn(Mono.error(new TooManyLoginAttemptsException()));
+
+    //when and then
+    webTestClient.post()
+            .uri(baseUrl + "/auth/login")
+            .bodyValue(json)
+            .header("Content-Type", "application/json")
+            .exchange()
+            .expectStatus().isEqualTo(429)
+            .expectBody()
+            .jsonPath("$.flag").isEqualTo(false)
+            .jsonPath("$.code").isEqualTo(429);
+    verify(authService).createLoginInfo("testuser", "testpassword", "10.0.0.1");
+  }
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright © 2025
+ * @Author = TJTechy (Tajudeen Busari)
+ * @Version = 1.0
+ * This file is part of the user-service module of the Ecommerce Microservices project.
+ */
+package com.tjtechy.user_service.controller;
+
+import com.tjtechy.user_service.config.LoginProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+
+import java.net.InetSocketAddress;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class ClientAddressResolverTest {
+
+  private ClientAddressResolver clientAddressResolver;
+
+  @BeforeEach
+  void setUp() {
+    var loginProperties = new LoginProperties();
+    loginProperties.setTrustedProxies(List.of("172.16.0.0/12", "10.0.0.5"));
+    clientAddressResolver = new ClientAddressResolver(loginProperties);
+  }
+
+  @Test
+  void testResolveIgnoresTheForwardedForOfAnUntrustedSender() {
+    //Given: a client calling the service directly, with a made-up X-Forwarded-For
+    var request = request("203.0.113.9", "198.51.100.1");
+
+    //When, Then
+    assertEquals("203.0.113.9", clientAddressResolver.resolve(request));
+  }
+
+  @Test
+  void testResolveUsesTheEntryAppendedByTheTrustedProxy() {
+    //Given: the client sent its own X-Forwarded-For, the gateway appended the address it saw
+    var request = request("172.18.0.12", "198.51.100.1, 203.0.113.9");
+
+    //When, Then
+    assertEquals("203.0.113.9", clientAddressResolver.resolve(request));
+  }
+
+  @Test
+  void testResolveSkipsTheTrustedProxiesOnTheWay() {
+    var request = request("172.18.0.12", "198.51.100.1, 203.0.113.9, 10.0.0.5");
+
+    assertEquals("203.0.113.9", clientAddressResolver.resolve(request));
+  }
+
+  @Test
+  void testResolveReadsEveryForwardedForHeader() {
+    var request = MockServerHttpRequest.post("/api/v1/auth/login")
+            .remoteAddress(new InetSocketAddress("172.18.0.12", 40000))
+            .header("X-Forwarded-For", "198.51.100.1")
+            .header("X-Forwarded-For", "203.0.113.9")
+            .build();
+
+    assertEquals("203.0.113.9", clientAddressResolver.resolve(request));
+  }
+
+  @Test
+  void testResolveUsesTheRemoteAddressOfATrustedProxyWithoutForwardedFor() {
+    assertEquals("172.18.0.12", clientAddressResolver.resolve(request("172.18.0.12", null)));
+  }
+
+  @Test
+  void testResolveReturnsNullWithoutARemoteAddress() {
+    var request = MockServerHttpRequest.post("/api/v1/auth/login")
+            .header("X-Forwarded-For", "203.0.113.9")
+            .build();
+
+    assertNull(clientAddressResolver.resolve(request));
+  }
+
+  private static MockServerHttpRequest request(String remoteAddress, String forwardedFor) {
+    var request = MockServerHttpRequest.post("/api/v1/auth/login")
+            .remoteAddress(new InetSocketAddress(remoteAddress, 40000));
+    if (forwardedFor != null) {
+      request.header("X-Forwarded-For", forwardedFor);
+    }
+    return request.build();
+  }
+}
@@ -6,6 +6,7 @@
  */
 package com.tjtechy.user_service.service.impl;
 
+import com.tjtechy.businessException.TooManyLoginAttemptsException;
 import com.tjtechy.user_service.service.UserService;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
@@ -15,7 +16,6 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.security.core.Authentication;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
 import userutils.dto.LoginResponseDto;
@@ -30,6 +30,8 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 
 @ExtendWith(MockitoExtension.class)
 class AuthServiceTest {
@@ -39,7 +41,7 @@ class AuthServiceTest {
   @Mock
   private UserService userService;
   @Mock
-  private PasswordEncoder passwordEncoder;
+  private PasswordVerifier passwordVerifier;
 
   @InjectMocks
   private AuthService authService;
@@ -113,11 +115,11 @@ class AuthServiceTest {
 
     //given
     given(userService.findUserByUsername("john_doe")).willReturn(Mono.just(users.getFirst()));
-    given(passwordEncoder.matches("password123", "encodedPassword123")).willReturn(true);
+    given(passwordVerifier.matches("john_doe", "10.0.0.1", "password123", "encodedPassword123")).willReturn(Mono.just(true));
     given(jwtProvider.createToken(any(Authentication.class))).willReturn("mockedJwtToken");
 
     //when
-    Mono<LoginResponseDto> result = authService.createLoginInfo("john_doe", "password123");
+    Mono<LoginResponseDto> result = authService.createLoginInfo("john_doe", "password123", "10.0.0.1");
 
     //then
     StepVerifier.create(result)
@@ -125,6 +127,57 @@ class AuthServiceTest {
               assertEquals("mockedJwtToken", res.token());
               assertNotNull(res.userInfo());
             }).verifyComplete();
+    verify(userService, never()).updatePasswordHash(any(), any());
+  }
+
+  /**
+   * User exists
+   * Password is correct but its hash was stored at an outdated cost
+   * Expected: the login succeeds and the password is stored again with a hash at the current cost.
+   */
+  @Test
+  void createLoginInfoRehashesOutdatedHash() {
+
+    //given
+    var user = users.getFirst();
+    given(userService.findUserByUsername("john_doe")).willReturn(Mono.just(user));
+    given(passwordVerifier.matches("john_doe", "10.0.0.1", "password123", "encodedPassword123")).willReturn(Mono.just(true));
+    given(passwordVerifier.needsRehash("encodedPassword123")).willReturn(true);
+    given(passwordVerifier.encode("password123")).willReturn(Mono.just("rehashedPassword123"));
+    given(userService.updatePasswordHash(user.getUserId(), "rehashedPassword123")).willReturn(Mono.empty());
+    given(jwtProvider.createToken(any(Authentication.class))).willReturn("mockedJwtToken");
+
+    //when
+    Mono<LoginResponseDto> result = authService.createLoginInfo("john_doe", "password123", "10.0.0.1");
+
+    //then
+    StepVerifier.create(result)
+            .assertNext(res -> assertEquals("mockedJwtToken", res.token()))
+            .verifyComplete();
+    verify(userService).updatePasswordHash(user.getUserId(), "rehashedPassword123");
+  }
+
+  /**
+   * User exists
+   * Too many logins of the user are already being checked
+   * Expected: TooManyLoginAttemptsException, and no token is created.
+   */
+  @Test
+  void createLoginInfoTooManyAttempts() {
+
+    //given
+    given(userService.findUserByUsername("john_doe")).willReturn(Mono.just(users.getFirst()));
+    given(passwordVerifier.matches("john_doe", "10.0.0.1", "password123", "encodedPassword123"))
+            .willReturn(Mono.error(new TooManyLoginAttemptsException()));
+
+    //when
+    Mono<LoginResponseDto> result = authService.createLoginInfo("john_doe", "password123", "10.0.0.1");
+
+    //then
+    StepVerifier.create(result)
+            .expectError(TooManyLoginAttemptsException.class)
+            .verify();
+    verify(jwtProvider, never()).createToken(any(Authentication.class));
   }
 
   /**
@@ -139,7 +192,7 @@ class AuthServiceTest {
     given(userService.findUserByUsername("non_existent_user")).willReturn(Mono.empty());
 
     //when
-    Mono<LoginResponseDto> result = authService.createLoginInfo("non_existent_user", "password123");
+    Mono<LoginResponseDto> result = authService.createLoginInfo("non_existent_user", "password123", "10.0.0.1");
 
     //then
     StepVerifier.create(result)
@@ -160,10 +213,10 @@ class AuthServiceTest {
 
     //given
     given(userService.findUserByUsername("john_doe")).willReturn(Mono.just(users.getFirst()));
-    given(passwordEncoder.matches("wrongPassword", "encodedPassword123")).willReturn(false);
+    given(passwordVerifier.matches("john_doe", "10.0.0.1", "wrongPassword", "encodedPassword123")).willReturn(Mono.just(false));
 
     //when
-    Mono<LoginResponseDto> result = authService.createLoginInfo("john_doe", "wrongPassword");
+    Mono<LoginResponseDto> result = authService.createLoginInfo("john_doe", "wrongPassword", "10.0.0.1");
 
     //then
     StepVerifier.create(result)
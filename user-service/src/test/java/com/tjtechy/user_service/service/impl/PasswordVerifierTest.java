@@ -0,0 +1,142 @@
+/*
+ * Copyright © 2025
+ * @Author = TJTechy (Tajudeen Busari)
+ * @Version = 1.0
+ * This file is part of the user-service module of the Ecommerce Microservices project.
+ */
+package com.tjtechy.user_service.service.impl;
+
+import com.tjtechy.businessException.TooManyLoginAttemptsException;
+import com.tjtechy.user_service.config.LoginProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import reactor.test.StepVerifier;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PasswordVerifierTest {
+
+  private SimpleMeterRegistry meterRegistry;
+
+  private LoginProperties properties;
+
+  private PasswordVerifier passwordVerifier;
+
+  //released by the tests, holds the checks of BlockingPasswordEncoder
+  private CountDownLatch release;
+
+  @BeforeEach
+  void setUp() {
+    meterRegistry = new SimpleMeterRegistry();
+    properties = new LoginProperties();
+    properties.setHashingThreads(1);
+    properties.setQueueCapacity(1);
+    properties.setMaxConcurrentPerUsername(1);
+    properties.setMaxConcurrentPerClient(2);
+    release = new CountDownLatch(1);
+  }
+
+  @AfterEach
+  void tearDown() {
+    release.countDown();
+    if (passwordVerifier != null) {
+      passwordVerifier.close();
+    }
+  }
+
+  @Test
+  void matchesChecksThePasswordOnTheHashingPool() {
+    var encoder = new BCryptPasswordEncoder(4);
+    passwordVerifier = new PasswordVerifier(encoder, properties, meterRegistry);
+    var hash = encoder.encode("password123");
+
+    StepVerifier.create(passwordVerifier.matches("john_doe", "10.0.0.1", "password123", hash))
+            .expectNext(true)
+            .verifyComplete();
+    StepVerifier.create(passwordVerifier.matches("john_doe", "10.0.0.1", "wrongPassword", hash))
+            .expectNext(false)
+            .verifyComplete();
+    assertEquals(2, meterRegistry.get("auth.password.hashing").timer().count());
+  }
+
+  @Test
+  void matchesRefusesConcurrentLoginsOfTheSameUsername() {
+    passwordVerifier = new PasswordVerifier(new BlockingPasswordEncoder(), properties, meterRegistry);
+
+    var first = passwordVerifier.matches("john_doe", "10.0.0.1", "password123", "hash").toFuture();
+
+    StepVerifier.create(passwordVerifier.matches("john_doe", "10.0.0.2", "password123", "hash"))
+            .expectError(TooManyLoginAttemptsException.class)
+            .verify();
+    assertEquals(1.0, meterRegistry.get("auth.login.rejected").tag("reason", "username").counter().count());
+
+    //once the first login is checked, the username can log in again
+    release.countDown();
+    assertTrue(first.join());
+    StepVerifier.create(passwordVerifier.matches("john_doe", "10.0.0.1", "password123", "hash"))
+            .expectNext(true)
+            .verifyComplete();
+  }
+
+  @Test
+  void matchesRefusesLoginsWhenTheQueueIsFull() throws InterruptedException {
+    var encoder = new BlockingPasswordEncoder();
+    passwordVerifier = new PasswordVerifier(encoder, properties, meterRegistry);
+
+    //the first check holds the only hashing thread, the second one fills the queue
+    var running = passwordVerifier.matches("john_doe", null, "password123", "hash").toFuture();
+    assertTrue(encoder.started.await(5, TimeUnit.SECONDS));
+    var queued = passwordVerifier.matches("jane_smith", null, "password456", "hash").toFuture();
+
+    StepVerifier.create(passwordVerifier.matches("invalid_user", null, "password789", "hash"))
+            .expectError(TooManyLoginAttemptsException.class)
+            .verify();
+    assertEquals(1.0, meterRegistry.get("auth.login.rejected").tag("reason", "queue_full").counter().count());
+
+    release.countDown();
+    assertTrue(running.join());
+    assertTrue(queued.join());
+  }
+
+  @Test
+  void needsRehashDetectsHashesOfALowerCost() {
+    passwordVerifier = new PasswordVerifier(new BCryptPasswordEncoder(6), properties, meterRegistry);
+
+    assertTrue(passwordVerifier.needsRehash(new BCryptPasswordEncoder(4).encode("password123")));
+    assertFalse(passwordVerifier.needsRehash(new BCryptPasswordEncoder(6).encode("password123")));
+    StepVerifier.create(passwordVerifier.encode("password123").map(hash -> passwordVerifier.needsRehash(hash)))
+            .expectNext(false)
+            .verifyComplete();
+  }
+
+  //matches every password, once the test releases it
+  private class BlockingPasswordEncoder implements PasswordEncoder {
+
+    private final CountDownLatch started = new CountDownLatch(1);
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+      return "hash";
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+      started.countDown();
+      try {
+        return release.await(5, TimeUnit.SECONDS);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return false;
+      }
+    }
+  }
+}